@@ -0,0 +1,89 @@
+package allaboutecm.dataaccess;
+
+import allaboutecm.model.Album;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Numbering albums densely and looking their numbers up, with {@link Ordinals} and with a list and a HashMap of
+ * boxed ints as the mining indexes kept before, e.g.
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="OrdinalsBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrdinalsBenchmark {
+    @Param({"100000"})
+    public int albums;
+
+    private List<Album> albumList;
+    private List<Album> lookups;
+    private Ordinals<Album> ordinals;
+    private Map<Album, Integer> index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        albumList = Lists.newArrayListWithCapacity(albums);
+        for (int i = 0; i < albums; i++) {
+            albumList.add(new Album(1970 + i % 50, "ECM " + i, "Album " + i));
+        }
+        //Equal copies in another order, as another load would return them.
+        lookups = Lists.newArrayListWithCapacity(albums);
+        for (int i = 0; i < albums; i++) {
+            lookups.add(new Album(1970 + i % 50, "ECM " + i, "Album " + i));
+        }
+        Collections.shuffle(lookups, new Random(42));
+        ordinals = Ordinals.of(albumList);
+        index = mapIndex(albumList);
+    }
+
+    @Benchmark
+    public Ordinals<Album> buildOrdinals() {
+        return Ordinals.of(albumList);
+    }
+
+    @Benchmark
+    public Map<Album, Integer> buildMap() {
+        return mapIndex(albumList);
+    }
+
+    @Benchmark
+    public long lookUpOrdinals() {
+        long sum = 0;
+        for (Album album : lookups) {
+            sum += ordinals.ordinal(album);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long lookUpMap() {
+        long sum = 0;
+        for (Album album : lookups) {
+            sum += index.get(album);
+        }
+        return sum;
+    }
+
+    private static Map<Album, Integer> mapIndex(List<Album> albums) {
+        List<Album> list = Lists.newArrayListWithCapacity(albums.size());
+        Map<Album, Integer> index = Maps.newHashMapWithExpectedSize(albums.size());
+        for (Album a : albums) {
+            if (!index.containsKey(a)) {
+                index.put(a, list.size());
+                list.add(a);
+            }
+        }
+        return index;
+    }
+}
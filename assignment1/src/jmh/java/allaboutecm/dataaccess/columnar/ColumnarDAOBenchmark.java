@@ -0,0 +1,88 @@
+package allaboutecm.dataaccess.columnar;
+
+import allaboutecm.dataaccess.DAO;
+import allaboutecm.dataaccess.neo4j.Neo4jDAO;
+import allaboutecm.generator.Catalogue;
+import allaboutecm.generator.CatalogueGenerator;
+import allaboutecm.mining.ECMMiner;
+import allaboutecm.model.Album;
+import allaboutecm.model.Musician;
+import org.neo4j.ogm.config.Configuration;
+import org.neo4j.ogm.session.SessionFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ECMMiner over the same generated catalogue kept in an embedded Neo4j store and in a ColumnarDAO, with the
+ * rankings evaluated by the DAO or by scanning the loaded entities, e.g.
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="ColumnarDAOBenchmark -p albums=5000"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class ColumnarDAOBenchmark {
+    @Param({"500"})
+    public int musicians;
+
+    @Param({"1000"})
+    public int albums;
+
+    @Param({"neo4j", "columnar"})
+    public String store;
+
+    @Param({"true", "false"})
+    public boolean pushDown;
+
+    @Param({"10"})
+    public int k;
+
+    private SessionFactory sessionFactory;
+    private ECMMiner ecmMiner;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DAO dao;
+        if ("neo4j".equals(store)) {
+            sessionFactory = new SessionFactory(new Configuration.Builder().build(), Musician.class.getPackage().getName());
+            dao = Neo4jDAO.withSchema(sessionFactory.openSession());
+        } else {
+            dao = new ColumnarDAO();
+        }
+        Catalogue catalogue = new CatalogueGenerator(musicians, albums, 5, 2, 0, 42).generate();
+        dao.createOrUpdateAll(catalogue.getAlbums());
+        dao.createOrUpdateAll(catalogue.getMusicians());
+        ecmMiner = new ECMMiner(dao, pushDown);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (null != sessionFactory) {
+            sessionFactory.close();
+        }
+    }
+
+    @Benchmark
+    public List<Integer> busiestYears() {
+        return ecmMiner.busiestYears(k);
+    }
+
+    @Benchmark
+    public List<Album> mostSellingAlbums() {
+        return ecmMiner.mostSellingAlbums(k);
+    }
+
+    @Benchmark
+    public List<Album> highestRatedAlbums() {
+        return ecmMiner.highestRatedAlbums(k);
+    }
+
+    @Benchmark
+    public List<Musician> mostProlificMusiciansInWindow() {
+        return ecmMiner.mostProlificMusicians(k, 1980, 1990);
+    }
+}
@@ -0,0 +1,67 @@
+package allaboutecm.dataaccess.neo4j;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converting concert dates to and from their stored strings, with DateConverter and with a SimpleDateFormat made
+ * per call as the converter did before, e.g.
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="DateConverterBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateConverterBenchmark {
+    private static final String LEGACY_PATTERN = "yyyy-MM-dd HH:mm:ss";
+    private static final int DATES = 1024;
+
+    private final DateConverter converter = new DateConverter();
+    private Date[] dates;
+    private String[] properties;
+    private String[] legacyProperties;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dates = new Date[DATES];
+        properties = new String[DATES];
+        legacyProperties = new String[DATES];
+        for (int i = 0; i < DATES; i++) {
+            dates[i] = new Date(1_600_000_000_000L + i * 3_600_123L);
+            properties[i] = converter.toGraphProperty(dates[i]);
+            legacyProperties[i] = new SimpleDateFormat(LEGACY_PATTERN).format(dates[i]);
+        }
+    }
+
+    @Benchmark
+    public String toGraphProperty() {
+        return converter.toGraphProperty(dates[next++ & (DATES - 1)]);
+    }
+
+    @Benchmark
+    public Date toEntityAttribute() {
+        return converter.toEntityAttribute(properties[next++ & (DATES - 1)]);
+    }
+
+    @Benchmark
+    public Date legacyToEntityAttribute() {
+        return converter.toEntityAttribute(legacyProperties[next++ & (DATES - 1)]);
+    }
+
+    @Benchmark
+    public String simpleDateFormatToGraphProperty() {
+        return new SimpleDateFormat(LEGACY_PATTERN).format(dates[next++ & (DATES - 1)]);
+    }
+
+    @Benchmark
+    public Date simpleDateFormatToEntityAttribute() throws ParseException {
+        return new SimpleDateFormat(LEGACY_PATTERN).parse(legacyProperties[next++ & (DATES - 1)]);
+    }
+}
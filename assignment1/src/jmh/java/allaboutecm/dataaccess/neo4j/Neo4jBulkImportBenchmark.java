@@ -0,0 +1,73 @@
+package allaboutecm.dataaccess.neo4j;
+
+import allaboutecm.generator.CatalogueGenerator;
+import allaboutecm.model.Album;
+import allaboutecm.model.Musician;
+import org.neo4j.ogm.config.Configuration;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.session.SessionFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Imports generated albums into an embedded store that already holds a catalogue, one createOrUpdate per
+ * album against createOrUpdateAll. Each invocation imports a fresh set of albums, e.g.
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="Neo4jBulkImportBenchmark -p existing=100000"
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g"})
+@State(Scope.Benchmark)
+public class Neo4jBulkImportBenchmark {
+    @Param({"10000"})
+    public int existing;
+
+    @Param({"1000"})
+    public int albums;
+
+    @Param({"1000"})
+    public int batchSize;
+
+    private SessionFactory sessionFactory;
+    private Neo4jDAO dao;
+    private List<Album> catalogue;
+    private long seed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = new SessionFactory(new Configuration.Builder().build(), Musician.class.getPackage().getName());
+        Session session = sessionFactory.openSession();
+        new Neo4jSchema(session).bootstrap();
+        dao = new Neo4jDAO(session, Neo4jDAO.DEFAULT_KEY_CACHE_SIZE, true);
+        dao.createOrUpdateAll(new CatalogueGenerator(Math.max(1, existing / 2), existing, 5, 2, 0, seed++).albums(), batchSize);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        catalogue = new CatalogueGenerator(Math.max(1, albums / 2), albums, 5, 2, 0, seed++).albums()
+                .collect(Collectors.toList());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public long perEntity() {
+        for (Album album : catalogue) {
+            dao.createOrUpdate(album);
+        }
+        return catalogue.size();
+    }
+
+    @Benchmark
+    public long bulk() {
+        return dao.createOrUpdateAll(catalogue.stream(), batchSize);
+    }
+}
@@ -0,0 +1,140 @@
+package allaboutecm.dataaccess.neo4j;
+
+import allaboutecm.dataaccess.DAO;
+import allaboutecm.generator.Catalogue;
+import allaboutecm.generator.CatalogueGenerator;
+import allaboutecm.mining.ECMMiner;
+import allaboutecm.model.*;
+import org.neo4j.ogm.config.Configuration;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.session.SessionFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Neo4jDAO reads and writes against an impermanent embedded store filled with a generated catalogue.
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="Neo4jDAOBenchmark -p albums=5000"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class Neo4jDAOBenchmark {
+    @Param({"500"})
+    public int musicians;
+
+    @Param({"1000"})
+    public int albums;
+
+    @Param({"5"})
+    public int tracksPerAlbum;
+
+    @Param({"2"})
+    public int ratingsPerAlbum;
+
+    @Param({"0", "100000"})
+    public long keyCacheSize;
+
+    private SessionFactory sessionFactory;
+    private DAO dao;
+    private ECMMiner pushDownMiner;
+    private Album album;
+    private Musician musician;
+    private MusicalInstrument musicalInstrument;
+    private Track track;
+    private Rating rating;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = new SessionFactory(new Configuration.Builder().build(), Musician.class.getPackage().getName());
+        Session session = sessionFactory.openSession();
+        new Neo4jSchema(session).bootstrap();
+        dao = new Neo4jDAO(session, keyCacheSize);
+        pushDownMiner = new ECMMiner(dao, true);
+
+        Catalogue catalogue = new CatalogueGenerator(musicians, albums, tracksPerAlbum, ratingsPerAlbum, 0, 42).generate();
+        for (Album a : catalogue.getAlbums()) {
+            dao.createOrUpdate(a);
+        }
+        for (Musician m : catalogue.getMusicians()) {
+            dao.createOrUpdate(m);
+        }
+        album = catalogue.getAlbums().get(albums / 2);
+        musician = album.getFeaturedMusicians().get(0);
+        musicalInstrument = catalogue.getMusicalInstruments().get(0);
+        dao.createOrUpdate(musicalInstrument);
+        track = album.getTracks().isEmpty() ? null : album.getTracks().iterator().next();
+        rating = album.getRatings().isEmpty() ? null : album.getRatings().iterator().next();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public Album createOrUpdateAlbum() {
+        album.setSales(album.getSales() + 1);
+        return dao.createOrUpdate(album);
+    }
+
+    @Benchmark
+    public MusicalInstrument createOrUpdateMusicalInstrument() {
+        return dao.createOrUpdate(musicalInstrument);
+    }
+
+    @Benchmark
+    public Collection<Album> loadAllAlbums() {
+        return dao.loadAll(Album.class);
+    }
+
+    @Benchmark
+    public Collection<Musician> loadAllMusicians() {
+        return dao.loadAll(Musician.class);
+    }
+
+    @Benchmark
+    public Album findAlbumByName() {
+        return dao.findAlbumByName(album.getAlbumName());
+    }
+
+    @Benchmark
+    public Album findAlbumByRecordNumber() {
+        return dao.findAlbumByRecordNumber(album.getRecordNumber());
+    }
+
+    @Benchmark
+    public Musician findMusicianByName() {
+        return dao.findMusicianByName(musician.getName());
+    }
+
+    @Benchmark
+    public MusicalInstrument findMusicalInstrumentByName() {
+        return dao.findMusicalInstrumentByName(musicalInstrument.getName());
+    }
+
+    @Benchmark
+    public Track findTrackByName() {
+        return null == track ? null : dao.findTrackByName(track.getName());
+    }
+
+    @Benchmark
+    public Rating findRatingBySource() {
+        return null == rating ? null : dao.findRatingBySource(rating.getSource());
+    }
+
+    @Benchmark
+    public List<Integer> pushDownBusiestYears() {
+        return pushDownMiner.busiestYears(10);
+    }
+
+    @Benchmark
+    public List<Album> pushDownMostSellingAlbums() {
+        return pushDownMiner.mostSellingAlbums(10);
+    }
+}
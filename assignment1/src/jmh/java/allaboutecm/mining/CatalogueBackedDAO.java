@@ -0,0 +1,167 @@
+package allaboutecm.mining;
+
+import allaboutecm.dataaccess.DAO;
+import allaboutecm.generator.Catalogue;
+import allaboutecm.model.*;
+import com.google.common.collect.Lists;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Read-only DAO over a generated {@link Catalogue}, so ECMMiner can be measured without a store.
+ *
+ * loadAll hands out a fresh copy on each call, like a store materialising its results.
+ */
+class CatalogueBackedDAO implements DAO {
+    private final Catalogue catalogue;
+
+    CatalogueBackedDAO(Catalogue catalogue) {
+        this.catalogue = catalogue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Entity> Collection<T> loadAll(Class<T> clazz) {
+        if (clazz.equals(Musician.class)) {
+            return (Collection<T>) Lists.newArrayList(catalogue.getMusicians());
+        } else if (clazz.equals(Album.class)) {
+            return (Collection<T>) Lists.newArrayList(catalogue.getAlbums());
+        } else if (clazz.equals(MusicianInstrument.class)) {
+            return (Collection<T>) Lists.newArrayList(catalogue.getMusicianInstruments());
+        } else if (clazz.equals(MusicalInstrument.class)) {
+            return (Collection<T>) Lists.newArrayList(catalogue.getMusicalInstruments());
+        } else if (clazz.equals(Concerts.class)) {
+            return (Collection<T>) Lists.newArrayList(catalogue.getConcerts());
+        }
+        throw new UnsupportedOperationException("Not generated: " + clazz.getSimpleName());
+    }
+
+    @Override
+    public <T extends Entity> List<T> loadPage(Class<T> clazz, Long afterId, int limit) {
+        //Generated entities have no ids to page on.
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <T extends Entity> Stream<T> streamAll(Class<T> clazz, int pageSize) {
+        return loadAll(clazz).stream();
+    }
+
+    @Override
+    public <T extends Entity> long count(Class<T> clazz) {
+        return loadAll(clazz).size();
+    }
+
+    @Override
+    public <T extends Entity> T load(Class<T> clazz, Long id) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <T extends Entity> T createOrUpdate(T entity) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> createOrUpdateAll(Collection<T> entities) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <T extends Entity> long createOrUpdateAll(Stream<T> entities, int batchSize) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <T extends Entity> void delete(T entity) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Musician findMusicianByName(String name) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public MusicalInstrument findMusicalInstrumentByName(String name) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Album findAlbumByName(String name) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Album findAlbumByReleaseYear(int releaseYear) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Album findAlbumByRecordNumber(String recordNumber) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Album findAlbumBySales(int sales) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Track findTrackByName(String name) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Track findTrackByDuration(String duration) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Track findTrackByGenre(String genre) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Track findTrackByTrackNumber(int trackNumber) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Rating findRatingByScore(int score) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Rating findRatingBySource(String source) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Integer> findBusiestYears(int k) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Album> findMostSellingAlbums(int k) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Album> findHighestRatedAlbums(int k) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Musician> findMostProlificMusicians(int k, int startYear, int endYear) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Concerts> findNextConcerts(int k, Date after) {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,162 @@
+package allaboutecm.mining;
+
+import allaboutecm.model.Album;
+import allaboutecm.model.Musician;
+import com.google.common.collect.Lists;
+import com.google.common.collect.MultimapBuilder;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of the collaborator counting behind {@link ECMMiner#mostSocialMusicians(int)}.
+ *
+ * The inverted index is measured at 10k/100k/1M musicians, the previous nested scan only at sizes
+ * where it finishes in reasonable time. Run with:
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="CollaborationGraphBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g"})
+public class CollaborationGraphBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Catalogue {
+        @Param({"10000", "100000", "1000000"})
+        public int musicians;
+
+        List<Musician> musicianList;
+        CollaborationGraph graph;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            musicianList = generate(musicians);
+            graph = CollaborationGraph.build(musicianList);
+        }
+
+        Musician nextMusician() {
+            next = (next + 7919) % musicianList.size();
+            return musicianList.get(next);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SmallCatalogue {
+        @Param({"1000", "10000"})
+        public int scannedMusicians;
+
+        List<Musician> musicianList;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            musicianList = generate(scannedMusicians);
+        }
+    }
+
+    @Benchmark
+    public Map<Musician, Integer> invertedIndex(Catalogue catalogue) {
+        return CollaborationGraph.build(catalogue.musicianList).collaboratorCounts();
+    }
+
+    @Benchmark
+    public CollaborationGraph build(Catalogue catalogue) {
+        return CollaborationGraph.build(catalogue.musicianList);
+    }
+
+    @Benchmark
+    public int[] collaboratorCountsOfBuiltGraph(Catalogue catalogue) {
+        return catalogue.graph.collaboratorCountsByOrdinal(null);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int sharedAlbumCount(Catalogue catalogue) {
+        return catalogue.graph.sharedAlbumCount(catalogue.nextMusician(), catalogue.nextMusician());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int sharedAlbumsByContains(Catalogue catalogue) {
+        //One album set checked against the other, as the entities answer it.
+        Set<Album> albums = catalogue.nextMusician().getAlbums();
+        int shared = 0;
+        for (Album album : catalogue.nextMusician().getAlbums()) {
+            if (albums.contains(album)) {
+                shared++;
+            }
+        }
+        return shared;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Musician> collaborators(Catalogue catalogue) {
+        return catalogue.graph.collaborators(catalogue.nextMusician());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Set<Musician> collaboratorsByScan(SmallCatalogue catalogue) {
+        //The nested scan below, for a single musician.
+        Musician musician = catalogue.musicianList.get(catalogue.scannedMusicians / 2);
+        Set<Musician> collaborators = Sets.newHashSet();
+        for (Album a : musician.getAlbums()) {
+            for (Musician m1 : catalogue.musicianList) {
+                if (m1 != musician && m1.getAlbums().contains(a)) {
+                    collaborators.add(m1);
+                }
+            }
+        }
+        return collaborators;
+    }
+
+    @Benchmark
+    public SetMultimap<Musician, Musician> nestedScan(SmallCatalogue catalogue) {
+        //The collaborator scan mostSocialMusicians used before the inverted index.
+        List<Musician> musicians = catalogue.musicianList;
+        SetMultimap<Musician, Musician> collaboratorMap = MultimapBuilder.hashKeys().hashSetValues().build();
+        for (Musician m : musicians) {
+            for (Album a : m.getAlbums()) {
+                for (Musician m1 : musicians) {
+                    if (m1.getAlbums().contains(a)) {
+                        collaboratorMap.put(m, m1);
+                    }
+                }
+            }
+        }
+        return collaboratorMap;
+    }
+
+    /**
+     * Each musician plays on one to five albums drawn from a pool a third the size of the musicians.
+     */
+    static List<Musician> generate(int musicianCount) {
+        Random random = new Random(42);
+        int albumCount = Math.max(1, musicianCount / 3);
+        List<Album> albums = Lists.newArrayListWithCapacity(albumCount);
+        for (int i = 0; i < albumCount; i++) {
+            albums.add(new Album(1969 + random.nextInt(50), "ECM " + i, "Album " + i));
+        }
+        List<Musician> musicians = Lists.newArrayListWithCapacity(musicianCount);
+        for (int i = 0; i < musicianCount; i++) {
+            Musician musician = new Musician("Musician " + i);
+            int size = 1 + random.nextInt(5);
+            Set<Album> albumSet = Sets.newHashSetWithExpectedSize(size);
+            for (int j = 0; j < size; j++) {
+                albumSet.add(albums.get(random.nextInt(albumCount)));
+            }
+            musician.setAlbums(albumSet);
+            musicians.add(musician);
+        }
+        return musicians;
+    }
+}
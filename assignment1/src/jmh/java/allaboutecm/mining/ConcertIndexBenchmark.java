@@ -0,0 +1,63 @@
+package allaboutecm.mining;
+
+import allaboutecm.dataaccess.ObservableDAO;
+import allaboutecm.generator.Catalogue;
+import allaboutecm.generator.CatalogueGenerator;
+import allaboutecm.model.Concerts;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding the next concerts, with a ConcertIndex built beforehand and through a whole ECMMiner call: over a plain DAO
+ * the miner loads and sorts every concert on each call, over an ObservableDAO it keeps its index between calls, e.g.
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="ConcertIndexBenchmark -p concerts=100000"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class ConcertIndexBenchmark {
+    @Param({"20000"})
+    public int concerts;
+
+    @Param({"20"})
+    public int k;
+
+    private Catalogue catalogue;
+    private ConcertIndex index;
+    private ECMMiner ecmMiner;
+    private ECMMiner observedMiner;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalogue = new CatalogueGenerator(1000, 1000, 0, 0, concerts, 42).generate();
+        index = ConcertIndex.build(catalogue.getConcerts());
+        ecmMiner = new ECMMiner(new CatalogueBackedDAO(catalogue));
+        observedMiner = new ECMMiner(new ObservableDAO(new CatalogueBackedDAO(catalogue)));
+    }
+
+    @Benchmark
+    public ConcertIndex build() {
+        return ConcertIndex.build(catalogue.getConcerts());
+    }
+
+    @Benchmark
+    public List<Concerts> indexNext() {
+        return index.next(k, new Date());
+    }
+
+    @Benchmark
+    public List<Concerts> minerNext() {
+        return ecmMiner.findNextConcerts(k);
+    }
+
+    @Benchmark
+    public List<Concerts> observedMinerNext() {
+        return observedMiner.findNextConcerts(k);
+    }
+}
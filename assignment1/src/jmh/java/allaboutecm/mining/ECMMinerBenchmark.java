@@ -0,0 +1,118 @@
+package allaboutecm.mining;
+
+import allaboutecm.generator.Catalogue;
+import allaboutecm.generator.CatalogueGenerator;
+import allaboutecm.model.Album;
+import allaboutecm.model.Concerts;
+import allaboutecm.model.Musician;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every public ECMMiner query over an in-memory generated catalogue, so only the mining itself is measured.
+ * Catalogue size is set through the parameters, e.g.
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="ECMMinerBenchmark -p musicians=100000 -p albums=200000"
+ * A positive parallelism runs the scans on a fork-join pool with that many workers, 0 runs them sequentially. One
+ * worker shows the cost of splitting and merging alone, more workers the speedup of the cores the host has.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g"})
+@State(Scope.Benchmark)
+public class ECMMinerBenchmark {
+    @Param({"10000"})
+    public int musicians;
+
+    @Param({"20000"})
+    public int albums;
+
+    @Param({"8"})
+    public int tracksPerAlbum;
+
+    @Param({"3"})
+    public int ratingsPerAlbum;
+
+    @Param({"1000"})
+    public int concerts;
+
+    @Param({"10"})
+    public int k;
+
+    @Param({"0", "1", "4"})
+    public int parallelism;
+
+    private ForkJoinPool pool;
+    private ECMMiner ecmMiner;
+    private Album searchAlbum;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Catalogue catalogue = new CatalogueGenerator(musicians, albums, tracksPerAlbum, ratingsPerAlbum, concerts, 42).generate();
+        pool = parallelism > 0 ? new ForkJoinPool(parallelism) : null;
+        ecmMiner = new ECMMiner(new CatalogueBackedDAO(catalogue), false, 0, pool);
+        searchAlbum = catalogue.getAlbums().get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (null != pool) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public List<Musician> mostProlificMusicians() {
+        return ecmMiner.mostProlificMusicians(k, -1, -1);
+    }
+
+    @Benchmark
+    public List<Musician> mostProlificMusiciansInWindow() {
+        return ecmMiner.mostProlificMusicians(k, 1980, 1990);
+    }
+
+    @Benchmark
+    public List<Musician> mostTalentedMusicians() {
+        return ecmMiner.mostTalentedMusicians(k);
+    }
+
+    @Benchmark
+    public List<Musician> mostSocialMusicians() {
+        return ecmMiner.mostSocialMusicians(k);
+    }
+
+    @Benchmark
+    public List<Integer> busiestYears() {
+        return ecmMiner.busiestYears(k);
+    }
+
+    @Benchmark
+    public List<Album> mostSimilarAlbums() {
+        return ecmMiner.mostSimilarAlbums(k, searchAlbum);
+    }
+
+    @Benchmark
+    public Map<Album, List<Album>> mostSimilarAlbumsForAll() {
+        return ecmMiner.mostSimilarAlbumsForAll(k);
+    }
+
+    @Benchmark
+    public List<Album> highestRatedAlbums() {
+        return ecmMiner.highestRatedAlbums(k);
+    }
+
+    @Benchmark
+    public List<Album> mostSellingAlbums() {
+        return ecmMiner.mostSellingAlbums(k);
+    }
+
+    @Benchmark
+    public List<Concerts> findNextConcerts() {
+        return ecmMiner.findNextConcerts(k);
+    }
+}
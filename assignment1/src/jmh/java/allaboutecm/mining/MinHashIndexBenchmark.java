@@ -0,0 +1,96 @@
+package allaboutecm.mining;
+
+import allaboutecm.generator.Catalogue;
+import allaboutecm.generator.CatalogueGenerator;
+import allaboutecm.model.Album;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query time of the approximate and exact searches of a MinHashIndex, with the recall of the approximate one
+ * against the exact one reported as the recall counter of mostSimilar for each band and row setting, e.g.
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="MinHashIndexBenchmark -p bands=16,32,64 -p rows=2,4"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g"})
+@State(Scope.Benchmark)
+public class MinHashIndexBenchmark {
+    //Recall is averaged over this many queries spread over the catalogue.
+    private static final int RECALL_QUERIES = 500;
+
+    @Param({"10000"})
+    public int musicians;
+
+    @Param({"20000"})
+    public int albums;
+
+    @Param({"8"})
+    public int tracksPerAlbum;
+
+    @Param({"64"})
+    public int bands;
+
+    @Param({"2"})
+    public int rows;
+
+    @Param({"10"})
+    public int k;
+
+    private List<Album> catalogueAlbums;
+    private MinHashIndex index;
+    private int query;
+    private double recall;
+
+    /**
+     * Carries the recall of the trial into the results, next to the query time it was measured with.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Recall {
+        public double recall;
+
+        @Setup(Level.Iteration)
+        public void setUp(MinHashIndexBenchmark benchmark) {
+            recall = benchmark.recall;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Catalogue catalogue = new CatalogueGenerator(musicians, albums, tracksPerAlbum, 0, 0, 42).generate();
+        catalogueAlbums = catalogue.getAlbums();
+        index = MinHashIndex.build(catalogueAlbums, bands, rows);
+
+        int found = 0;
+        int expected = 0;
+        for (int i = 0; i < RECALL_QUERIES; i++) {
+            Album album = catalogueAlbums.get((int) ((long) i * catalogueAlbums.size() / RECALL_QUERIES));
+            List<Album> exact = index.mostSimilarExact(k, album);
+            List<Album> approximate = index.mostSimilar(k, album);
+            for (Album similar : exact) {
+                if (approximate.contains(similar)) {
+                    found++;
+                }
+            }
+            expected += exact.size();
+        }
+        recall = found / (double) expected;
+    }
+
+    @Benchmark
+    public List<Album> mostSimilar(Recall counters) {
+        query = (query + 1) % catalogueAlbums.size();
+        return index.mostSimilar(k, catalogueAlbums.get(query));
+    }
+
+    @Benchmark
+    public List<Album> mostSimilarExact() {
+        query = (query + 1) % catalogueAlbums.size();
+        return index.mostSimilarExact(k, catalogueAlbums.get(query));
+    }
+}
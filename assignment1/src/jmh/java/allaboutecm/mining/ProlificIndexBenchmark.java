@@ -0,0 +1,73 @@
+package allaboutecm.mining;
+
+import allaboutecm.generator.Catalogue;
+import allaboutecm.generator.CatalogueGenerator;
+import allaboutecm.model.Musician;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranking musicians for a different window of years on every call, with a ProlificIndex built beforehand and by
+ * ECMMiner scanning every musician, e.g.
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="ProlificIndexBenchmark -p musicians=100000 -p albums=200000"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g"})
+@State(Scope.Benchmark)
+public class ProlificIndexBenchmark {
+    //Windows of one to twenty years, cycled through by the benchmarks.
+    private static final int[][] WINDOWS = windows();
+
+    @Param({"10000"})
+    public int musicians;
+
+    @Param({"20000"})
+    public int albums;
+
+    @Param({"10"})
+    public int k;
+
+    private Catalogue catalogue;
+    private ProlificIndex index;
+    private ECMMiner ecmMiner;
+    private int window;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalogue = new CatalogueGenerator(musicians, albums, 0, 0, 0, 42).generate();
+        index = ProlificIndex.build(catalogue.getMusicians());
+        ecmMiner = new ECMMiner(new CatalogueBackedDAO(catalogue));
+    }
+
+    @Benchmark
+    public ProlificIndex build() {
+        return ProlificIndex.build(catalogue.getMusicians());
+    }
+
+    @Benchmark
+    public List<Musician> indexInWindow() {
+        int[] years = WINDOWS[window++ % WINDOWS.length];
+        return index.mostProlific(k, years[0], years[1]);
+    }
+
+    @Benchmark
+    public List<Musician> minerInWindow() {
+        int[] years = WINDOWS[window++ % WINDOWS.length];
+        return ecmMiner.mostProlificMusicians(k, years[0], years[1]);
+    }
+
+    private static int[][] windows() {
+        int[][] windows = new int[50 * 20][];
+        for (int start = 0; start < 50; start++) {
+            for (int length = 0; length < 20; length++) {
+                windows[start * 20 + length] = new int[]{1969 + start, 1969 + start + length};
+            }
+        }
+        return windows;
+    }
+}
@@ -0,0 +1,53 @@
+package allaboutecm.mining;
+
+import allaboutecm.generator.Catalogue;
+import allaboutecm.generator.CatalogueGenerator;
+import allaboutecm.model.Album;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building a SimilarityIndex over a generated catalogue, and single queries against one built beforehand, e.g.
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="SimilarityIndexBenchmark -p albums=200000"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g"})
+@State(Scope.Benchmark)
+public class SimilarityIndexBenchmark {
+    @Param({"10000"})
+    public int musicians;
+
+    @Param({"20000"})
+    public int albums;
+
+    @Param({"10"})
+    public int k;
+
+    private List<Album> catalogueAlbums;
+    private SimilarityIndex index;
+    private int query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Catalogue catalogue = new CatalogueGenerator(musicians, albums, 0, 0, 0, 42).generate();
+        catalogueAlbums = catalogue.getAlbums();
+        index = SimilarityIndex.build(catalogueAlbums);
+    }
+
+    @Benchmark
+    public SimilarityIndex build() {
+        return SimilarityIndex.build(catalogueAlbums);
+    }
+
+    @Benchmark
+    public List<Album> mostSimilar() {
+        //A different album on every call, so the cost is averaged over the catalogue.
+        query = (query + 1) % catalogueAlbums.size();
+        return index.mostSimilar(k, catalogueAlbums.get(query));
+    }
+}
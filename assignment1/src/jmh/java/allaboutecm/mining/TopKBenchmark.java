@@ -0,0 +1,57 @@
+package allaboutecm.mining;
+
+import com.google.common.collect.Maps;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded-heap {@link TopK} against the full sort the ECMMiner rankings used before,
+ * both starting from the score map a ranking method holds. Run with:
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="TopKBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g"})
+@State(Scope.Benchmark)
+public class TopKBenchmark {
+    @Param({"1000", "100000", "10000000"})
+    public int n;
+
+    @Param({"10"})
+    public int k;
+
+    private Map<Integer, Integer> scores;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        scores = Maps.newHashMapWithExpectedSize(n);
+        for (int i = 0; i < n; i++) {
+            scores.put(i, random.nextInt(n));
+        }
+    }
+
+    @Benchmark
+    public List<Integer> boundedHeap() {
+        TopK<Integer> topK = new TopK<>(k);
+        for (Map.Entry<Integer, Integer> entry : scores.entrySet()) {
+            topK.offer(entry.getKey(), entry.getValue());
+        }
+        return topK.toList();
+    }
+
+    @Benchmark
+    public List<Integer> sortEverything() {
+        List<Map.Entry<Integer, Integer>> sortList = new LinkedList<>(scores.entrySet());
+        Collections.sort(sortList, Comparator.comparing(Map.Entry::getValue));
+        List<Integer> resultList = new ArrayList<>();
+        for (int i = sortList.size() - 1; i >= sortList.size() - k; i--) {
+            resultList.add(sortList.get(i).getKey());
+        }
+        return resultList;
+    }
+}
@@ -0,0 +1,75 @@
+package allaboutecm.model;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Equals and hash lookups of musicians against copies of them, as loaded by another session, with albums of
+ * their own. These are what an album's featured musicians list and the mining indexes keyed by musician do, e.g.
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="EntityIdentityBenchmark -p albumsPerMusician=10,100"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EntityIdentityBenchmark {
+    private static final int MUSICIANS = 1024;
+
+    @Param({"100"})
+    public int albumsPerMusician;
+
+    private Musician[] musicians;
+    private Musician[] copies;
+    private Set<Musician> musicianSet;
+    private List<Musician> featured;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws MalformedURLException {
+        musicians = new Musician[MUSICIANS];
+        copies = new Musician[MUSICIANS];
+        for (int i = 0; i < MUSICIANS; i++) {
+            musicians[i] = musician(i);
+            copies[i] = musician(i);
+        }
+        musicianSet = Sets.newHashSet(musicians);
+        featured = Lists.newArrayList(musicians).subList(0, 8);
+    }
+
+    @Benchmark
+    public boolean equalsCopy() {
+        int i = next++ & (MUSICIANS - 1);
+        return musicians[i].equals(copies[i]);
+    }
+
+    @Benchmark
+    public boolean hashSetContainsCopy() {
+        return musicianSet.contains(copies[next++ & (MUSICIANS - 1)]);
+    }
+
+    @Benchmark
+    public boolean featuredContainsCopy() {
+        //The last of the featured musicians, so the list is walked to its end.
+        return featured.contains(copies[7]);
+    }
+
+    private Musician musician(int index) throws MalformedURLException {
+        Musician musician = new Musician("Musician " + index);
+        musician.setMusicianUrl(new URL("https://www.ecm.com/musicians/" + index));
+        Set<Album> albums = Sets.newHashSet();
+        for (int i = 0; i < albumsPerMusician; i++) {
+            albums.add(new Album(1970 + i % 50, "ECM " + (index * albumsPerMusician + i), "Album " + i));
+        }
+        musician.setAlbums(albums);
+        return musician;
+    }
+}
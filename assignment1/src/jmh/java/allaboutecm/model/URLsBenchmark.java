@@ -0,0 +1,63 @@
+package allaboutecm.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading the URLs entities keep as text, through URLs and as a new java.net.URL per read as the getters did
+ * before, and comparing them as text and as java.net.URLs. The values repeat, as musicians' sites and wiki pages do
+ * over loads, e.g.
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="URLsBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class URLsBenchmark {
+    private static final int VALUES = 4096;
+
+    @Param({"1024"})
+    public int distinct;
+
+    private String[] values;
+    private URL[] urls;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws MalformedURLException {
+        values = new String[VALUES];
+        urls = new URL[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            //A new string per value, as every load reads them.
+            values[i] = new String("https://www.ecm.com/musicians/" + i % distinct);
+            urls[i] = new URL(values[i]);
+        }
+    }
+
+    @Benchmark
+    public URL interned() {
+        return URLs.url(values[next++ & (VALUES - 1)]);
+    }
+
+    @Benchmark
+    public URL newURL() throws MalformedURLException {
+        return new URL(values[next++ & (VALUES - 1)]);
+    }
+
+    @Benchmark
+    public boolean textEquals() {
+        int i = next++ & (VALUES - 1);
+        return values[i].equals(values[(i + distinct) & (VALUES - 1)]);
+    }
+
+    @Benchmark
+    public boolean urlEquals() {
+        int i = next++ & (VALUES - 1);
+        return urls[i].equals(urls[(i + distinct) & (VALUES - 1)]);
+    }
+}
@@ -3,14 +3,25 @@ package allaboutecm.dataaccess;
 import allaboutecm.model.*;
 
 import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface DAO {
     <T extends Entity> T load(Class<T> clazz, Long id);
 
     <T extends Entity> T createOrUpdate(T entity);
 
+    // Bulk upserts: existing entities are looked up and written a batch at a time, one transaction per batch.
+    <T extends Entity> Collection<T> createOrUpdateAll(Collection<T> entities);
+    <T extends Entity> long createOrUpdateAll(Stream<T> entities, int batchSize);
+
     <T extends Entity> Collection<T> loadAll(Class<T> clazz);
 
+    // Scans holding one page of entities at a time, in id order, each with its direct relationships loaded.
+    <T extends Entity> List<T> loadPage(Class<T> clazz, Long afterId, int limit);
+    <T extends Entity> Stream<T> streamAll(Class<T> clazz, int pageSize);
+
     <T extends Entity> void delete(T entity);
 
     Musician findMusicianByName(String name);
@@ -25,4 +36,13 @@ public interface DAO {
     Track findTrackByTrackNumber(int trackNumber);
     Rating findRatingByScore(int score);
     Rating findRatingBySource(String source);
+
+    // Aggregations evaluated by the store, only the k result entities are loaded.
+    <T extends Entity> long count(Class<T> clazz);
+    List<Integer> findBusiestYears(int k);
+    List<Album> findMostSellingAlbums(int k);
+    List<Album> findHighestRatedAlbums(int k);
+    List<Musician> findMostProlificMusicians(int k, int startYear, int endYear);
+    // Concerts after the given time by a seek on their dates, soonest first, picked as NextConcerts picks them.
+    List<Concerts> findNextConcerts(int k, Date after);
 }
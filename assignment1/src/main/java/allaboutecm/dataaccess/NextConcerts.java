@@ -0,0 +1,50 @@
+package allaboutecm.dataaccess;
+
+import allaboutecm.model.Concerts;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Picks the next k concerts out of the concerts after a time in date order, the same way for ECMMiner and for
+ * every DAO: the concerts on the same date as the k-th are all returned, and a concert equal to one already
+ * returned is left out without counting towards k.
+ */
+public class NextConcerts {
+    private NextConcerts() {
+    }
+
+    /**
+     * @param byDate the concerts after the time, soonest first. Only read as far as the result needs.
+     */
+    public static List<Concerts> take(List<Concerts> byDate, int k) {
+        return take(Iterators.singletonIterator(byDate), k);
+    }
+
+    /**
+     * @param pagesByDate the concerts after the time, soonest first, in pages that each end with every concert of
+     *                    their last date. A page is only asked for while fewer than k concerts are taken.
+     */
+    public static List<Concerts> take(Iterator<? extends List<Concerts>> pagesByDate, int k) {
+        List<Concerts> next = Lists.newArrayList();
+        Set<Concerts> taken = Sets.newHashSet();
+        long last = Long.MIN_VALUE;
+        while (next.size() < k && pagesByDate.hasNext()) {
+            for (Concerts concert : pagesByDate.next()) {
+                long date = concert.getDate().getTime();
+                if (next.size() >= k && date != last) {
+                    return next;
+                }
+                if (taken.add(concert)) {
+                    next.add(concert);
+                    last = date;
+                }
+            }
+        }
+        return next;
+    }
+}
@@ -0,0 +1,219 @@
+package allaboutecm.dataaccess;
+
+import allaboutecm.model.*;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * A DAO that tells its listeners which entity classes every write through it touched, for what is derived from
+ * the store and kept elsewhere, such as cached query results. Reads go straight to the wrapped DAO.
+ *
+ * Entities are saved with their direct relationships, so a write touches the classes it reaches one level deep
+ * as well, an album its musicians, instruments, tracks and ratings. Listeners are called on the writing thread
+ * once the write is done, and also for what a failed bulk write consumed before it failed.
+ */
+public class ObservableDAO implements DAO {
+    private final DAO dao;
+    private final List<Consumer<Class<? extends Entity>>> listeners = new CopyOnWriteArrayList<>();
+
+    public ObservableDAO(DAO dao) {
+        notNull(dao);
+        this.dao = dao;
+    }
+
+    public void addWriteListener(Consumer<Class<? extends Entity>> listener) {
+        notNull(listener);
+        listeners.add(listener);
+    }
+
+    public void removeWriteListener(Consumer<Class<? extends Entity>> listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public <T extends Entity> T load(Class<T> clazz, Long id) {
+        return dao.load(clazz, id);
+    }
+
+    @Override
+    public <T extends Entity> T createOrUpdate(T entity) {
+        try {
+            return dao.createOrUpdate(entity);
+        } finally {
+            written(writtenClasses(entity));
+        }
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> createOrUpdateAll(Collection<T> entities) {
+        Set<Class<? extends Entity>> classes = Sets.newHashSet();
+        for (T entity : entities) {
+            classes.addAll(writtenClasses(entity));
+        }
+        try {
+            return dao.createOrUpdateAll(entities);
+        } finally {
+            written(classes);
+        }
+    }
+
+    @Override
+    public <T extends Entity> long createOrUpdateAll(Stream<T> entities, int batchSize) {
+        //The stream is consumed by the wrapped DAO, the classes are collected on the way.
+        Set<Class<? extends Entity>> classes = Sets.newConcurrentHashSet();
+        try {
+            return dao.createOrUpdateAll(entities.peek(entity -> classes.addAll(writtenClasses(entity))), batchSize);
+        } finally {
+            written(classes);
+        }
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> loadAll(Class<T> clazz) {
+        return dao.loadAll(clazz);
+    }
+
+    @Override
+    public <T extends Entity> List<T> loadPage(Class<T> clazz, Long afterId, int limit) {
+        return dao.loadPage(clazz, afterId, limit);
+    }
+
+    @Override
+    public <T extends Entity> Stream<T> streamAll(Class<T> clazz, int pageSize) {
+        return dao.streamAll(clazz, pageSize);
+    }
+
+    @Override
+    public <T extends Entity> void delete(T entity) {
+        try {
+            dao.delete(entity);
+        } finally {
+            //A deleted entity takes its relationships along, which every query of its class already depends on.
+            written(ImmutableSet.of(entity.getClass()));
+        }
+    }
+
+    @Override
+    public Musician findMusicianByName(String name) {
+        return dao.findMusicianByName(name);
+    }
+
+    @Override
+    public MusicalInstrument findMusicalInstrumentByName(String name) {
+        return dao.findMusicalInstrumentByName(name);
+    }
+
+    @Override
+    public Album findAlbumByName(String name) {
+        return dao.findAlbumByName(name);
+    }
+
+    @Override
+    public Album findAlbumByReleaseYear(int releaseYear) {
+        return dao.findAlbumByReleaseYear(releaseYear);
+    }
+
+    @Override
+    public Album findAlbumByRecordNumber(String recordNumber) {
+        return dao.findAlbumByRecordNumber(recordNumber);
+    }
+
+    @Override
+    public Album findAlbumBySales(int sales) {
+        return dao.findAlbumBySales(sales);
+    }
+
+    @Override
+    public Track findTrackByName(String name) {
+        return dao.findTrackByName(name);
+    }
+
+    @Override
+    public Track findTrackByDuration(String duration) {
+        return dao.findTrackByDuration(duration);
+    }
+
+    @Override
+    public Track findTrackByGenre(String genre) {
+        return dao.findTrackByGenre(genre);
+    }
+
+    @Override
+    public Track findTrackByTrackNumber(int trackNumber) {
+        return dao.findTrackByTrackNumber(trackNumber);
+    }
+
+    @Override
+    public Rating findRatingByScore(int score) {
+        return dao.findRatingByScore(score);
+    }
+
+    @Override
+    public Rating findRatingBySource(String source) {
+        return dao.findRatingBySource(source);
+    }
+
+    @Override
+    public <T extends Entity> long count(Class<T> clazz) {
+        return dao.count(clazz);
+    }
+
+    @Override
+    public List<Integer> findBusiestYears(int k) {
+        return dao.findBusiestYears(k);
+    }
+
+    @Override
+    public List<Album> findMostSellingAlbums(int k) {
+        return dao.findMostSellingAlbums(k);
+    }
+
+    @Override
+    public List<Album> findHighestRatedAlbums(int k) {
+        return dao.findHighestRatedAlbums(k);
+    }
+
+    @Override
+    public List<Musician> findMostProlificMusicians(int k, int startYear, int endYear) {
+        return dao.findMostProlificMusicians(k, startYear, endYear);
+    }
+
+    @Override
+    public List<Concerts> findNextConcerts(int k, Date after) {
+        return dao.findNextConcerts(k, after);
+    }
+
+    private void written(Set<Class<? extends Entity>> classes) {
+        for (Class<? extends Entity> clazz : classes) {
+            for (Consumer<Class<? extends Entity>> listener : listeners) {
+                listener.accept(clazz);
+            }
+        }
+    }
+
+    /**
+     * The classes a save of the entity writes, its own and those of its direct relationships.
+     */
+    static Set<Class<? extends Entity>> writtenClasses(Entity entity) {
+        if (entity instanceof Album) {
+            return ImmutableSet.of(Album.class, Musician.class, MusicianInstrument.class, Track.class, Rating.class);
+        } else if (entity instanceof Musician) {
+            return ImmutableSet.of(Musician.class, Album.class);
+        } else if (entity instanceof Concerts) {
+            return ImmutableSet.of(Concerts.class, Musician.class);
+        } else if (entity instanceof MusicianInstrument) {
+            return ImmutableSet.of(MusicianInstrument.class, Musician.class, MusicalInstrument.class);
+        }
+        return ImmutableSet.of(entity.getClass());
+    }
+}
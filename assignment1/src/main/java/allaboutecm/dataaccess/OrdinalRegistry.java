@@ -0,0 +1,62 @@
+package allaboutecm.dataaccess;
+
+import allaboutecm.model.Entity;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * {@link Ordinals} per entity class, so every loaded album, musician and so on has a dense ordinal among the
+ * entities of its class, for analytics keeping arrays of them side by side. CollaborationGraph and SimilarityIndex
+ * number their musicians and albums in one registry each.
+ *
+ * Entities are registered by their own class. The ordinals of a class are made once and are safe to get from
+ * several threads, registering entities of one class is not.
+ */
+public class OrdinalRegistry {
+    private final Map<Class<?>, Ordinals<?>> ordinals = new ConcurrentHashMap<>();
+
+    /**
+     * The ordinals of the entities of the class registered so far.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Entity> Ordinals<T> ordinals(Class<T> clazz) {
+        notNull(clazz);
+        return (Ordinals<T>) ordinals.computeIfAbsent(clazz, c -> new Ordinals<>());
+    }
+
+    /**
+     * The ordinal of the entity among those of its class, numbering it next when it is new.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Entity> int register(T entity) {
+        notNull(entity);
+        return ordinals((Class<T>) entity.getClass()).add(entity);
+    }
+
+    /**
+     * Registers the entities in iteration order, and returns the ordinals of their class.
+     */
+    public <T extends Entity> Ordinals<T> registerAll(Class<T> clazz, Collection<? extends T> entities) {
+        notNull(entities);
+        Ordinals<T> classOrdinals = ordinals(clazz);
+        for (T entity : entities) {
+            classOrdinals.add(entity);
+        }
+        return classOrdinals;
+    }
+
+    /**
+     * The ordinal of the entity among those of its class, {@link Ordinals#NONE} when it was never registered.
+     */
+    public int ordinal(Entity entity) {
+        if (null == entity) {
+            return Ordinals.NONE;
+        }
+        Ordinals<?> classOrdinals = ordinals.get(entity.getClass());
+        return null == classOrdinals ? Ordinals.NONE : classOrdinals.ordinal(entity);
+    }
+}
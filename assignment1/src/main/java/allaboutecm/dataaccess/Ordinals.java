@@ -0,0 +1,154 @@
+package allaboutecm.dataaccess;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Numbers distinct entities 0, 1, 2, ... in the order they are added, so what is computed about them can be kept
+ * in int and long arrays, bit sets and adjacency arrays indexed by ordinal, and only mapped back to entities for
+ * the results. Entities are distinct by equals, an entity equal to one added before gets its ordinal.
+ *
+ * Ordinals are never reused, the numbering only grows. Ordinals are looked up in an open addressing table of
+ * ordinals, no entry or boxed int is kept per entity. Adding is not safe from several threads, looking up is
+ * once the adding is done and the ordinals are handed over.
+ */
+public class Ordinals<T> {
+    public static final int NONE = -1;
+
+    private Object[] entities;
+    //Ordinal + 1 of the entity hashed to each slot, 0 for an empty slot. Kept at most half full.
+    private int[] slots;
+    private int size;
+
+    public Ordinals() {
+        this(16);
+    }
+
+    public Ordinals(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative");
+        }
+        entities = new Object[Math.max(expectedSize, 4)];
+        slots = new int[tableSize(expectedSize)];
+    }
+
+    /**
+     * Numbers the distinct entities of the collection in its iteration order.
+     */
+    public static <T> Ordinals<T> of(Collection<? extends T> entities) {
+        notNull(entities);
+        Ordinals<T> ordinals = new Ordinals<>(entities.size());
+        for (T entity : entities) {
+            ordinals.add(entity);
+        }
+        return ordinals;
+    }
+
+    /**
+     * The ordinal of the entity, numbering it next when it is new.
+     */
+    public int add(T entity) {
+        notNull(entity);
+        int slot = find(entity);
+        if (0 != slots[slot]) {
+            return slots[slot] - 1;
+        }
+        if (size == entities.length) {
+            entities = Arrays.copyOf(entities, size * 2);
+        }
+        entities[size] = entity;
+        slots[slot] = ++size;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    /**
+     * The ordinal of the entity, {@link #NONE} when it was never added.
+     */
+    public int ordinal(Object entity) {
+        if (null == entity) {
+            return NONE;
+        }
+        return slots[find(entity)] - 1;
+    }
+
+    public boolean contains(Object entity) {
+        return NONE != ordinal(entity);
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int ordinal) {
+        if (ordinal < 0 || ordinal >= size) {
+            throw new IndexOutOfBoundsException("No entity with ordinal " + ordinal);
+        }
+        return (T) entities[ordinal];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The entities in ordinal order, a view that grows with the ordinals.
+     */
+    public List<T> entities() {
+        return new AbstractList<T>() {
+            @Override
+            public T get(int ordinal) {
+                return Ordinals.this.get(ordinal);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * The slot holding the entity, or the empty slot it would go in.
+     */
+    private int find(Object entity) {
+        int mask = slots.length - 1;
+        int slot = spread(entity.hashCode()) & mask;
+        while (0 != slots[slot] && !entities[slots[slot] - 1].equals(entity)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        int[] old = slots;
+        slots = new int[old.length * 2];
+        int mask = slots.length - 1;
+        for (int ordinalPlusOne : old) {
+            if (0 != ordinalPlusOne) {
+                int slot = spread(entities[ordinalPlusOne - 1].hashCode()) & mask;
+                while (0 != slots[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = ordinalPlusOne;
+            }
+        }
+    }
+
+    private static int tableSize(int expectedSize) {
+        int size = 8;
+        while (size < expectedSize * 2L && size < 1 << 30) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    //Entity hashes are sums of field hashes, the low bits alone would probe long runs.
+    private static int spread(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,99 @@
+package allaboutecm.dataaccess;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Number of albums per release year, kept up to date by a DAO as it writes and deletes albums so the busiest
+ * years are answered in O(years) however many albums there are.
+ *
+ * The counts are an int array indexed by the offset from 1969, the first year an Album can be released in,
+ * grown when a later year shows up.
+ */
+public class YearHistogram {
+    public static final int FIRST_YEAR = 1969;
+
+    private int[] counts = new int[64];
+
+    public void add(int year) {
+        add(year, 1);
+    }
+
+    public synchronized void add(int year, int albums) {
+        if (albums < 0) {
+            throw new IllegalArgumentException("Albums cannot be negative");
+        }
+        int offset = offset(year);
+        if (offset >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(offset + 1, counts.length * 2));
+        }
+        counts[offset] += albums;
+    }
+
+    public synchronized void remove(int year) {
+        int offset = offset(year);
+        if (offset >= counts.length || 0 == counts[offset]) {
+            throw new IllegalStateException("No album counted in " + year);
+        }
+        counts[offset]--;
+    }
+
+    /**
+     * An album that was counted in one year is now released in another.
+     */
+    public synchronized void move(int fromYear, int toYear) {
+        if (fromYear != toYear) {
+            remove(fromYear);
+            add(toYear);
+        }
+    }
+
+    public synchronized int count(int year) {
+        int offset = offset(year);
+        return offset < counts.length ? counts[offset] : 0;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(counts, 0);
+    }
+
+    /**
+     * The k years with the most albums, most albums first and the later year first among equal counts.
+     * Years without albums are left out.
+     */
+    public synchronized List<Integer> busiest(int k) {
+        List<Integer> years = Lists.newArrayList();
+        for (int offset = counts.length - 1; offset >= 0; offset--) {
+            if (counts[offset] > 0) {
+                years.add(FIRST_YEAR + offset);
+            }
+        }
+        //Stable, so years of equal count stay latest first.
+        years.sort((a, b) -> Integer.compare(counts[offset(b)], counts[offset(a)]));
+        return Lists.newArrayList(years.subList(0, Math.min(Math.max(k, 0), years.size())));
+    }
+
+    /**
+     * The non-zero counts by year.
+     */
+    public synchronized Map<Integer, Integer> toMap() {
+        Map<Integer, Integer> map = Maps.newTreeMap();
+        for (int offset = 0; offset < counts.length; offset++) {
+            if (counts[offset] > 0) {
+                map.put(FIRST_YEAR + offset, counts[offset]);
+            }
+        }
+        return map;
+    }
+
+    private static int offset(int year) {
+        if (year < FIRST_YEAR) {
+            throw new IllegalArgumentException("Year cannot be before " + FIRST_YEAR);
+        }
+        return year - FIRST_YEAR;
+    }
+}
@@ -0,0 +1,65 @@
+package allaboutecm.dataaccess.columnar;
+
+import java.util.Arrays;
+
+/**
+ * Compressed sparse row form of one relationship: the target rows of source row r are
+ * targets[offsets[r]] .. targets[offsets[r + 1] - 1]. Targets that are no longer live are left out.
+ *
+ * Built from the id lists of a source column and valid until either table is modified.
+ */
+class Adjacency {
+    private final int[] offsets;
+    private final int[] targets;
+    private final long sourceModifications;
+    private final long targetModifications;
+
+    private Adjacency(int[] offsets, int[] targets, long sourceModifications, long targetModifications) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.sourceModifications = sourceModifications;
+        this.targetModifications = targetModifications;
+    }
+
+    static Adjacency build(Table source, Table.ObjectColumn<long[]> edges, Table target) {
+        int[] offsets = new int[source.rows() + 1];
+        int[] targets = new int[16];
+        int size = 0;
+        for (int row = 0; row < source.rows(); row++) {
+            offsets[row] = size;
+            long[] ids = source.isLive(row) ? edges.get(row) : null;
+            if (null == ids) {
+                continue;
+            }
+            for (long id : ids) {
+                int targetRow = target.row(id);
+                if (targetRow < 0) {
+                    continue;
+                }
+                if (size == targets.length) {
+                    targets = Arrays.copyOf(targets, size * 2);
+                }
+                targets[size++] = targetRow;
+            }
+        }
+        offsets[source.rows()] = size;
+        return new Adjacency(offsets, Arrays.copyOf(targets, size), source.getModifications(),
+                target.getModifications());
+    }
+
+    boolean isCurrent(Table source, Table target) {
+        return sourceModifications == source.getModifications() && targetModifications == target.getModifications();
+    }
+
+    int start(int row) {
+        return offsets[row];
+    }
+
+    int end(int row) {
+        return offsets[row + 1];
+    }
+
+    int target(int index) {
+        return targets[index];
+    }
+}
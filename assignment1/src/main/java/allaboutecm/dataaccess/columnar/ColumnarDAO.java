@@ -0,0 +1,821 @@
+package allaboutecm.dataaccess.columnar;
+
+import allaboutecm.dataaccess.DAO;
+import allaboutecm.dataaccess.NextConcerts;
+import allaboutecm.dataaccess.YearHistogram;
+import allaboutecm.model.*;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Streams;
+import com.google.common.primitives.Ints;
+
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * A DAO keeping the catalogue in memory as columns of primitive arrays instead of an object graph, for
+ * read-mostly analytics. Strings are dictionary encoded, relationships are kept as id arrays per row and turned
+ * into compressed sparse rows when an aggregation walks them, so the aggregations scan arrays and only the
+ * entities they return are built as objects.
+ *
+ * Writes follow {@link allaboutecm.dataaccess.neo4j.Neo4jDAO}: an entity is matched on its natural key, its
+ * direct relationships are replaced when it is saved under its own id and added to when it matched on its key,
+ * and related entities without an id are created. Loaded entities are new objects on every call, holding their
+ * direct relationships; the entities they relate to only hold their properties. Ids are never reused.
+ */
+public class ColumnarDAO implements DAO {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final long[] NO_IDS = new long[0];
+    private static final long NO_ID = -1;
+
+    private final StringDictionary strings = new StringDictionary();
+    //Natural key to the ids holding it, lowest first, as the store lookups of Neo4jDAO find them.
+    private final Map<List<Object>, TreeSet<Long>> keys = Maps.newHashMap();
+    private final YearHistogram yearHistogram = new YearHistogram();
+    private long nextId;
+
+    private final Table albums = new Table();
+    private final Table.IntColumn albumReleaseYears = albums.intColumn();
+    private final Table.IntColumn albumRecordNumbers = albums.intColumn();
+    private final Table.IntColumn albumNames = albums.intColumn();
+    private final Table.IntColumn albumSales = albums.intColumn();
+    private final Table.ObjectColumn<URL> albumURLs = albums.objectColumn();
+    private final Table.ObjectColumn<long[]> albumFeaturedMusicians = albums.objectColumn();
+    private final Table.ObjectColumn<long[]> albumInstruments = albums.objectColumn();
+    private final Table.ObjectColumn<long[]> albumTracks = albums.objectColumn();
+    private final Table.ObjectColumn<long[]> albumRatings = albums.objectColumn();
+
+    private final Table musicians = new Table();
+    private final Table.IntColumn musicianNames = musicians.intColumn();
+    private final Table.ObjectColumn<URL> musicianURLs = musicians.objectColumn();
+    private final Table.ObjectColumn<String> musicianBios = musicians.objectColumn();
+    private final Table.ObjectColumn<URL> musicianPersonalSites = musicians.objectColumn();
+    private final Table.ObjectColumn<URL> musicianWikiPages = musicians.objectColumn();
+    private final Table.ObjectColumn<long[]> musicianAlbums = musicians.objectColumn();
+
+    private final Table tracks = new Table();
+    private final Table.IntColumn trackNames = tracks.intColumn();
+    private final Table.IntColumn trackDurations = tracks.intColumn();
+    private final Table.IntColumn trackGenres = tracks.intColumn();
+    private final Table.IntColumn trackNumbers = tracks.intColumn();
+    private final Table.ObjectColumn<List<String>> trackReviews = tracks.objectColumn();
+
+    private final Table ratings = new Table();
+    private final Table.IntColumn ratingScores = ratings.intColumn();
+    private final Table.IntColumn ratingSources = ratings.intColumn();
+
+    private final Table musicalInstruments = new Table();
+    private final Table.IntColumn musicalInstrumentNames = musicalInstruments.intColumn();
+
+    private final Table musicianInstruments = new Table();
+    private final Table.LongColumn musicianInstrumentMusicians = musicianInstruments.longColumn();
+    private final Table.ObjectColumn<long[]> musicianInstrumentInstruments = musicianInstruments.objectColumn();
+
+    private final Table concerts = new Table();
+    private final Table.LongColumn concertDates = concerts.longColumn();
+    private final Table.IntColumn concertNames = concerts.intColumn();
+    private final Table.IntColumn concertLocations = concerts.intColumn();
+    private final Table.IntColumn concertCountries = concerts.intColumn();
+    private final Table.ObjectColumn<long[]> concertFeaturedMusicians = concerts.objectColumn();
+
+    //Built when an aggregation first needs them after a write.
+    private Adjacency albumsOfMusicians;
+    private Adjacency ratingsOfAlbums;
+    private int[] concertsByDate;
+    private long concertsByDateModifications = -1;
+
+    @Override
+    public synchronized <T extends Entity> T load(Class<T> clazz, Long id) {
+        Table table = table(clazz);
+        int row = table.row(id);
+        return row < 0 ? null : clazz.cast(new Views().withRelationships(table, row));
+    }
+
+    @Override
+    public synchronized <T extends Entity> T createOrUpdate(T entity) {
+        List<Object> key = naturalKey(entity);
+        Long existingId = null == key ? null : firstId(key);
+        //An entity matched on its key rather than its own id adds to the stored relationships, as a save of an
+        //entity the Neo4j session has not loaded does.
+        boolean merge = null != existingId && !existingId.equals(entity.getId());
+        if (null != existingId) {
+            entity.setId(existingId);
+        }
+        write(entity, merge ? Relationships.MERGE : Relationships.REPLACE, Sets.newIdentityHashSet());
+        return entity;
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> createOrUpdateAll(Collection<T> entities) {
+        createOrUpdateAll(entities.stream(), DEFAULT_BATCH_SIZE);
+        return entities;
+    }
+
+    /**
+     * Writes the entities one at a time. Batches only bound how many featured musicians are linked by name at once.
+     */
+    @Override
+    public <T extends Entity> long createOrUpdateAll(Stream<T> entities, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        long saved = 0;
+        Iterator<List<T>> batches = Iterators.partition(entities.iterator(), batchSize);
+        while (batches.hasNext()) {
+            List<T> batch = batches.next();
+            saveBatch(batch);
+            saved += batch.size();
+        }
+        return saved;
+    }
+
+    @Override
+    public synchronized <T extends Entity> Collection<T> loadAll(Class<T> clazz) {
+        Table table = table(clazz);
+        return loadRows(clazz, table, 0, table.rows(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public synchronized <T extends Entity> List<T> loadPage(Class<T> clazz, Long afterId, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        Table table = table(clazz);
+        int from = null == afterId ? 0 : table.firstRowAfter(afterId);
+        return loadRows(clazz, table, from, table.rows(), limit);
+    }
+
+    @Override
+    public <T extends Entity> Stream<T> streamAll(Class<T> clazz, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        Iterator<List<T>> pages = new AbstractIterator<List<T>>() {
+            private Long afterId;
+
+            @Override
+            protected List<T> computeNext() {
+                List<T> page = loadPage(clazz, afterId, pageSize);
+                if (page.isEmpty()) {
+                    return endOfData();
+                }
+                afterId = page.get(page.size() - 1).getId();
+                return page;
+            }
+        };
+        return Streams.stream(pages).flatMap(List::stream);
+    }
+
+    @Override
+    public synchronized <T extends Entity> void delete(T entity) {
+        Table table = table(entity.getClass());
+        int row = table.row(entity.getId());
+        if (row < 0) {
+            return;
+        }
+        List<Object> key = storedKey(table, row);
+        if (null != key) {
+            removeKey(key, table.id(row));
+        }
+        if (table == albums) {
+            yearHistogram.remove(albumReleaseYears.get(row));
+        }
+        //Relationships pointing at the row are left dangling and skipped wherever they are read.
+        table.delete(row);
+    }
+
+    @Override
+    public synchronized Musician findMusicianByName(String name) {
+        return (Musician) byId(musicians, firstId(naturalKey(Musician.class, name)));
+    }
+
+    @Override
+    public synchronized MusicalInstrument findMusicalInstrumentByName(String name) {
+        return (MusicalInstrument) byId(musicalInstruments, firstId(naturalKey(MusicalInstrument.class, name)));
+    }
+
+    @Override
+    public synchronized Album findAlbumByName(String name) {
+        return (Album) first(albums, albumNames, name);
+    }
+
+    @Override
+    public synchronized Album findAlbumByReleaseYear(int releaseYear) {
+        return (Album) first(albums, albumReleaseYears, releaseYear);
+    }
+
+    @Override
+    public synchronized Album findAlbumByRecordNumber(String recordNumber) {
+        return (Album) first(albums, albumRecordNumbers, recordNumber);
+    }
+
+    @Override
+    public synchronized Album findAlbumBySales(int sales) {
+        return (Album) first(albums, albumSales, sales);
+    }
+
+    @Override
+    public synchronized Track findTrackByName(String name) {
+        return (Track) first(tracks, trackNames, name);
+    }
+
+    @Override
+    public synchronized Track findTrackByDuration(String duration) {
+        return (Track) first(tracks, trackDurations, duration);
+    }
+
+    @Override
+    public synchronized Track findTrackByGenre(String genre) {
+        return (Track) first(tracks, trackGenres, genre);
+    }
+
+    @Override
+    public synchronized Track findTrackByTrackNumber(int trackNumber) {
+        return (Track) first(tracks, trackNumbers, trackNumber);
+    }
+
+    @Override
+    public synchronized Rating findRatingByScore(int score) {
+        return (Rating) first(ratings, ratingScores, score);
+    }
+
+    @Override
+    public synchronized Rating findRatingBySource(String source) {
+        return (Rating) first(ratings, ratingSources, source);
+    }
+
+    @Override
+    public synchronized <T extends Entity> long count(Class<T> clazz) {
+        return table(clazz).size();
+    }
+
+    @Override
+    public synchronized List<Integer> findBusiestYears(int k) {
+        return yearHistogram.busiest(k);
+    }
+
+    @Override
+    public synchronized List<Album> findMostSellingAlbums(int k) {
+        int[] rows = new int[albums.rows()];
+        double[] scores = new double[albums.rows()];
+        int candidates = 0;
+        for (int row = 0; row < albums.rows(); row++) {
+            if (albums.isLive(row)) {
+                rows[candidates] = row;
+                scores[candidates++] = albumSales.get(row);
+            }
+        }
+        return loadRows(Album.class, albums, highest(rows, scores, candidates, k));
+    }
+
+    @Override
+    public synchronized List<Album> findHighestRatedAlbums(int k) {
+        Adjacency adjacency = ratingsOfAlbums();
+        int[] rows = new int[albums.rows()];
+        double[] scores = new double[albums.rows()];
+        int candidates = 0;
+        for (int row = 0; row < albums.rows(); row++) {
+            int start = adjacency.start(row);
+            int end = adjacency.end(row);
+            //Albums without ratings have no average and are left out, as in Neo4jDAO.
+            if (start == end) {
+                continue;
+            }
+            long sum = 0;
+            for (int i = start; i < end; i++) {
+                sum += ratingScores.get(adjacency.target(i));
+            }
+            rows[candidates] = row;
+            scores[candidates++] = (double) sum / (end - start);
+        }
+        return loadRows(Album.class, albums, highest(rows, scores, candidates, k));
+    }
+
+    @Override
+    public synchronized List<Musician> findMostProlificMusicians(int k, int startYear, int endYear) {
+        Adjacency adjacency = albumsOfMusicians();
+        int[] counts = new int[musicians.rows()];
+        List<Integer> prolific = Lists.newArrayList();
+        for (int row = 0; row < musicians.rows(); row++) {
+            for (int i = adjacency.start(row); i < adjacency.end(row); i++) {
+                int year = albumReleaseYears.get(adjacency.target(i));
+                if ((startYear <= 0 || year >= startYear) && (endYear <= 0 || year <= endYear)) {
+                    counts[row]++;
+                }
+            }
+            if (counts[row] > 0) {
+                prolific.add(row);
+            }
+        }
+        //Ordered as Neo4jDAO orders its rows, by album count and then by name. Whole counts are taken
+        //until k musicians are reached, so ties at the boundary are all returned.
+        prolific.sort(Comparator.<Integer>comparingInt(row -> -counts[row])
+                .thenComparing(row -> strings.decode(musicianNames.get(row)), Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparingInt(row -> row));
+        int taken = 0;
+        while (taken < prolific.size() && taken < k) {
+            int count = counts[prolific.get(taken)];
+            while (taken < prolific.size() && counts[prolific.get(taken)] == count) {
+                taken++;
+            }
+        }
+        int[] rows = new int[taken];
+        for (int i = 0; i < taken; i++) {
+            rows[i] = prolific.get(i);
+        }
+        return loadRows(Musician.class, musicians, rows);
+    }
+
+    @Override
+    public synchronized List<Concerts> findNextConcerts(int k, Date after) {
+        int[] sorted = concertsByDate();
+        //The first concert after the given time, by a binary search over the sorted dates.
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (concertDates.get(sorted[middle]) <= after.getTime()) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        //Rows are only loaded as far as NextConcerts reads them.
+        Views views = new Views();
+        return NextConcerts.take(Lists.transform(Ints.asList(sorted).subList(low, sorted.length),
+                row -> (Concerts) views.withRelationships(concerts, row)), k);
+    }
+
+    private int[] concertsByDate() {
+        if (null == concertsByDate || concertsByDateModifications != concerts.getModifications()) {
+            List<Integer> rows = Lists.newArrayList();
+            for (int row = 0; row < concerts.rows(); row++) {
+                if (concerts.isLive(row)) {
+                    rows.add(row);
+                }
+            }
+            //Stable, so concerts on the same date stay in id order.
+            rows.sort(Comparator.comparingLong(row -> concertDates.get(row)));
+            concertsByDate = Ints.toArray(rows);
+            concertsByDateModifications = concerts.getModifications();
+        }
+        return concertsByDate;
+    }
+
+    private Adjacency albumsOfMusicians() {
+        if (null == albumsOfMusicians || !albumsOfMusicians.isCurrent(musicians, albums)) {
+            albumsOfMusicians = Adjacency.build(musicians, musicianAlbums, albums);
+        }
+        return albumsOfMusicians;
+    }
+
+    private Adjacency ratingsOfAlbums() {
+        if (null == ratingsOfAlbums || !ratingsOfAlbums.isCurrent(albums, ratings)) {
+            ratingsOfAlbums = Adjacency.build(albums, albumRatings, ratings);
+        }
+        return ratingsOfAlbums;
+    }
+
+    /**
+     * The rows of the k highest scores, highest first. Candidates are in row order, which is id order, and a
+     * later row wins a tie as the higher id does in Neo4jDAO and the later item does in ECMMiner's TopK.
+     */
+    private static int[] highest(int[] rows, double[] scores, int candidates, int k) {
+        int size = Math.min(Math.max(k, 0), candidates);
+        int[] bestRows = new int[size];
+        double[] bestScores = new double[size];
+        int best = 0;
+        for (int i = 0; i < candidates && size > 0; i++) {
+            double score = scores[i];
+            if (best == size && score < bestScores[size - 1]) {
+                continue;
+            }
+            int position = best < size ? best++ : size - 1;
+            while (position > 0 && bestScores[position - 1] <= score) {
+                bestRows[position] = bestRows[position - 1];
+                bestScores[position] = bestScores[position - 1];
+                position--;
+            }
+            bestRows[position] = rows[i];
+            bestScores[position] = score;
+        }
+        return bestRows;
+    }
+
+    private <T extends Entity> List<T> loadRows(Class<T> clazz, Table table, int from, int to, int limit) {
+        Views views = new Views();
+        List<T> entities = Lists.newArrayList();
+        for (int row = from; row < to && entities.size() < limit; row++) {
+            if (table.isLive(row)) {
+                entities.add(clazz.cast(views.withRelationships(table, row)));
+            }
+        }
+        return entities;
+    }
+
+    private <T extends Entity> List<T> loadRows(Class<T> clazz, Table table, int[] rows) {
+        Views views = new Views();
+        List<T> entities = Lists.newArrayListWithCapacity(rows.length);
+        for (int row : rows) {
+            entities.add(clazz.cast(views.withRelationships(table, row)));
+        }
+        return entities;
+    }
+
+    private Entity byId(Table table, Long id) {
+        int row = table.row(id);
+        return row < 0 ? null : new Views().withRelationships(table, row);
+    }
+
+    private Entity first(Table table, Table.IntColumn column, String value) {
+        //A string the dictionary has never seen is in no row.
+        int code = strings.lookup(value);
+        return StringDictionary.NULL == code ? null : first(table, column, code);
+    }
+
+    private Entity first(Table table, Table.IntColumn column, int value) {
+        for (int row = 0; row < table.rows(); row++) {
+            if (table.isLive(row) && column.get(row) == value) {
+                return new Views().withRelationships(table, row);
+            }
+        }
+        return null;
+    }
+
+    private synchronized <T extends Entity> void saveBatch(List<T> batch) {
+        linkFeaturedMusicians(batch);
+        for (T entity : batch) {
+            createOrUpdate(entity);
+        }
+    }
+
+    private <T extends Entity> void linkFeaturedMusicians(List<T> entities) {
+        //Featured musicians the caller only knows by name become the stored musician, or one new
+        //musician per name, instead of a new musician per reference.
+        Map<String, Musician> byName = Maps.newHashMap();
+        Views views = new Views();
+        for (T entity : entities) {
+            List<Musician> featured = entity instanceof Album ? ((Album) entity).getFeaturedMusicians()
+                    : entity instanceof Concerts ? ((Concerts) entity).getFeaturedMusicians() : null;
+            if (null == featured) {
+                continue;
+            }
+            for (int i = 0; i < featured.size(); i++) {
+                Musician musician = featured.get(i);
+                if (null != musician.getId()) {
+                    continue;
+                }
+                featured.set(i, byName.computeIfAbsent(musician.getName(), name -> {
+                    int row = musicians.row(firstId(naturalKey(Musician.class, name)));
+                    return row < 0 ? musician : (Musician) views.properties(musicians, row);
+                }));
+            }
+        }
+    }
+
+    /**
+     * Writes the properties of an entity, and its relationships when asked to or when it is new. Related entities
+     * are written with their properties only unless they are new too.
+     */
+    private long write(Entity entity, Relationships relationships, Set<Entity> written) {
+        if (!written.add(entity)) {
+            return entity.getId();
+        }
+        Table table = table(entity.getClass());
+        int row = table.row(entity.getId());
+        boolean created = row < 0;
+        if (created) {
+            //The id is assigned before related entities are written, so a cycle back to this entity ends here.
+            entity.setId(nextId++);
+            row = table.append(entity.getId());
+        }
+        writeProperties(entity, table, row, created);
+        if (created) {
+            writeRelationships(entity, table, row, Relationships.REPLACE, written);
+        } else if (Relationships.KEEP != relationships) {
+            writeRelationships(entity, table, row, relationships, written);
+        }
+        return entity.getId();
+    }
+
+    private void writeProperties(Entity entity, Table table, int row, boolean created) {
+        List<Object> oldKey = created ? null : storedKey(table, row);
+        if (entity instanceof Album) {
+            Album album = (Album) entity;
+            if (created) {
+                yearHistogram.add(album.getReleaseYear());
+            } else if (albumReleaseYears.get(row) != album.getReleaseYear()) {
+                yearHistogram.move(albumReleaseYears.get(row), album.getReleaseYear());
+            }
+            albumReleaseYears.set(row, album.getReleaseYear());
+            albumRecordNumbers.set(row, strings.encode(album.getRecordNumber()));
+            albumNames.set(row, strings.encode(album.getAlbumName()));
+            albumSales.set(row, album.getSales());
+            albumURLs.set(row, album.getAlbumURL());
+        } else if (entity instanceof Musician) {
+            Musician musician = (Musician) entity;
+            musicianNames.set(row, strings.encode(musician.getName()));
+            musicianURLs.set(row, musician.getMusicianUrl());
+            musicianBios.set(row, musician.getBio());
+            musicianPersonalSites.set(row, musician.getPersonalSite());
+            musicianWikiPages.set(row, musician.getWikiPage());
+        } else if (entity instanceof Track) {
+            Track track = (Track) entity;
+            trackNames.set(row, strings.encode(track.getName()));
+            trackDurations.set(row, strings.encode(track.getDuration()));
+            trackGenres.set(row, strings.encode(track.getGenre()));
+            trackNumbers.set(row, track.getTrackNumber());
+            trackReviews.set(row, null == track.getReviews() ? null : Lists.newArrayList(track.getReviews()));
+        } else if (entity instanceof Rating) {
+            Rating rating = (Rating) entity;
+            ratingScores.set(row, rating.getRatingScore());
+            ratingSources.set(row, strings.encode(rating.getSource()));
+        } else if (entity instanceof MusicalInstrument) {
+            musicalInstrumentNames.set(row, strings.encode(((MusicalInstrument) entity).getName()));
+        } else if (entity instanceof Concerts) {
+            Concerts concert = (Concerts) entity;
+            concertDates.set(row, concert.getDate().getTime());
+            concertNames.set(row, strings.encode(concert.getName()));
+            concertLocations.set(row, strings.encode(concert.getLocation()));
+            concertCountries.set(row, strings.encode(concert.getCountry()));
+        }
+        List<Object> newKey = naturalKey(entity);
+        if (null != newKey && !newKey.equals(oldKey)) {
+            if (null != oldKey) {
+                removeKey(oldKey, entity.getId());
+            }
+            keys.computeIfAbsent(newKey, k -> new TreeSet<>()).add(entity.getId());
+        }
+    }
+
+    private void writeRelationships(Entity entity, Table table, int row, Relationships relationships,
+                                    Set<Entity> written) {
+        boolean merge = Relationships.MERGE == relationships;
+        if (entity instanceof Album) {
+            Album album = (Album) entity;
+            albumFeaturedMusicians.set(row, write(merge, albumFeaturedMusicians.get(row), album.getFeaturedMusicians(), written));
+            albumInstruments.set(row, write(merge, albumInstruments.get(row), album.getInstruments(), written));
+            albumTracks.set(row, write(merge, albumTracks.get(row), album.getTracks(), written));
+            albumRatings.set(row, write(merge, albumRatings.get(row), album.getRatings(), written));
+        } else if (entity instanceof Musician) {
+            musicianAlbums.set(row, write(merge, musicianAlbums.get(row), ((Musician) entity).getAlbums(), written));
+        } else if (entity instanceof MusicianInstrument) {
+            MusicianInstrument musicianInstrument = (MusicianInstrument) entity;
+            Musician musician = musicianInstrument.getMusician();
+            if (null != musician || !merge) {
+                musicianInstrumentMusicians.set(row, null == musician ? NO_ID
+                        : write(musician, Relationships.KEEP, written));
+            }
+            musicianInstrumentInstruments.set(row, write(merge, musicianInstrumentInstruments.get(row),
+                    musicianInstrument.getMusicalInstruments(), written));
+        } else if (entity instanceof Concerts) {
+            concertFeaturedMusicians.set(row, write(merge, concertFeaturedMusicians.get(row),
+                    ((Concerts) entity).getFeaturedMusicians(), written));
+        }
+        //Aggregations over the relationships have to be rebuilt.
+        table.touch();
+    }
+
+    private long[] write(boolean merge, long[] stored, Collection<? extends Entity> related, Set<Entity> written) {
+        Set<Long> ids = Sets.newLinkedHashSet();
+        if (merge && null != stored) {
+            for (long id : stored) {
+                ids.add(id);
+            }
+        }
+        if (null != related) {
+            for (Entity entity : related) {
+                ids.add(write(entity, Relationships.KEEP, written));
+            }
+        }
+        if (ids.isEmpty()) {
+            return NO_IDS;
+        }
+        long[] array = new long[ids.size()];
+        int i = 0;
+        for (Long id : ids) {
+            array[i++] = id;
+        }
+        return array;
+    }
+
+    private Long firstId(List<Object> key) {
+        TreeSet<Long> ids = keys.get(key);
+        return null == ids ? null : ids.first();
+    }
+
+    private void removeKey(List<Object> key, long id) {
+        TreeSet<Long> ids = keys.get(key);
+        if (null != ids && ids.remove(id) && ids.isEmpty()) {
+            keys.remove(key);
+        }
+    }
+
+    /**
+     * The natural key of a stored row, the same as {@link #naturalKey(Entity)} of the entity it was written from.
+     */
+    private List<Object> storedKey(Table table, int row) {
+        if (table == albums) {
+            return naturalKey(Album.class, strings.decode(albumNames.get(row)),
+                    strings.decode(albumRecordNumbers.get(row)), albumReleaseYears.get(row));
+        } else if (table == musicians) {
+            return naturalKey(Musician.class, strings.decode(musicianNames.get(row)));
+        } else if (table == musicalInstruments) {
+            return naturalKey(MusicalInstrument.class, strings.decode(musicalInstrumentNames.get(row)));
+        } else if (table == tracks) {
+            return naturalKey(Track.class, strings.decode(trackNames.get(row)), strings.decode(trackDurations.get(row)),
+                    strings.decode(trackGenres.get(row)), trackNumbers.get(row));
+        } else if (table == ratings) {
+            return naturalKey(Rating.class, ratingScores.get(row), strings.decode(ratingSources.get(row)));
+        }
+        return null;
+    }
+
+    private static List<Object> naturalKey(Entity entity) {
+        if (entity instanceof Album) {
+            Album album = (Album) entity;
+            return naturalKey(Album.class, album.getAlbumName(), album.getRecordNumber(), album.getReleaseYear());
+        } else if (entity instanceof Musician) {
+            return naturalKey(Musician.class, ((Musician) entity).getName());
+        } else if (entity instanceof MusicalInstrument) {
+            return naturalKey(MusicalInstrument.class, ((MusicalInstrument) entity).getName());
+        } else if (entity instanceof Track) {
+            Track track = (Track) entity;
+            return naturalKey(Track.class, track.getName(), track.getDuration(), track.getGenre(), track.getTrackNumber());
+        } else if (entity instanceof Rating) {
+            Rating rating = (Rating) entity;
+            return naturalKey(Rating.class, rating.getRatingScore(), rating.getSource());
+        }
+        return null;
+    }
+
+    private static List<Object> naturalKey(Class<?> clazz, Object... values) {
+        //Not an ImmutableList, optional properties may be null.
+        List<Object> key = Lists.newArrayListWithCapacity(values.length + 1);
+        key.add(clazz);
+        key.addAll(Arrays.asList(values));
+        return key;
+    }
+
+    private Table table(Class<?> clazz) {
+        if (Album.class.equals(clazz)) {
+            return albums;
+        } else if (Musician.class.equals(clazz)) {
+            return musicians;
+        } else if (Track.class.equals(clazz)) {
+            return tracks;
+        } else if (Rating.class.equals(clazz)) {
+            return ratings;
+        } else if (MusicalInstrument.class.equals(clazz)) {
+            return musicalInstruments;
+        } else if (MusicianInstrument.class.equals(clazz)) {
+            return musicianInstruments;
+        } else if (Concerts.class.equals(clazz)) {
+            return concerts;
+        }
+        throw new IllegalArgumentException("Unknown entity type " + clazz.getSimpleName());
+    }
+
+    private enum Relationships {
+        //Replaced by those of the entity written.
+        REPLACE,
+        //Joined by those of the entity written.
+        MERGE,
+        //Left as they are, the entity is only related to the one written.
+        KEEP
+    }
+
+    /**
+     * The objects built for one call, so an entity reached twice is one object, as within a session.
+     */
+    private class Views {
+        private final Map<Long, Entity> entities = Maps.newHashMap();
+        private final Set<Long> withRelationships = Sets.newHashSet();
+
+        Entity withRelationships(Table table, int row) {
+            Entity entity = properties(table, row);
+            if (!withRelationships.add(entity.getId())) {
+                return entity;
+            }
+            if (entity instanceof Album) {
+                Album album = (Album) entity;
+                addAll(album.getFeaturedMusicians(), musicians, albumFeaturedMusicians.get(row));
+                addAll(album.getInstruments(), musicianInstruments, albumInstruments.get(row));
+                addAll(album.getTracks(), tracks, albumTracks.get(row));
+                addAll(album.getRatings(), ratings, albumRatings.get(row));
+                album.recountRatings();
+            } else if (entity instanceof Musician) {
+                addAll(((Musician) entity).getAlbums(), albums, musicianAlbums.get(row));
+            } else if (entity instanceof Concerts) {
+                addAll(((Concerts) entity).getFeaturedMusicians(), musicians, concertFeaturedMusicians.get(row));
+            }
+            return entity;
+        }
+
+        Entity properties(Table table, int row) {
+            long id = table.id(row);
+            Entity entity = entities.get(id);
+            if (null == entity) {
+                entity = build(table, row);
+                entity.setId(id);
+                entities.put(id, entity);
+                if (entity instanceof MusicianInstrument) {
+                    //Not an entity on its own, it always comes with the musician and instruments it pairs.
+                    relate((MusicianInstrument) entity, row);
+                }
+            }
+            return entity;
+        }
+
+        private void relate(MusicianInstrument musicianInstrument, int row) {
+            int musicianRow = musicians.row(musicianInstrumentMusicians.get(row));
+            if (musicianRow >= 0) {
+                musicianInstrument.setMusician((Musician) properties(musicians, musicianRow));
+            }
+            Set<MusicalInstrument> instruments = Sets.newHashSet();
+            addAll(instruments, musicalInstruments, musicianInstrumentInstruments.get(row));
+            if (!instruments.isEmpty()) {
+                musicianInstrument.setMusicalInstruments(instruments);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T extends Entity> void addAll(Collection<T> into, Table table, long[] ids) {
+            if (null == ids) {
+                return;
+            }
+            for (long id : ids) {
+                int row = table.row(id);
+                if (row >= 0) {
+                    into.add((T) properties(table, row));
+                }
+            }
+        }
+
+        private Entity build(Table table, int row) {
+            //Built through the public constructors and setters, the stored values have passed their checks once.
+            if (table == albums) {
+                Album album = new Album(albumReleaseYears.get(row), strings.decode(albumRecordNumbers.get(row)),
+                        strings.decode(albumNames.get(row)));
+                album.setSales(albumSales.get(row));
+                if (null != albumURLs.get(row)) {
+                    album.setAlbumURL(albumURLs.get(row));
+                }
+                return album;
+            } else if (table == musicians) {
+                Musician musician = new Musician(strings.decode(musicianNames.get(row)));
+                if (null != musicianURLs.get(row)) {
+                    musician.setMusicianUrl(musicianURLs.get(row));
+                }
+                if (null != musicianBios.get(row)) {
+                    musician.setBio(musicianBios.get(row));
+                }
+                if (null != musicianPersonalSites.get(row)) {
+                    musician.setPersonalSite(musicianPersonalSites.get(row));
+                }
+                if (null != musicianWikiPages.get(row)) {
+                    musician.setWikiPage(musicianWikiPages.get(row));
+                }
+                return musician;
+            } else if (table == tracks) {
+                Track track = new Track(strings.decode(trackNames.get(row)), strings.decode(trackDurations.get(row)),
+                        strings.decode(trackGenres.get(row)), trackNumbers.get(row));
+                if (null != trackReviews.get(row)) {
+                    track.setReviews(Lists.newArrayList(trackReviews.get(row)));
+                }
+                return track;
+            } else if (table == ratings) {
+                return new Rating(ratingScores.get(row), strings.decode(ratingSources.get(row)));
+            } else if (table == musicalInstruments) {
+                MusicalInstrument musicalInstrument = new MusicalInstrument();
+                if (StringDictionary.NULL != musicalInstrumentNames.get(row)) {
+                    musicalInstrument.setName(strings.decode(musicalInstrumentNames.get(row)));
+                }
+                return musicalInstrument;
+            } else if (table == musicianInstruments) {
+                return new MusicianInstrument();
+            } else {
+                Concerts concert = new Concerts(new Date(concertDates.get(row)), strings.decode(concertNames.get(row)));
+                if (StringDictionary.NULL != concertLocations.get(row)) {
+                    concert.setLocation(strings.decode(concertLocations.get(row)));
+                }
+                if (StringDictionary.NULL != concertCountries.get(row)) {
+                    concert.setCountry(strings.decode(concertCountries.get(row)));
+                }
+                return concert;
+            }
+        }
+    }
+}
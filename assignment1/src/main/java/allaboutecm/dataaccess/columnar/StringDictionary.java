@@ -0,0 +1,43 @@
+package allaboutecm.dataaccess.columnar;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes strings as dense int codes, so string columns are int arrays and equality filters compare ints.
+ * Null is encoded as {@link #NULL}. Codes are never reused, the dictionary only grows.
+ */
+class StringDictionary {
+    static final int NULL = -1;
+
+    private final Map<String, Integer> codes = Maps.newHashMap();
+    private final List<String> values = Lists.newArrayList();
+
+    int encode(String value) {
+        if (null == value) {
+            return NULL;
+        }
+        Integer code = codes.get(value);
+        if (null == code) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * The code of a value, without adding it; {@link #NULL} when the value was never encoded.
+     */
+    int lookup(String value) {
+        Integer code = null == value ? null : codes.get(value);
+        return null == code ? NULL : code;
+    }
+
+    String decode(int code) {
+        return NULL == code ? null : values.get(code);
+    }
+}
@@ -0,0 +1,234 @@
+package allaboutecm.dataaccess.columnar;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rows of one entity type, one array per column. Rows are appended in id order and deleted rows are only marked,
+ * so scanning the rows in order visits the entities in id order. The table is compacted once half of its rows
+ * are deleted, which moves rows, so row numbers are only valid until the next {@link #getModifications()} change.
+ */
+class Table {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final List<Column> columns = Lists.newArrayList();
+    private final Map<Long, Integer> rowsById = Maps.newHashMap();
+    private final BitSet deleted = new BitSet();
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int rows;
+    private int deletedRows;
+    private long modifications;
+
+    IntColumn intColumn() {
+        return add(new IntColumn());
+    }
+
+    LongColumn longColumn() {
+        return add(new LongColumn());
+    }
+
+    <T> ObjectColumn<T> objectColumn() {
+        return add(new ObjectColumn<>());
+    }
+
+    private <C extends Column> C add(C column) {
+        column.grow(ids.length);
+        columns.add(column);
+        return column;
+    }
+
+    /**
+     * Appends a row for an id larger than every id in the table.
+     */
+    int append(long id) {
+        if (rows > 0 && id <= ids[rows - 1]) {
+            throw new IllegalArgumentException("Ids must be appended in ascending order");
+        }
+        if (rows == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            for (Column column : columns) {
+                column.grow(capacity);
+            }
+        }
+        ids[rows] = id;
+        rowsById.put(id, rows);
+        modifications++;
+        return rows++;
+    }
+
+    /**
+     * The row of a live entity, or -1.
+     */
+    int row(Long id) {
+        Integer row = null == id ? null : rowsById.get(id);
+        return null == row ? -1 : row;
+    }
+
+    long id(int row) {
+        return ids[row];
+    }
+
+    boolean isLive(int row) {
+        return !deleted.get(row);
+    }
+
+    /**
+     * Rows, including deleted ones, to scan with {@link #isLive(int)}.
+     */
+    int rows() {
+        return rows;
+    }
+
+    int size() {
+        return rows - deletedRows;
+    }
+
+    /**
+     * The first row whose id is larger than the given one.
+     */
+    int firstRowAfter(long id) {
+        int row = Arrays.binarySearch(ids, 0, rows, id);
+        return row >= 0 ? row + 1 : -row - 1;
+    }
+
+    void delete(int row) {
+        deleted.set(row);
+        rowsById.remove(ids[row]);
+        deletedRows++;
+        modifications++;
+        if (deletedRows > rows / 2) {
+            compact();
+        }
+    }
+
+    /**
+     * Changes on every append, delete and compaction, so derived structures can tell they are stale.
+     */
+    long getModifications() {
+        return modifications;
+    }
+
+    void touch() {
+        modifications++;
+    }
+
+    private void compact() {
+        int live = 0;
+        for (int row = 0; row < rows; row++) {
+            if (deleted.get(row)) {
+                continue;
+            }
+            if (live != row) {
+                ids[live] = ids[row];
+                for (Column column : columns) {
+                    column.move(row, live);
+                }
+            }
+            rowsById.put(ids[live], live);
+            live++;
+        }
+        for (Column column : columns) {
+            column.clear(live, rows);
+        }
+        rows = live;
+        deletedRows = 0;
+        deleted.clear();
+    }
+
+    abstract static class Column {
+        abstract void grow(int capacity);
+
+        abstract void move(int from, int to);
+
+        abstract void clear(int from, int to);
+    }
+
+    static class IntColumn extends Column {
+        private int[] values = new int[0];
+
+        int get(int row) {
+            return values[row];
+        }
+
+        void set(int row, int value) {
+            values[row] = value;
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void move(int from, int to) {
+            values[to] = values[from];
+        }
+
+        @Override
+        void clear(int from, int to) {
+            Arrays.fill(values, from, to, 0);
+        }
+    }
+
+    static class LongColumn extends Column {
+        private long[] values = new long[0];
+
+        long get(int row) {
+            return values[row];
+        }
+
+        void set(int row, long value) {
+            values[row] = value;
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void move(int from, int to) {
+            values[to] = values[from];
+        }
+
+        @Override
+        void clear(int from, int to) {
+            Arrays.fill(values, from, to, 0L);
+        }
+    }
+
+    static class ObjectColumn<T> extends Column {
+        private Object[] values = new Object[0];
+
+        @SuppressWarnings("unchecked")
+        T get(int row) {
+            return (T) values[row];
+        }
+
+        void set(int row, T value) {
+            values[row] = value;
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void move(int from, int to) {
+            values[to] = values[from];
+        }
+
+        @Override
+        void clear(int from, int to) {
+            //Let the garbage collector have what the moved rows referenced.
+            Arrays.fill(values, from, to, null);
+        }
+    }
+}
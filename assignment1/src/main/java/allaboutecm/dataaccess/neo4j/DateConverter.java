@@ -3,19 +3,60 @@ package allaboutecm.dataaccess.neo4j;
 
 import org.neo4j.ogm.typeconversion.AttributeConverter;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.Date;
 
+/**
+ * Stores dates as UTC instants to the millisecond, "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'". The width is fixed, so the
+ * strings sort as the dates do and a range seek on an index of them finds dates in order.
+ *
+ * Dates stored before as local times to the second, "yyyy-MM-dd HH:mm:ss", are still read, in the time zone of
+ * this JVM. {@link DateMigration} rewrites them in the current form. The formatters are immutable, so one
+ * converter is safe to share between sessions and threads.
+ */
 public class DateConverter implements AttributeConverter<Date, String> {
+    private static final DateTimeFormatter FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter LEGACY_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int LENGTH = 24;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
     @Override
     public String toGraphProperty(Date value) {
         if (null == value) {
             return null;
         }
+        long time = value.getTime();
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(time, MILLIS_PER_DAY));
+        if (date.getYear() >= 0 && date.getYear() <= 9999) {
+            //Written digit by digit, the formatter allocates a good deal more than the string.
+            int millisOfDay = (int) Math.floorMod(time, MILLIS_PER_DAY);
+            char[] chars = new char[LENGTH];
+            digits(chars, 0, 4, date.getYear());
+            chars[4] = '-';
+            digits(chars, 5, 2, date.getMonthValue());
+            chars[7] = '-';
+            digits(chars, 8, 2, date.getDayOfMonth());
+            chars[10] = 'T';
+            digits(chars, 11, 2, millisOfDay / 3_600_000);
+            chars[13] = ':';
+            digits(chars, 14, 2, millisOfDay / 60_000 % 60);
+            chars[16] = ':';
+            digits(chars, 17, 2, millisOfDay / 1000 % 60);
+            chars[19] = '.';
+            digits(chars, 20, 3, millisOfDay % 1000);
+            chars[23] = 'Z';
+            return new String(chars);
+        }
         try {
-            return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(value);
-        } catch (Exception e) {
+            return FORMAT.format(value.toInstant());
+        } catch (DateTimeException e) {
             throw new IllegalArgumentException("Not a valid date");
         }
 
@@ -26,11 +67,72 @@ public class DateConverter implements AttributeConverter<Date, String> {
         if (null == value) {
             return null;
         }
+        return isLegacy(value) ? parseLegacy(value, ZoneId.systemDefault()) : parse(value);
+    }
+
+    /**
+     * Whether the value is a local time to the second, as dates were stored before.
+     */
+    static boolean isLegacy(String value) {
+        return value.indexOf('T') < 0;
+    }
 
+    static Date parseLegacy(String value, ZoneId zone) {
         try {
-            return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse(value);
-        } catch (ParseException e) {
+            return Date.from(LocalDateTime.parse(value, LEGACY_FORMAT).atZone(zone).toInstant());
+        } catch (DateTimeException e) {
             throw new IllegalArgumentException("Cannot convert string to Date:" + value);
         }
     }
-}
\ No newline at end of file
+
+    private static Date parse(String value) {
+        if (LENGTH == value.length() && value.charAt(4) == '-' && value.charAt(7) == '-' && value.charAt(10) == 'T'
+                && value.charAt(13) == ':' && value.charAt(16) == ':' && value.charAt(19) == '.'
+                && value.charAt(23) == 'Z') {
+            int year = digits(value, 0, 4);
+            int month = digits(value, 5, 2);
+            int day = digits(value, 8, 2);
+            int hour = digits(value, 11, 2);
+            int minute = digits(value, 14, 2);
+            int second = digits(value, 17, 2);
+            int millis = digits(value, 20, 3);
+            if (year >= 0 && month >= 1 && month <= 12 && day >= 1 && day <= 31 && hour >= 0 && hour < 24
+                    && minute >= 0 && minute < 60 && second >= 0 && second < 60 && millis >= 0) {
+                try {
+                    long epochDay = LocalDate.of(year, month, day).toEpochDay();
+                    return new Date(epochDay * MILLIS_PER_DAY + ((hour * 60L + minute) * 60 + second) * 1000 + millis);
+                } catch (DateTimeException e) {
+                    throw new IllegalArgumentException("Cannot convert string to Date:" + value);
+                }
+            }
+        }
+        //Anything else, wider years or not a date at all, is left to the formatter.
+        try {
+            return Date.from(Instant.from(FORMAT.parse(value)));
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Cannot convert string to Date:" + value);
+        }
+    }
+
+    private static void digits(char[] chars, int from, int count, int value) {
+        for (int i = from + count - 1; i >= from; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * The number written in the count characters from the given one, -1 when one of them is not a digit.
+     */
+    private static int digits(String value, int from, int count) {
+        int number = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number;
+    }
+}
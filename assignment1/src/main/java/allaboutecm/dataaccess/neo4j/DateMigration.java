@@ -0,0 +1,84 @@
+package allaboutecm.dataaccess.neo4j;
+
+import allaboutecm.model.Concerts;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.transaction.Transaction;
+
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Rewrites concert dates stored as local times to the second, "yyyy-MM-dd HH:mm:ss", as the UTC instants
+ * {@link DateConverter} stores now. Dates of both forms are read, but only the current ones sort with each other,
+ * so findNextConcerts needs every date migrated.
+ *
+ * The old strings carry no time zone, they are read in the zone of the JVMs that wrote them. Running it again
+ * only finds the dates written in the old form since.
+ */
+public class DateMigration {
+    private static final String LABEL = Concerts.class.getSimpleName();
+
+    private final Session session;
+    private final ZoneId zone;
+
+    public DateMigration(Session session) {
+        this(session, ZoneId.systemDefault());
+    }
+
+    /**
+     * @param zone the time zone the old dates were written in.
+     */
+    public DateMigration(Session session, ZoneId zone) {
+        notNull(session);
+        notNull(zone);
+        this.session = session;
+        this.zone = zone;
+    }
+
+    /**
+     * The number of dates still stored in the old form.
+     */
+    public long count() {
+        String cypher = "MATCH (c:" + LABEL + ") WHERE NOT c.date CONTAINS 'T' RETURN count(c) AS dates";
+        Map<String, Object> row = session.query(cypher, ImmutableMap.of(), true).queryResults().iterator().next();
+        return ((Number) row.get("dates")).longValue();
+    }
+
+    /**
+     * Migrates the dates batchSize at a time, one transaction per batch.
+     *
+     * @return the number of dates migrated.
+     */
+    public long migrate(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        String find = "MATCH (c:" + LABEL + ") WHERE NOT c.date CONTAINS 'T' RETURN id(c) AS id, c.date AS date " +
+                "LIMIT $limit";
+        String update = "UNWIND $rows AS row MATCH (c:" + LABEL + ") WHERE id(c) = row.id SET c.date = row.date";
+        DateConverter converter = new DateConverter();
+        long migrated = 0;
+        while (true) {
+            List<Map<String, Object>> rows = Lists.newArrayList();
+            try (Transaction tx = session.beginTransaction()) {
+                for (Map<String, Object> row : session.query(find, ImmutableMap.of("limit", batchSize), true)
+                        .queryResults()) {
+                    String date = (String) row.get("date");
+                    rows.add(ImmutableMap.of("id", row.get("id"),
+                            "date", converter.toGraphProperty(DateConverter.parseLegacy(date, zone))));
+                }
+                if (rows.isEmpty()) {
+                    return migrated;
+                }
+                session.query(update, ImmutableMap.of("rows", rows), false);
+                tx.commit();
+            }
+            migrated += rows.size();
+        }
+    }
+}
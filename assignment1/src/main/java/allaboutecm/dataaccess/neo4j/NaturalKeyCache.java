@@ -0,0 +1,82 @@
+package allaboutecm.dataaccess.neo4j;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalNotification;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers the node id of each natural key {@link Neo4jDAO} has written or looked up, so an upsert of a known
+ * entity does not query the store to find out whether it exists. Only ids are kept, never entities.
+ *
+ * The least recently used keys are evicted beyond the maximum size. The DAO keeps the cache coherent with its
+ * own writes and deletes: an id is mapped from one key at a time, so an entity saved under a changed key drops
+ * its old key. Writes that bypass the DAO, such as Session.purgeDatabase(), have to be followed by
+ * {@link #invalidateAll()} or {@link Neo4jDAO#clearCaches()}.
+ */
+public class NaturalKeyCache {
+    private final Cache<List<Object>, Long> ids;
+    private final ConcurrentMap<Long, List<Object>> keys = new ConcurrentHashMap<>();
+
+    NaturalKeyCache(long maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative");
+        }
+        this.ids = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .removalListener(this::removed)
+                .build();
+    }
+
+    Long get(Class<?> clazz, Map<String, Object> naturalKey) {
+        return ids.getIfPresent(key(clazz, naturalKey));
+    }
+
+    void put(Class<?> clazz, Map<String, Object> naturalKey, Long id) {
+        List<Object> key = key(clazz, naturalKey);
+        List<Object> previous = keys.put(id, key);
+        if (null != previous && !previous.equals(key)) {
+            ids.invalidate(previous);
+        }
+        ids.put(key, id);
+    }
+
+    void invalidate(Long id) {
+        List<Object> key = keys.remove(id);
+        if (null != key) {
+            ids.invalidate(key);
+        }
+    }
+
+    public void invalidateAll() {
+        ids.invalidateAll();
+        keys.clear();
+    }
+
+    public long size() {
+        return ids.size();
+    }
+
+    /**
+     * Hits, misses, hit rate and evictions since the DAO was created.
+     */
+    public CacheStats getStats() {
+        return ids.stats();
+    }
+
+    private void removed(RemovalNotification<List<Object>, Long> notification) {
+        //A replaced or evicted key only drops the reverse entry if the id still points at it.
+        keys.remove(notification.getValue(), notification.getKey());
+    }
+
+    private static List<Object> key(Class<?> clazz, Map<String, Object> naturalKey) {
+        return Arrays.asList(clazz, naturalKey);
+    }
+}
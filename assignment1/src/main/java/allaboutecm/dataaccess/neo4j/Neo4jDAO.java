@@ -1,25 +1,119 @@
 package allaboutecm.dataaccess.neo4j;
 
 import allaboutecm.dataaccess.DAO;
+import allaboutecm.dataaccess.NextConcerts;
+import allaboutecm.dataaccess.YearHistogram;
 import allaboutecm.model.*;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.collect.Streams;
 import org.neo4j.ogm.cypher.Filter;
 import org.neo4j.ogm.cypher.Filters;
+import org.neo4j.ogm.model.Result;
 import org.neo4j.ogm.session.Session;
 import org.neo4j.ogm.transaction.Transaction;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.neo4j.ogm.cypher.ComparisonOperator.EQUALS;
 
 public class Neo4jDAO implements DAO {
     private static final int DEPTH_LIST = 0;
     private static final int DEPTH_ENTITY = 1;
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final long DEFAULT_KEY_CACHE_SIZE = 100_000;
+    private static final DateConverter DATE_CONVERTER = new DateConverter();
 
     private Session session;
+    private final NaturalKeyCache keyCache;
+    private final boolean clearSessionAfterBatch;
+    private final YearHistogram yearHistogram = new YearHistogram();
+    //The histogram is built from the store on first use and only maintained from then on.
+    private boolean yearHistogramBuilt;
 
     public Neo4jDAO(Session session) {
+        this(session, DEFAULT_KEY_CACHE_SIZE);
+    }
+
+    /**
+     * @param keyCacheSize how many natural keys to remember the node id of, 0 looks every key up in the store.
+     */
+    public Neo4jDAO(Session session, long keyCacheSize) {
+        this(session, keyCacheSize, false);
+    }
+
+    /**
+     * @param clearSessionAfterBatch when true, createOrUpdateAll clears the session after every batch it writes,
+     *                               so a long import does not slow down with the entities the session tracks.
+     *                               Every entity loaded through the session is detached by it, so only pass true
+     *                               for a session the import owns.
+     */
+    public Neo4jDAO(Session session, long keyCacheSize, boolean clearSessionAfterBatch) {
         this.session = session;
+        this.keyCache = new NaturalKeyCache(keyCacheSize);
+        this.clearSessionAfterBatch = clearSessionAfterBatch;
+    }
+
+    /**
+     * A DAO over a store that first gets the indexes of {@link Neo4jSchema} it is missing. The DAO constructors
+     * leave the schema alone, this runs its DDL and waits for it to commit.
+     */
+    public static Neo4jDAO withSchema(Session session) {
+        new Neo4jSchema(session).bootstrap();
+        return new Neo4jDAO(session);
+    }
+
+    public NaturalKeyCache getKeyCache() {
+        return keyCache;
+    }
+
+    /**
+     * Drops what the DAO has derived from the store, after writes that bypassed it such as Session.purgeDatabase().
+     */
+    public void clearCaches() {
+        keyCache.invalidateAll();
+        yearHistogramBuilt = false;
+    }
+
+    /**
+     * Recounts the albums per release year from the store.
+     */
+    public void rebuildYearHistogram() {
+        yearHistogram.clear();
+        for (Map.Entry<Integer, Integer> entry : countAlbumsPerYear().entrySet()) {
+            yearHistogram.add(entry.getKey(), entry.getValue());
+        }
+        yearHistogramBuilt = true;
+    }
+
+    /**
+     * Compares the maintained histogram with a full count in the store.
+     *
+     * @return the years whose counts differ, with the maintained count minus the stored one; empty when consistent.
+     */
+    public Map<Integer, Integer> verifyYearHistogram() {
+        Map<Integer, Integer> stored = countAlbumsPerYear();
+        Map<Integer, Integer> maintained = yearHistogramBuilt ? yearHistogram.toMap() : ImmutableMap.of();
+        Map<Integer, Integer> differences = Maps.newTreeMap();
+        for (Integer year : Sets.union(stored.keySet(), maintained.keySet())) {
+            int difference = maintained.getOrDefault(year, 0) - stored.getOrDefault(year, 0);
+            if (0 != difference) {
+                differences.put(year, difference);
+            }
+        }
+        return differences;
     }
 
     @Override
@@ -31,16 +125,53 @@ public class Neo4jDAO implements DAO {
     public <T extends Entity> T createOrUpdate(T entity) {
         Class clazz = entity.getClass();
 
-        T existingEntity = findExistingEntity(entity, clazz);
-        if (null != existingEntity) {
-            entity.setId(existingEntity.getId());
+        Map<String, Object> key = naturalKey(entity);
+        Long existingId = null == key ? null : keyCache.get(clazz, key);
+        if (null == existingId) {
+            T existingEntity = findExistingEntity(entity, clazz);
+            existingId = null == existingEntity ? null : existingEntity.getId();
         }
+        if (null != existingId) {
+            entity.setId(existingId);
+        }
+        Map<Album, Integer> storedYears = storedYears(Collections.singletonList(entity));
         Transaction tx = session.beginTransaction();
         session.save(entity, DEPTH_ENTITY);
+        recountRatings(Collections.singletonList(entity));
         tx.commit();
+        countYears(storedYears);
+        if (null != key) {
+            keyCache.put(clazz, key, entity.getId());
+        }
         return entity;
     }
 
+    @Override
+    public <T extends Entity> Collection<T> createOrUpdateAll(Collection<T> entities) {
+        createOrUpdateAll(entities.stream(), DEFAULT_BATCH_SIZE);
+        return entities;
+    }
+
+    /**
+     * Unlike createOrUpdate, featured musicians of albums and concerts that have no id are replaced in the
+     * entity's own list: by the stored musician of the same name, or else by the first musician of that name in
+     * the batch, so every name is written as one node.
+     */
+    @Override
+    public <T extends Entity> long createOrUpdateAll(Stream<T> entities, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        long saved = 0;
+        Iterator<List<T>> batches = Iterators.partition(entities.iterator(), batchSize);
+        while (batches.hasNext()) {
+            List<T> batch = batches.next();
+            saveBatch(batch);
+            saved += batch.size();
+        }
+        return saved;
+    }
+
     @Override
     public <T extends Entity> Collection<T> loadAll(Class<T> clazz) {
         return session.loadAll(clazz, DEPTH_LIST);
@@ -48,9 +179,79 @@ public class Neo4jDAO implements DAO {
 
     }
 
+    /**
+     * Loads the entities with an id after afterId, or from the first one when it is null. The session is cleared
+     * first, so entities of earlier pages are no longer tracked by it.
+     */
+    @Override
+    public <T extends Entity> List<T> loadPage(Class<T> clazz, Long afterId, int limit) {
+        return loadInOrder(clazz, pageIds(clazz, afterId, limit));
+    }
+
+    /**
+     * Loads the entities a page at a time as the stream is consumed, clearing the session between pages.
+     */
+    @Override
+    public <T extends Entity> Stream<T> streamAll(Class<T> clazz, int pageSize) {
+        Iterator<List<T>> pages = new AbstractIterator<List<T>>() {
+            private Long afterId;
+            private boolean last;
+
+            @Override
+            protected List<T> computeNext() {
+                if (last) {
+                    return endOfData();
+                }
+                List<Long> ids = pageIds(clazz, afterId, pageSize);
+                //A page can load fewer entities than it has ids when some were deleted meanwhile.
+                last = ids.size() < pageSize;
+                if (ids.isEmpty()) {
+                    return endOfData();
+                }
+                afterId = ids.get(ids.size() - 1);
+                return loadInOrder(clazz, ids);
+            }
+        };
+        return Streams.stream(pages).flatMap(List::stream);
+    }
+
+    private List<Long> pageIds(Class<? extends Entity> clazz, Long afterId, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        //Every load adds to the mapping context, so it is not allowed to grow with the scan.
+        session.clear();
+        String cypher = "MATCH (n:" + clazz.getSimpleName() + ") WHERE id(n) > $after " +
+                "RETURN id(n) AS id ORDER BY id LIMIT $limit";
+        return queryIds(cypher, ImmutableMap.of("after", null == afterId ? -1L : afterId, "limit", limit));
+    }
+
     @Override
     public <T extends Entity> void delete(T entity) {
-        session.delete(entity);
+        Long id = entity.getId();
+        Integer storedYear = null;
+        if (entity instanceof Album) {
+            Map<Album, Integer> storedYears = storedYears(Collections.singletonList(entity));
+            storedYear = null == storedYears ? null : storedYears.get(entity);
+        }
+        if (entity instanceof Rating && null != id) {
+            //The albums it rated lose it, and are recounted in the same transaction as the delete.
+            try (Transaction tx = session.beginTransaction()) {
+                List<Long> rated = queryIds("MATCH (a:Album)-[:ratings]->(r:Rating) WHERE id(r) = $id " +
+                        "RETURN DISTINCT id(a) AS id", ImmutableMap.of("id", id));
+                session.delete(entity);
+                recountAlbums(rated, Collections.emptyList());
+                tx.commit();
+            }
+        } else {
+            session.delete(entity);
+        }
+        if (null != id) {
+            keyCache.invalidate(id);
+        }
+        if (null != storedYear) {
+            yearHistogram.remove(storedYear);
+        }
     }
 
     @Override
@@ -194,6 +395,494 @@ public class Neo4jDAO implements DAO {
         }
     }
 
+    @Override
+    public <T extends Entity> long count(Class<T> clazz) {
+        return session.countEntitiesOfType(clazz);
+    }
+
+    @Override
+    public List<Integer> findBusiestYears(int k) {
+        //Ordered as the store would with ORDER BY albums DESC, year DESC.
+        if (!yearHistogramBuilt) {
+            rebuildYearHistogram();
+        }
+        return yearHistogram.busiest(k);
+    }
+
+    @Override
+    public List<Album> findMostSellingAlbums(int k) {
+        //Among equal sales the later album comes first, as in ECMMiner's TopK.
+        String cypher = "MATCH (a:Album) RETURN id(a) AS id ORDER BY a.sales DESC, id DESC LIMIT $k";
+        return loadInOrder(Album.class, queryIds(cypher, ImmutableMap.of("k", k)));
+    }
+
+    @Override
+    public List<Album> findHighestRatedAlbums(int k) {
+        //Albums without ratings have no average and are left out, as in ECMMiner.highestRatedAlbums.
+        //Ranked on the stored average, the ratings are not visited. Ties go to the later album, as in TopK.
+        String cypher = "MATCH (a:Album) WHERE a.averageRating > 0 " +
+                "RETURN id(a) AS id ORDER BY a.averageRating DESC, id DESC LIMIT $k";
+        return loadInOrder(Album.class, queryIds(cypher, ImmutableMap.of("k", k)));
+    }
+
+    @Override
+    public List<Musician> findMostProlificMusicians(int k, int startYear, int endYear) {
+        //One row per distinct album count, musicians in each row ordered by name.
+        //Whole rows are taken until k musicians are reached, so ties at the boundary are all returned.
+        String cypher = "MATCH (m:Musician)-[:albums]->(a:Album) " +
+                "WHERE ($startYear <= 0 OR a.releaseYear >= $startYear) AND ($endYear <= 0 OR a.releaseYear <= $endYear) " +
+                "WITH m, count(DISTINCT a) AS albums ORDER BY m.name " +
+                "WITH albums, collect(id(m)) AS ids " +
+                "RETURN albums, ids ORDER BY albums DESC";
+        Result result = session.query(cypher, ImmutableMap.of("startYear", startYear, "endYear", endYear), true);
+        List<Long> ids = Lists.newArrayList();
+        for (Map<String, Object> row : result.queryResults()) {
+            if (ids.size() >= k) break;
+            for (Object id : toList(row.get("ids"))) {
+                ids.add(((Number) id).longValue());
+            }
+        }
+        return loadInOrder(Musician.class, ids);
+    }
+
+    @Override
+    public List<Concerts> findNextConcerts(int k, Date after) {
+        if (k < 1) {
+            return Lists.newArrayList();
+        }
+        //Dates are stored as fixed width UTC strings, which sort as the dates do, so both matches seek the index.
+        //The first finds the date of the k-th concert, the second every concert up to and including it.
+        String cypher = "MATCH (c:Concerts) WHERE c.date > $after WITH c ORDER BY c.date LIMIT $k " +
+                "WITH max(c.date) AS last " +
+                "MATCH (c:Concerts) WHERE c.date > $after AND c.date <= last " +
+                "RETURN id(c) AS id, c.date AS date ORDER BY c.date, id";
+        //A page ends with the whole of its last date, the next one is only sought when equal concerts were left out.
+        Iterator<List<Concerts>> pages = new AbstractIterator<List<Concerts>>() {
+            private String pageAfter = DATE_CONVERTER.toGraphProperty(after);
+
+            @Override
+            protected List<Concerts> computeNext() {
+                List<Long> ids = Lists.newArrayList();
+                Result result = session.query(cypher, ImmutableMap.of("after", pageAfter, "k", k), true);
+                for (Map<String, Object> row : result.queryResults()) {
+                    ids.add(((Number) row.get("id")).longValue());
+                    pageAfter = (String) row.get("date");
+                }
+                return ids.isEmpty() ? endOfData() : loadInOrder(Concerts.class, ids);
+            }
+        };
+        return NextConcerts.take(pages, k);
+    }
+
+    private List<Long> queryIds(String cypher, Map<String, ?> parameters) {
+        Result result = session.query(cypher, parameters, true);
+        List<Long> ids = Lists.newArrayList();
+        for (Map<String, Object> row : result.queryResults()) {
+            ids.add(((Number) row.get("id")).longValue());
+        }
+        return ids;
+    }
+
+    private <T extends Entity> List<T> loadInOrder(Class<T> clazz, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Lists.newArrayList();
+        }
+        Map<Long, T> entities = Maps.newHashMap();
+        for (T entity : session.loadAll(clazz, ids, DEPTH_ENTITY)) {
+            entities.put(entity.getId(), entity);
+        }
+        List<T> result = Lists.newArrayListWithCapacity(ids.size());
+        for (Long id : ids) {
+            T entity = entities.get(id);
+            if (null != entity) {
+                result.add(entity);
+            }
+        }
+        return result;
+    }
+
+    private static List<?> toList(Object value) {
+        //Drivers return collected values either as a List or as an array.
+        if (value instanceof List) {
+            return (List<?>) value;
+        }
+        return Lists.newArrayList((Object[]) value);
+    }
+
+    private <T extends Entity> void saveBatch(List<T> batch) {
+        //Entities repeating a natural key of the same batch are deferred to the next round,
+        //so they pick up the identity of the first one instead of creating a duplicate.
+        List<T> pending = batch;
+        while (!pending.isEmpty()) {
+            List<T> round = Lists.newArrayListWithCapacity(pending.size());
+            List<T> deferred = Lists.newArrayList();
+            Set<List<Object>> keys = Sets.newHashSet();
+            for (T entity : pending) {
+                Map<String, Object> key = naturalKey(entity);
+                if (null == key || keys.add(Lists.newArrayList(entity.getClass(), key))) {
+                    round.add(entity);
+                } else {
+                    deferred.add(entity);
+                }
+            }
+            resolveExistingIds(round);
+            linkFeaturedMusicians(round);
+            Map<Album, Integer> storedYears = storedYears(round);
+            try (Transaction tx = session.beginTransaction()) {
+                session.save(round, DEPTH_ENTITY);
+                recountRatings(round);
+                tx.commit();
+            }
+            countYears(storedYears);
+            for (T entity : round) {
+                Map<String, Object> key = naturalKey(entity);
+                if (null != key) {
+                    keyCache.put(entity.getClass(), key, entity.getId());
+                }
+            }
+            //Every save walks the whole mapping context, so an import owning the session keeps it from growing.
+            if (clearSessionAfterBatch) {
+                session.clear();
+            }
+            pending = deferred;
+        }
+    }
+
+    /**
+     * Recounts the stored rating totals of every album from its ratings, for albums stored before the totals
+     * were kept or written around the DAO. Albums are recounted in id order, batchSize of them per transaction,
+     * and the session holds every album afterwards, with the stored totals.
+     *
+     * @return the number of albums recounted.
+     */
+    public long backfillRatingTotals(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        long recounted = 0;
+        long afterId = -1;
+        while (true) {
+            List<Long> ids = queryIds("MATCH (a:Album) WHERE id(a) > $after RETURN id(a) AS id ORDER BY id LIMIT $limit",
+                    ImmutableMap.of("after", afterId, "limit", batchSize));
+            if (ids.isEmpty()) {
+                return recounted;
+            }
+            try (Transaction tx = session.beginTransaction()) {
+                recountAlbums(ids, Collections.emptyList());
+                tx.commit();
+            }
+            recounted += ids.size();
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+
+    /**
+     * Recounts the stored rating totals of the albums a save of the entities writes, and of the albums rating
+     * the saved ratings. Run in the save's transaction, so the totals commit with the ratings they count, which
+     * the store has merged with its own ratings of each album. The saved albums are given the merged ratings.
+     */
+    private void recountRatings(Collection<? extends Entity> entities) {
+        Set<Long> ids = Sets.newHashSet();
+        List<Album> albums = writtenAlbums(entities);
+        for (Album album : albums) {
+            ids.add(album.getId());
+        }
+        List<Long> ratingIds = Lists.newArrayList();
+        for (Entity entity : entities) {
+            if (entity instanceof Rating) {
+                ratingIds.add(entity.getId());
+            }
+        }
+        if (!ratingIds.isEmpty()) {
+            ids.addAll(queryIds("MATCH (a:Album)-[:ratings]->(r:Rating) WHERE id(r) IN $ids " +
+                    "RETURN DISTINCT id(a) AS id", ImmutableMap.of("ids", ratingIds)));
+        }
+        recountAlbums(ids, albums);
+    }
+
+    /**
+     * Recounts the stored rating totals of the albums with the given ids. The albums the session holds for them,
+     * and the given copies, are then brought to the stored ratings, so a ranking over the session agrees with the
+     * store without clearing it.
+     */
+    private void recountAlbums(Collection<Long> albumIds, Collection<Album> copies) {
+        if (albumIds.isEmpty()) {
+            return;
+        }
+        String cypher = "MATCH (a:Album) WHERE id(a) IN $ids OPTIONAL MATCH (a)-[:ratings]->(r:Rating) " +
+                "WITH a, count(r) AS ratings, sum(r.ratingScore) AS total " +
+                "SET a.ratingCount = ratings, a.ratingSum = total, " +
+                "a.averageRating = CASE ratings WHEN 0 THEN 0.0 ELSE toFloat(total) / ratings END " +
+                "RETURN id(a) AS id, ratings, total";
+        Map<Long, long[]> totals = Maps.newHashMap();
+        for (Map<String, Object> row : session.query(cypher, ImmutableMap.of("ids", albumIds), false).queryResults()) {
+            totals.put(((Number) row.get("id")).longValue(),
+                    new long[]{((Number) row.get("ratings")).longValue(), ((Number) row.get("total")).longValue()});
+        }
+
+        //The session hands out the albums it holds as they are, so those whose totals differ take the stored ratings.
+        Set<Album> stale = Sets.newIdentityHashSet();
+        for (Album album : Iterables.concat(copies, session.loadAll(Album.class, totals.keySet(), DEPTH_LIST))) {
+            long[] stored = totals.get(album.getId());
+            if (null != stored && (album.getRatingCount() != stored[0] || album.getRatingSum() != stored[1])) {
+                stale.add(album);
+            }
+        }
+        if (stale.isEmpty()) {
+            return;
+        }
+        Set<Long> staleIds = Sets.newHashSet();
+        for (Album album : stale) {
+            staleIds.add(album.getId());
+        }
+        Map<Long, List<Long>> ratingIds = Maps.newHashMap();
+        Result result = session.query("MATCH (a:Album)-[:ratings]->(r:Rating) WHERE id(a) IN $ids " +
+                "RETURN id(a) AS album, id(r) AS rating", ImmutableMap.of("ids", staleIds), true);
+        for (Map<String, Object> row : result.queryResults()) {
+            ratingIds.computeIfAbsent(((Number) row.get("album")).longValue(), id -> Lists.newArrayList())
+                    .add(((Number) row.get("rating")).longValue());
+        }
+        Map<Long, Rating> ratings = Maps.newHashMap();
+        if (!ratingIds.isEmpty()) {
+            Set<Long> allRatingIds = Sets.newHashSet(Iterables.concat(ratingIds.values()));
+            for (Rating rating : session.loadAll(Rating.class, allRatingIds, DEPTH_LIST)) {
+                ratings.put(rating.getId(), rating);
+            }
+        }
+        for (Album album : stale) {
+            Set<Rating> stored = Sets.newHashSet();
+            for (Long id : ratingIds.getOrDefault(album.getId(), Collections.emptyList())) {
+                stored.add(ratings.get(id));
+            }
+            album.getRatings().retainAll(stored);
+            album.getRatings().addAll(stored);
+            album.recountRatings();
+        }
+    }
+
+    private Map<Integer, Integer> countAlbumsPerYear() {
+        String cypher = "MATCH (a:Album) RETURN a.releaseYear AS year, count(a) AS albums";
+        Map<Integer, Integer> counts = Maps.newTreeMap();
+        for (Map<String, Object> row : session.query(cypher, ImmutableMap.of(), true).queryResults()) {
+            counts.put(((Number) row.get("year")).intValue(), ((Number) row.get("albums")).intValue());
+        }
+        return counts;
+    }
+
+    /**
+     * The albums a save of the entities writes, each to the release year the store has for it or null for a new
+     * album. Null when there is no histogram to maintain.
+     */
+    private Map<Album, Integer> storedYears(Collection<? extends Entity> entities) {
+        if (!yearHistogramBuilt) {
+            return null;
+        }
+        //Albums are keyed by identity, their hash code changes with the release year.
+        Map<Album, Integer> storedYears = Maps.newIdentityHashMap();
+        for (Album album : writtenAlbums(entities)) {
+            storedYears.put(album, null);
+        }
+        Map<Long, Album> byId = Maps.newHashMap();
+        for (Album album : storedYears.keySet()) {
+            if (null != album.getId()) {
+                byId.put(album.getId(), album);
+            }
+        }
+        if (!byId.isEmpty()) {
+            String cypher = "MATCH (a:Album) WHERE id(a) IN $ids RETURN id(a) AS id, a.releaseYear AS year";
+            Result result = session.query(cypher, ImmutableMap.of("ids", byId.keySet()), true);
+            for (Map<String, Object> row : result.queryResults()) {
+                storedYears.put(byId.get(((Number) row.get("id")).longValue()), ((Number) row.get("year")).intValue());
+            }
+        }
+        return storedYears;
+    }
+
+    /**
+     * The albums a save of the entities writes, an album once for every time it is reached.
+     */
+    private static List<Album> writtenAlbums(Collection<? extends Entity> entities) {
+        List<Album> albums = Lists.newArrayList();
+        for (Entity entity : entities) {
+            if (entity instanceof Album) {
+                albums.add((Album) entity);
+            } else if (entity instanceof Musician) {
+                //Saved one level deep, so a musician writes its albums too.
+                albums.addAll(((Musician) entity).getAlbums());
+            }
+        }
+        return albums;
+    }
+
+    private void countYears(Map<Album, Integer> storedYears) {
+        if (null == storedYears) {
+            return;
+        }
+        //Two copies of one stored album are counted once.
+        Set<Long> counted = Sets.newHashSet();
+        for (Map.Entry<Album, Integer> entry : storedYears.entrySet()) {
+            int year = entry.getKey().getReleaseYear();
+            if (!counted.add(entry.getKey().getId())) {
+                continue;
+            }
+            if (null == entry.getValue()) {
+                yearHistogram.add(year);
+            } else {
+                yearHistogram.move(entry.getValue(), year);
+            }
+        }
+    }
+
+    private <T extends Entity> void resolveExistingIds(List<T> entities) {
+        Map<Class<?>, List<T>> byClass = Maps.newLinkedHashMap();
+        for (T entity : entities) {
+            byClass.computeIfAbsent(entity.getClass(), c -> Lists.newArrayList()).add(entity);
+        }
+        for (Map.Entry<Class<?>, List<T>> entry : byClass.entrySet()) {
+            List<T> sameClass = entry.getValue();
+            if (null == naturalKey(sameClass.get(0))) {
+                //No key to match in Cypher, fall back to the lookup createOrUpdate does.
+                for (T entity : sameClass) {
+                    Entity existingEntity = findExistingEntity(entity, entity.getClass());
+                    if (null != existingEntity) {
+                        entity.setId(existingEntity.getId());
+                    }
+                }
+                continue;
+            }
+            //Keys the cache knows skip the store, the rest are looked up together.
+            List<T> uncached = Lists.newArrayList();
+            for (T entity : sameClass) {
+                Long id = keyCache.get(entry.getKey(), naturalKey(entity));
+                if (null != id) {
+                    entity.setId(id);
+                } else {
+                    uncached.add(entity);
+                }
+            }
+            if (uncached.isEmpty()) {
+                continue;
+            }
+            //One query per batch narrows on the first key property, the full key is matched here.
+            List<String> properties = Lists.newArrayList(naturalKey(uncached.get(0)).keySet());
+            Set<Object> values = Sets.newHashSet();
+            for (T entity : uncached) {
+                values.add(naturalKey(entity).get(properties.get(0)));
+            }
+            StringBuilder cypher = new StringBuilder("MATCH (n:").append(entry.getKey().getSimpleName())
+                    .append(") WHERE n.").append(properties.get(0)).append(" IN $values RETURN id(n) AS id");
+            for (String property : properties) {
+                cypher.append(", n.").append(property).append(" AS ").append(property);
+            }
+            Map<Map<String, Object>, Long> existingIds = Maps.newHashMap();
+            Result result = session.query(cypher.toString(), ImmutableMap.of("values", values), true);
+            for (Map<String, Object> row : result.queryResults()) {
+                Map<String, Object> key = Maps.newLinkedHashMap();
+                for (String property : properties) {
+                    key.put(property, normalise(row.get(property)));
+                }
+                long id = ((Number) row.get("id")).longValue();
+                existingIds.merge(key, id, Math::min);
+            }
+            for (T entity : uncached) {
+                Long id = existingIds.get(naturalKey(entity));
+                if (null != id) {
+                    entity.setId(id);
+                }
+            }
+        }
+    }
+
+    private <T extends Entity> void linkFeaturedMusicians(List<T> entities) {
+        //Featured musicians the caller only knows by name become the stored musician, or one new
+        //musician per name, instead of a new node per reference.
+        List<List<Musician>> featuredLists = Lists.newArrayList();
+        Set<String> names = Sets.newHashSet();
+        for (T entity : entities) {
+            List<Musician> featured = entity instanceof Album ? ((Album) entity).getFeaturedMusicians()
+                    : entity instanceof Concerts ? ((Concerts) entity).getFeaturedMusicians() : null;
+            if (null == featured) {
+                continue;
+            }
+            featuredLists.add(featured);
+            for (Musician musician : featured) {
+                if (null == musician.getId()) {
+                    names.add(musician.getName());
+                }
+            }
+        }
+        if (names.isEmpty()) {
+            return;
+        }
+        List<Long> ids = Lists.newArrayList();
+        List<String> uncached = Lists.newArrayList();
+        for (String name : names) {
+            Long id = keyCache.get(Musician.class, properties("name", name));
+            if (null != id) {
+                ids.add(id);
+            } else {
+                uncached.add(name);
+            }
+        }
+        if (!uncached.isEmpty()) {
+            String cypher = "MATCH (n:Musician) WHERE n.name IN $names RETURN n.name AS name, min(id(n)) AS id";
+            Result result = session.query(cypher, ImmutableMap.of("names", uncached), true);
+            for (Map<String, Object> row : result.queryResults()) {
+                long id = ((Number) row.get("id")).longValue();
+                keyCache.put(Musician.class, properties("name", row.get("name")), id);
+                ids.add(id);
+            }
+        }
+        Map<String, Musician> musicians = Maps.newHashMap();
+        if (!ids.isEmpty()) {
+            for (Musician musician : session.loadAll(Musician.class, ids, DEPTH_LIST)) {
+                musicians.put(musician.getName(), musician);
+            }
+        }
+        for (List<Musician> featured : featuredLists) {
+            for (int i = 0; i < featured.size(); i++) {
+                Musician musician = featured.get(i);
+                if (null == musician.getId()) {
+                    featured.set(i, musicians.computeIfAbsent(musician.getName(), name -> musician));
+                }
+            }
+        }
+    }
+
+    private static Map<String, Object> naturalKey(Entity entity) {
+        if (entity instanceof Album) {
+            Album album = (Album) entity;
+            return properties("albumName", album.getAlbumName(), "recordNumber", album.getRecordNumber(),
+                    "releaseYear", album.getReleaseYear());
+        } else if (entity instanceof Musician) {
+            return properties("name", ((Musician) entity).getName());
+        } else if (entity instanceof MusicalInstrument) {
+            return properties("name", ((MusicalInstrument) entity).getName());
+        } else if (entity instanceof Track) {
+            Track track = (Track) entity;
+            return properties("name", track.getName(), "duration", track.getDuration(),
+                    "genre", track.getGenre(), "trackNumber", track.getTrackNumber());
+        } else if (entity instanceof Rating) {
+            Rating rating = (Rating) entity;
+            return properties("ratingScore", rating.getRatingScore(), "source", rating.getSource());
+        }
+        return null;
+    }
+
+    private static Map<String, Object> properties(Object... namesAndValues) {
+        //Not an ImmutableMap, optional properties may be null.
+        Map<String, Object> properties = Maps.newLinkedHashMap();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            properties.put((String) namesAndValues[i], normalise(namesAndValues[i + 1]));
+        }
+        return properties;
+    }
+
+    private static Object normalise(Object value) {
+        //The store hands integers back as longs.
+        return value instanceof Integer ? Long.valueOf((Integer) value) : value;
+    }
+
     private <T extends Entity> T findExistingEntity(Entity entity, Class clazz) {
         Filters filters = new Filters();
         Collection<? extends Entity> collection = Sets.newLinkedHashSet();
@@ -0,0 +1,166 @@
+package allaboutecm.dataaccess.neo4j;
+
+import allaboutecm.model.*;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.neo4j.ogm.model.Result;
+import org.neo4j.ogm.session.Session;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indexes and uniqueness constraints on the properties the DAO looks entities up by, so its finders and natural
+ * key lookups are index seeks instead of label scans.
+ *
+ * Musicians and instruments are identified by name alone, which can get a uniqueness constraint instead of an
+ * index. It is off by default: createOrUpdate saves related entities it has not resolved as new nodes, so a store
+ * written through it may hold several instruments or musicians of the same name. The other natural keys span
+ * several properties and are not unique on any one of them, so each looked up property gets an index.
+ * Only the missing ones are created, so bootstrapping again is harmless. Everything is plain Cypher of Neo4j 3.5
+ * community and works on the embedded, bolt and HTTP drivers alike.
+ */
+public class Neo4jSchema {
+    private static final String UNIQUE_INDEX = "node_unique_property";
+    private static final List<Definition> DEFINITIONS = ImmutableList.of(
+            new Definition(Musician.class, "name", true),
+            new Definition(MusicalInstrument.class, "name", true),
+            new Definition(Album.class, "albumName", false),
+            new Definition(Album.class, "recordNumber", false),
+            new Definition(Album.class, "releaseYear", false),
+            new Definition(Album.class, "sales", false),
+            new Definition(Album.class, "averageRating", false),
+            new Definition(Track.class, "name", false),
+            new Definition(Track.class, "duration", false),
+            new Definition(Track.class, "genre", false),
+            new Definition(Track.class, "trackNumber", false),
+            new Definition(Rating.class, "ratingScore", false),
+            new Definition(Rating.class, "source", false),
+            new Definition(Concerts.class, "date", false));
+
+    private final Session session;
+    private final boolean uniqueConstraints;
+
+    public Neo4jSchema(Session session) {
+        this(session, false);
+    }
+
+    public Neo4jSchema(Session session, boolean uniqueConstraints) {
+        this.session = session;
+        this.uniqueConstraints = uniqueConstraints;
+    }
+
+    /**
+     * Creates the indexes and constraints the store does not have yet. A constraint replaces a plain index on its
+     * property; one the existing data violates falls back to a plain index and is reported as failed.
+     */
+    public SchemaReport bootstrap() {
+        Set<String> unique = Sets.newHashSet();
+        Map<String, String> states = indexStates(unique);
+        Map<String, String> failures = Maps.newLinkedHashMap();
+        for (Definition definition : DEFINITIONS) {
+            if (states.containsKey(definition.pattern())) {
+                if (!isUnique(definition) || unique.contains(definition.pattern())) {
+                    continue;
+                }
+                //A constraint brings its own index and cannot be added next to a plain one.
+                session.query("DROP INDEX ON " + definition.pattern(), Collections.emptyMap());
+            }
+            if (isUnique(definition)) {
+                try {
+                    session.query("CREATE CONSTRAINT ON (n:" + definition.label + ") ASSERT n." +
+                            definition.property + " IS UNIQUE", Collections.emptyMap());
+                    continue;
+                } catch (RuntimeException e) {
+                    failures.put(definition.pattern(), null == e.getMessage() ? e.toString() : e.getMessage());
+                }
+            }
+            session.query("CREATE INDEX ON " + definition.pattern(), Collections.emptyMap());
+        }
+        return verify(failures);
+    }
+
+    /**
+     * The state of every index the DAO relies on, without creating anything.
+     */
+    public SchemaReport verify() {
+        return verify(Collections.emptyMap());
+    }
+
+    /**
+     * Waits until every index has been populated. Indexes created on a store with data are populated in the
+     * background and are not used by queries until then.
+     */
+    public SchemaReport awaitOnline(long timeoutSeconds) {
+        session.query("CALL db.awaitIndexes($timeout)", Collections.singletonMap("timeout", timeoutSeconds));
+        return verify();
+    }
+
+    private SchemaReport verify(Map<String, String> failures) {
+        Set<String> unique = Sets.newHashSet();
+        Map<String, String> states = indexStates(unique);
+        Map<String, String> report = Maps.newLinkedHashMap();
+        for (Definition definition : DEFINITIONS) {
+            String state = states.getOrDefault(definition.pattern(), SchemaReport.MISSING);
+            if (isUnique(definition) && states.containsKey(definition.pattern()) && !unique.contains(definition.pattern())) {
+                state = SchemaReport.NOT_UNIQUE;
+            }
+            report.put((isUnique(definition) ? "UNIQUE " : "INDEX ") + definition.pattern(), state);
+        }
+        return new SchemaReport(report, failures);
+    }
+
+    private boolean isUnique(Definition definition) {
+        return uniqueConstraints && definition.unique;
+    }
+
+    private Map<String, String> indexStates(Set<String> unique) {
+        Map<String, String> states = Maps.newHashMap();
+        Result result = session.query("CALL db.indexes() YIELD tokenNames, properties, state, type " +
+                "RETURN tokenNames, properties, state, type", Collections.emptyMap(), true);
+        for (Map<String, Object> row : result.queryResults()) {
+            List<?> labels = toList(row.get("tokenNames"));
+            List<?> properties = toList(row.get("properties"));
+            //Composite indexes do not serve the single property lookups.
+            if (1 == labels.size() && 1 == properties.size()) {
+                String pattern = pattern(labels.get(0), properties.get(0));
+                states.put(pattern, (String) row.get("state"));
+                if (UNIQUE_INDEX.equals(row.get("type"))) {
+                    unique.add(pattern);
+                }
+            }
+        }
+        return states;
+    }
+
+    private static List<?> toList(Object value) {
+        //Drivers return lists either as a List or as an array.
+        if (value instanceof List) {
+            return (List<?>) value;
+        }
+        return ImmutableList.copyOf((Object[]) value);
+    }
+
+    private static String pattern(Object label, Object property) {
+        return ":" + label + "(" + property + ")";
+    }
+
+    private static class Definition {
+        private final String label;
+        private final String property;
+        private final boolean unique;
+
+        private Definition(Class<? extends Entity> clazz, String property, boolean unique) {
+            this.label = clazz.getSimpleName();
+            this.property = property;
+            this.unique = unique;
+        }
+
+        private String pattern() {
+            return Neo4jSchema.pattern(label, property);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package allaboutecm.dataaccess.neo4j;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The state of each index {@link Neo4jSchema} maintains, as reported by the store: ONLINE, POPULATING or FAILED,
+ * or MISSING and NOT UNIQUE when the store has no such index or only a plain one where a constraint belongs.
+ */
+public class SchemaReport {
+    public static final String ONLINE = "ONLINE";
+    public static final String MISSING = "MISSING";
+    public static final String NOT_UNIQUE = "NOT UNIQUE";
+
+    private final Map<String, String> states;
+    private final Map<String, String> failures;
+
+    SchemaReport(Map<String, String> states, Map<String, String> failures) {
+        this.states = Collections.unmodifiableMap(states);
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * Index descriptions such as "UNIQUE :Musician(name)" or "INDEX :Album(recordNumber)" to their state.
+     */
+    public Map<String, String> getStates() {
+        return states;
+    }
+
+    /**
+     * Constraints the bootstrap could not create, with the reason the store gave.
+     */
+    public Map<String, String> getFailures() {
+        return failures;
+    }
+
+    public boolean isOnline() {
+        for (String state : states.values()) {
+            if (!ONLINE.equals(state)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, String> entry : states.entrySet()) {
+            builder.append(entry.getKey()).append(": ").append(entry.getValue()).append(System.lineSeparator());
+        }
+        for (Map.Entry<String, String> entry : failures.entrySet()) {
+            builder.append("failed ").append(entry.getKey()).append(": ").append(entry.getValue())
+                    .append(System.lineSeparator());
+        }
+        return builder.toString();
+    }
+}
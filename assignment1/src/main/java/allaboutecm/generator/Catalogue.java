@@ -0,0 +1,45 @@
+package allaboutecm.generator;
+
+import allaboutecm.model.*;
+
+import java.util.List;
+
+/**
+ * A generated catalogue, with the relationships between its entities already linked.
+ */
+public class Catalogue {
+    private final List<Musician> musicians;
+    private final List<Album> albums;
+    private final List<MusicalInstrument> musicalInstruments;
+    private final List<MusicianInstrument> musicianInstruments;
+    private final List<Concerts> concerts;
+
+    public Catalogue(List<Musician> musicians, List<Album> albums, List<MusicalInstrument> musicalInstruments,
+                     List<MusicianInstrument> musicianInstruments, List<Concerts> concerts) {
+        this.musicians = musicians;
+        this.albums = albums;
+        this.musicalInstruments = musicalInstruments;
+        this.musicianInstruments = musicianInstruments;
+        this.concerts = concerts;
+    }
+
+    public List<Musician> getMusicians() {
+        return musicians;
+    }
+
+    public List<Album> getAlbums() {
+        return albums;
+    }
+
+    public List<MusicalInstrument> getMusicalInstruments() {
+        return musicalInstruments;
+    }
+
+    public List<MusicianInstrument> getMusicianInstruments() {
+        return musicianInstruments;
+    }
+
+    public List<Concerts> getConcerts() {
+        return concerts;
+    }
+}
@@ -0,0 +1,240 @@
+package allaboutecm.generator;
+
+import allaboutecm.model.*;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Generates a synthetic ECM catalogue of valid model objects, for benchmarks and load tests.
+ *
+ * Every entity is derived from the seed and its own index only, so the streams can be consumed lazily,
+ * in any order or in parallel, and the same configuration always produces the same catalogue.
+ * The streams hand out fresh objects; albums, instruments and concerts refer to musicians by name, which
+ * is enough for a DAO matching on natural keys. {@link #generate()} materialises everything with shared,
+ * linked musicians instead.
+ */
+public class CatalogueGenerator {
+    private static final String[] FIRST_NAMES = {"Keith", "Jan", "Arvo", "Anouar", "Tomasz", "Ketil", "Nik", "Carla", "Meredith", "Ralph"};
+    private static final String[] LAST_NAMES = {"Jarrett", "Garbarek", "Part", "Brahem", "Stanko", "Bjornstad", "Bartsch", "Bley", "Monk", "Towner"};
+    private static final String[] GENRES = {"Jazz", "Contemporary", "Classical", "Folk", "World", "Ambient"};
+    private static final String[] INSTRUMENTS = {"Piano", "Saxophone", "Trumpet", "Double Bass", "Drums", "Guitar", "Oud", "Violin", "Organ", "Percussion"};
+    private static final String[] SOURCES = {"Rolling Stone Magazine", "Life Magazine", "DownBeat", "Jazzwise", "The Guardian"};
+    private static final int FIRST_YEAR = 1969;
+    private static final int MAX_FEATURED_MUSICIANS = 4;
+
+    // Separate the random streams of each entity kind.
+    private static final long ALBUMS = 1;
+    private static final long MUSICIAN_INSTRUMENTS = 2;
+    private static final long CONCERTS = 3;
+
+    private final int musicianCount;
+    private final int albumCount;
+    private final int tracksPerAlbum;
+    private final int ratingsPerAlbum;
+    private final int concertCount;
+    private final long seed;
+    private final int lastYear;
+
+    private double albumsPerMusicianExponent;
+    private double ratingsPerAlbumExponent;
+    private long concertBaseDate;
+
+    public CatalogueGenerator(int musicianCount, int albumCount, int tracksPerAlbum, int ratingsPerAlbum,
+                              int concertCount, long seed) {
+        if (musicianCount < 1 || albumCount < 1 || concertCount < 0) {
+            throw new IllegalArgumentException("A catalogue needs at least one musician and one album");
+        }
+        if (tracksPerAlbum < 0 || tracksPerAlbum >= 500) {
+            throw new IllegalArgumentException("Track numbers must stay below 500");
+        }
+        if (ratingsPerAlbum < 0 || ratingsPerAlbum > SOURCES.length * 5) {
+            throw new IllegalArgumentException("At most " + SOURCES.length * 5 + " distinct ratings per album");
+        }
+        this.musicianCount = musicianCount;
+        this.albumCount = albumCount;
+        this.tracksPerAlbum = tracksPerAlbum;
+        this.ratingsPerAlbum = ratingsPerAlbum;
+        this.concertCount = concertCount;
+        this.seed = seed;
+        this.lastYear = Calendar.getInstance().get(Calendar.YEAR);
+        this.concertBaseDate = System.currentTimeMillis();
+    }
+
+    /**
+     * With a positive exponent, featured musicians are drawn with probability proportional to
+     * (index + 1)^-exponent, so the number of albums per musician follows a power law.
+     * Zero, the default, draws them uniformly.
+     */
+    public void setAlbumsPerMusicianExponent(double exponent) {
+        if (exponent < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.albumsPerMusicianExponent = exponent;
+    }
+
+    /**
+     * With a positive exponent, the number of ratings c of an album is drawn from [0, ratingsPerAlbum]
+     * with probability proportional to (c + 1)^-exponent. Zero, the default, gives every album exactly
+     * ratingsPerAlbum ratings.
+     */
+    public void setRatingsPerAlbumExponent(double exponent) {
+        if (exponent < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.ratingsPerAlbumExponent = exponent;
+    }
+
+    /**
+     * Concerts fall between a year before and four years after this date. Defaults to the time the
+     * generator was created; fix it to make the concert dates reproducible as well.
+     */
+    public void setConcertBaseDate(Date date) {
+        this.concertBaseDate = date.getTime();
+    }
+
+    public Stream<Musician> musicians() {
+        return IntStream.range(0, musicianCount).mapToObj(CatalogueGenerator::musician);
+    }
+
+    public Stream<Album> albums() {
+        return albums(CatalogueGenerator::musician);
+    }
+
+    public Stream<MusicalInstrument> musicalInstruments() {
+        return Stream.of(INSTRUMENTS).map(MusicalInstrument::new);
+    }
+
+    public Stream<MusicianInstrument> musicianInstruments() {
+        List<MusicalInstrument> instruments = musicalInstruments().collect(Collectors.toList());
+        return IntStream.range(0, musicianCount).mapToObj(i -> musicianInstrument(i, musician(i), instruments));
+    }
+
+    public Stream<Concerts> concerts() {
+        return concerts(CatalogueGenerator::musician);
+    }
+
+    /**
+     * Materialises the whole catalogue, with each musician shared by all entities that refer to it
+     * and albums linked both ways.
+     */
+    public Catalogue generate() {
+        List<Musician> musicians = musicians().collect(Collectors.toList());
+        List<Album> albums = albums(musicians::get).collect(Collectors.toList());
+        for (Album album : albums) {
+            for (Musician musician : album.getFeaturedMusicians()) {
+                musician.getAlbums().add(album);
+            }
+        }
+        List<MusicalInstrument> musicalInstruments = musicalInstruments().collect(Collectors.toList());
+        List<MusicianInstrument> musicianInstruments = Lists.newArrayListWithCapacity(musicianCount);
+        for (int i = 0; i < musicianCount; i++) {
+            musicianInstruments.add(musicianInstrument(i, musicians.get(i), musicalInstruments));
+        }
+        List<Concerts> concerts = concerts(musicians::get).collect(Collectors.toList());
+        return new Catalogue(musicians, albums, musicalInstruments, musicianInstruments, concerts);
+    }
+
+    private Stream<Album> albums(IntFunction<Musician> musicianAt) {
+        ZipfSampler musicianSampler = albumsPerMusicianExponent > 0 ? new ZipfSampler(musicianCount, albumsPerMusicianExponent) : null;
+        ZipfSampler ratingSampler = ratingsPerAlbumExponent > 0 ? new ZipfSampler(ratingsPerAlbum + 1, ratingsPerAlbumExponent) : null;
+        return IntStream.range(0, albumCount).mapToObj(i -> album(i, musicianAt, musicianSampler, ratingSampler));
+    }
+
+    private Album album(int index, IntFunction<Musician> musicianAt, ZipfSampler musicianSampler, ZipfSampler ratingSampler) {
+        SplittableRandom random = random(ALBUMS, index);
+        int releaseYear = FIRST_YEAR + random.nextInt(lastYear - FIRST_YEAR + 1);
+        Album album = new Album(releaseYear, "ECM " + (1000 + index), "Album " + index);
+        album.setSales(random.nextInt(1000000));
+
+        int featured = 1 + random.nextInt(Math.min(MAX_FEATURED_MUSICIANS, musicianCount));
+        List<Integer> featuredIndices = Lists.newArrayListWithCapacity(featured);
+        while (featuredIndices.size() < featured) {
+            int musician = null == musicianSampler ? random.nextInt(musicianCount) : musicianSampler.sample(random) - 1;
+            if (!featuredIndices.contains(musician)) {
+                featuredIndices.add(musician);
+            }
+        }
+        List<Musician> featuredMusicians = Lists.newArrayListWithCapacity(featured);
+        for (int musician : featuredIndices) {
+            featuredMusicians.add(musicianAt.apply(musician));
+        }
+        album.setFeaturedMusicians(featuredMusicians);
+
+        if (tracksPerAlbum > 0) {
+            Set<Track> tracks = Sets.newHashSetWithExpectedSize(tracksPerAlbum);
+            for (int t = 1; t <= tracksPerAlbum; t++) {
+                String duration = random.nextInt(15) + ":" + String.format("%02d", random.nextInt(60));
+                tracks.add(new Track("Track " + t + " of " + index, duration, GENRES[random.nextInt(GENRES.length)], t));
+            }
+            album.setTracks(tracks);
+        }
+
+        int ratingCount = null == ratingSampler ? ratingsPerAlbum : ratingSampler.sample(random) - 1;
+        Set<Rating> ratings = Sets.newHashSetWithExpectedSize(ratingCount);
+        while (ratings.size() < ratingCount) {
+            ratings.add(new Rating(1 + random.nextInt(5), SOURCES[random.nextInt(SOURCES.length)]));
+        }
+        album.setRatings(ratings);
+        return album;
+    }
+
+    private MusicianInstrument musicianInstrument(int index, Musician musician, List<MusicalInstrument> musicalInstruments) {
+        SplittableRandom random = random(MUSICIAN_INSTRUMENTS, index);
+        int played = 1 + random.nextInt(3);
+        Set<MusicalInstrument> instruments = Sets.newHashSetWithExpectedSize(played);
+        while (instruments.size() < played) {
+            instruments.add(musicalInstruments.get(random.nextInt(musicalInstruments.size())));
+        }
+        return new MusicianInstrument(musician, instruments);
+    }
+
+    private Stream<Concerts> concerts(IntFunction<Musician> musicianAt) {
+        return IntStream.range(0, concertCount).mapToObj(i -> concert(i, musicianAt));
+    }
+
+    private Concerts concert(int index, IntFunction<Musician> musicianAt) {
+        SplittableRandom random = random(CONCERTS, index);
+        long offset = (long) (random.nextDouble() * TimeUnit.DAYS.toMillis(5 * 365)) - TimeUnit.DAYS.toMillis(365);
+        Concerts concert = new Concerts(new Date(concertBaseDate + offset), "Concert " + index);
+        concert.setLocation("Venue " + random.nextInt(100));
+        concert.setCountry("Country " + random.nextInt(20));
+        concert.setFeaturedMusicians(Lists.newArrayList(musicianAt.apply(random.nextInt(musicianCount))));
+        return concert;
+    }
+
+    private static Musician musician(int index) {
+        //Two words at least, as Musician requires, and unique through the index.
+        Musician musician = new Musician(FIRST_NAMES[index % FIRST_NAMES.length] + " "
+                + LAST_NAMES[(index / FIRST_NAMES.length) % LAST_NAMES.length] + " " + index);
+        try {
+            musician.setMusicianUrl(new URL("https://www.ecm.com/musicians/" + index));
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+        return musician;
+    }
+
+    private SplittableRandom random(long kind, int index) {
+        return new SplittableRandom(mix(seed ^ mix(kind * 0x9E3779B97F4A7C15L + index)));
+    }
+
+    // MurmurHash3 finalizer, so neighbouring indices get unrelated random streams.
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
@@ -0,0 +1,293 @@
+package allaboutecm.importer;
+
+import allaboutecm.dataaccess.DAO;
+import allaboutecm.model.*;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Streams catalogue CSV files into a {@link DAO}, a batch at a time through {@link DAO#createOrUpdateAll}.
+ *
+ * Each file has a header row. The columns, optional ones in brackets, are:
+ * <ul>
+ *     <li>musicians: name, [musicianUrl], [bio]</li>
+ *     <li>albums: recordNumber, albumName, releaseYear, [sales], [featuredMusicians]</li>
+ *     <li>tracks: recordNumber, name, duration, genre, trackNumber</li>
+ *     <li>ratings: recordNumber, source, score</li>
+ *     <li>concerts: name, date, [location], [country], [featuredMusicians]</li>
+ * </ul>
+ * featuredMusicians holds musician names separated by ';' and dates are ISO-8601, with or without a time.
+ * Tracks and ratings are added to the album with their record number, which must have been imported before.
+ *
+ * Only one batch of entities is held at a time, plus the natural keys already seen, which are used to drop
+ * repeated rows: the first row of a key wins. Rows the model rejects are counted and skipped.
+ */
+public class CsvCatalogueImporter {
+    public static final String MUSICIANS = "musicians";
+    public static final String ALBUMS = "albums";
+    public static final String TRACKS = "tracks";
+    public static final String RATINGS = "ratings";
+    public static final String CONCERTS = "concerts";
+
+    private static final CSVFormat FORMAT = CSVFormat.DEFAULT.withFirstRecordAsHeader().withTrim();
+    private static final String NAME_SEPARATOR = ";";
+
+    private final DAO dao;
+    private final int batchSize;
+    private ImportCheckpoint checkpoint;
+    private Consumer<ImportReport> progressListener = report -> { };
+
+    public CsvCatalogueImporter(DAO dao, int batchSize) {
+        if (null == dao || batchSize < 1) {
+            throw new IllegalArgumentException("Importer needs a DAO and a positive batch size");
+        }
+        this.dao = dao;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports record their position after every committed batch and skip the rows a previous run committed.
+     */
+    public void setCheckpoint(ImportCheckpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Called after every committed batch with the running counts.
+     */
+    public void setProgressListener(Consumer<ImportReport> progressListener) {
+        this.progressListener = Objects.requireNonNull(progressListener);
+    }
+
+    public ImportReport importMusicians(Reader reader) throws IOException {
+        return importRows(MUSICIANS, reader, this::musician, Musician::getName, (musicians, report) -> {
+            dao.createOrUpdateAll(musicians);
+            report.written(musicians.size());
+        });
+    }
+
+    public ImportReport importAlbums(Reader reader) throws IOException {
+        return importRows(ALBUMS, reader, this::album, Album::getRecordNumber, this::writeAlbums);
+    }
+
+    public ImportReport importTracks(Reader reader) throws IOException {
+        return importRows(TRACKS, reader, record -> new AlbumRow<>(record, track(record)),
+                row -> row.recordNumber + NAME_SEPARATOR + row.value.getTrackNumber(),
+                (rows, report) -> writeToAlbums(rows, report, (album, track) -> {
+                    for (Track existing : album.getTracks()) {
+                        if (existing.getTrackNumber() == track.getTrackNumber()) {
+                            return false;
+                        }
+                    }
+                    return album.getTracks().add(track);
+                }));
+    }
+
+    public ImportReport importRatings(Reader reader) throws IOException {
+        return importRows(RATINGS, reader, record -> new AlbumRow<>(record, rating(record)),
+                row -> row.recordNumber + NAME_SEPARATOR + row.value.getSource(),
+                (rows, report) -> writeToAlbums(rows, report, (album, rating) -> {
+                    //A source rates an album once, a newer score replaces the older one.
+                    if (album.getRatings().removeIf(existing -> existing.getSource().equals(rating.getSource()))) {
+                        album.recountRatings();
+                    }
+                    return album.addRating(rating);
+                }));
+    }
+
+    public ImportReport importConcerts(Reader reader) throws IOException {
+        return importRows(CONCERTS, reader, this::concert,
+                concert -> Arrays.asList(concert.getName(), concert.getLocation(), concert.getCountry()),
+                (concerts, report) -> {
+                    dao.createOrUpdateAll(concerts);
+                    report.written(concerts.size());
+                });
+    }
+
+    private <T> ImportReport importRows(String name, Reader reader, Function<CSVRecord, T> parser,
+                                        Function<T, Object> key, BatchWriter<T> writer) throws IOException {
+        long resumeFrom = null == checkpoint ? 0 : checkpoint.position(name);
+        ImportReport report = new ImportReport(name, resumeFrom);
+        Set<Object> seen = Sets.newHashSet();
+        List<T> batch = Lists.newArrayListWithCapacity(batchSize);
+        long row = 0;
+        try (CSVParser records = FORMAT.parse(reader)) {
+            for (CSVRecord record : records) {
+                row = record.getRecordNumber();
+                if (row <= resumeFrom) {
+                    continue;
+                }
+                report.rowRead();
+                T value;
+                try {
+                    value = parser.apply(record);
+                } catch (IllegalArgumentException | IllegalStateException | NullPointerException | DateTimeParseException e) {
+                    report.rejected(row, null == e.getMessage() ? e.getClass().getSimpleName() : e.getMessage());
+                    continue;
+                }
+                if (!seen.add(key.apply(value))) {
+                    report.duplicate();
+                    continue;
+                }
+                batch.add(value);
+                if (batch.size() == batchSize) {
+                    commit(name, batch, row, writer, report);
+                }
+            }
+        }
+        commit(name, batch, row, writer, report);
+        return report;
+    }
+
+    private <T> void commit(String name, List<T> batch, long row, BatchWriter<T> writer, ImportReport report) throws IOException {
+        if (!batch.isEmpty()) {
+            writer.write(batch, report);
+            batch.clear();
+        }
+        if (null != checkpoint) {
+            checkpoint.update(name, row);
+        }
+        report.tick();
+        progressListener.accept(report);
+    }
+
+    private void writeAlbums(List<Album> albums, ImportReport report) {
+        dao.createOrUpdateAll(albums);
+        //The store keeps both sides of the relationship, the musician side is only written from the musician.
+        Set<Musician> musicians = Sets.newLinkedHashSet();
+        for (Album album : albums) {
+            for (Musician musician : album.getFeaturedMusicians()) {
+                musician.getAlbums().add(album);
+                musicians.add(musician);
+            }
+        }
+        dao.createOrUpdateAll(musicians);
+        report.written(albums.size());
+    }
+
+    private <T> void writeToAlbums(List<AlbumRow<T>> rows, ImportReport report, AlbumUpdate<T> update) {
+        Map<String, Album> albums = Maps.newLinkedHashMap();
+        int written = 0;
+        for (AlbumRow<T> row : rows) {
+            Album album = albums.computeIfAbsent(row.recordNumber, dao::findAlbumByRecordNumber);
+            if (null == album) {
+                albums.remove(row.recordNumber);
+                report.rejected(row.row, "no album " + row.recordNumber);
+            } else if (update.apply(album, row.value)) {
+                written++;
+            }
+        }
+        dao.createOrUpdateAll(albums.values());
+        report.written(written);
+    }
+
+    private Musician musician(CSVRecord record) {
+        Musician musician = new Musician(record.get("name"));
+        if (isSet(record, "musicianUrl")) {
+            musician.setMusicianUrl(url(record.get("musicianUrl")));
+        }
+        if (isSet(record, "bio")) {
+            musician.setBio(record.get("bio"));
+        }
+        return musician;
+    }
+
+    private Album album(CSVRecord record) {
+        Album album = new Album(Integer.parseInt(record.get("releaseYear")), record.get("recordNumber"),
+                record.get("albumName"));
+        if (isSet(record, "sales")) {
+            album.setSales(Integer.parseInt(record.get("sales")));
+        }
+        if (isSet(record, "featuredMusicians")) {
+            album.setFeaturedMusicians(musicians(record.get("featuredMusicians")));
+        }
+        return album;
+    }
+
+    private Track track(CSVRecord record) {
+        return new Track(record.get("name"), record.get("duration"), record.get("genre"),
+                Integer.parseInt(record.get("trackNumber")));
+    }
+
+    private Rating rating(CSVRecord record) {
+        return new Rating(Integer.parseInt(record.get("score")), record.get("source"));
+    }
+
+    private Concerts concert(CSVRecord record) {
+        Concerts concert = new Concerts(date(record.get("date")), record.get("name"));
+        if (isSet(record, "location")) {
+            concert.setLocation(record.get("location"));
+        }
+        if (isSet(record, "country")) {
+            concert.setCountry(record.get("country"));
+        }
+        if (isSet(record, "featuredMusicians")) {
+            concert.setFeaturedMusicians(musicians(record.get("featuredMusicians")));
+        }
+        return concert;
+    }
+
+    private static List<Musician> musicians(String names) {
+        //Musicians are referenced by name, the DAO links them to the stored ones.
+        List<Musician> musicians = Lists.newArrayList();
+        for (String name : names.split(NAME_SEPARATOR)) {
+            if (!name.trim().isEmpty()) {
+                musicians.add(new Musician(name.trim()));
+            }
+        }
+        return musicians;
+    }
+
+    private static boolean isSet(CSVRecord record, String column) {
+        return record.isSet(column) && !record.get(column).isEmpty();
+    }
+
+    private static URL url(String value) {
+        try {
+            return new URL(value);
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    private static Date date(String value) {
+        LocalDateTime dateTime = value.contains("T") ? LocalDateTime.parse(value) : LocalDate.parse(value).atStartOfDay();
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private interface BatchWriter<T> {
+        void write(List<T> batch, ImportReport report);
+    }
+
+    private interface AlbumUpdate<T> {
+        boolean apply(Album album, T value);
+    }
+
+    private static class AlbumRow<T> {
+        private final long row;
+        private final String recordNumber;
+        private final T value;
+
+        private AlbumRow(CSVRecord record, T value) {
+            this.row = record.getRecordNumber();
+            this.recordNumber = record.get("recordNumber");
+            this.value = value;
+        }
+    }
+}
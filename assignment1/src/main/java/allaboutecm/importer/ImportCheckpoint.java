@@ -0,0 +1,52 @@
+package allaboutecm.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Remembers, per import, how many data rows have been committed, so a failed import can start again after them.
+ *
+ * The file is rewritten through a temporary file and a rename, so a crash leaves either the old or the new position.
+ * Writes are idempotent upserts, so replaying the rows of a batch that was committed but not checkpointed is harmless.
+ */
+public class ImportCheckpoint {
+    private final Path file;
+    private final Properties positions = new Properties();
+
+    public ImportCheckpoint(Path file) throws IOException {
+        this.file = file;
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                positions.load(in);
+            }
+        }
+    }
+
+    public long position(String name) {
+        return Long.parseLong(positions.getProperty(name, "0"));
+    }
+
+    public void update(String name, long rows) throws IOException {
+        positions.setProperty(name, Long.toString(rows));
+        save();
+    }
+
+    public void clear(String name) throws IOException {
+        positions.remove(name);
+        save();
+    }
+
+    private void save() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            positions.store(out, "Rows committed per import");
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,98 @@
+package allaboutecm.importer;
+
+import com.google.common.collect.Lists;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts of one CSV import run. Rows skipped because a checkpoint had already covered them are not read again
+ * and are not counted; {@link #getResumedFrom()} tells how many there were.
+ */
+public class ImportReport {
+    private static final int MAX_REJECTIONS = 100;
+
+    private final String name;
+    private final long resumedFrom;
+    private final long startNanos;
+    private long rowsRead;
+    private long rowsWritten;
+    private long duplicates;
+    private long rejected;
+    private long elapsedNanos;
+    private final List<String> rejections = Lists.newArrayList();
+
+    ImportReport(String name, long resumedFrom) {
+        this.name = name;
+        this.resumedFrom = resumedFrom;
+        this.startNanos = System.nanoTime();
+    }
+
+    void rowRead() {
+        rowsRead++;
+    }
+
+    void written(int rows) {
+        rowsWritten += rows;
+    }
+
+    void duplicate() {
+        duplicates++;
+    }
+
+    void rejected(long row, String reason) {
+        rejected++;
+        //Only the first few reasons are kept, a broken feed must not fill the heap.
+        if (rejections.size() < MAX_REJECTIONS) {
+            rejections.add("row " + row + ": " + reason);
+        }
+    }
+
+    void tick() {
+        elapsedNanos = System.nanoTime() - startNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getResumedFrom() {
+        return resumedFrom;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public List<String> getRejections() {
+        return Collections.unmodifiableList(rejections);
+    }
+
+    public long getElapsed(TimeUnit unit) {
+        return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public double getRowsPerSecond() {
+        return 0 == elapsedNanos ? 0 : rowsRead * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d rows in %.1f s (%.0f rows/s), %d written, %d duplicates, %d rejected%s",
+                name, rowsRead, elapsedNanos / 1e9, getRowsPerSecond(), rowsWritten, duplicates, rejected,
+                0 == resumedFrom ? "" : ", resumed after row " + resumedFrom);
+    }
+}
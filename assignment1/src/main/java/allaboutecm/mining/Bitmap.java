@@ -0,0 +1,367 @@
+package allaboutecm.mining;
+
+import java.util.Arrays;
+
+/**
+ * An immutable set of non-negative ints, compressed where it is dense. The ints are split into chunks of 65536 by
+ * their high 16 bits, as Roaring bitmaps split them. A set with more than 4096 ints in some chunk keeps every
+ * chunk either as a sorted char array of its low 16 bits, or as 1024 words of bits once it holds more, so no chunk
+ * takes more than 8 KB. A set without such a chunk, as almost every album's members and musician's albums are,
+ * is a sorted int array, read without going through chunks.
+ *
+ * Sets are intersected merging or searching sorted ints and and-ing words, and counted together in a
+ * {@link Union} kept for many unions, so neither allocates.
+ */
+class Bitmap {
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int WORDS = 1024;
+
+    //The ints of a set without dense chunks, sorted, null for a set kept in chunks.
+    private final int[] values;
+    //High 16 bits of every chunk, ascending.
+    private final char[] keys;
+    //A char[] of sorted low bits or a long[WORDS] of them per key.
+    private final Object[] chunks;
+    private final int cardinality;
+
+    private Bitmap(int[] values) {
+        this.values = values;
+        this.keys = null;
+        this.chunks = null;
+        this.cardinality = values.length;
+    }
+
+    private Bitmap(char[] keys, Object[] chunks, int cardinality) {
+        this.values = null;
+        this.keys = keys;
+        this.chunks = chunks;
+        this.cardinality = cardinality;
+    }
+
+    /**
+     * The set of the given ints, in any order and with repeats.
+     */
+    static Bitmap of(int... values) {
+        return ofOwn(values.clone());
+    }
+
+    /**
+     * The set of the list's ints, made without copying them twice.
+     */
+    static Bitmap of(IntList values) {
+        return ofOwn(values.toArray());
+    }
+
+    //Sorts the ints in place, and keeps them when they have no repeats and no dense chunk.
+    private static Bitmap ofOwn(int[] sorted) {
+        Arrays.sort(sorted);
+        if (sorted.length > 0 && sorted[0] < 0) {
+            throw new IllegalArgumentException("Only non-negative ints can be kept");
+        }
+        int distinct = 0;
+        boolean dense = false;
+        for (int i = 0, chunkStart = 0; i < sorted.length; i++) {
+            if (i > 0 && sorted[i] == sorted[i - 1]) {
+                continue;
+            }
+            sorted[distinct] = sorted[i];
+            if (sorted[distinct] >>> 16 != sorted[chunkStart] >>> 16) {
+                chunkStart = distinct;
+            }
+            dense |= distinct - chunkStart >= ARRAY_LIMIT;
+            distinct++;
+        }
+        sorted = distinct == sorted.length ? sorted : Arrays.copyOf(sorted, distinct);
+        return dense ? chunked(sorted) : new Bitmap(sorted);
+    }
+
+    int cardinality() {
+        return cardinality;
+    }
+
+    boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+        if (null != values) {
+            return Arrays.binarySearch(values, value) >= 0;
+        }
+        int chunk = Arrays.binarySearch(keys, (char) (value >>> 16));
+        if (chunk < 0) {
+            return false;
+        }
+        char low = (char) value;
+        Object bits = chunks[chunk];
+        if (bits instanceof char[]) {
+            return Arrays.binarySearch((char[]) bits, low) >= 0;
+        }
+        return 0 != (((long[]) bits)[low >>> 6] & (1L << low));
+    }
+
+    /**
+     * The number of ints in both sets.
+     */
+    int andCardinality(Bitmap other) {
+        if (null != values && null != other.values) {
+            return andCardinality(values, other.values);
+        }
+        if (null != values || null != other.values) {
+            //Sparse against dense, every int of the sparse one is looked up.
+            Bitmap sparse = null != values ? this : other;
+            Bitmap dense = null != values ? other : this;
+            int count = 0;
+            for (int value : sparse.values) {
+                if (dense.contains(value)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                count += andCardinality(chunks[i++], other.chunks[j++]);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The ints of the set, ascending. Not to be written to, a set without dense chunks returns its own array.
+     */
+    int[] toArray() {
+        if (null != values) {
+            return values;
+        }
+        int[] result = new int[cardinality];
+        int next = 0;
+        for (int chunk = 0; chunk < keys.length; chunk++) {
+            int base = keys[chunk] << 16;
+            Object bits = chunks[chunk];
+            if (bits instanceof char[]) {
+                for (char low : (char[]) bits) {
+                    result[next++] = base | low;
+                }
+            } else {
+                long[] chunkWords = (long[]) bits;
+                for (int w = 0; w < WORDS; w++) {
+                    for (long word = chunkWords[w]; 0 != word; word &= word - 1) {
+                        result[next++] = base | w << 6 | Long.numberOfTrailingZeros(word);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Scratch for counting the distinct ints of many sets at a time, kept for many such unions. The ints of sets
+     * without dense chunks are marked one by one, as most of them are few, and dense chunks are or-ed into words,
+     * 64 ints at a time. Marks and words carry the stamp of the union that set them, so a new union starts with a
+     * new stamp instead of clearing them. Not safe to share between threads.
+     */
+    static final class Union {
+        private final int[] marks;
+        private final long[] words;
+        //The stamp of the union each word was last set for, a word of any other union counts as empty.
+        private final int[] stamps;
+        private int stamp;
+
+        /**
+         * Scratch for sets of ints below the given bound.
+         */
+        Union(int bound) {
+            marks = new int[bound];
+            words = new long[(bound + 63) >>> 6];
+            stamps = new int[words.length];
+        }
+
+        /**
+         * The number of distinct ints in the sets indexed by the given ints, such as the members of a musician's
+         * albums.
+         */
+        int cardinality(Bitmap indexes, Bitmap[] sets) {
+            if (0 == ++stamp) {
+                Arrays.fill(marks, 0);
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+            int[] indexArray = indexes.toArray();
+            //Dense sets go in first, so the ints of the others are only looked up in the words when there are any.
+            int count = 0;
+            boolean anyDense = false;
+            for (int index : indexArray) {
+                if (null == sets[index].values) {
+                    count += addChunks(sets[index]);
+                    anyDense = true;
+                }
+            }
+            for (int index : indexArray) {
+                int[] values = sets[index].values;
+                if (null != values) {
+                    count += anyDense ? addMissingFromWords(values) : addMarks(values);
+                }
+            }
+            return count;
+        }
+
+        private int addMarks(int[] values) {
+            int added = 0;
+            for (int value : values) {
+                if (marks[value] != stamp) {
+                    marks[value] = stamp;
+                    added++;
+                }
+            }
+            return added;
+        }
+
+        private int addMissingFromWords(int[] values) {
+            int added = 0;
+            for (int value : values) {
+                int w = value >>> 6;
+                if (marks[value] != stamp && (stamps[w] != stamp || 0 == (words[w] & (1L << value)))) {
+                    marks[value] = stamp;
+                    added++;
+                }
+            }
+            return added;
+        }
+
+        private int addChunks(Bitmap set) {
+            int added = 0;
+            for (int chunk = 0; chunk < set.keys.length; chunk++) {
+                int offset = set.keys[chunk] << 10;
+                Object bits = set.chunks[chunk];
+                if (bits instanceof char[]) {
+                    for (char low : (char[]) bits) {
+                        added += or(offset + (low >>> 6), 1L << low);
+                    }
+                } else {
+                    long[] chunkWords = (long[]) bits;
+                    for (int w = 0; w < WORDS; w++) {
+                        if (0 != chunkWords[w]) {
+                            added += or(offset + w, chunkWords[w]);
+                        }
+                    }
+                }
+            }
+            return added;
+        }
+
+        private int or(int w, long bits) {
+            long word = stamps[w] == stamp ? words[w] : 0;
+            words[w] = word | bits;
+            stamps[w] = stamp;
+            return Long.bitCount(bits & ~word);
+        }
+    }
+
+    private static Bitmap chunked(int[] sorted) {
+        int chunkCount = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (0 == i || sorted[i] >>> 16 != sorted[i - 1] >>> 16) {
+                chunkCount++;
+            }
+        }
+        char[] keys = new char[chunkCount];
+        Object[] chunks = new Object[chunkCount];
+        for (int from = 0, chunk = 0; from < sorted.length; chunk++) {
+            int to = from;
+            while (to < sorted.length && sorted[to] >>> 16 == sorted[from] >>> 16) {
+                to++;
+            }
+            keys[chunk] = (char) (sorted[from] >>> 16);
+            if (to - from <= ARRAY_LIMIT) {
+                char[] lows = new char[to - from];
+                for (int i = from; i < to; i++) {
+                    lows[i - from] = (char) sorted[i];
+                }
+                chunks[chunk] = lows;
+            } else {
+                long[] words = new long[WORDS];
+                for (int i = from; i < to; i++) {
+                    words[(sorted[i] & 0xFFFF) >>> 6] |= 1L << sorted[i];
+                }
+                chunks[chunk] = words;
+            }
+            from = to;
+        }
+        return new Bitmap(keys, chunks, sorted.length);
+    }
+
+    private static int andCardinality(int[] values, int[] otherValues) {
+        int[] small = values.length <= otherValues.length ? values : otherValues;
+        int[] large = values.length <= otherValues.length ? otherValues : values;
+        int count = 0;
+        if (small.length * 16 < large.length) {
+            //Much smaller, searching the larger beats walking it.
+            for (int value : small) {
+                if (Arrays.binarySearch(large, value) >= 0) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        int i = 0;
+        int j = 0;
+        while (i < small.length && j < large.length) {
+            if (small[i] < large[j]) {
+                i++;
+            } else if (small[i] > large[j]) {
+                j++;
+            } else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    private static int andCardinality(Object bits, Object otherBits) {
+        if (bits instanceof long[] && otherBits instanceof long[]) {
+            long[] words = (long[]) bits;
+            long[] otherWords = (long[]) otherBits;
+            int count = 0;
+            for (int w = 0; w < WORDS; w++) {
+                count += Long.bitCount(words[w] & otherWords[w]);
+            }
+            return count;
+        }
+        if (bits instanceof long[] || otherBits instanceof long[]) {
+            char[] lows = (char[]) (bits instanceof long[] ? otherBits : bits);
+            long[] words = (long[]) (bits instanceof long[] ? bits : otherBits);
+            int count = 0;
+            for (char low : lows) {
+                if (0 != (words[low >>> 6] & (1L << low))) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        char[] small = (char[]) bits;
+        char[] large = (char[]) otherBits;
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < small.length && j < large.length) {
+            if (small[i] < large[j]) {
+                i++;
+            } else if (small[i] > large[j]) {
+                j++;
+            } else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,282 @@
+package allaboutecm.mining;
+
+import allaboutecm.dataaccess.ObservableDAO;
+import allaboutecm.model.*;
+import com.google.common.base.Ticker;
+import com.google.common.cache.AbstractCache;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Remembers the results of an {@link ECMMiner}'s queries by query and arguments, for callers asking the same
+ * questions many times between catalogue updates.
+ *
+ * Results are dropped beyond the maximum number of them, least recently used first, once they are older than the
+ * time to live, and when an entity class they are computed from is written through the {@link ObservableDAO} the
+ * cache listens to. The miner should read that DAO, and the catalogue should only be written through it. Next
+ * concerts are also dropped once the first of them has started.
+ *
+ * Concurrent readers of one result wait for a single computation of it. Computations of different results, and
+ * the uncached queries, are run one at a time among the caching miners of a DAO, as a DAO's session is not safe
+ * for concurrent queries; writes are the caller's to keep apart from them. A result computed while a class it
+ * depends on is written is handed to its readers but not kept. Every reader gets a list of its own, the entities
+ * in it are shared.
+ *
+ * mostSimilarAlbums is not cached: its album argument is compared by name, record number and year, but scored by
+ * its musicians too, which can change without the album being written.
+ */
+public class CachingECMMiner {
+    private static final Map<String, Set<Class<? extends Entity>>> DEPENDENCIES = ImmutableMap.<String, Set<Class<? extends Entity>>>builder()
+            .put("mostProlificMusicians", ImmutableSet.of(Musician.class, Album.class))
+            .put("mostTalentedMusicians", ImmutableSet.of(MusicianInstrument.class, Musician.class, MusicalInstrument.class))
+            .put("mostSocialMusicians", ImmutableSet.of(Musician.class, Album.class))
+            .put("busiestYears", ImmutableSet.of(Album.class))
+            .put("mostSimilarAlbumsForAll", ImmutableSet.of(Album.class, Musician.class))
+            .put("highestRatedAlbums", ImmutableSet.of(Album.class, Rating.class))
+            .put("mostSellingAlbums", ImmutableSet.of(Album.class))
+            .put("findNextConcerts", ImmutableSet.of(Concerts.class))
+            .build();
+    //One monitor per DAO, by identity, held as long as the DAO is.
+    private static final LoadingCache<ObservableDAO, Object> MONITORS = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build(CacheLoader.from(dao -> new Object()));
+
+    private final Object monitor;
+    private final ECMMiner miner;
+    private final Cache<List<Object>, Result> results;
+    private final Ticker ticker;
+    //Bumped by every write of a class, results computed before it are no longer looked up.
+    private final ConcurrentMap<Class<?>, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final AtomicLong allGeneration = new AtomicLong();
+    private final Map<String, AbstractCache.SimpleStatsCounter> stats;
+
+    /**
+     * @param dao   the DAO the catalogue is written through, the cache invalidates itself on its writes.
+     * @param miner a miner reading the catalogue through the DAO.
+     */
+    public CachingECMMiner(ObservableDAO dao, ECMMiner miner, long maximumSize, long timeToLive, TimeUnit unit) {
+        this(dao, miner, maximumSize, timeToLive, unit, Ticker.systemTicker());
+    }
+
+    CachingECMMiner(ObservableDAO dao, ECMMiner miner, long maximumSize, long timeToLive, TimeUnit unit,
+                    Ticker ticker) {
+        notNull(dao);
+        notNull(miner);
+        notNull(unit);
+        if (maximumSize < 0 || timeToLive < 0) {
+            throw new IllegalArgumentException("Cache size and time to live must not be negative");
+        }
+        this.monitor = MONITORS.getUnchecked(dao);
+        this.miner = miner;
+        this.ticker = ticker;
+        this.results = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive, unit)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        Map<String, AbstractCache.SimpleStatsCounter> stats = Maps.newHashMap();
+        for (String query : DEPENDENCIES.keySet()) {
+            stats.put(query, new AbstractCache.SimpleStatsCounter());
+        }
+        this.stats = ImmutableMap.copyOf(stats);
+        dao.addWriteListener(this::invalidate);
+    }
+
+    public List<Musician> mostProlificMusicians(int k, int startYear, int endYear) {
+        return Lists.newArrayList(this.<List<Musician>>get(() -> miner.mostProlificMusicians(k, startYear, endYear),
+                "mostProlificMusicians", k, startYear, endYear));
+    }
+
+    public List<Musician> mostTalentedMusicians(int k) {
+        return Lists.newArrayList(this.<List<Musician>>get(() -> miner.mostTalentedMusicians(k),
+                "mostTalentedMusicians", k));
+    }
+
+    public List<Musician> mostSocialMusicians(int k) {
+        return Lists.newArrayList(this.<List<Musician>>get(() -> miner.mostSocialMusicians(k),
+                "mostSocialMusicians", k));
+    }
+
+    public List<Integer> busiestYears(int k) {
+        return Lists.newArrayList(this.<List<Integer>>get(() -> miner.busiestYears(k), "busiestYears", k));
+    }
+
+    public List<Album> mostSimilarAlbums(int k, Album album) {
+        return locked(() -> miner.mostSimilarAlbums(k, album));
+    }
+
+    public Map<Album, List<Album>> mostSimilarAlbumsForAll(int k) {
+        Map<Album, List<Album>> similar = get(() -> miner.mostSimilarAlbumsForAll(k), "mostSimilarAlbumsForAll", k);
+        Map<Album, List<Album>> copy = Maps.newLinkedHashMap();
+        for (Map.Entry<Album, List<Album>> entry : similar.entrySet()) {
+            copy.put(entry.getKey(), Lists.newArrayList(entry.getValue()));
+        }
+        return copy;
+    }
+
+    public List<Album> highestRatedAlbums(int k) {
+        return Lists.newArrayList(this.<List<Album>>get(() -> miner.highestRatedAlbums(k), "highestRatedAlbums", k));
+    }
+
+    public List<Album> mostSellingAlbums(int k) {
+        return Lists.newArrayList(this.<List<Album>>get(() -> miner.mostSellingAlbums(k), "mostSellingAlbums", k));
+    }
+
+    public List<Concerts> findNextConcerts(int k) {
+        return Lists.newArrayList(this.<List<Concerts>>get(() -> miner.findNextConcerts(k), "findNextConcerts", k));
+    }
+
+    /**
+     * Drops the results computed from the given entity class.
+     */
+    public void invalidate(Class<? extends Entity> clazz) {
+        notNull(clazz);
+        generations.computeIfAbsent(clazz, c -> new AtomicLong()).incrementAndGet();
+        results.asMap().keySet().removeIf(key -> DEPENDENCIES.get(key.get(0)).contains(clazz));
+    }
+
+    public void invalidateAll() {
+        allGeneration.incrementAndGet();
+        results.invalidateAll();
+    }
+
+    public long size() {
+        return results.size();
+    }
+
+    /**
+     * Hits, misses, hit rate and load times of every query since the cache was created, and the results evicted.
+     */
+    public CacheStats getStats() {
+        CacheStats total = new CacheStats(0, 0, 0, 0, 0, results.stats().evictionCount());
+        for (AbstractCache.SimpleStatsCounter counter : stats.values()) {
+            total = total.plus(counter.snapshot());
+        }
+        return total;
+    }
+
+    /**
+     * Hits, misses, hit rate and load times of one query, by its method name.
+     */
+    public CacheStats getStats(String query) {
+        AbstractCache.SimpleStatsCounter counter = stats.get(query);
+        if (null == counter) {
+            throw new IllegalArgumentException("No cached query named " + query);
+        }
+        return counter.snapshot();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(Supplier<T> query, String name, Object... arguments) {
+        long generation = generation(name);
+        List<Object> key = Lists.newArrayList(name, generation);
+        key.addAll(Arrays.asList(arguments));
+
+        AbstractCache.SimpleStatsCounter counter = stats.get(name);
+        while (true) {
+            boolean[] computed = new boolean[1];
+            Result result;
+            try {
+                result = results.get(key, () -> {
+                    computed[0] = true;
+                    long start = ticker.read();
+                    Result value = compute(query, name);
+                    counter.recordLoadSuccess(ticker.read() - start);
+                    return value;
+                });
+            } catch (UncheckedExecutionException | ExecutionException e) {
+                counter.recordMisses(1);
+                //Impossible arguments fail as they do on the miner, and are not remembered.
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+            if (!computed[0] && ticker.read() >= result.validUntil) {
+                results.asMap().remove(key, result);
+                continue;
+            }
+            if (computed[0]) {
+                counter.recordMisses(1);
+                //Written while it was computed, it may not have seen the write.
+                if (generation(name) != generation) {
+                    results.asMap().remove(key, result);
+                }
+            } else {
+                counter.recordHits(1);
+            }
+            return (T) result.value;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Result compute(Supplier<?> query, String name) {
+        Object value = locked(query);
+        long validUntil = Long.MAX_VALUE;
+        if ("findNextConcerts".equals(name)) {
+            //The first of the next concerts stops being next when it starts.
+            long now = System.currentTimeMillis();
+            long ticks = ticker.read();
+            for (Concerts concert : (List<Concerts>) value) {
+                //Saturates for concerts too far ahead to count in nanoseconds.
+                long untilStart = TimeUnit.MILLISECONDS.toNanos(concert.getDate().getTime() - now);
+                long startsAt = untilStart > Long.MAX_VALUE - Math.max(ticks, 0) ? Long.MAX_VALUE : ticks + untilStart;
+                validUntil = Math.min(validUntil, startsAt);
+            }
+        }
+        return new Result(value, validUntil);
+    }
+
+    private <T> T locked(Supplier<T> query) {
+        synchronized (monitor) {
+            return query.get();
+        }
+    }
+
+    /**
+     * The sum of the write generations of every class the query depends on, which only grows.
+     */
+    private long generation(String name) {
+        long generation = allGeneration.get();
+        for (Class<? extends Entity> clazz : DEPENDENCIES.get(name)) {
+            AtomicLong classGeneration = generations.get(clazz);
+            if (null != classGeneration) {
+                generation += classGeneration.get();
+            }
+        }
+        return generation;
+    }
+
+    private static class Result {
+        private final Object value;
+        //In ticker time.
+        private final long validUntil;
+
+        Result(Object value, long validUntil) {
+            this.value = value;
+            this.validUntil = validUntil;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package allaboutecm.mining;
+
+import allaboutecm.dataaccess.OrdinalRegistry;
+import allaboutecm.dataaccess.Ordinals;
+import allaboutecm.model.Album;
+import allaboutecm.model.Musician;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * An album-centric inverted index over the musicians of a catalogue, built once and then
+ * used to answer collaboration queries without rescanning every musician.
+ *
+ * A musician is a member of an album if the album is in {@link Musician#getAlbums()} or the
+ * musician is in {@link Album#getFeaturedMusicians()}. Only musicians passed to {@link #build}
+ * take part in the graph.
+ *
+ * The albums of every musician and the members of every album are compressed bitmaps of their
+ * ordinals in an {@link OrdinalRegistry} of the graph, so the albums two musicians share are an
+ * intersection of two bitmaps, and the collaborators of a musician a union of the member bitmaps
+ * of their albums.
+ */
+public class CollaborationGraph {
+    private final Ordinals<Musician> musicians;
+    private final Bitmap[] albumsOfMusician;
+    private final Bitmap[] membersOfAlbum;
+
+    private CollaborationGraph(Ordinals<Musician> musicians, Bitmap[] albumsOfMusician, Bitmap[] membersOfAlbum) {
+        this.musicians = musicians;
+        this.albumsOfMusician = albumsOfMusician;
+        this.membersOfAlbum = membersOfAlbum;
+    }
+
+    /**
+     * Builds the album to musicians index in a single pass over the memberships of the given musicians.
+     */
+    public static CollaborationGraph build(Collection<Musician> musicians) {
+        notNull(musicians);
+
+        OrdinalRegistry registry = new OrdinalRegistry();
+        Ordinals<Musician> musicianOrdinals = registry.registerAll(Musician.class, musicians);
+
+        //Every distinct album gets an ordinal, and collects the ordinals of its members.
+        Ordinals<Album> albumOrdinals = registry.ordinals(Album.class);
+        List<IntList> members = Lists.newArrayList();
+        List<IntList> albums = Lists.newArrayListWithCapacity(musicianOrdinals.size());
+        for (int i = 0; i < musicianOrdinals.size(); i++) {
+            albums.add(new IntList());
+        }
+
+        for (int i = 0; i < musicianOrdinals.size(); i++) {
+            for (Album a : musicianOrdinals.get(i).getAlbums()) {
+                int index = albumOrdinals.add(a);
+                if (index == members.size()) {
+                    members.add(new IntList());
+                }
+                //Album sets hold each album once, so no duplicate check is needed here.
+                albums.get(i).add(index);
+                members.get(index).add(i);
+            }
+        }
+
+        //Featured musicians may list an album that is missing from their own album set.
+        //Members are stamped with the album + 1, so a large album is not searched for every featured musician.
+        int[] memberOf = new int[musicianOrdinals.size()];
+        for (int album = 0; album < albumOrdinals.size(); album++) {
+            IntList albumMembers = members.get(album);
+            for (int i = 0; i < albumMembers.size(); i++) {
+                memberOf[albumMembers.get(i)] = album + 1;
+            }
+            for (Musician featured : albumOrdinals.get(album).getFeaturedMusicians()) {
+                int musician = musicianOrdinals.ordinal(featured);
+                if (Ordinals.NONE != musician && memberOf[musician] != album + 1) {
+                    memberOf[musician] = album + 1;
+                    albums.get(musician).add(album);
+                    albumMembers.add(musician);
+                }
+            }
+        }
+
+        return new CollaborationGraph(musicianOrdinals, bitmaps(albums), bitmaps(members));
+    }
+
+    /**
+     * Returns the number of distinct musicians sharing at least one album with the given musician,
+     * counting the musician themself when they have any album, or -1 when the musician is not in the graph.
+     */
+    public int collaboratorCount(Musician musician) {
+        int index = musicians.ordinal(musician);
+        if (Ordinals.NONE == index) {
+            return -1;
+        }
+        return new Bitmap.Union(musicians.size()).cardinality(albumsOfMusician[index], membersOfAlbum);
+    }
+
+    /**
+     * The musicians sharing at least one album with the given one, not counting themself, in the order
+     * they were passed to {@link #build}.
+     */
+    public List<Musician> collaborators(Musician musician) {
+        int index = ordinalOf(musician);
+        IntList members = new IntList();
+        for (int album : albumsOfMusician[index].toArray()) {
+            for (int other : membersOfAlbum[album].toArray()) {
+                members.add(other);
+            }
+        }
+
+        //Sorted, a collaborator on several albums is next to their repeats and listed once.
+        int[] ordinals = members.toArray();
+        Arrays.sort(ordinals);
+        List<Musician> result = Lists.newArrayListWithCapacity(ordinals.length);
+        for (int i = 0; i < ordinals.length; i++) {
+            if (ordinals[i] != index && (0 == i || ordinals[i] != ordinals[i - 1])) {
+                result.add(musicians.get(ordinals[i]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The number of albums both musicians are members of.
+     */
+    public int sharedAlbumCount(Musician musician, Musician other) {
+        return albumsOfMusician[ordinalOf(musician)].andCardinality(albumsOfMusician[ordinalOf(other)]);
+    }
+
+    /**
+     * Distinct collaborator counts for every musician in the graph, computed with one shared union
+     * so the total work is the sum over albums of the squared album size, less for albums of thousands.
+     */
+    public Map<Musician, Integer> collaboratorCounts() {
+        return collaboratorCounts(null);
+    }
+
+    /**
+     * Distinct collaborator counts for every musician in the graph, with the musicians split across the pool,
+     * each range of musicians with a union of its own. A null pool counts on the calling thread.
+     */
+    public Map<Musician, Integer> collaboratorCounts(ForkJoinPool pool) {
+        int[] collaborators = collaboratorCountsByOrdinal(pool);
+        //Filled in musician order, so the map iterates the same however the counts were computed.
+        Map<Musician, Integer> counts = Maps.newHashMapWithExpectedSize(musicians.size());
+        for (int i = 0; i < musicians.size(); i++) {
+            counts.put(musicians.get(i), collaborators[i]);
+        }
+        return counts;
+    }
+
+    /**
+     * Distinct collaborator counts indexed by the musicians' {@link #musicians() ordinals}, counted as
+     * {@link #collaboratorCounts(ForkJoinPool)} does.
+     */
+    public int[] collaboratorCountsByOrdinal(ForkJoinPool pool) {
+        int[] collaborators = new int[musicians.size()];
+        //Every range writes its own slice of the counts.
+        ParallelScan.forEach(pool, musicians.size(), (from, to) -> {
+            Bitmap.Union union = new Bitmap.Union(musicians.size());
+            for (int i = from; i < to; i++) {
+                collaborators[i] = union.cardinality(albumsOfMusician[i], membersOfAlbum);
+            }
+        });
+        return collaborators;
+    }
+
+    /**
+     * The distinct musicians of the graph, numbered in the order they were passed to {@link #build}.
+     */
+    public Ordinals<Musician> musicians() {
+        return musicians;
+    }
+
+    public int musicianCount() {
+        return musicians.size();
+    }
+
+    public int albumCount() {
+        return membersOfAlbum.length;
+    }
+
+    private int ordinalOf(Musician musician) {
+        notNull(musician);
+        int index = musicians.ordinal(musician);
+        if (Ordinals.NONE == index) {
+            throw new IllegalArgumentException("Musician is not in the graph");
+        }
+        return index;
+    }
+
+    private static Bitmap[] bitmaps(List<IntList> lists) {
+        Bitmap[] bitmaps = new Bitmap[lists.size()];
+        for (int i = 0; i < lists.size(); i++) {
+            bitmaps[i] = Bitmap.of(lists.get(i));
+        }
+        return bitmaps;
+    }
+}
@@ -0,0 +1,71 @@
+package allaboutecm.mining;
+
+import allaboutecm.dataaccess.NextConcerts;
+import allaboutecm.model.Concerts;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * The concerts of a catalogue sorted by date, built once and then used to find the next concerts after any time
+ * with a binary search and a walk over the concerts returned.
+ *
+ * Concerts on the same date keep the order they were passed to {@link #build} in.
+ */
+public class ConcertIndex {
+    private final Concerts[] concerts;
+    private final long[] dates;
+
+    private ConcertIndex(Concerts[] concerts, long[] dates) {
+        this.concerts = concerts;
+        this.dates = dates;
+    }
+
+    /**
+     * Sorts the given concerts by their date, in epoch milliseconds.
+     */
+    public static ConcertIndex build(Collection<Concerts> concerts) {
+        notNull(concerts);
+
+        Concerts[] sorted = concerts.toArray(new Concerts[0]);
+        //A stable sort on the whole long, no difference of two dates is narrowed to an int.
+        Arrays.sort(sorted, Comparator.comparingLong(c -> c.getDate().getTime()));
+        long[] dates = new long[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            dates[i] = sorted[i].getDate().getTime();
+        }
+        return new ConcertIndex(sorted, dates);
+    }
+
+    /**
+     * The k concerts after the given time, soonest first, picked by {@link NextConcerts} as every DAO picks them.
+     */
+    public List<Concerts> next(int k, Date after) {
+        notNull(after);
+
+        return NextConcerts.take(Arrays.asList(concerts).subList(firstAfter(after.getTime()), concerts.length), k);
+    }
+
+    public int concertCount() {
+        return concerts.length;
+    }
+
+    private int firstAfter(long time) {
+        int low = 0;
+        int high = dates.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (dates[middle] <= time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
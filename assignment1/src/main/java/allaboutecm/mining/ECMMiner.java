@@ -1,20 +1,90 @@
 package allaboutecm.mining;
 
 import allaboutecm.dataaccess.DAO;
+import allaboutecm.dataaccess.ObservableDAO;
+import allaboutecm.dataaccess.YearHistogram;
 import allaboutecm.model.*;
 import com.google.common.collect.*;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Note that you can extend the Neo4jDAO class to make implementing this class easier.
  */
 public class ECMMiner {
     private final DAO dao;
+    private final boolean pushDown;
+    private final int pageSize;
+    private final ForkJoinPool pool;
+    //Kept between calls over an ObservableDAO, dropped by its concert writes.
+    private final Object concertIndexLock = new Object();
+    private ConcertIndex concertIndex;
+    private long concertWrites;
 
     public ECMMiner(DAO dao) {
+        this(dao, false);
+    }
+
+    /**
+     * @param pushDown when true, busiestYears, mostProlificMusicians, mostSellingAlbums and highestRatedAlbums
+     *                 ask the DAO to aggregate in the store and only load the k results, instead of loading
+     *                 every entity and counting here.
+     */
+    public ECMMiner(DAO dao, boolean pushDown) {
+        this(dao, pushDown, 0);
+    }
+
+    /**
+     * @param pageSize when positive, mostTalentedMusicians, busiestYears, mostSimilarAlbums, highestRatedAlbums and
+     *                 mostSellingAlbums stream the entities they scan from the DAO this many at a time and only
+     *                 keep the k best, instead of loading them all at once.
+     */
+    public ECMMiner(DAO dao, boolean pushDown, int pageSize) {
+        this(dao, pushDown, pageSize, null);
+    }
+
+    /**
+     * @param pool when not null, mostProlificMusicians, mostSocialMusicians, mostSimilarAlbums,
+     *             mostSimilarAlbumsForAll and highestRatedAlbums score the entities they scan on this pool, each
+     *             worker into its own partial result. The partial results are merged in scan order, so the rankings
+     *             are the same as without one.
+     */
+    public ECMMiner(DAO dao, boolean pushDown, int pageSize, ForkJoinPool pool) {
+        if (pageSize < 0) {
+            throw new IllegalArgumentException("Page size cannot be negative");
+        }
         this.dao = dao;
+        this.pushDown = pushDown;
+        this.pageSize = pageSize;
+        this.pool = pool;
+        if (dao instanceof ObservableDAO) {
+            ((ObservableDAO) dao).addWriteListener(clazz -> {
+                if (Concerts.class.equals(clazz)) {
+                    synchronized (concertIndexLock) {
+                        concertWrites++;
+                        concertIndex = null;
+                    }
+                }
+            });
+        }
+    }
+
+    private <T extends Entity> Iterable<T> scan(Class<T> clazz) {
+        if (pageSize > 0) {
+            return dao.streamAll(clazz, pageSize)::iterator;
+        }
+        return dao.loadAll(clazz);
+    }
+
+    /**
+     * The scan as lists to split across the pool: the pages when paging, otherwise one list of everything.
+     */
+    private <T extends Entity> Iterator<List<T>> pages(Class<T> clazz) {
+        if (pageSize > 0) {
+            return Iterators.partition(dao.streamAll(clazz, pageSize).iterator(), pageSize);
+        }
+        return Iterators.singletonIterator(Lists.newArrayList(dao.loadAll(clazz)));
     }
 
     /**
@@ -25,34 +95,59 @@ public class ECMMiner {
      * When startYear/endYear is negative, that means startYear/endYear is ignored.
      */
     public List<Musician> mostProlificMusicians(int k, int startYear, int endYear) {
-        Collection<Musician> musicians = dao.loadAll(Musician.class);
-        Map<String, Musician> nameMap = Maps.newHashMap();
-        for (Musician m : musicians) {
-            nameMap.put(m.getName(), m);
+        if (pushDown) {
+            return dao.findMostProlificMusicians(k, startYear, endYear);
+        }
+        List<Musician> musicians = Lists.newArrayList(dao.loadAll(Musician.class));
+        //Musicians sharing a name count together, under the last one loaded with that name.
+        //Every name gets a dense ordinal, so the counting below works on int arrays only.
+        Map<String, Integer> nameOrdinals = Maps.newHashMap();
+        List<Musician> named = Lists.newArrayList();
+        int[] ordinalOfMusician = new int[musicians.size()];
+        for (int i = 0; i < musicians.size(); i++) {
+            Musician m = musicians.get(i);
+            Integer ordinal = nameOrdinals.get(m.getName());
+            if (null == ordinal) {
+                ordinal = named.size();
+                nameOrdinals.put(m.getName(), ordinal);
+                named.add(m);
+            } else {
+                named.set(ordinal, m);
+            }
+            ordinalOfMusician[i] = ordinal;
         }
 
-        ListMultimap<String, Album> multimap = MultimapBuilder.treeKeys().arrayListValues().build();
-        ListMultimap<Integer, Musician> countMap = MultimapBuilder.treeKeys().arrayListValues().build();
-
-        for (Musician musician : musicians) {
-            Set<Album> albums = musician.getAlbums();
-            for (Album album : albums) {
-                boolean toInclude =
-                        !((startYear > 0 && album.getReleaseYear() < startYear) ||
-                                (endYear > 0 && album.getReleaseYear() > endYear));
-
-                if (toInclude) {
-                    multimap.put(musician.getName(), album);
+        //Albums in the window per musician, every range writes its own slice.
+        int[] musicianCounts = new int[musicians.size()];
+        ParallelScan.forEach(pool, musicians.size(), (from, to) -> {
+            for (int i = from; i < to; i++) {
+                int count = 0;
+                for (Album album : musicians.get(i).getAlbums()) {
+                    boolean toInclude =
+                            !((startYear > 0 && album.getReleaseYear() < startYear) ||
+                                    (endYear > 0 && album.getReleaseYear() > endYear));
+
+                    if (toInclude) {
+                        count++;
+                    }
                 }
+                musicianCounts[i] = count;
             }
+        });
+        int[] albumCounts = new int[named.size()];
+        for (int i = 0; i < musicians.size(); i++) {
+            albumCounts[ordinalOfMusician[i]] += musicianCounts[i];
         }
 
-        Map<String, Collection<Album>> albumMultimap = multimap.asMap();
-
-        for (Map.Entry<String,Collection<Album>> name : albumMultimap.entrySet()) {
-            Collection<Album> albums = albumMultimap.get(name.getKey());
-            int size = albums.size();
-            countMap.put(size, nameMap.get(name.getKey()));
+        //Musicians with the same count stay in name order.
+        List<String> names = Lists.newArrayList(nameOrdinals.keySet());
+        Collections.sort(names);
+        ListMultimap<Integer, Musician> countMap = MultimapBuilder.treeKeys().arrayListValues().build();
+        for (String name : names) {
+            int ordinal = nameOrdinals.get(name);
+            if (albumCounts[ordinal] > 0) {
+                countMap.put(albumCounts[ordinal], named.get(ordinal));
+            }
         }
 
         List<Musician> result = Lists.newArrayList();
@@ -76,26 +171,17 @@ public class ECMMiner {
         if (k < 1) {
             throw new IllegalArgumentException();
         }
-        //Let's grab all the musician instruments.
-        Collection<MusicianInstrument> musicianInstruments = dao.loadAll(MusicianInstrument.class);
-        if (k > musicianInstruments.size()) {
-            throw new IllegalArgumentException();
-        }
-        Map<MusicianInstrument, Integer> countMap = Maps.newHashMap();
-
-        for (MusicianInstrument m : musicianInstruments) {
-            Integer instrumentCount = m.getMusicalInstruments().size();
-            countMap.put(m, instrumentCount);
+        //Let's go through all the musician instruments.
+        TopK<Musician> topK = new TopK<>(k);
+        int scanned = 0;
+        for (MusicianInstrument m : scan(MusicianInstrument.class)) {
+            topK.offer(m.getMusician(), m.getMusicalInstruments().size());
+            scanned++;
         }
-        List<Map.Entry<MusicianInstrument, Integer>> sortList = new LinkedList<>(countMap.entrySet());
-
-        Collections.sort(sortList, Comparator.comparing(Map.Entry::getValue));
-        ArrayList resultList = new ArrayList();
-        for (int i = sortList.size() - 1; i >= sortList.size() - k; i--) {
-            resultList.add(sortList.get(i).getKey().getMusician());
+        if (k > scanned) {
+            throw new IllegalArgumentException();
         }
-
-        return resultList;
+        return topK.toList();
     }
 
     /**
@@ -112,43 +198,21 @@ public class ECMMiner {
 
         Collection<Musician> musicians = dao.loadAll(Musician.class);
 
-        if (k > musicians.size()) {
-            throw new IllegalArgumentException();
-        }
+        //Index album memberships once, instead of checking every musician's albums against every other musician.
+        //Musicians without any album still take part, with a count of zero.
+        //Counts are kept by musician ordinal, no musician is hashed again while they are ranked.
+        CollaborationGraph graph = CollaborationGraph.build(musicians);
 
-        //Get the list of musicians.
-        //I want a multimap, I'm not certain how the builder works but this is how to make one.
-        SetMultimap<Musician, Musician> collaboratorMap = MultimapBuilder.hashKeys().hashSetValues().build();
-        //Go through each musician
-        for (Musician m : musicians) {
-            //For each musician, loop through their albums
-            Set<Album> thisAlbumSet = m.getAlbums();
-            for (Album a : thisAlbumSet) {
-                //For each album, loop through all musicians again to check if they have the same album in their album list.
-                for (Musician m1 : musicians) {
-                    if (m1.getAlbums().contains(a)) {
-                        //If they do, record them as a collaborator.
-                        collaboratorMap.put(m, m1);
-                    }
-                }
-            }
-        }
-        //Let's make a hashmap to store Musicians against their collborator count, we don't care about the actual collaborators
-        HashMap<Musician, Integer> countMap = Maps.newHashMap();
-        for (Musician m : collaboratorMap.keys()) {
-            //Store each musician against their collaborator count.
-            countMap.put(m, collaboratorMap.get(m).size());
+        //Only distinct musicians are ranked, a musician loaded twice is counted once.
+        if (k > graph.musicianCount()) {
+            throw new IllegalArgumentException();
         }
-        //Create a linked list to sort the entries.
-        List<Map.Entry<Musician, Integer>> sortList = new LinkedList<>(countMap.entrySet());
-        Collections.sort(sortList, Comparator.comparing(Map.Entry::getValue));
-
-        ArrayList<Musician> returnList = new ArrayList<>();
-        for (int i = sortList.size() - 1; i >= sortList.size() - k; i--) {
-            returnList.add(sortList.get(i).getKey());
+        int[] counts = graph.collaboratorCountsByOrdinal(pool);
+        TopK<Musician> topK = new TopK<>(k);
+        for (int i = 0; i < counts.length; i++) {
+            topK.offer(graph.musicians().get(i), counts[i]);
         }
-
-        return returnList;
+        return topK.toList();
     }
 
     /**
@@ -162,27 +226,26 @@ public class ECMMiner {
         if (k < 1) {
             throw new IllegalArgumentException();
         }
-        Collection<Album> albums = dao.loadAll(Album.class);
-        Map<Integer, Integer> countMap = Maps.newHashMap();
-        for (Album a : albums) {
-            Integer year = a.getReleaseYear();
-            if (null != countMap.get(year)) {
-                countMap.put(year, countMap.get(year) + 1);
-            } else {
-                countMap.put(year, 1);
+        if (pushDown) {
+            return dao.findBusiestYears(k);
+        }
+        //Release years start at 1969, so albums are counted in an int array indexed by year rather than a boxed map.
+        int[] counts = new int[64];
+        for (Album a : scan(Album.class)) {
+            int offset = a.getReleaseYear() - YearHistogram.FIRST_YEAR;
+            if (offset >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(offset + 1, counts.length * 2));
             }
+            counts[offset]++;
         }
-        //Create a map of Integer, Integer where the year is the key, and the value is the count of albums From your Integer/Album hashMap
-
-        List<Map.Entry<Integer, Integer>> sortList = new LinkedList<>(countMap.entrySet());
-
-        Collections.sort(sortList, Comparator.comparing(Map.Entry::getValue));
-        //Create an arrayList of the top K years, and return it
-        ArrayList resultList = new ArrayList();
-        for (int i = sortList.size() - 1; i >= sortList.size() - k; i--) {
-            resultList.add(sortList.get(i).getKey());
+        //Among equal counts the later year comes first, as with the DAO's own histogram.
+        YearHistogram histogram = new YearHistogram();
+        for (int offset = 0; offset < counts.length; offset++) {
+            if (counts[offset] > 0) {
+                histogram.add(YearHistogram.FIRST_YEAR + offset, counts[offset]);
+            }
         }
-        return resultList;
+        return histogram.busiest(k);
     }
 
     /**
@@ -195,49 +258,69 @@ public class ECMMiner {
      */
 
     public List<Album> mostSimilarAlbums(int k, Album album) {
-        //If K is impossible throw exception
-        if (k < 0) {
+        //If K is impossible throw exception, a missing album can never be among the scanned ones either
+        if (k < 0 || null == album) {
             throw new IllegalArgumentException();
         }
-        Collection<Album> albums = dao.loadAll(Album.class);
-        //Check if our given album is in the search space, if it isn't throw an exception, if it is, prune it from the search space.
-        //We do this because an album is always going to get the highest similarity score for itself, but this isn't useful to know.
-        if (albums.contains(album)) {
-            albums.remove(album);
-        } else {
+        TopK<Album> topK = new TopK<>(k);
+        //Copied once, so scoring an album does not allocate an iterator over the given album's musicians.
+        Musician[] featured = album.getFeaturedMusicians().toArray(new Musician[0]);
+        boolean found = false;
+        int scanned = 0;
+        long offset = 0;
+        for (Iterator<List<Album>> pages = pages(Album.class); pages.hasNext(); ) {
+            List<Album> page = pages.next();
+            //Our given album is pruned from the search space, it must be in it though.
+            //We do this because an album is always going to get the highest similarity score for itself, but this isn't useful to know.
+            int skipped = found ? -1 : page.indexOf(album);
+            found |= skipped >= 0;
+            long position = offset;
+            topK.merge(ParallelScan.reduce(pool, page.size(), (from, to) -> {
+                TopK<Album> partial = new TopK<>(k);
+                for (int i = from; i < to; i++) {
+                    if (i == skipped) {
+                        continue;
+                    }
+                    Album a = page.get(i);
+                    //Let's loop through each album and assign a score
+                    int score = 0;
+                    for (Musician m : featured) {
+                        //If the two albums share any musicians, award two points for each.
+                        if (a.getFeaturedMusicians().contains(m)) {
+                            score += 2;
+                        }
+                    }
+                    //If the albums were released in the same year, award a bonus point.
+                    if (album.getReleaseYear() == a.getReleaseYear()) {
+                        score += 1;
+                    }
+                    //Now offer the score, only the k best are kept.
+                    partial.offer(a, score, position + i);
+                }
+                return partial;
+            }, TopK::merge));
+            scanned += skipped >= 0 ? page.size() - 1 : page.size();
+            offset += page.size();
+        }
+        if (!found) {
             throw new IllegalArgumentException();
         }
         //If we're looking for more results than there are albums, throw exception
-        if (k > albums.size()) {
+        if (k > scanned) {
             throw new IllegalArgumentException();
         }
-        Map<Album, Integer> scoreMap = Maps.newHashMap();
-        for (Album a : albums) {
-            //Let's loop through each album and assign a score
-            int score = 0;
-            for (Musician m : album.getFeaturedMusicians()) {
-                //If the two albums share any musicians, award two points for each.
-                if (a.getFeaturedMusicians().contains(m)) {
-                    score += 2;
-                }
-            }
-            //If the albums were released in the same year, award a bonus point.
-            if (album.getReleaseYear() == a.getReleaseYear()) {
-                score += 1;
-            }
-            //Now add the score to our score map
-            scoreMap.put(a, score);
-        }
-        //This is the structure we used to sort in previous examples, it will produce a list ordered smallest to largest.
-        List<Map.Entry<Album, Integer>> sortList = new LinkedList<>(scoreMap.entrySet());
+        return topK.toList();
+    }
 
-        Collections.sort(sortList, Map.Entry.comparingByValue());
-        //Loop from the end of the list towards the beginning, back k entries.
-        ArrayList resultList = new ArrayList();
-        for (int i = sortList.size() - 1; i >= sortList.size() - k; i--) {
-            resultList.add(sortList.get(i).getKey());
-        }
-        return resultList;
+    /**
+     * The most similar albums for every album, ranked as mostSimilarAlbums ranks them, e.g. to recommend albums
+     * across the whole catalogue at once. The albums are indexed once so each query only scores the albums sharing
+     * a musician or the release year with it, and the queries run on the pool when there is one.
+     *
+     * @Param k the number of albums to be returned for each album.
+     */
+    public Map<Album, List<Album>> mostSimilarAlbumsForAll(int k) {
+        return SimilarityIndex.build(dao.loadAll(Album.class)).mostSimilarForAll(k, pool);
     }
 
     public List<Album> highestRatedAlbums(int k) {
@@ -245,35 +328,35 @@ public class ECMMiner {
         if (k < 1) {
             throw new IllegalArgumentException();
         }
-        Collection<Album> albums = dao.loadAll(Album.class);
-
-        //If we're looking for more results than there are albums, throw exception
-        if (k > albums.size()) {
-            throw new IllegalArgumentException();
-        }
-        Map<Album, Float> ratingsMap = Maps.newHashMap();
-        for (Album a : albums) {
-            //Let's loop through each album and assign a score
-            int total = 0;
-            int count = 0;
-            for (Rating r : a.getRatings()) {
-                total += r.getRatingScore();
-                count++;
+        if (pushDown) {
+            if (k > dao.count(Album.class)) {
+                throw new IllegalArgumentException();
             }
-            //Now add the score to our score map
-            if (count != 0)
-                ratingsMap.put(a, (total /(float) count));
+            return dao.findHighestRatedAlbums(k);
         }
-        //This is the structure we used to sort in previous examples, it will produce a list ordered smallest to largest.
-        List<Map.Entry<Album, Float>> sortList = new LinkedList<>(ratingsMap.entrySet());
-
-        Collections.sort(sortList, Map.Entry.comparingByValue());
-        //Loop from the end of the list towards the beginning, back k entries.
-        ArrayList resultList = new ArrayList();
-        for (int i = sortList.size() - 1; i >= sortList.size() - k; i--) {
-            resultList.add(sortList.get(i).getKey());
+        TopK<Album> topK = new TopK<>(k);
+        int scanned = 0;
+        for (Iterator<List<Album>> pages = pages(Album.class); pages.hasNext(); ) {
+            List<Album> page = pages.next();
+            long position = scanned;
+            topK.merge(ParallelScan.reduce(pool, page.size(), (from, to) -> {
+                TopK<Album> partial = new TopK<>(k);
+                for (int i = from; i < to; i++) {
+                    //Scored by the album's running totals, its ratings are not visited.
+                    Album album = page.get(i);
+                    //Albums without ratings are not ranked.
+                    if (album.getRatingCount() != 0)
+                        partial.offer(album, album.getRatingSum() / (float) album.getRatingCount(), position + i);
+                }
+                return partial;
+            }, TopK::merge));
+            scanned += page.size();
+        }
+        //If we're looking for more results than there are albums, throw exception
+        if (k > scanned) {
+            throw new IllegalArgumentException();
         }
-        return resultList;
+        return topK.toList();
     }
 
     public List<Album> mostSellingAlbums(int k) {
@@ -281,53 +364,56 @@ public class ECMMiner {
         if (k < 1) {
             throw new IllegalArgumentException();
         }
-        Collection<Album> albums = dao.loadAll(Album.class);
-
-        //If we're looking for more results than there are albums, throw exception
-        if (k > albums.size()) {
-            throw new IllegalArgumentException();
+        if (pushDown) {
+            if (k > dao.count(Album.class)) {
+                throw new IllegalArgumentException();
+            }
+            return dao.findMostSellingAlbums(k);
         }
-        Map<Album, Integer> ratingsMap = Maps.newHashMap();
-        for (Album a : albums) {
-            //Let's loop through each album and assign a score
-            ratingsMap.put(a, a.getSales());
+        TopK<Album> topK = new TopK<>(k);
+        int scanned = 0;
+        for (Album a : scan(Album.class)) {
+            //Let's loop through each album and rank it on its sales
+            topK.offer(a, a.getSales());
+            scanned++;
         }
-        //This is the structure we used to sort in previous examples, it will produce a list ordered smallest to largest.
-        List<Map.Entry<Album, Integer>> sortList = new LinkedList<>(ratingsMap.entrySet());
-
-        Collections.sort(sortList, Comparator.comparing(Map.Entry::getValue));
-        //Loop from the end of the list towards the beginning, back k entries.
-        ArrayList resultList = new ArrayList();
-        for (int i = sortList.size() - 1; i >= sortList.size() - k; i--) {
-            resultList.add(sortList.get(i).getKey());
+        //If we're looking for more results than there are albums, throw exception
+        if (k > scanned) {
+            throw new IllegalArgumentException();
         }
-        return resultList;
+        return topK.toList();
     }
 
+    /**
+     * The next k concerts from now, soonest first. Concerts on the same date as the k-th are all returned.
+     *
+     * Over an {@link ObservableDAO} the concerts are loaded and sorted once, and again only after a concert is
+     * written through it, so every other call is a binary search. Any other DAO cannot tell the miner about writes,
+     * so every call loads and sorts all the concerts; push-down asks the DAO to seek instead.
+     */
     public List<Concerts> findNextConcerts(int k) {
-
-        long today = new Date().getTime();
-
-        Collection<Concerts> concerts = dao.loadAll(Concerts.class);
-        List<Concerts> listOfSales = concerts.stream()
-                .filter(s -> s.getDate().getTime() > today)
-                .sorted((s1, s2) -> (int) (s1.getDate().getTime() - s2.getDate().getTime()))
-                .collect(Collectors.toList());
-
-        List<Concerts> result = Lists.newArrayList();
-        Set<Concerts> set = Sets.newHashSet();
-        Date lastTime = new Date();
-
-        for (Concerts s : listOfSales) {
-            if (result.size() >= k && !lastTime.equals(s.getDate())) break;
-            if (!set.contains(s)) {
-                result.add(s);
-                set.add(s);
-                lastTime = s.getDate();
+        Date now = new Date();
+        if (pushDown) {
+            return dao.findNextConcerts(k, now);
+        }
+        ConcertIndex index;
+        long writes;
+        synchronized (concertIndexLock) {
+            index = concertIndex;
+            writes = concertWrites;
+        }
+        if (null == index) {
+            index = ConcertIndex.build(dao.loadAll(Concerts.class));
+            if (dao instanceof ObservableDAO) {
+                synchronized (concertIndexLock) {
+                    //Not kept when concerts were written while it was built.
+                    if (writes == concertWrites) {
+                        concertIndex = index;
+                    }
+                }
             }
         }
-
-        return result;
+        return index.next(k, now);
     }
 
 
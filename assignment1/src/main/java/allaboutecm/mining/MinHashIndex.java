@@ -0,0 +1,278 @@
+package allaboutecm.mining;
+
+import allaboutecm.dataaccess.Ordinals;
+import allaboutecm.model.Album;
+import allaboutecm.model.Musician;
+import allaboutecm.model.Track;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Approximate similar album search over MinHash signatures, for catalogues too large to compare every album with
+ * every other. The features of an album are its featured musicians, the genres of its tracks and the character
+ * trigrams of its own and its tracks' names, and two albums are as similar as the Jaccard index of their features.
+ *
+ * Features carried by more than 1% of the albums, and by more than 100 of them, are left out. Genres and words
+ * every title has say little about which albums are alike, and would make every album a candidate for every other.
+ *
+ * Every album gets a signature of bands * rows min-hashes, and albums agreeing on every row of at least one band
+ * are candidates for each other. Only the candidates are ranked, by the exact Jaccard index, so an album of
+ * similarity s to the query is found with probability 1 - (1 - s^rows)^bands. More bands find more of the similar
+ * albums at the cost of more candidates per query, more rows the other way round.
+ */
+public class MinHashIndex {
+    public static final int DEFAULT_BANDS = 64;
+    public static final int DEFAULT_ROWS = 2;
+
+    private static final int SHINGLE_LENGTH = 3;
+    private static final double COMMON_FEATURE_SHARE = 0.01;
+    private static final int MIN_COMMON_FEATURE_ALBUMS = 100;
+    private static final HashFunction FEATURE_HASH = Hashing.murmur3_128();
+    //Fixed, so the same albums always get the same signatures.
+    private static final long SEED = 42;
+
+    private final Ordinals<Album> albums;
+    private final long[][] features;
+    private final int[] signatures;
+    private final int bands;
+    private final int rows;
+    private final List<Map<Long, int[]>> buckets;
+
+    private MinHashIndex(Ordinals<Album> albums, long[][] features, int[] signatures, int bands, int rows,
+                         List<Map<Long, int[]>> buckets) {
+        this.albums = albums;
+        this.features = features;
+        this.signatures = signatures;
+        this.bands = bands;
+        this.rows = rows;
+        this.buckets = buckets;
+    }
+
+    public static MinHashIndex build(Collection<Album> albums) {
+        return build(albums, DEFAULT_BANDS, DEFAULT_ROWS);
+    }
+
+    /**
+     * Signs every album with bands * rows min-hashes and buckets the albums by each band of their signature.
+     */
+    public static MinHashIndex build(Collection<Album> albums, int bands, int rows) {
+        notNull(albums);
+        if (bands < 1 || rows < 1) {
+            throw new IllegalArgumentException("There must be at least one band of at least one row");
+        }
+
+        Ordinals<Album> albumOrdinals = Ordinals.of(albums);
+
+        //Every min-hash is the smallest of a * feature + b, a permutation of the 64 bit feature hashes for odd a.
+        int hashes = bands * rows;
+        SplittableRandom random = new SplittableRandom(SEED);
+        long[] multipliers = new long[hashes];
+        long[] increments = new long[hashes];
+        for (int h = 0; h < hashes; h++) {
+            multipliers[h] = random.nextLong() | 1;
+            increments[h] = random.nextLong();
+        }
+
+        long[][] features = new long[albumOrdinals.size()][];
+        Map<Long, Integer> albumsWithFeature = Maps.newHashMap();
+        for (int i = 0; i < albumOrdinals.size(); i++) {
+            features[i] = features(albumOrdinals.get(i));
+            for (long feature : features[i]) {
+                albumsWithFeature.merge(feature, 1, Integer::sum);
+            }
+        }
+        int common = Math.max(MIN_COMMON_FEATURE_ALBUMS, (int) (albumOrdinals.size() * COMMON_FEATURE_SHARE));
+        for (int i = 0; i < albumOrdinals.size(); i++) {
+            features[i] = Arrays.stream(features[i]).filter(feature -> albumsWithFeature.get(feature) <= common).toArray();
+        }
+
+        int[] signatures = new int[albumOrdinals.size() * hashes];
+        for (int i = 0; i < albumOrdinals.size(); i++) {
+            for (int h = 0; h < hashes; h++) {
+                long min = Long.MAX_VALUE;
+                for (long feature : features[i]) {
+                    min = Math.min(min, multipliers[h] * feature + increments[h]);
+                }
+                //The high half is as good a hash as the whole, and halves the signatures.
+                signatures[i * hashes + h] = (int) (min >>> 32);
+            }
+        }
+
+        List<Map<Long, int[]>> buckets = Lists.newArrayListWithCapacity(bands);
+        for (int band = 0; band < bands; band++) {
+            Map<Long, IntList> bucketLists = Maps.newHashMap();
+            for (int i = 0; i < albumOrdinals.size(); i++) {
+                //Albums without features share no feature with any album, and are nobody's candidates.
+                if (0 == features[i].length) {
+                    continue;
+                }
+                bucketLists.computeIfAbsent(bandKey(signatures, i * hashes + band * rows, rows), key -> new IntList()).add(i);
+            }
+            Map<Long, int[]> bandBuckets = Maps.newHashMapWithExpectedSize(bucketLists.size());
+            for (Map.Entry<Long, IntList> entry : bucketLists.entrySet()) {
+                //A bucket of one album never makes a candidate.
+                if (entry.getValue().size() > 1) {
+                    bandBuckets.put(entry.getKey(), entry.getValue().toArray());
+                }
+            }
+            buckets.add(bandBuckets);
+        }
+
+        return new MinHashIndex(albumOrdinals, features, signatures, bands, rows, buckets);
+    }
+
+    /**
+     * Up to k albums similar to the given one, most similar first, from the albums sharing a band with it.
+     * Fewer than k are returned when there are not enough candidates, albums without any feature in common are
+     * never returned.
+     */
+    public List<Album> mostSimilar(int k, Album album) {
+        int query = indexOf(album);
+        checkK(k);
+
+        //Candidates from every band, sorted so the ones found in several bands are ranked once.
+        IntList candidateList = new IntList();
+        int hashes = bands * rows;
+        for (int band = 0; band < bands && features[query].length > 0; band++) {
+            int[] bucket = buckets.get(band).get(bandKey(signatures, query * hashes + band * rows, rows));
+            if (null != bucket) {
+                for (int candidate : bucket) {
+                    candidateList.add(candidate);
+                }
+            }
+        }
+        int[] candidates = candidateList.toArray();
+        Arrays.sort(candidates);
+
+        TopK<Album> topK = new TopK<>(k);
+        for (int i = 0; i < candidates.length; i++) {
+            int candidate = candidates[i];
+            if (candidate != query && (0 == i || candidates[i - 1] != candidate)) {
+                offer(topK, query, candidate);
+            }
+        }
+        return topK.toList();
+    }
+
+    /**
+     * The k albums most similar to the given one by comparing it with every album in the index, what
+     * {@link #mostSimilar} approximates. Albums without any feature in common are not returned either.
+     */
+    public List<Album> mostSimilarExact(int k, Album album) {
+        int query = indexOf(album);
+        checkK(k);
+
+        TopK<Album> topK = new TopK<>(k);
+        for (int candidate = 0; candidate < albums.size(); candidate++) {
+            if (candidate != query) {
+                offer(topK, query, candidate);
+            }
+        }
+        return topK.toList();
+    }
+
+    public int albumCount() {
+        return albums.size();
+    }
+
+    private int indexOf(Album album) {
+        notNull(album);
+        int index = albums.ordinal(album);
+        if (Ordinals.NONE == index) {
+            throw new IllegalArgumentException("Album is not in the index");
+        }
+        return index;
+    }
+
+    private void checkK(int k) {
+        //The query album is never among its own similar albums.
+        if (k < 0 || k > albums.size() - 1) {
+            throw new IllegalArgumentException("k must be between 0 and the number of other albums");
+        }
+    }
+
+    private void offer(TopK<Album> topK, int query, int candidate) {
+        double similarity = jaccard(features[query], features[candidate]);
+        if (similarity > 0) {
+            topK.offer(albums.get(candidate), similarity, candidate);
+        }
+    }
+
+    /**
+     * Jaccard index of two sorted sets of feature hashes.
+     */
+    static double jaccard(long[] a, long[] b) {
+        int shared = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        int union = a.length + b.length - shared;
+        return 0 == union ? 0 : shared / (double) union;
+    }
+
+    /**
+     * The distinct feature hashes of an album, sorted.
+     */
+    static long[] features(Album album) {
+        Set<String> tokens = Sets.newHashSet();
+        for (Musician m : album.getFeaturedMusicians()) {
+            tokens.add("musician:" + m.getName());
+        }
+        addShingles(album.getAlbumName(), tokens);
+        for (Track t : album.getTracks()) {
+            tokens.add("genre:" + t.getGenre());
+            addShingles(t.getName(), tokens);
+        }
+
+        long[] hashes = new long[tokens.size()];
+        int i = 0;
+        for (String token : tokens) {
+            hashes[i++] = FEATURE_HASH.hashString(token, StandardCharsets.UTF_8).asLong();
+        }
+        Arrays.sort(hashes);
+        return hashes;
+    }
+
+    private static void addShingles(String name, Set<String> tokens) {
+        String normalised = name.toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+        if (normalised.length() <= SHINGLE_LENGTH) {
+            tokens.add("name:" + normalised);
+            return;
+        }
+        for (int i = 0; i + SHINGLE_LENGTH <= normalised.length(); i++) {
+            tokens.add("name:" + normalised.substring(i, i + SHINGLE_LENGTH));
+        }
+    }
+
+    private static long bandKey(int[] signatures, int from, int rows) {
+        long key = 17;
+        for (int row = 0; row < rows; row++) {
+            key = key * 1000003 + signatures[from + row];
+        }
+        return key;
+    }
+}
@@ -0,0 +1,106 @@
+package allaboutecm.mining;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/**
+ * Splits a scan over the indices [0, size) into ranges for a fork-join pool. Every range is reduced into its own
+ * partial result, and partial results are merged left to right, so a merge that respects the order of its
+ * arguments gives the same result as reducing the whole range at once. Scans that fill a shared array instead
+ * visit their ranges with {@link #forEach}.
+ */
+class ParallelScan {
+    //Below this many entities per range the forking costs more than the scoring it spreads.
+    static final int MIN_RANGE = 64;
+
+    interface Range<A> {
+        A reduce(int from, int to);
+    }
+
+    interface Slice {
+        void visit(int from, int to);
+    }
+
+    private ParallelScan() {
+    }
+
+    /**
+     * Reduces the indices on the pool, or on the calling thread when the pool is null.
+     */
+    static <A> A reduce(ForkJoinPool pool, int size, Range<A> range, BinaryOperator<A> merge) {
+        if (null == pool) {
+            return range.reduce(0, size);
+        }
+        //A few ranges per worker, so one slow range does not leave the others idle.
+        int threshold = Math.max(MIN_RANGE, size / (pool.getParallelism() * 4));
+        return pool.invoke(new Task<>(range, merge, 0, size, threshold));
+    }
+
+    /**
+     * Visits the indices on the pool, or on the calling thread when the pool is null. Ranges run concurrently, so
+     * a slice may only write state of the indices it is given; the writes are visible once this returns.
+     */
+    static void forEach(ForkJoinPool pool, int size, Slice slice) {
+        if (null == pool) {
+            slice.visit(0, size);
+            return;
+        }
+        int threshold = Math.max(MIN_RANGE, size / (pool.getParallelism() * 4));
+        pool.invoke(new Action(slice, 0, size, threshold));
+    }
+
+    private static class Action extends RecursiveAction {
+        private final Slice slice;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        Action(Slice slice, int from, int to, int threshold) {
+            this.slice = slice;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                slice.visit(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Action(slice, from, middle, threshold), new Action(slice, middle, to, threshold));
+        }
+    }
+
+    private static class Task<A> extends RecursiveTask<A> {
+        private final Range<A> range;
+        private final BinaryOperator<A> merge;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        Task(Range<A> range, BinaryOperator<A> merge, int from, int to, int threshold) {
+            this.range = range;
+            this.merge = merge;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected A compute() {
+            if (to - from <= threshold) {
+                return range.reduce(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            Task<A> left = new Task<>(range, merge, from, middle, threshold);
+            Task<A> right = new Task<>(range, merge, middle, to, threshold);
+            left.fork();
+            A rightResult = right.compute();
+            return merge.apply(left.join(), rightResult);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package allaboutecm.mining;
+
+import allaboutecm.model.Album;
+import allaboutecm.model.Musician;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * The release years of every musician's albums, sorted, so the albums a musician released in any window of years
+ * are counted with two binary searches, built once and then used to rank musicians for many windows.
+ *
+ * Musicians sharing a name count together under the last one passed to {@link #build}, and a negative or zero
+ * start or end year leaves that end of the window open, as in {@link ECMMiner#mostProlificMusicians}.
+ */
+public class ProlificIndex {
+    private final List<Musician> musicians;
+    private final Map<String, Integer> nameIndex;
+    private final int[][] releaseYears;
+    private final int[] byAlbumCount;
+
+    private ProlificIndex(List<Musician> musicians, Map<String, Integer> nameIndex, int[][] releaseYears,
+                          int[] byAlbumCount) {
+        this.musicians = musicians;
+        this.nameIndex = nameIndex;
+        this.releaseYears = releaseYears;
+        this.byAlbumCount = byAlbumCount;
+    }
+
+    /**
+     * Collects and sorts the release years of every name's albums in a single pass over the given musicians.
+     */
+    public static ProlificIndex build(Collection<Musician> musicians) {
+        notNull(musicians);
+
+        List<Musician> named = Lists.newArrayList();
+        Map<String, Integer> nameIndex = Maps.newHashMap();
+        List<IntList> years = Lists.newArrayList();
+        for (Musician m : musicians) {
+            Integer index = nameIndex.get(m.getName());
+            if (null == index) {
+                index = named.size();
+                nameIndex.put(m.getName(), index);
+                named.add(m);
+                years.add(new IntList());
+            } else {
+                named.set(index, m);
+            }
+            for (Album album : m.getAlbums()) {
+                years.get(index).add(album.getReleaseYear());
+            }
+        }
+
+        int[][] releaseYears = IntList.toArrays(years);
+        Integer[] order = new Integer[releaseYears.length];
+        for (int i = 0; i < releaseYears.length; i++) {
+            Arrays.sort(releaseYears[i]);
+            order[i] = i;
+        }
+        //Most albums first, no window can give a name more albums than that.
+        Arrays.sort(order, Comparator.comparingInt((Integer i) -> releaseYears[i].length).reversed());
+        int[] byAlbumCount = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            byAlbumCount[i] = order[i];
+        }
+
+        return new ProlificIndex(named, nameIndex, releaseYears, byAlbumCount);
+    }
+
+    /**
+     * The number of albums released in the window by the musicians with the given name.
+     */
+    public int albumCount(String name, int startYear, int endYear) {
+        Integer index = nameIndex.get(name);
+        return null == index ? 0 : albumCount(index, startYear, endYear);
+    }
+
+    /**
+     * The musicians with the most albums released in the window, ranked as ECMMiner ranks them: every musician
+     * with at least as many albums as the k-th, most albums first and then by name. Musicians are visited from
+     * the most albums overall down, and the visit stops at the first one that cannot reach the k-th count.
+     */
+    public List<Musician> mostProlific(int k, int startYear, int endYear) {
+        if (k < 1) {
+            return Lists.newArrayList();
+        }
+
+        //The k highest counts so far, the head is the count to reach.
+        PriorityQueue<Integer> highest = new PriorityQueue<>(k);
+        IntList visited = new IntList();
+        IntList visitedCounts = new IntList();
+        for (int name : byAlbumCount) {
+            int albums = releaseYears[name].length;
+            if (0 == albums || (highest.size() == k && albums < highest.peek())) {
+                break;
+            }
+            int count = albumCount(name, startYear, endYear);
+            if (count > 0) {
+                visited.add(name);
+                visitedCounts.add(count);
+                highest.add(count);
+                if (highest.size() > k) {
+                    highest.poll();
+                }
+            }
+        }
+
+        int threshold = highest.size() == k ? highest.peek() : 1;
+        List<Integer> ranked = Lists.newArrayList();
+        for (int i = 0; i < visited.size(); i++) {
+            if (visitedCounts.get(i) >= threshold) {
+                ranked.add(i);
+            }
+        }
+        ranked.sort(Comparator.comparingInt((Integer i) -> visitedCounts.get(i)).reversed()
+                .thenComparing(i -> musicians.get(visited.get(i)).getName()));
+
+        List<Musician> result = Lists.newArrayListWithCapacity(ranked.size());
+        for (int i : ranked) {
+            result.add(musicians.get(visited.get(i)));
+        }
+        return result;
+    }
+
+    public int musicianCount() {
+        return musicians.size();
+    }
+
+    private int albumCount(int name, int startYear, int endYear) {
+        int[] years = releaseYears[name];
+        int from = startYear > 0 ? firstAtLeast(years, startYear) : 0;
+        int to = endYear > 0 ? firstAfter(years, endYear) : years.length;
+        return Math.max(0, to - from);
+    }
+
+    private static int firstAtLeast(int[] sorted, int year) {
+        return search(sorted, year, false);
+    }
+
+    private static int firstAfter(int[] sorted, int year) {
+        return search(sorted, year, true);
+    }
+
+    private static int search(int[] sorted, int year, boolean after) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] < year || (after && sorted[middle] == year)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,187 @@
+package allaboutecm.mining;
+
+import allaboutecm.dataaccess.OrdinalRegistry;
+import allaboutecm.dataaccess.Ordinals;
+import allaboutecm.dataaccess.YearHistogram;
+import allaboutecm.model.Album;
+import allaboutecm.model.Musician;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Inverted indexes from musicians and release years to the albums of a catalogue, built once and then used to
+ * answer similar album queries without scoring every album.
+ *
+ * An album scores two points for every featured musician of the query album it also features, and one point when
+ * it is released in the same year, as in {@link ECMMiner#mostSimilarAlbums}. A query only visits the postings of
+ * its own musicians and the albums of its year, every other album scores zero. Ties go to the album passed later
+ * to {@link #build}, which is how the scan in ECMMiner breaks them.
+ */
+public class SimilarityIndex {
+    private final Ordinals<Album> albums;
+    private final Ordinals<Musician> musicians;
+    private final int[][] musiciansOfAlbum;
+    private final int[][] albumsOfMusician;
+    private final int[][] albumsOfYear;
+
+    private SimilarityIndex(Ordinals<Album> albums, Ordinals<Musician> musicians, int[][] musiciansOfAlbum,
+                            int[][] albumsOfMusician, int[][] albumsOfYear) {
+        this.albums = albums;
+        this.musicians = musicians;
+        this.musiciansOfAlbum = musiciansOfAlbum;
+        this.albumsOfMusician = albumsOfMusician;
+        this.albumsOfYear = albumsOfYear;
+    }
+
+    /**
+     * Builds the musician and year postings in a single pass over the featured musicians of the given albums.
+     */
+    public static SimilarityIndex build(Collection<Album> albums) {
+        notNull(albums);
+
+        OrdinalRegistry registry = new OrdinalRegistry();
+        Ordinals<Album> albumOrdinals = registry.registerAll(Album.class, albums);
+
+        Ordinals<Musician> musicianOrdinals = registry.ordinals(Musician.class);
+        List<IntList> musicians = Lists.newArrayListWithCapacity(albumOrdinals.size());
+        List<IntList> postings = Lists.newArrayList();
+        List<IntList> years = Lists.newArrayList();
+        for (int i = 0; i < albumOrdinals.size(); i++) {
+            Album album = albumOrdinals.get(i);
+            IntList featured = new IntList();
+            for (Musician m : album.getFeaturedMusicians()) {
+                int index = musicianOrdinals.add(m);
+                if (index == postings.size()) {
+                    postings.add(new IntList());
+                }
+                //A musician listed twice on an album still makes it one posting, albums are added in index order.
+                IntList albumsOfMusician = postings.get(index);
+                if (0 == albumsOfMusician.size() || albumsOfMusician.get(albumsOfMusician.size() - 1) != i) {
+                    albumsOfMusician.add(i);
+                }
+                featured.add(index);
+            }
+            musicians.add(featured);
+
+            int offset = album.getReleaseYear() - YearHistogram.FIRST_YEAR;
+            while (years.size() <= offset) {
+                years.add(new IntList());
+            }
+            years.get(offset).add(i);
+        }
+
+        return new SimilarityIndex(albumOrdinals, musicianOrdinals,
+                IntList.toArrays(musicians), IntList.toArrays(postings), IntList.toArrays(years));
+    }
+
+    /**
+     * The k albums most similar to the given one, most similar first. The given album is scored with its own
+     * featured musicians and release year, and must be in the index.
+     */
+    public List<Album> mostSimilar(int k, Album album) {
+        notNull(album);
+        int index = albums.ordinal(album);
+        if (Ordinals.NONE == index) {
+            throw new IllegalArgumentException("Album is not in the index");
+        }
+        checkK(k);
+
+        IntList featured = new IntList();
+        for (Musician m : album.getFeaturedMusicians()) {
+            int musician = musicians.ordinal(m);
+            if (Ordinals.NONE != musician) {
+                featured.add(musician);
+            }
+        }
+        return rank(k, index, featured.toArray(), album.getReleaseYear(), new int[albums.size()], new IntList());
+    }
+
+    /**
+     * The k most similar albums for every album in the index, as they were passed to {@link #build}. The queries
+     * are split across the pool, each range with score markers of its own. A null pool runs them on the calling
+     * thread.
+     */
+    public Map<Album, List<Album>> mostSimilarForAll(int k, ForkJoinPool pool) {
+        checkK(k);
+        List<List<Album>> similar = ParallelScan.reduce(pool, albums.size(), (from, to) -> {
+            int[] scores = new int[albums.size()];
+            IntList touched = new IntList();
+            List<List<Album>> results = Lists.newArrayListWithCapacity(to - from);
+            for (int i = from; i < to; i++) {
+                results.add(rank(k, i, musiciansOfAlbum[i], albums.get(i).getReleaseYear(), scores, touched));
+            }
+            return results;
+        }, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+
+        Map<Album, List<Album>> result = Maps.newLinkedHashMap();
+        for (int i = 0; i < albums.size(); i++) {
+            result.put(albums.get(i), similar.get(i));
+        }
+        return result;
+    }
+
+    public int albumCount() {
+        return albums.size();
+    }
+
+    private void checkK(int k) {
+        //The query album is never among its own similar albums.
+        if (k < 0 || k > albums.size() - 1) {
+            throw new IllegalArgumentException("k must be between 0 and the number of other albums");
+        }
+    }
+
+    /**
+     * Scores the albums reachable from the query, with scores left all zero when it returns.
+     */
+    private List<Album> rank(int k, int query, int[] featured, int releaseYear, int[] scores, IntList touched) {
+        for (int musician : featured) {
+            for (int album : albumsOfMusician[musician]) {
+                if (0 == scores[album]) {
+                    touched.add(album);
+                }
+                scores[album] += 2;
+            }
+        }
+        int offset = releaseYear - YearHistogram.FIRST_YEAR;
+        if (offset < albumsOfYear.length) {
+            for (int album : albumsOfYear[offset]) {
+                if (0 == scores[album]) {
+                    touched.add(album);
+                }
+                scores[album] += 1;
+            }
+        }
+
+        TopK<Album> topK = new TopK<>(k);
+        for (int i = 0; i < touched.size(); i++) {
+            int album = touched.get(i);
+            if (album != query) {
+                topK.offer(albums.get(album), scores[album], album);
+            }
+        }
+        List<Album> result = topK.toList();
+        //Albums sharing nothing score zero, and among those the later ones win as in any tie.
+        for (int album = albums.size() - 1; album >= 0 && result.size() < k; album--) {
+            if (album != query && 0 == scores[album]) {
+                result.add(albums.get(album));
+            }
+        }
+
+        for (int i = 0; i < touched.size(); i++) {
+            scores[touched.get(i)] = 0;
+        }
+        touched.clear();
+        return result;
+    }
+}
@@ -0,0 +1,118 @@
+package allaboutecm.mining;
+
+import com.google.common.collect.Lists;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the k highest scoring items offered to it, using a min-heap of size k so selecting from n items
+ * costs O(n log k) time and O(k) memory.
+ *
+ * Ties are broken in favour of the item offered later. This is the order the ECMMiner rankings had when
+ * they sorted every entry ascending and walked the list backwards, and it is deterministic for a given
+ * input order.
+ */
+public class TopK<T> {
+    private final int k;
+    private final PriorityQueue<Candidate<T>> heap;
+    private long offered;
+
+    public TopK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k cannot be negative");
+        }
+        this.k = k;
+        //The head of the heap is the worst candidate kept so far.
+        this.heap = new PriorityQueue<>(Math.max(1, Math.min(k, 1024)));
+    }
+
+    /**
+     * Offers an item with its score, int and float scores are represented exactly.
+     */
+    public void offer(T item, double score) {
+        offer(item, score, offered);
+    }
+
+    /**
+     * Offers an item at a position of the input, so partial rankings of consecutive parts of the input can be
+     * merged into the ranking of the whole. Ties go to the later position.
+     */
+    public void offer(T item, double score, long position) {
+        //Most offers lose to the kept candidates once the heap is full, those allocate nothing.
+        if (accepts(score, position)) {
+            offer(new Candidate<>(item, score, position));
+        } else {
+            offered = Math.max(offered, position + 1);
+        }
+    }
+
+    /**
+     * Adds the items another TopK kept, with the positions they were offered at, and returns this one.
+     */
+    public TopK<T> merge(TopK<T> other) {
+        for (Candidate<T> candidate : other.heap) {
+            offer(candidate);
+        }
+        return this;
+    }
+
+    private void offer(Candidate<T> candidate) {
+        offered = Math.max(offered, candidate.sequence + 1);
+        if (heap.size() < k) {
+            heap.add(candidate);
+        } else if (k > 0 && candidate.compareTo(heap.peek()) > 0) {
+            //An equal score offered later beats the kept candidate.
+            heap.poll();
+            heap.add(candidate);
+        }
+    }
+
+    private boolean accepts(double score, long sequence) {
+        if (heap.size() < k) {
+            return true;
+        }
+        if (0 == k) {
+            return false;
+        }
+        Candidate<T> worst = heap.peek();
+        int result = Double.compare(score, worst.score);
+        return result != 0 ? result > 0 : sequence > worst.sequence;
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    /**
+     * Returns the kept items, highest score first.
+     */
+    public List<T> toList() {
+        List<Candidate<T>> candidates = Lists.newArrayList(heap);
+        Collections.sort(candidates, Collections.reverseOrder());
+        List<T> result = Lists.newArrayListWithCapacity(candidates.size());
+        for (Candidate<T> candidate : candidates) {
+            result.add(candidate.item);
+        }
+        return result;
+    }
+
+    private static class Candidate<T> implements Comparable<Candidate<T>> {
+        private final T item;
+        private final double score;
+        private final long sequence;
+
+        Candidate(T item, double score, long sequence) {
+            this.item = item;
+            this.score = score;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Candidate<T> o) {
+            int result = Double.compare(score, o.score);
+            return result != 0 ? result : Long.compare(sequence, o.sequence);
+        }
+    }
+}
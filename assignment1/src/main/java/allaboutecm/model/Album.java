@@ -1,16 +1,13 @@
 package allaboutecm.model;
 
-import allaboutecm.dataaccess.neo4j.URLConverter;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import org.neo4j.ogm.annotation.NodeEntity;
 import org.neo4j.ogm.annotation.Property;
 import org.neo4j.ogm.annotation.Relationship;
-import org.neo4j.ogm.annotation.typeconversion.Convert;
 
 import java.net.URL;
 import java.util.List;
-import java.util.Objects;
 import java.util.Set;
 import java.util.*;
 
@@ -24,7 +21,6 @@ import static org.apache.commons.lang3.Validate.notNull;
  */
 @NodeEntity
 public class Album extends Entity {
-
     @Property(name="releaseYear")
     private int releaseYear;
 
@@ -44,9 +40,9 @@ public class Album extends Entity {
     @Relationship(type="instruments")
     private Set<MusicianInstrument> instruments;
 
-    @Convert(URLConverter.class)
+    //Kept as its text, as Musician keeps its URLs.
     @Property(name="albumURL")
-    private URL albumURL;
+    private String albumURL;
 
     @Relationship(type="tracks")
     private Set<Track> tracks;
@@ -57,6 +53,28 @@ public class Album extends Entity {
     @Property(name="sales")
     private int sales;
 
+    /**
+     * Running totals of the ratings, so an album is ranked by its average without loading its ratings.
+     * Kept by setRatings and addRating, and recounted by the DAO from the stored ratings on every save.
+     */
+    @Property(name="ratingCount")
+    private int ratingCount;
+
+    @Property(name="ratingSum")
+    private long ratingSum;
+
+    //Stored next to the totals so the store can order albums by it from an index.
+    @Property(name="averageRating")
+    private double averageRating;
+
+    //Used by Neo4j-OGM to rehydrate albums it has not seen in the current session.
+    private Album() {
+        featuredMusicians = Lists.newArrayList();
+        instruments = Sets.newHashSet();
+        tracks = Sets.newHashSet();
+        ratings = Sets.newHashSet();
+    }
+
     public Album(int releaseYear, String recordNumber, String albumName) {
         notNull(recordNumber);
         notNull(albumName);
@@ -123,7 +141,7 @@ public class Album extends Entity {
     }
 
     public URL getAlbumURL() {
-        return albumURL;
+        return URLs.url(albumURL);
     }
 
     public void setAlbumURL(URL albumURL) {
@@ -132,7 +150,7 @@ public class Album extends Entity {
         if (!(checkURL.contains("https://www.ecm.com/"))){
             throw new IllegalArgumentException();
         }
-        this.albumURL = albumURL;
+        this.albumURL = URLs.text(albumURL);
     }
 
     public Set<Track> getTracks() {
@@ -195,6 +213,51 @@ public class Album extends Entity {
             notNull(itr.next());
         }
         this.ratings = ratings;
+        recountRatings();
+    }
+
+    /**
+     * Adds a rating and counts it in the running totals, unless the album already has an equal one.
+     */
+    public boolean addRating(Rating rating) {
+        notNull(rating);
+        if (!ratings.add(rating)) {
+            return false;
+        }
+        setRatingTotals(ratingCount + 1, ratingSum + rating.getRatingScore());
+        return true;
+    }
+
+    /**
+     * Recounts the running totals from the ratings, after they were changed through getRatings().
+     */
+    public void recountRatings() {
+        long sum = 0;
+        for (Rating r : ratings) {
+            sum += r.getRatingScore();
+        }
+        setRatingTotals(ratings.size(), sum);
+    }
+
+    public int getRatingCount() {
+        return ratingCount;
+    }
+
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    /**
+     * The average rating score, 0 for an album without ratings.
+     */
+    public double getAverageRating() {
+        return averageRating;
+    }
+
+    private void setRatingTotals(int ratingCount, long ratingSum) {
+        this.ratingCount = ratingCount;
+        this.ratingSum = ratingSum;
+        this.averageRating = 0 == ratingCount ? 0 : ratingSum / (double) ratingCount;
     }
 
     @Override
@@ -209,7 +272,8 @@ public class Album extends Entity {
 
     @Override
     public int hashCode() {
-        return Objects.hash(releaseYear, recordNumber, albumName);
+        //Objects.hash(releaseYear, recordNumber, albumName) written out, without boxing or an array per call.
+        return 31 * (31 * (31 + releaseYear) + recordNumber.hashCode()) + albumName.hashCode();
     }
 
     private void checkRecordNumber(String recordNumber) {
@@ -8,6 +8,7 @@ import org.neo4j.ogm.annotation.Relationship;
 import org.neo4j.ogm.annotation.typeconversion.Convert;
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
 
 import static org.apache.commons.lang3.Validate.notBlank;
 import static org.apache.commons.lang3.Validate.notNull;
@@ -30,6 +31,11 @@ public class Concerts extends Entity {
     @Relationship(type="featuredMusicians")
     private List<Musician> featuredMusicians;
 
+    //Used by Neo4j-OGM to rehydrate concerts it has not seen in the current session.
+    private Concerts() {
+        this.featuredMusicians = Lists.newArrayList();
+    }
+
     public Concerts(Date date, String name) {
 		super();
 		notNull(date);
@@ -47,16 +53,10 @@ public class Concerts extends Entity {
 				+ ", featuredMusicians=" + featuredMusicians + "]";
 	}
 
+	//A concert is the same as another if and only if the name, date and place match, whichever musicians play.
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + ((country == null) ? 0 : country.hashCode());
-		result = prime * result + ((date == null) ? 0 : date.hashCode());
-		result = prime * result + ((featuredMusicians == null) ? 0 : featuredMusicians.hashCode());
-		result = prime * result + ((location == null) ? 0 : location.hashCode());
-		result = prime * result + ((name == null) ? 0 : name.hashCode());
-		return result;
+		return Objects.hash(name, date);
 	}
 
 	@Override
@@ -65,8 +65,9 @@ public class Concerts extends Entity {
 		if (o == null || getClass() != o.getClass()) return false;
 		Concerts concert = (Concerts) o;
 		return name.equals(concert.name) &&
-				location.equals(concert.location) &&
-				country.equals(concert.country);
+				date.equals(concert.date) &&
+				Objects.equals(location, concert.location) &&
+				Objects.equals(country, concert.country);
 	}
 
 	public Date getDate() {
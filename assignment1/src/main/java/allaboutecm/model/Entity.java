@@ -3,6 +3,16 @@ package allaboutecm.model;
 import org.neo4j.ogm.annotation.GeneratedValue;
 import org.neo4j.ogm.annotation.Id;
 
+/**
+ * Entities are equal by a natural key of their own fields, never by id: they are compared before they are saved,
+ * and copies of one node are loaded by different sessions. A key is a few fields, or a musician and its small set
+ * of instruments, never a relationship to many entities, so equals and hashCode take constant time and an entity
+ * keeps its hash while its relationships change.
+ *
+ * Album: name, record number and release year. Musician: name and URL. MusicalInstrument: name.
+ * MusicianInstrument: musician and instruments. Track: name, duration, genre and number. Rating: score and
+ * source. Concerts: name, date, location and country.
+ */
 public abstract class Entity {
     @Id
     @GeneratedValue
@@ -1,12 +1,10 @@
 package allaboutecm.model;
 
-import allaboutecm.dataaccess.neo4j.URLConverter;
 import com.google.common.collect.Sets;
 
 import org.neo4j.ogm.annotation.NodeEntity;
 import org.neo4j.ogm.annotation.Property;
 import org.neo4j.ogm.annotation.Relationship;
-import org.neo4j.ogm.annotation.typeconversion.Convert;
 
 
 import java.net.URL;
@@ -27,9 +25,9 @@ public class Musician extends Entity {
     @Property(name="name")
     private String name;
 
-    @Convert(URLConverter.class)
+    //URLs are kept as their text, which equals compares without looking up hosts. The getters go through URLs.
     @Property(name="musicianURL")
-    private URL musicianUrl;
+    private String musicianUrl;
 
     @Relationship(type="albums")
     private Set<Album> albums;
@@ -39,13 +37,16 @@ public class Musician extends Entity {
     @Property(name="bio")
     private String bio;
 
-    @Convert(URLConverter.class)
     @Property(name="personalSite")
-    private URL personalSite;
+    private String personalSite;
 
-    @Convert(URLConverter.class)
     @Property(name="wikiPage")
-    private URL wikiPage;
+    private String wikiPage;
+
+    //Used by Neo4j-OGM to rehydrate musicians it has not seen in the current session.
+    private Musician() {
+        albums = Sets.newHashSet();
+    }
 
     public Musician(String name) {
         //When we make a Musician is the only time we set the name and it must be not null and not blank
@@ -104,11 +105,12 @@ public class Musician extends Entity {
 
     @Override
     public boolean equals(Object o) {
-        //A musician object is the same as another musician object if and only if the names, album lists and url match.
+        //A musician object is the same as another musician object if and only if the names and url match.
+        //Albums are left out, a musician stays the same one in sets and maps while recording more of them.
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Musician that = (Musician) o;
-        return (Objects.equals(name, that.name) && Objects.equals(musicianUrl, that.getMusicianUrl()) && Objects.equals(albums, that.getAlbums())); //Delete later?
+        return Objects.equals(name, that.name) && Objects.equals(musicianUrl, that.musicianUrl);
     }
 
     @Override
@@ -117,7 +119,7 @@ public class Musician extends Entity {
     }
 
     public URL getMusicianUrl() {
-        return musicianUrl;
+        return URLs.url(musicianUrl);
     }
 
     public void setMusicianUrl(URL musicianUrl){
@@ -126,7 +128,7 @@ public class Musician extends Entity {
         if (!musicianUrl.toString().contains("https://www.ecm.com/")){
             throw new IllegalArgumentException();
         }
-        this.musicianUrl = musicianUrl;
+        this.musicianUrl = URLs.text(musicianUrl);
     }
 
 
@@ -151,10 +153,10 @@ public class Musician extends Entity {
         if (siteString.contains("www.ecm.com") || siteString.contains("wikipedia.org")) {
                 throw new IllegalArgumentException();
         }
-        this.personalSite = site;
+        this.personalSite = URLs.text(site);
     }
 
-    public URL getPersonalSite(){return this.personalSite;}
+    public URL getPersonalSite(){return URLs.url(this.personalSite);}
     //wikiPage is a URL attribute with set get methods representing the wikipedia page of the band.
     //wikiPage has the constraint that it must begin with a substring following the format http://xx.wikipedia.org/wiki/
     public void setWikiPage (URL wikiPage){
@@ -162,9 +164,9 @@ public class Musician extends Entity {
         if (!siteString.contains("wikipedia.org")) {
                 throw new IllegalArgumentException();
         }
-        this.wikiPage = wikiPage;
+        this.wikiPage = URLs.text(wikiPage);
     }
 
-    public URL getWikiPage(){return this.wikiPage;}
+    public URL getWikiPage(){return URLs.url(this.wikiPage);}
 
 }
@@ -17,6 +17,10 @@ public class Rating extends Entity {
     @Property(name="source")
     private String source;
 
+    //Used by Neo4j-OGM to rehydrate ratings it has not seen in the current session.
+    private Rating() {
+    }
+
     public Rating(int ratingScore, String source) {
         notNull(source);
         notBlank(source);
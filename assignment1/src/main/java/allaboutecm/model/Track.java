@@ -28,6 +28,11 @@ public class Track extends Entity {
 
     private List<String> reviews;
 
+    //Used by Neo4j-OGM to rehydrate tracks it has not seen in the current session.
+    private Track() {
+        this.reviews = Lists.newArrayList();
+    }
+
     public Track(String name, String duration, String genre, int trackNumber) {
         notNull(name);
         notNull(duration);
@@ -117,7 +122,7 @@ public class Track extends Entity {
         if (o == null || getClass() != o.getClass()) return false;
         Track track = (Track) o;
         return name.equals(track.name) &&
-                duration == track.duration &&
+                duration.equals(track.duration) &&
                 trackNumber == track.trackNumber &&
                 genre.equals(track.genre);
     }
@@ -0,0 +1,50 @@
+package allaboutecm.model;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+
+/**
+ * Turns the URLs entities keep as their text back into URLs for the getters. Every entity shares one bounded cache,
+ * so a value read again, by the same entity or by another one loaded with it, is the URL handed out before instead
+ * of a new one. Entities compare the text, so no host is looked up for their equals and hashCode.
+ */
+final class URLs {
+    static final int CACHE_SIZE = 100_000;
+
+    private static final Cache<String, URL> CACHE = CacheBuilder.newBuilder()
+            .maximumSize(CACHE_SIZE)
+            .recordStats()
+            .build();
+
+    private URLs() {
+    }
+
+    static String text(URL url) {
+        return null == url ? null : url.toString();
+    }
+
+    static URL url(String text) {
+        if (null == text) {
+            return null;
+        }
+        URL url = CACHE.getIfPresent(text);
+        if (null == url) {
+            //Two threads may both parse a new value, the URLs are equal and either is fine to keep.
+            try {
+                url = new URL(text);
+            } catch (MalformedURLException e) {
+                throw new IllegalArgumentException("Cannot convert string to URL:" + text);
+            }
+            CACHE.put(text, url);
+        }
+        return url;
+    }
+
+    static CacheStats stats() {
+        return CACHE.stats();
+    }
+}
@@ -0,0 +1,1071 @@
+package allaboutecm.dataaccess;
+
+import allaboutecm.model.*;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The behaviour every DAO implementation has to share, run against each of them by a subclass that creates it.
+ * The DAO is expected to be empty at the start of every test.
+ */
+public abstract class DAOUnitTest {
+    protected DAO dao;
+
+    protected abstract DAO createDAO();
+
+    @BeforeEach
+    public void setUpDAO() {
+        dao = createDAO();
+    }
+
+    @Test
+    public void daoIsNotEmpty() {
+        assertNotNull(dao);
+    }
+
+
+    @Test
+    public void successfulCreationAndLoadingOfMusician() throws MalformedURLException {
+        assertEquals(0, dao.loadAll(Musician.class).size());
+
+        Musician musician = new Musician("Keith Jarrett");
+        musician.setMusicianUrl(new URL("https://www.ecm.com/keithjarrett"));
+        musician.setBio("I am a Musician");
+        musician.setPersonalSite(new URL("https://keithjarrett.org"));
+        musician.setWikiPage(new URL("https://www.wikipedia.org/keithjarrett"));
+
+        dao.createOrUpdate(musician);
+        Musician loadedMusician = dao.load(Musician.class, musician.getId());
+
+        assertNotNull(loadedMusician.getId());
+        assertEquals(musician, loadedMusician);
+        assertEquals(musician.getMusicianUrl(), loadedMusician.getMusicianUrl());
+        assertEquals(musician.getBio(), loadedMusician.getBio());
+        assertEquals(musician.getPersonalSite(), loadedMusician.getPersonalSite());
+        assertEquals(musician.getWikiPage(), loadedMusician.getWikiPage());
+
+        assertEquals(1, dao.loadAll(Musician.class).size());
+    }
+
+    @Test
+    public void successfulUpdatingOfMusician() throws MalformedURLException {
+        assertEquals(0, dao.loadAll(Musician.class).size());
+
+        Musician musician = new Musician("Keith Jarrett");
+        musician.setMusicianUrl(new URL("https://www.ecm.com/keithjarrett"));
+        musician.setBio("I am a Musician");
+        musician.setPersonalSite(new URL("https://keithjarrett.org"));
+        musician.setWikiPage(new URL("https://www.wikipedia.org/keithjarrett"));
+
+        dao.createOrUpdate(musician);
+        musician.setName("New name");
+        dao.createOrUpdate(musician);
+        assertEquals(1, dao.loadAll(Musician.class).size());
+        Musician loadedMusician = dao.load(Musician.class, musician.getId());
+
+        assertNotNull(loadedMusician.getId());
+        assertEquals(musician, loadedMusician);
+        assertEquals(musician.getName(), loadedMusician.getName());
+    }
+
+    @Test
+    public void successfulDeletionOfMusician() throws MalformedURLException {
+        assertEquals(0, dao.loadAll(Musician.class).size());
+
+        Musician musician = new Musician("Keith Jarrett");
+        musician.setMusicianUrl(new URL("https://www.ecm.com/keithjarrett"));
+        musician.setBio("I am a Musician");
+        musician.setPersonalSite(new URL("https://keithjarrett.org"));
+        musician.setWikiPage(new URL("https://www.wikipedia.org/keithjarrett"));
+
+        dao.createOrUpdate(musician);
+        assertEquals(1, dao.loadAll(Musician.class).size());
+
+        dao.delete(musician);
+        assertEquals(0, dao.loadAll(Musician.class).size());
+    }
+
+
+    @Test
+    public void successfulCreationAndLoadingOfAlbum() throws MalformedURLException {
+        assertEquals(0, dao.loadAll(Album.class).size());
+
+        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        album.setAlbumURL(new URL("https://www.ecm.com/keithjarrett"));
+
+        dao.createOrUpdate(album);
+        Album loadedAlbum = dao.load(Album.class, album.getId());
+
+        assertNotNull(loadedAlbum.getId());
+        assertEquals(album, loadedAlbum);
+        assertEquals(album.getAlbumURL(), loadedAlbum.getAlbumURL());
+
+        assertEquals(1, dao.loadAll(Album.class).size());
+    }
+
+    @Test
+    public void successfulUpdatingOfAlbum() throws MalformedURLException {
+        assertEquals(0, dao.loadAll(Album.class).size());
+
+        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        album.setAlbumURL(new URL("https://www.ecm.com/keithjarrett"));
+
+        dao.createOrUpdate(album);
+        album.setAlbumName("The New Concert");
+        dao.createOrUpdate(album);
+        assertEquals(1, dao.loadAll(Album.class).size());
+        Album loadedAlbum = dao.load(Album.class, album.getId());
+
+        assertNotNull(loadedAlbum.getId());
+        assertEquals(album, loadedAlbum);
+        assertEquals(album.getAlbumURL(), loadedAlbum.getAlbumURL());
+    }
+
+    @Test
+    public void successfulDeletionOfAlbum() throws MalformedURLException {
+        assertEquals(0, dao.loadAll(Album.class).size());
+
+        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        album.setAlbumURL(new URL("https://www.ecm.com/keithjarrett"));
+
+        dao.createOrUpdate(album);
+        assertEquals(1, dao.loadAll(Album.class).size());
+
+        dao.delete(album);
+        assertEquals(0, dao.loadAll(Album.class).size());
+    }
+
+    @Test
+    public void successfulCreationAndLoadingOfRating()  {
+        assertEquals(0, dao.loadAll(Rating.class).size());
+
+        Rating rating = new Rating(4, "Life Magazine");
+
+        dao.createOrUpdate(rating);
+        Rating loadedRating = dao.load(Rating.class, rating.getId());
+
+        assertNotNull(loadedRating.getId());
+        assertEquals(rating, loadedRating);
+        assertEquals(rating.getSource(), loadedRating.getSource());
+
+        assertEquals(1, dao.loadAll(Rating.class).size());
+    }
+
+    @Test
+    public void successfulUpdatingOfRating() {
+        assertEquals(0, dao.loadAll(Rating.class).size());
+
+        Rating rating = new Rating(4, "Life Magazine");
+
+        dao.createOrUpdate(rating);
+        rating.setRatingScore(3);
+        dao.createOrUpdate(rating);
+        assertEquals(1, dao.loadAll(Rating.class).size());
+        Rating loadedRating = dao.load(Rating.class, rating.getId());
+
+        assertNotNull(loadedRating.getId());
+        assertEquals(rating, loadedRating);
+        assertEquals(rating.getSource(), loadedRating.getSource());
+    }
+
+    @Test
+    public void successfulDeletionOfRating() {
+        assertEquals(0, dao.loadAll(Rating.class).size());
+
+        Rating rating = new Rating(4, "Life Magazine");
+
+        dao.createOrUpdate(rating);
+        assertEquals(1, dao.loadAll(Rating.class).size());
+
+        dao.delete(rating);
+        assertEquals(0, dao.loadAll(Rating.class).size());
+    }
+
+    @Test
+    public void ratingTotalsFollowSavedRatings() {
+        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        album.setRatings(Sets.newHashSet(new Rating(4, "Life Magazine"), new Rating(5, "Rolling Stone Magazine")));
+        dao.createOrUpdate(album);
+
+        Album loadedAlbum = dao.load(Album.class, album.getId());
+        assertEquals(2, loadedAlbum.getRatingCount());
+        assertEquals(9, loadedAlbum.getRatingSum());
+
+        album.addRating(new Rating(3, "New Magazine"));
+        dao.createOrUpdate(album);
+        loadedAlbum = dao.load(Album.class, album.getId());
+        assertEquals(3, loadedAlbum.getRatingCount());
+        assertEquals(4.0, loadedAlbum.getAverageRating());
+    }
+
+    @Test
+    public void successfulCreationAndLoadingOfTrack(){
+        assertEquals(0, dao.loadAll(Track.class).size());
+
+        Track track = new Track("Track 1","4:20","Jazz",1);
+        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
+        track.setReviews(list);
+
+        dao.createOrUpdate(track);
+        Track loadedTrack = dao.load(Track.class, track.getId());
+
+        assertNotNull(loadedTrack.getId());
+        assertEquals(track, loadedTrack);
+        assertEquals(track.getReviews(), loadedTrack.getReviews());
+
+        assertEquals(1, dao.loadAll(Track.class).size());
+    }
+
+    @Test
+    public void successfulUpdatingOfTrack()
+    {
+        Track track = new Track("Track 1","4:20","Jazz",1);
+        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
+        track.setReviews(list);
+        dao.createOrUpdate(track);
+        track.setName("Track 2");
+        dao.createOrUpdate(track);
+        assertEquals(1, dao.loadAll(Track.class).size());
+
+        Track loadedTrack = dao.load(Track.class, track.getId());
+        assertNotNull(loadedTrack);
+        assertEquals(track, loadedTrack);
+        assertEquals(track.getName(), loadedTrack.getName());
+    }
+
+    @Test
+    public void successfulDeletionOfTrack(){
+        assertEquals(0, dao.loadAll(Track.class).size());
+
+        Track track = new Track("Track 1","4:20","Jazz",1);
+        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
+        track.setReviews(list);
+
+        dao.createOrUpdate(track);
+        Track loadedTrack = dao.load(Track.class, track.getId());
+
+        assertNotNull(loadedTrack.getId());
+        assertEquals(track, loadedTrack);
+        assertEquals(track.getReviews(), loadedTrack.getReviews());
+
+        assertEquals(1, dao.loadAll(Track.class).size());
+
+        dao.delete(track);
+        assertEquals(0, dao.loadAll(Track.class).size());
+    }
+
+    @Test
+    public void successfulFindByAlbumSales()  {
+        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        Track track = new Track("Track 1","4:20","Jazz",1);
+        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
+        track.setReviews(list);
+        album.setTracks(Sets.newHashSet(track));
+        album.setSales(10);
+        dao.createOrUpdate(album);
+        Album foundAlbum = dao.findAlbumBySales(10);
+
+        assertEquals(album.getSales(), foundAlbum.getSales());
+    }
+
+    @Test
+    public void FindByAlbumSalesIsNull()  {
+        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        Track track = new Track("Track 1","4:20","Jazz",1);
+        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
+        track.setReviews(list);
+        album.setTracks(Sets.newHashSet(track));
+        album.setSales(10);
+        dao.createOrUpdate(album);
+        Album foundAlbum = dao.findAlbumBySales(5);
+
+        assertEquals(null, foundAlbum);
+    }
+
+    @Test
+    public void successfulFindByAlbumName()  {
+        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        Track track = new Track("Track 1","4:20","Jazz",1);
+        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
+        track.setReviews(list);
+        album.setTracks(Sets.newHashSet(track));
+
+        dao.createOrUpdate(album);
+
+        Album foundAlbum = dao.findAlbumByName("The Köln Concert");
+
+        assertEquals(album.getAlbumName(), foundAlbum.getAlbumName());
+    }
+    @Test
+    public void FindByAlbumNameIsNull()  {
+        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        Track track = new Track("Track 1","4:20","Jazz",1);
+        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
+        track.setReviews(list);
+        album.setTracks(Sets.newHashSet(track));
+
+        dao.createOrUpdate(album);
+
+        Album foundAlbum = dao.findAlbumByName("Concert");
+
+        assertEquals(null, foundAlbum);
+    }
+
+    @Test
+    public void successfulFindByAlbumReleaseYear()  {
+        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        Track track = new Track("Track 1","4:20","Jazz",1);
+        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
+        track.setReviews(list);
+        album.setTracks(Sets.newHashSet(track));
+
+        dao.createOrUpdate(album);
+
+        Album foundAlbum = dao.findAlbumByReleaseYear(1975);
+
+        assertEquals(album.getReleaseYear(), foundAlbum.getReleaseYear());
+    }
+    @Test
+    public void FindByAlbumReleaseYearIsNull()  {
+        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        Track track = new Track("Track 1","4:20","Jazz",1);
+        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
+        track.setReviews(list);
+        album.setTracks(Sets.newHashSet(track));
+
+        dao.createOrUpdate(album);
+
+        Album foundAlbum = dao.findAlbumByReleaseYear(1979);
+
+        assertEquals(null, foundAlbum);
+    }
+
+    @Test
+    public void successfulFindByAlbumRecordNumber()  {
+        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        Track track = new Track("Track 1","4:20","Jazz",1);
+        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
+        track.setReviews(list);
+        album.setTracks(Sets.newHashSet(track));
+
+        dao.createOrUpdate(album);
+
+        Album foundAlbum = dao.findAlbumByRecordNumber("ECM 1064/65");
+
+        assertEquals(album.getRecordNumber(), foundAlbum.getRecordNumber());
+    }
+    @Test
+    public void FindByAlbumRecordNumberIsNull()  {
+        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        Track track = new Track("Track 1","4:20","Jazz",1);
+        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
+        track.setReviews(list);
+        album.setTracks(Sets.newHashSet(track));
+
+        dao.createOrUpdate(album);
+
+        Album foundAlbum = dao.findAlbumByRecordNumber("ECM 1064/60");
+
+        assertEquals(null, foundAlbum);
+    }
+
+    @Test
+    public void successfulCreationAndLoadingOfMusicalInstrument() throws MalformedURLException {
+        assertEquals(0, dao.loadAll(MusicalInstrument.class).size());
+
+        MusicalInstrument musicalInstrument = new MusicalInstrument("Piano");
+
+        dao.createOrUpdate(musicalInstrument);
+        MusicalInstrument loadedMusicalInstrument = dao.load(MusicalInstrument.class, musicalInstrument.getId());
+
+        assertNotNull(loadedMusicalInstrument.getId());
+        assertEquals(musicalInstrument, loadedMusicalInstrument);
+        assertEquals(musicalInstrument.getName(), loadedMusicalInstrument.getName());
+
+        assertEquals(1, dao.loadAll(MusicalInstrument.class).size());
+
+    }
+
+
+
+
+    @Test
+    public void successfulUpdatingOfMusicalInstrument() {
+        assertEquals(0, dao.loadAll(MusicalInstrument.class).size());
+
+        MusicalInstrument musicalInstrument = new MusicalInstrument("Piano");
+        dao.createOrUpdate(musicalInstrument);
+        musicalInstrument.setName("Guitar");
+        dao.createOrUpdate(musicalInstrument);
+        assertEquals(1, dao.loadAll(MusicalInstrument.class).size());
+
+        MusicalInstrument loadedTrack = dao.load(MusicalInstrument.class, musicalInstrument.getId());
+        assertNotNull(loadedTrack);
+        assertEquals(musicalInstrument, loadedTrack);
+        assertEquals(musicalInstrument.getName(), loadedTrack.getName());
+    }
+
+    @Test
+    public void successfulDeletionOfMusicalInstrument() throws MalformedURLException {
+        assertEquals(0, dao.loadAll(MusicalInstrument.class).size());
+
+        MusicalInstrument musicalInstrument = new MusicalInstrument("Piano");
+
+        dao.createOrUpdate(musicalInstrument);
+        MusicalInstrument loadedMusicalInstrument = dao.load(MusicalInstrument.class, musicalInstrument.getId());
+
+        assertNotNull(loadedMusicalInstrument.getId());
+        assertEquals(musicalInstrument, loadedMusicalInstrument);
+        assertEquals(musicalInstrument.getName(), loadedMusicalInstrument.getName());
+
+        assertEquals(1, dao.loadAll(MusicalInstrument.class).size());
+
+        dao.delete(musicalInstrument);
+        assertEquals(0, dao.loadAll(MusicalInstrument.class).size());
+    }
+
+    @Test
+    public void successfulCreationAndLoadingOfMusicianInstrument() throws MalformedURLException {
+        assertEquals(0, dao.loadAll(MusicianInstrument.class).size());
+        ArrayList<MusicalInstrument> myArray = new ArrayList<MusicalInstrument>();
+        myArray.add(new MusicalInstrument("Piano"));
+        myArray.add(new MusicalInstrument("Guitar"));
+        Set<MusicalInstrument> musicalInstrumentList = new HashSet<>(myArray);
+        MusicianInstrument musicianInstrument = new MusicianInstrument(new Musician("Keith Jarrett"), musicalInstrumentList);
+
+        dao.createOrUpdate(musicianInstrument);
+        MusicianInstrument loadedMusicianInstrument = dao.load(MusicianInstrument.class, musicianInstrument.getId());
+
+        assertNotNull(loadedMusicianInstrument.getId());
+        assertEquals(musicianInstrument, loadedMusicianInstrument);
+        assertEquals(musicianInstrument.getMusician(), loadedMusicianInstrument.getMusician());
+        assertEquals(musicianInstrument.getMusicalInstruments(), loadedMusicianInstrument.getMusicalInstruments());
+
+        assertEquals(1, dao.loadAll(MusicianInstrument.class).size());
+    }
+
+
+    @Test
+    public void successfulUpdatingOfMusicianInstrument() throws MalformedURLException {
+        assertEquals(0, dao.loadAll(MusicianInstrument.class).size());
+        ArrayList<MusicalInstrument> myArray = new ArrayList<MusicalInstrument>();
+        myArray.add(new MusicalInstrument("Piano"));
+        myArray.add(new MusicalInstrument("Guitar"));
+        Set<MusicalInstrument> musicalInstrumentList = new HashSet<>(myArray);
+        MusicianInstrument musicianInstrument = new MusicianInstrument(new Musician("Keith Jarrett"), musicalInstrumentList);
+
+        dao.createOrUpdate(musicianInstrument);
+        musicianInstrument.setMusician(new Musician("Keith J"));
+        dao.createOrUpdate(musicianInstrument);
+        assertEquals(1, dao.loadAll(MusicianInstrument.class).size());
+        MusicianInstrument loadedMusicianInstrument = dao.load(MusicianInstrument.class, musicianInstrument.getId());
+
+        assertNotNull(loadedMusicianInstrument.getId());
+        assertEquals(musicianInstrument, loadedMusicianInstrument);
+        assertEquals(musicianInstrument.getMusician(), loadedMusicianInstrument.getMusician());
+        assertEquals(musicianInstrument.getMusicalInstruments(), loadedMusicianInstrument.getMusicalInstruments());
+    }
+
+    @Test
+    public void successfulDeletionOfMusicianInstrument() throws MalformedURLException {
+        assertEquals(0, dao.loadAll(MusicianInstrument.class).size());
+        ArrayList<MusicalInstrument> myArray = new ArrayList<MusicalInstrument>();
+        myArray.add(new MusicalInstrument("Piano"));
+        myArray.add(new MusicalInstrument("Guitar"));
+        Set<MusicalInstrument> musicalInstrumentList = new HashSet<>(myArray);
+        MusicianInstrument musicianInstrument = new MusicianInstrument(new Musician("Keith Jarrett"), musicalInstrumentList);
+
+        dao.createOrUpdate(musicianInstrument);
+        MusicianInstrument loadedMusicianInstrument = dao.load(MusicianInstrument.class, musicianInstrument.getId());
+
+        assertNotNull(loadedMusicianInstrument.getId());
+        assertEquals(musicianInstrument, loadedMusicianInstrument);
+        assertEquals(musicianInstrument.getMusician(), loadedMusicianInstrument.getMusician());
+        assertEquals(musicianInstrument.getMusicalInstruments(), loadedMusicianInstrument.getMusicalInstruments());
+
+        assertEquals(1, dao.loadAll(MusicianInstrument.class).size());
+
+        dao.delete(musicianInstrument);
+        assertEquals(0, dao.loadAll(MusicianInstrument.class).size());
+    }
+
+    @Test
+    public void successfulFindMusicianByName()  throws MalformedURLException
+    {
+        assertEquals(0, dao.loadAll(Musician.class).size());
+
+        Musician musician = new Musician("Keith Jarrett");
+        dao.createOrUpdate(musician);
+        Musician foundMusician=dao.findMusicianByName(musician.getName());
+        assertNotNull(foundMusician.getId());
+        assertEquals(musician, foundMusician);
+        assertEquals(musician.getName(), foundMusician.getName());
+    }
+    @Test
+    public void FindMusicianByNameIsNull()  throws MalformedURLException
+    {
+        assertEquals(0, dao.loadAll(Musician.class).size());
+
+        Musician musician = new Musician("Keith Jarrett");
+        dao.createOrUpdate(musician);
+        Musician foundMusician=dao.findMusicianByName("Jarrett");
+
+        assertEquals(null, foundMusician);
+    }
+
+    @Test
+    public void successfulFindMusicalInstrumentByName() throws MalformedURLException {
+        assertEquals(0, dao.loadAll(MusicalInstrument.class).size());
+
+        MusicalInstrument musicalInstrument = new MusicalInstrument("Piano");
+        dao.createOrUpdate(musicalInstrument);
+        MusicalInstrument foundMusicalInstrument=dao.findMusicalInstrumentByName(musicalInstrument.getName());
+        assertNotNull(foundMusicalInstrument);
+        assertEquals(musicalInstrument, foundMusicalInstrument);
+        assertEquals(musicalInstrument.getName(), foundMusicalInstrument.getName());
+    }
+    @Test
+    public void FindMusicalInstrumentByNameIsNull() throws MalformedURLException {
+        assertEquals(0, dao.loadAll(MusicalInstrument.class).size());
+
+        MusicalInstrument musicalInstrument = new MusicalInstrument("Piano");
+        dao.createOrUpdate(musicalInstrument);
+        MusicalInstrument foundMusicalInstrument=dao.findMusicalInstrumentByName("Guitar");
+
+        assertEquals(null, foundMusicalInstrument);
+    }
+
+    @Test
+    public void successfulFindTrackByName(){
+        assertEquals(0, dao.loadAll(Track.class).size());
+
+        Track track = new Track("Track 1","4:20","Jazz",1);
+        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
+        track.setReviews(list);
+        dao.createOrUpdate(track);
+        Track foundTrack = dao.findTrackByName(track.getName());
+        assertNotNull(foundTrack);
+        assertEquals(track, foundTrack);
+        assertEquals(track.getName(), foundTrack.getName());
+    }
+
+    @Test
+    public void FindTrackByNameIsNull(){
+        assertEquals(0, dao.loadAll(Track.class).size());
+
+        Track track = new Track("Track 1","4:20","Jazz",1);
+        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
+        track.setReviews(list);
+        dao.createOrUpdate(track);
+        Track foundTrack = dao.findTrackByName("Song 1");
+        assertEquals(null, foundTrack);
+    }
+
+    @Test
+    public void successfulFindTrackByDuration(){
+        assertEquals(0, dao.loadAll(Track.class).size());
+
+        Track track = new Track("Track 1","4:20","Jazz",1);
+        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
+        track.setReviews(list);
+        dao.createOrUpdate(track);
+        Track foundTrack = dao.findTrackByDuration(track.getDuration());
+        assertNotNull(foundTrack);
+        assertEquals(track, foundTrack);
+        assertEquals(track.getDuration(), foundTrack.getDuration());
+    }
+    @Test
+    public void findTrackByDurationIsNull(){
+        assertEquals(0, dao.loadAll(Track.class).size());
+
+        Track track = new Track("Track 1","4:20","Jazz",1);
+        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
+        track.setReviews(list);
+        dao.createOrUpdate(track);
+        Track foundTrack = dao.findTrackByDuration("3:10");
+        assertEquals(null, foundTrack);
+    }
+
+    @Test
+    public void successfulFindTrackByGenre(){
+        assertEquals(0, dao.loadAll(Track.class).size());
+
+        Track track = new Track("Track 1","4:20","Jazz",1);
+        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
+        track.setReviews(list);
+        dao.createOrUpdate(track);
+        Track foundTrack = dao.findTrackByGenre(track.getGenre());
+        assertNotNull(foundTrack);
+        assertEquals(track, foundTrack);
+        assertEquals(track.getGenre(), foundTrack.getGenre());
+    }
+
+    @Test
+    public void FindTrackByGenreIsNull(){
+        assertEquals(0, dao.loadAll(Track.class).size());
+
+        Track track = new Track("Track 1","4:20","Jazz",1);
+        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
+        track.setReviews(list);
+        dao.createOrUpdate(track);
+        Track foundTrack = dao.findTrackByGenre("HipPop");
+        assertEquals(null, foundTrack);
+    }
+
+    @Test
+    public void successfulFindTrackByTrackNumber(){
+        assertEquals(0, dao.loadAll(Track.class).size());
+
+        Track track = new Track("Track 1","4:20","Jazz",1);
+        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
+        track.setReviews(list);
+        dao.createOrUpdate(track);
+        Track foundTrack = dao.findTrackByTrackNumber(track.getTrackNumber());
+        assertNotNull(foundTrack);
+        assertEquals(track, foundTrack);
+        assertEquals(track.getTrackNumber(), foundTrack.getTrackNumber());
+    }
+    @Test
+    public void findTrackByTrackNumberIsNull(){
+        assertEquals(0, dao.loadAll(Track.class).size());
+
+        Track track = new Track("Track 1","4:20","Jazz",1);
+        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
+        track.setReviews(list);
+        dao.createOrUpdate(track);
+        Track foundTrack = dao.findTrackByTrackNumber(2);
+        assertEquals(null, foundTrack);
+    }
+
+    @Test
+    public void successfulFindRatingByScore() {
+        assertEquals(0, dao.loadAll(Rating.class).size());
+
+        Rating rating = new Rating(4, "Life Magazine");
+
+        dao.createOrUpdate(rating);
+        Rating loadedRating = dao.findRatingByScore(rating.getRatingScore());
+
+        assertNotNull(loadedRating);
+        assertEquals(rating, loadedRating);
+        assertEquals(rating.getRatingScore(), loadedRating.getRatingScore());
+    }
+    @Test
+    public void findRatingByScoreIsNull() {
+        assertEquals(0, dao.loadAll(Rating.class).size());
+
+        Rating rating = new Rating(4, "Life Magazine");
+
+        dao.createOrUpdate(rating);
+        Rating loadedRating = dao.findRatingByScore(3);
+        assertEquals(null, loadedRating);
+    }
+
+    @Test
+    public void successfulFindRatingBySource() {
+        assertEquals(0, dao.loadAll(Rating.class).size());
+
+        Rating rating = new Rating(4, "Life Magazine");
+
+        dao.createOrUpdate(rating);
+        Rating loadedRating = dao.findRatingBySource(rating.getSource());
+
+        assertNotNull(loadedRating);
+        assertEquals(rating, loadedRating);
+        assertEquals(rating.getSource(), loadedRating.getSource());
+    }
+    @Test
+    public void findRatingBySourceIsNull() {
+        assertEquals(0, dao.loadAll(Rating.class).size());
+
+        Rating rating = new Rating(4, "Life Magazine");
+
+        dao.createOrUpdate(rating);
+        Rating loadedRating = dao.findRatingBySource("Bazzar Magazine");
+
+        assertEquals(null, loadedRating);
+    }
+
+    @Test
+    public void successfulCreationOfMusicianAndAlbum() throws MalformedURLException {
+        Musician musician = new Musician("Keith Jarrett");
+        musician.setMusicianUrl(new URL("https://www.ecm.com/keithjarrett"));
+
+        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        musician.setAlbums(Sets.newHashSet(album));
+
+        dao.createOrUpdate(musician);
+
+        Collection<Musician> musicians = dao.loadAll(Musician.class);
+        assertEquals(1, musicians.size());
+        Musician loadedMusician = musicians.iterator().next();
+        assertEquals(musician, loadedMusician);
+        assertEquals(musician.getAlbums(), loadedMusician.getAlbums());
+    }
+
+    @Test
+    public void successfulCreationOfAlbumAndMusician() throws MalformedURLException {
+        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        Musician musician = new Musician("Keith Jarrett");
+        musician.setMusicianUrl(new URL("https://www.ecm.com/keithjarrett"));
+        album.setFeaturedMusicians(Arrays.asList(musician));
+
+        dao.createOrUpdate(album);
+
+        Collection<Album> albums = dao.loadAll(Album.class);
+        assertEquals(1, albums.size());
+        Album loadedAlbum = albums.iterator().next();
+        assertEquals(album, loadedAlbum);
+        assertEquals(album.getFeaturedMusicians(), loadedAlbum.getFeaturedMusicians());
+    }
+
+    @Test
+    public void successfulCreationOfAlbumAndRating() throws MalformedURLException {
+        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        List<Rating> list = Arrays.asList(new Rating(2,"Rolling Stone Magazine"));
+        Set<Rating> ratingsList = new HashSet<>(list);
+        album.setRatings(ratingsList);
+
+        dao.createOrUpdate(album);
+
+        Collection<Album> albums = dao.loadAll(Album.class);
+        assertEquals(1, albums.size());
+        Album loadedAlbum = albums.iterator().next();
+        assertEquals(album, loadedAlbum);
+        assertEquals(album.getRatings(), loadedAlbum.getRatings());
+    }
+
+    @Test
+    public void successfulCreationOfAlbumAndMusicianInstrument(){
+        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        ArrayList<MusicalInstrument> myArray = new ArrayList<MusicalInstrument>();
+        myArray.add(new MusicalInstrument("Piano"));
+        myArray.add(new MusicalInstrument("Guitar"));
+        Set<MusicalInstrument> musicalInstrumentList = new HashSet<>(myArray);
+        MusicianInstrument musicianInstrument = new MusicianInstrument(new Musician("Keith Jarrett"), musicalInstrumentList);
+        album.setInstruments(Sets.newHashSet(musicianInstrument));
+
+        dao.createOrUpdate(album);
+
+        Collection<Album> albums = dao.loadAll(Album.class);
+        assertEquals(1, albums.size());
+        Album loadedAlbum = albums.iterator().next();
+        assertEquals(album, loadedAlbum);
+        assertEquals(album.getInstruments(), loadedAlbum.getInstruments());
+    }
+
+    @Test
+    public void successfulCreationOfAlbumAndTrack()  {
+        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        Track track = new Track("Track 1","4:20","Jazz",1);
+        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
+        track.setReviews(list);
+        album.setTracks(Sets.newHashSet(track));
+
+        dao.createOrUpdate(album);
+
+        Collection<Album> albums = dao.loadAll(Album.class);
+        assertEquals(1, albums.size());
+        Album loadedAlbum = albums.iterator().next();
+        assertEquals(album, loadedAlbum);
+        assertEquals(album.getTracks(), loadedAlbum.getTracks());
+    }
+
+    @Test
+    public void successfulCreationOfMusicianInstrumentAndMusicalInstrumentsAndMusician() throws MalformedURLException {
+        Musician musician = new Musician("Keith Jarrett");
+        ArrayList<MusicalInstrument> myArray = new ArrayList<MusicalInstrument>();
+        MusicalInstrument musicalInstrument=new MusicalInstrument("Piano");
+        myArray.add(musicalInstrument);
+        Set<MusicalInstrument> musicalInstrumentList = new HashSet<>(myArray);
+        MusicianInstrument musicianInstrument = new MusicianInstrument(musician, musicalInstrumentList);
+
+        dao.createOrUpdate(musicianInstrument);
+
+        Collection<MusicianInstrument> musicianInstruments = dao.loadAll(MusicianInstrument.class);
+        assertEquals(1, musicianInstruments.size());
+        MusicianInstrument loadedMusicianInstrument = musicianInstruments.iterator().next();
+        assertEquals(musicianInstrument, loadedMusicianInstrument);
+        assertEquals(musicianInstrument.getMusicalInstruments(), loadedMusicianInstrument.getMusicalInstruments());
+        assertEquals(musicianInstrument.getMusician(), loadedMusicianInstrument.getMusician());
+    }
+
+    @Test
+    public void successfulCountOfAlbums() {
+        assertEquals(0, dao.count(Album.class));
+
+        dao.createOrUpdate(new Album(1975, "ECM 1064/65", "The Köln Concert"));
+        dao.createOrUpdate(new Album(1976, "ECM 1066", "Another Album"));
+
+        assertEquals(2, dao.count(Album.class));
+    }
+
+    @Test
+    public void successfulFindBusiestYears() {
+        dao.createOrUpdate(new Album(2011, "ECM 1001", "Album 1"));
+        dao.createOrUpdate(new Album(2011, "ECM 1002", "Album 2"));
+        dao.createOrUpdate(new Album(2009, "ECM 1003", "Album 3"));
+        dao.createOrUpdate(new Album(2005, "ECM 1004", "Album 4"));
+
+        List<Integer> years = dao.findBusiestYears(2);
+
+        assertEquals(2, years.size());
+        assertEquals(2011, years.get(0));
+        assertEquals(2009, years.get(1));
+    }
+
+    @Test
+    public void successfulFindMostSellingAlbums() {
+        Album album1 = new Album(1998, "ECM 1000", "Album 1");
+        Album album2 = new Album(1998, "ECM 2000", "Album 2");
+        Album album3 = new Album(1998, "ECM 3000", "Album 3");
+        album1.setSales(10);
+        album2.setSales(20);
+        album3.setSales(15);
+        dao.createOrUpdate(album1);
+        dao.createOrUpdate(album2);
+        dao.createOrUpdate(album3);
+
+        List<Album> albums = dao.findMostSellingAlbums(2);
+
+        assertEquals(Arrays.asList(album2, album3), albums);
+    }
+
+    @Test
+    public void successfulFindHighestRatedAlbums() {
+        Album album1 = new Album(1998, "ECM 1000", "Album 1");
+        Album album2 = new Album(1998, "ECM 2000", "Album 2");
+        Album album3 = new Album(1998, "ECM 3000", "Album 3");
+        album1.setRatings(Sets.newHashSet(new Rating(2, "Rolling Stone Magazine")));
+        album2.setRatings(Sets.newHashSet(new Rating(5, "Rolling Stone Magazine"), new Rating(4, "Life Magazine")));
+        dao.createOrUpdate(album1);
+        dao.createOrUpdate(album2);
+        dao.createOrUpdate(album3);
+
+        List<Album> albums = dao.findHighestRatedAlbums(3);
+
+        //Album 3 has no ratings, so it has no average to rank on.
+        assertEquals(Arrays.asList(album2, album1), albums);
+        assertEquals(album2.getRatings(), albums.get(0).getRatings());
+    }
+
+    @Test
+    public void successfulFindMostProlificMusiciansInYearWindow() {
+        Musician musician1 = new Musician("Keith Jarrett");
+        Musician musician2 = new Musician("Jan Garbarek");
+        musician1.setAlbums(Sets.newHashSet(new Album(1975, "ECM 1064/65", "The Köln Concert"),
+                new Album(1990, "ECM 1401", "Another Album")));
+        musician2.setAlbums(Sets.newHashSet(new Album(1976, "ECM 1075", "Dis")));
+        dao.createOrUpdate(musician1);
+        dao.createOrUpdate(musician2);
+
+        assertEquals(Arrays.asList(musician1), dao.findMostProlificMusicians(1, -1, -1));
+        //Inside 1970-1980 both have one album, so both are returned, ordered by name.
+        assertEquals(Arrays.asList(musician2, musician1), dao.findMostProlificMusicians(1, 1970, 1980));
+        assertTrue(dao.findMostProlificMusicians(1, 2000, 2010).isEmpty());
+    }
+
+    @Test
+    public void successfulBulkCreationOfAlbums() {
+        List<Album> albums = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Album album = new Album(1970 + i, "ECM " + (1000 + i), "Album " + i);
+            album.setRatings(Sets.newHashSet(new Rating(1 + i % 5, "Rolling Stone Magazine")));
+            albums.add(album);
+        }
+
+        assertSame(albums, dao.createOrUpdateAll(albums));
+
+        assertEquals(10, dao.count(Album.class));
+        for (Album album : albums) {
+            assertNotNull(album.getId());
+            Album loadedAlbum = dao.load(Album.class, album.getId());
+            assertEquals(album, loadedAlbum);
+            assertEquals(album.getRatings(), loadedAlbum.getRatings());
+        }
+    }
+
+    @Test
+    public void successfulBulkUpdatingOfExistingAlbum() {
+        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        dao.createOrUpdate(album);
+
+        Album sameAlbum = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        sameAlbum.setSales(3500000);
+        dao.createOrUpdateAll(Arrays.asList(sameAlbum, new Album(1976, "ECM 1066", "Another Album")));
+
+        assertEquals(2, dao.count(Album.class));
+        assertEquals(album.getId(), sameAlbum.getId());
+        assertEquals(3500000, dao.load(Album.class, album.getId()).getSales());
+    }
+
+    @Test
+    public void successfulBulkUpsertOfTheSameMusicianTwiceInOneBatch() {
+        Musician musician = new Musician("Keith Jarrett");
+        Musician sameMusician = new Musician("Keith Jarrett");
+        sameMusician.setBio("I am a Musician");
+
+        dao.createOrUpdateAll(Arrays.asList(musician, sameMusician));
+
+        assertEquals(1, dao.count(Musician.class));
+        assertEquals(musician.getId(), sameMusician.getId());
+        assertEquals("I am a Musician", dao.findMusicianByName("Keith Jarrett").getBio());
+    }
+
+    @Test
+    public void successfulBulkStreamingInSmallBatches() {
+        long saved = dao.createOrUpdateAll(IntStream.range(0, 25)
+                .mapToObj(i -> new Album(1970 + i, "ECM " + (1000 + i), "Album " + i)), 10);
+
+        assertEquals(25, saved);
+        assertEquals(25, dao.count(Album.class));
+    }
+
+    @Test
+    public void bulkUpsertRejectsNonPositiveBatchSize() {
+        assertThrows(IllegalArgumentException.class, () -> dao.createOrUpdateAll(Stream.of(new Musician("Keith Jarrett")), 0));
+    }
+
+    @Test
+    public void successfulBulkLinkingOfFeaturedMusiciansByName() {
+        Musician musician = new Musician("Keith Jarrett");
+        musician.setBio("I am a Musician");
+        dao.createOrUpdate(musician);
+
+        Album album1 = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        Album album2 = new Album(1976, "ECM 1066", "Another Album");
+        album1.setFeaturedMusicians(Lists.newArrayList(new Musician("Keith Jarrett"), new Musician("Jan Garbarek")));
+        album2.setFeaturedMusicians(Lists.newArrayList(new Musician("Jan Garbarek")));
+        dao.createOrUpdateAll(Arrays.asList(album1, album2));
+
+        assertEquals(2, dao.count(Musician.class));
+        assertEquals(musician.getId(), album1.getFeaturedMusicians().get(0).getId());
+        assertSame(album1.getFeaturedMusicians().get(1), album2.getFeaturedMusicians().get(0));
+        assertEquals("I am a Musician", dao.findMusicianByName("Keith Jarrett").getBio());
+    }
+
+    @Test
+    public void successfulRecreationOfADeletedMusician() {
+        Musician musician = new Musician("Keith Jarrett");
+        dao.createOrUpdate(musician);
+        dao.delete(musician);
+
+        Musician recreated = new Musician("Keith Jarrett");
+        dao.createOrUpdate(recreated);
+
+        assertNotEquals(musician.getId(), recreated.getId());
+        assertEquals(1, dao.loadAll(Musician.class).size());
+    }
+
+    @Test
+    public void successfulCreationOfAMusicianUnderTheOldNameOfARenamedOne() {
+        Musician musician = new Musician("Keith Jarrett");
+        dao.createOrUpdate(musician);
+        musician.setName("Jan Garbarek");
+        dao.createOrUpdate(musician);
+
+        Musician keith = new Musician("Keith Jarrett");
+        dao.createOrUpdate(keith);
+
+        assertNotEquals(musician.getId(), keith.getId());
+        assertEquals(2, dao.count(Musician.class));
+    }
+
+    @Test
+    public void successfulPagingThroughAlbumsInIdOrder() {
+        List<Album> albums = Lists.newArrayList();
+        for (int i = 0; i < 5; i++) {
+            albums.add(dao.createOrUpdate(new Album(1990 + i, "ECM 100" + i, "Album " + i)));
+        }
+        //The store reuses the ids of deleted nodes, so creation order is not id order.
+        albums.sort(Comparator.comparing(Album::getId));
+
+        List<Album> first = dao.loadPage(Album.class, null, 2);
+        List<Album> second = dao.loadPage(Album.class, first.get(1).getId(), 2);
+        List<Album> last = dao.loadPage(Album.class, second.get(1).getId(), 2);
+
+        assertEquals(albums.subList(0, 2), first);
+        assertEquals(albums.subList(2, 4), second);
+        assertEquals(albums.subList(4, 5), last);
+        assertTrue(dao.loadPage(Album.class, last.get(0).getId(), 2).isEmpty());
+    }
+
+    @Test
+    public void successfulStreamingOfMusiciansWithTheirAlbums() {
+        for (int i = 0; i < 5; i++) {
+            Musician musician = new Musician("Keith Jarrett" + i);
+            musician.setAlbums(Sets.newHashSet(new Album(1990 + i, "ECM 100" + i, "Album " + i)));
+            dao.createOrUpdate(musician);
+        }
+
+        List<Musician> musicians = dao.streamAll(Musician.class, 2).collect(Collectors.toList());
+
+        assertEquals(5, musicians.size());
+        Set<String> names = Sets.newHashSet();
+        for (int i = 0; i < 5; i++) {
+            names.add(musicians.get(i).getName());
+            assertEquals(1, musicians.get(i).getAlbums().size());
+            assertTrue(i == 0 || musicians.get(i - 1).getId() < musicians.get(i).getId());
+        }
+        assertEquals(5, names.size());
+        assertEquals(0, dao.streamAll(Concerts.class, 2).count());
+    }
+
+    @Test
+    public void nextConcertsAreSoughtByDate() {
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        List<Concerts> concerts = Lists.newArrayList();
+        //In whole seconds, the dates of stored concerts may not keep any finer.
+        for (long days : new long[]{400, -1, 30, 2, 30}) {
+            Concerts concert = new Concerts(new Date(now + days * 86_400_000L), "Concert " + concerts.size());
+            concert.setLocation("Oslo");
+            concert.setCountry("Norway");
+            concerts.add(concert);
+        }
+        dao.createOrUpdateAll(concerts);
+
+        List<Concerts> next = dao.findNextConcerts(2, new Date(now));
+
+        //Concerts on the same date come in id order, which a bulk write does not have to give in list order.
+        assertEquals(3, next.size());
+        assertEquals("Concert 3", next.get(0).getName());
+        assertEquals(Sets.newHashSet("Concert 2", "Concert 4"),
+                next.subList(1, 3).stream().map(Concerts::getName).collect(Collectors.toSet()));
+        assertTrue(next.get(1).getId() < next.get(2).getId());
+        assertEquals(4, dao.findNextConcerts(10, new Date(now)).size());
+        assertTrue(dao.findNextConcerts(0, new Date(now)).isEmpty());
+        assertTrue(dao.findNextConcerts(5, new Date(now + 500 * 86_400_000L)).isEmpty());
+    }
+
+    @Test
+    public void nextConcertsLeaveOutEqualConcertsAsECMMinerDoes() {
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        //The first two are equal, with the same name and date, and are both stored.
+        dao.createOrUpdateAll(Lists.newArrayList(
+                new Concerts(new Date(now + 86_400_000L), "Concert 1"),
+                new Concerts(new Date(now + 86_400_000L), "Concert 1"),
+                new Concerts(new Date(now + 2 * 86_400_000L), "Concert 2"),
+                new Concerts(new Date(now + 3 * 86_400_000L), "Concert 3")));
+
+        List<Concerts> next = dao.findNextConcerts(2, new Date(now));
+
+        assertEquals(Lists.newArrayList("Concert 1", "Concert 2"), Lists.transform(next, Concerts::getName));
+    }
+
+    @Test
+    public void pagingRejectsNonPositivePageSize() {
+        assertThrows(IllegalArgumentException.class, () -> dao.loadPage(Album.class, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> dao.streamAll(Album.class, 0).count());
+    }
+}
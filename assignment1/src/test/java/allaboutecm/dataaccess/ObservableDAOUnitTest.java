@@ -0,0 +1,78 @@
+package allaboutecm.dataaccess;
+
+import allaboutecm.model.*;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class ObservableDAOUnitTest {
+    private DAO dao;
+    private ObservableDAO observableDAO;
+    private Set<Class<? extends Entity>> written;
+
+    @BeforeEach
+    public void setUp() {
+        dao = mock(DAO.class);
+        observableDAO = new ObservableDAO(dao);
+        written = Sets.newHashSet();
+        observableDAO.addWriteListener(written::add);
+    }
+
+    @Test
+    public void writesShouldReportTheClassesTheyReach() {
+        Musician musician = new Musician("Keith Jarrett");
+        observableDAO.createOrUpdate(musician);
+
+        verify(dao).createOrUpdate(musician);
+        assertEquals(Sets.newHashSet(Musician.class, Album.class), written);
+    }
+
+    @Test
+    public void bulkWritesShouldReportEveryClass() {
+        //Consumed element by element, as the DAOs do, count() may skip a sized stream.
+        when(dao.createOrUpdateAll(any(Stream.class), anyInt())).thenAnswer(invocation ->
+                (long) Lists.newArrayList(((Stream<?>) invocation.getArgument(0)).iterator()).size());
+        List<Entity> entities = Lists.newArrayList(new Rating(4, "Life Magazine"), new MusicalInstrument("Piano"));
+
+        observableDAO.createOrUpdateAll(entities.stream(), 10);
+
+        assertEquals(Sets.newHashSet(Rating.class, MusicalInstrument.class), written);
+    }
+
+    @Test
+    public void deletesShouldReportTheirClass() {
+        Track track = new Track("Part I", "26:01", "Jazz", 1);
+        observableDAO.delete(track);
+
+        verify(dao).delete(track);
+        assertEquals(Sets.newHashSet(Track.class), written);
+    }
+
+    @Test
+    public void failedWritesShouldStillBeReported() {
+        Rating rating = new Rating(4, "Life Magazine");
+        when(dao.createOrUpdate(rating)).thenThrow(IllegalStateException.class);
+
+        assertThrows(IllegalStateException.class, () -> observableDAO.createOrUpdate(rating));
+        assertEquals(Sets.newHashSet(Rating.class), written);
+    }
+
+    @Test
+    public void readsShouldNotBeReported() {
+        observableDAO.loadAll(Album.class);
+        observableDAO.findBusiestYears(5);
+
+        verify(dao).loadAll(Album.class);
+        assertTrue(written.isEmpty());
+    }
+}
@@ -0,0 +1,50 @@
+package allaboutecm.dataaccess;
+
+import allaboutecm.model.Album;
+import allaboutecm.model.Musician;
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrdinalRegistryUnitTest {
+
+    @Test
+    public void shouldNumberEveryClassFromZero() {
+        OrdinalRegistry registry = new OrdinalRegistry();
+        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        Musician musician = new Musician("Keith Jarrett");
+
+        assertEquals(0, registry.register(album));
+        assertEquals(0, registry.register(musician));
+        assertEquals(1, registry.register(new Musician("Jan Garbarek")));
+        assertEquals(0, registry.register(new Album(1975, "ECM 1064/65", "The Köln Concert")));
+
+        assertEquals(1, registry.ordinals(Album.class).size());
+        assertEquals(2, registry.ordinals(Musician.class).size());
+        assertSame(musician, registry.ordinals(Musician.class).get(0));
+    }
+
+    @Test
+    public void shouldRegisterAllInIterationOrder() {
+        OrdinalRegistry registry = new OrdinalRegistry();
+        registry.register(new Musician("Jan Garbarek"));
+        Ordinals<Musician> ordinals = registry.registerAll(Musician.class,
+                Lists.newArrayList(new Musician("Keith Jarrett"), new Musician("Jan Garbarek")));
+
+        assertSame(ordinals, registry.ordinals(Musician.class));
+        assertEquals(1, registry.ordinal(new Musician("Keith Jarrett")));
+        assertEquals(0, registry.ordinal(new Musician("Jan Garbarek")));
+    }
+
+    @Test
+    public void shouldNotFindEntitiesNeverRegistered() {
+        OrdinalRegistry registry = new OrdinalRegistry();
+        registry.register(new Musician("Keith Jarrett"));
+
+        assertEquals(Ordinals.NONE, registry.ordinal(new Musician("Jan Garbarek")));
+        assertEquals(Ordinals.NONE, registry.ordinal(new Album(1975, "ECM 1064/65", "The Köln Concert")));
+        assertEquals(Ordinals.NONE, registry.ordinal(null));
+        assertThrows(NullPointerException.class, () -> registry.register(null));
+    }
+}
@@ -0,0 +1,80 @@
+package allaboutecm.dataaccess;
+
+import allaboutecm.model.Album;
+import allaboutecm.model.Musician;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrdinalsUnitTest {
+
+    @Test
+    public void shouldNumberDistinctEntitiesInTheOrderTheyAreAdded() {
+        Album first = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        Album second = new Album(1973, "ECM 1017", "Solo Concerts");
+        Ordinals<Album> ordinals = Ordinals.of(Lists.newArrayList(first, second,
+                new Album(1975, "ECM 1064/65", "The Köln Concert")));
+
+        assertEquals(2, ordinals.size());
+        assertEquals(0, ordinals.ordinal(new Album(1975, "ECM 1064/65", "The Köln Concert")));
+        assertEquals(1, ordinals.ordinal(second));
+        assertSame(first, ordinals.get(0));
+        assertEquals(Lists.newArrayList(first, second), ordinals.entities());
+    }
+
+    @Test
+    public void shouldKeepTheOrdinalOfAnEntityAddedAgain() {
+        Ordinals<Musician> ordinals = new Ordinals<>();
+        Musician musician = new Musician("Keith Jarrett");
+
+        assertEquals(0, ordinals.add(musician));
+        assertEquals(1, ordinals.add(new Musician("Jan Garbarek")));
+        assertEquals(0, ordinals.add(new Musician("Keith Jarrett")));
+        assertEquals(2, ordinals.size());
+    }
+
+    @Test
+    public void shouldNotFindEntitiesNeverAdded() {
+        Ordinals<Musician> ordinals = new Ordinals<>();
+        ordinals.add(new Musician("Keith Jarrett"));
+
+        assertEquals(Ordinals.NONE, ordinals.ordinal(new Musician("Jan Garbarek")));
+        assertEquals(Ordinals.NONE, ordinals.ordinal(null));
+        assertFalse(ordinals.contains(new Album(1975, "ECM 1064/65", "The Köln Concert")));
+        assertThrows(IndexOutOfBoundsException.class, () -> ordinals.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> ordinals.get(-1));
+        assertThrows(NullPointerException.class, () -> ordinals.add(null));
+        assertThrows(IllegalArgumentException.class, () -> new Ordinals<Musician>(-1));
+    }
+
+    @Test
+    public void shouldNumberAsAMapWould() {
+        //Values hashing alike, so the table probes and grows many times.
+        Random random = new Random(7);
+        Ordinals<Integer> ordinals = new Ordinals<>(0);
+        Map<Integer, Integer> expected = Maps.newHashMap();
+        List<Integer> order = Lists.newArrayList();
+        for (int i = 0; i < 100_000; i++) {
+            int value = random.nextInt(50_000) << 16;
+            Integer ordinal = expected.get(value);
+            if (null == ordinal) {
+                expected.put(value, order.size());
+                order.add(value);
+            }
+            assertEquals(expected.get(value).intValue(), ordinals.add(value));
+        }
+
+        assertEquals(order.size(), ordinals.size());
+        assertEquals(order, ordinals.entities());
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue().intValue(), ordinals.ordinal(entry.getKey()));
+        }
+        assertEquals(Ordinals.NONE, ordinals.ordinal(1));
+    }
+}
@@ -0,0 +1,72 @@
+package allaboutecm.dataaccess;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YearHistogramUnitTest {
+
+    @Test
+    public void shouldCountAlbumsPerYear() {
+        YearHistogram histogram = new YearHistogram();
+        histogram.add(1975);
+        histogram.add(1975);
+        histogram.add(1969);
+
+        assertEquals(2, histogram.count(1975));
+        assertEquals(1, histogram.count(1969));
+        assertEquals(0, histogram.count(2000));
+        assertEquals(ImmutableMap.of(1969, 1, 1975, 2), histogram.toMap());
+    }
+
+    @Test
+    public void shouldReturnTheBusiestYearsLatestFirstOnTies() {
+        YearHistogram histogram = new YearHistogram();
+        histogram.add(1975, 3);
+        histogram.add(1980, 1);
+        histogram.add(1990, 3);
+        histogram.add(2000, 2);
+
+        assertEquals(Lists.newArrayList(1990, 1975, 2000), histogram.busiest(3));
+        assertEquals(Lists.newArrayList(1990, 1975, 2000, 1980), histogram.busiest(10));
+        assertEquals(Collections.emptyList(), histogram.busiest(0));
+    }
+
+    @Test
+    public void shouldMoveAnAlbumToItsNewYear() {
+        YearHistogram histogram = new YearHistogram();
+        histogram.add(1975);
+        histogram.move(1975, 1976);
+
+        assertEquals(ImmutableMap.of(1976, 1), histogram.toMap());
+    }
+
+    @Test
+    public void shouldGrowForLaterYears() {
+        YearHistogram histogram = new YearHistogram();
+        histogram.add(2200);
+
+        assertEquals(1, histogram.count(2200));
+        assertEquals(Lists.newArrayList(2200), histogram.busiest(1));
+    }
+
+    @Test
+    public void shouldNotCountYearsBeforeTheFirstAlbum() {
+        YearHistogram histogram = new YearHistogram();
+        assertThrows(IllegalArgumentException.class, () -> histogram.add(1968));
+    }
+
+    @Test
+    public void shouldNotRemoveAnAlbumThatWasNotCounted() {
+        YearHistogram histogram = new YearHistogram();
+        histogram.add(1975);
+        histogram.remove(1975);
+
+        assertThrows(IllegalStateException.class, () -> histogram.remove(1975));
+        assertTrue(histogram.toMap().isEmpty());
+    }
+}
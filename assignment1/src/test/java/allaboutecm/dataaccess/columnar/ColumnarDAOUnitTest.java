@@ -0,0 +1,102 @@
+package allaboutecm.dataaccess.columnar;
+
+import allaboutecm.dataaccess.DAO;
+import allaboutecm.dataaccess.DAOUnitTest;
+import allaboutecm.model.Album;
+import allaboutecm.model.Musician;
+import allaboutecm.model.Rating;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarDAOUnitTest extends DAOUnitTest {
+
+    @Override
+    protected DAO createDAO() {
+        return new ColumnarDAO();
+    }
+
+    @Test
+    public void busiestYearsFollowWritesAndDeletes() {
+        Album album1 = new Album(2011, "ECM 1001", "Album 1");
+        Album album2 = new Album(2009, "ECM 1002", "Album 2");
+        dao.createOrUpdate(album1);
+        dao.createOrUpdate(album2);
+        dao.createOrUpdateAll(Arrays.asList(new Album(2009, "ECM 1003", "Album 3"),
+                new Album(2009, "ECM 1002", "Album 2")));
+        assertEquals(Lists.newArrayList(2009, 2011), dao.findBusiestYears(2));
+
+        album2.setReleaseYear(2011);
+        dao.createOrUpdate(album2);
+        Musician musician = new Musician("Keith Jarrett");
+        musician.setAlbums(Sets.newHashSet(new Album(2005, "ECM 1004", "Album 4")));
+        dao.createOrUpdate(musician);
+        assertEquals(Lists.newArrayList(2011, 2009, 2005), dao.findBusiestYears(3));
+
+        dao.delete(album1);
+        dao.delete(album2);
+        assertEquals(Lists.newArrayList(2009, 2005), dao.findBusiestYears(3));
+    }
+
+    @Test
+    public void successfulLookupsAfterMostRowsAreDeleted() {
+        List<Album> albums = Lists.newArrayList();
+        for (int i = 0; i < 10; i++) {
+            albums.add(dao.createOrUpdate(new Album(1990 + i, "ECM 100" + i, "Album " + i)));
+        }
+        //More than half of the rows deleted compacts the table, which moves the rows that are left.
+        for (int i = 0; i < 8; i++) {
+            dao.delete(albums.get(i));
+        }
+
+        assertEquals(2, dao.count(Album.class));
+        assertEquals(albums.subList(8, 10), dao.loadPage(Album.class, albums.get(3).getId(), 5));
+        assertEquals(albums.get(9), dao.load(Album.class, albums.get(9).getId()));
+        assertEquals(albums.get(8), dao.findAlbumByRecordNumber("ECM 1008"));
+        assertNull(dao.findAlbumByRecordNumber("ECM 1000"));
+    }
+
+    @Test
+    public void idsOfDeletedEntitiesAreNotReused() {
+        Album album = dao.createOrUpdate(new Album(1975, "ECM 1064/65", "The Köln Concert"));
+        long deletedId = album.getId();
+        dao.delete(album);
+
+        Album recreated = dao.createOrUpdate(new Album(1975, "ECM 1064/65", "The Köln Concert"));
+
+        assertTrue(recreated.getId() > deletedId);
+        assertNull(dao.load(Album.class, deletedId));
+    }
+
+    @Test
+    public void aggregationsFollowChangedRelationships() {
+        Musician musician1 = new Musician("Keith Jarrett");
+        Musician musician2 = new Musician("Jan Garbarek");
+        Album album1 = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        Album album2 = new Album(1976, "ECM 1075", "Dis");
+        musician1.setAlbums(Sets.newHashSet(album1));
+        musician2.setAlbums(Sets.newHashSet(album2));
+        dao.createOrUpdate(musician1);
+        dao.createOrUpdate(musician2);
+        assertEquals(Arrays.asList(musician2, musician1), dao.findMostProlificMusicians(1, -1, -1));
+
+        musician1.getAlbums().add(album2);
+        dao.createOrUpdate(musician1);
+        assertEquals(Arrays.asList(musician1), dao.findMostProlificMusicians(1, -1, -1));
+
+        dao.delete(album2);
+        album1.setRatings(Sets.newHashSet(new Rating(3, "Rolling Stone Magazine")));
+        dao.createOrUpdate(album1);
+        //Jan Garbarek is left without albums, Keith Jarrett only has the one that was not deleted.
+        List<Musician> prolific = dao.findMostProlificMusicians(2, -1, -1);
+        assertEquals(1, prolific.size());
+        assertEquals("Keith Jarrett", prolific.get(0).getName());
+        assertEquals(Sets.newHashSet(album1), prolific.get(0).getAlbums());
+        assertEquals(Arrays.asList(album1), dao.findHighestRatedAlbums(5));
+    }
+}
@@ -1,9 +1,22 @@
 package allaboutecm.dataaccess.neo4j;
 
+import com.google.common.collect.Lists;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class DateConverterUnitTest {
@@ -41,4 +54,68 @@ class DateConverterUnitTest {
     public void toEntityAttributeFail() {
         assertThrows(IllegalArgumentException.class, () -> dc.toEntityAttribute("asdf"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void toGraphPropertyIsUTCToTheMillisecond() {
+        assertEquals("2020-10-20T09:19:29.042Z", dc.toGraphProperty(new Date(1603185569042L)));
+        assertEquals(new Date(1603185569042L), dc.toEntityAttribute("2020-10-20T09:19:29.042Z"));
+    }
+
+    @Test
+    public void graphPropertiesAreWrittenAsTheFormatterWritesThem() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 10_000; i++) {
+            //From 1900 to 2100, before the epoch too.
+            Date date = new Date(random.nextLong(-2_208_988_800_000L, 4_102_444_800_000L));
+            String property = dc.toGraphProperty(date);
+            assertEquals(formatter.format(date.toInstant()), property);
+            assertEquals(date, dc.toEntityAttribute(property));
+        }
+        assertEquals("+10000-01-01T00:00:00.000Z", dc.toGraphProperty(new Date(253_402_300_800_000L)));
+        assertEquals(new Date(253_402_300_800_000L), dc.toEntityAttribute("+10000-01-01T00:00:00.000Z"));
+        assertThrows(IllegalArgumentException.class, () -> dc.toEntityAttribute("2020-02-30T00:00:00.000Z"));
+    }
+
+    @Test
+    public void graphPropertiesSortAsTheDates() {
+        long[] times = {0, 999, 1000, 1603185569042L, 1603185569100L, 4102444800000L};
+        for (int i = 1; i < times.length; i++) {
+            String earlier = dc.toGraphProperty(new Date(times[i - 1]));
+            String later = dc.toGraphProperty(new Date(times[i]));
+            assertTrue(earlier.compareTo(later) < 0, earlier + " " + later);
+        }
+    }
+
+    @Test
+    public void legacyPropertiesAreReadAsLocalTime() {
+        Date expected = Date.from(LocalDateTime.of(1995, 4, 1, 10, 10, 10).atZone(ZoneId.systemDefault()).toInstant());
+        assertEquals(expected, dc.toEntityAttribute("1995-04-01 10:10:10"));
+        assertEquals(new Date(796723810000L), DateConverter.parseLegacy("1995-04-01 10:10:10", ZoneId.of("Europe/Oslo")));
+    }
+
+    @Test
+    public void oneConverterIsSafeToShareBetweenThreads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> converters = Lists.newArrayList();
+            for (int thread = 0; thread < 4; thread++) {
+                long offset = thread;
+                converters.add(executor.submit(() -> {
+                    for (long time = offset; time < 200_000; time += 4) {
+                        Date date = new Date(time * 997_001L);
+                        if (!date.equals(dc.toEntityAttribute(dc.toGraphProperty(date)))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> converter : converters) {
+                assertTrue(converter.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
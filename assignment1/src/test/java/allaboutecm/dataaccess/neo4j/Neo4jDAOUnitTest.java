@@ -1,7 +1,9 @@
 package allaboutecm.dataaccess.neo4j;
 
 import allaboutecm.dataaccess.DAO;
+import allaboutecm.dataaccess.DAOUnitTest;
 import allaboutecm.model.*;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
@@ -14,16 +16,15 @@ import org.neo4j.ogm.support.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.net.URL;
+import java.text.SimpleDateFormat;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-class Neo4jDAOUnitTest {
+class Neo4jDAOUnitTest extends DAOUnitTest {
     private static final String TEST_DB = "target/test-data/test-db.neo4j";
 
-    private static DAO dao;
+    private static Neo4jDAO neo4jDAO;
     private static Session session;
     private static SessionFactory sessionFactory;
 
@@ -46,12 +47,20 @@ class Neo4jDAOUnitTest {
         sessionFactory = new SessionFactory(configuration, Musician.class.getPackage().getName());
         session = sessionFactory.openSession();
 
-        dao = new Neo4jDAO(session);
+        neo4jDAO = Neo4jDAO.withSchema(session);
+    }
+
+    @Override
+    protected DAO createDAO() {
+        //One store for all tests, emptied after each.
+        return neo4jDAO;
     }
 
     @AfterEach
     public void tearDownEach() {
         session.purgeDatabase();
+        //The purge bypasses the DAO, so what it has derived from the store is dropped too.
+        neo4jDAO.clearCaches();
     }
 
     @AfterAll
@@ -66,757 +75,286 @@ class Neo4jDAOUnitTest {
     }
 
     @Test
-    public void daoIsNotEmpty() {
-        assertNotNull(dao);
-    }
-
-
-    @Test
-    public void successfulCreationAndLoadingOfMusician() throws MalformedURLException {
-        assertEquals(0, dao.loadAll(Musician.class).size());
-
-        Musician musician = new Musician("Keith Jarrett");
-        musician.setMusicianUrl(new URL("https://www.ecm.com/keithjarrett"));
-        musician.setBio("I am a Musician");
-        musician.setPersonalSite(new URL("https://keithjarrett.org"));
-        musician.setWikiPage(new URL("https://www.wikipedia.org/keithjarrett"));
-
-        dao.createOrUpdate(musician);
-        Musician loadedMusician = dao.load(Musician.class, musician.getId());
-
-        assertNotNull(loadedMusician.getId());
-        assertEquals(musician, loadedMusician);
-        assertEquals(musician.getMusicianUrl(), loadedMusician.getMusicianUrl());
-        assertEquals(musician.getBio(), loadedMusician.getBio());
-        assertEquals(musician.getPersonalSite(), loadedMusician.getPersonalSite());
-        assertEquals(musician.getWikiPage(), loadedMusician.getWikiPage());
-
-        assertEquals(1, dao.loadAll(Musician.class).size());
-    }
-
-    @Test
-    public void successfulUpdatingOfMusician() throws MalformedURLException {
-        assertEquals(0, dao.loadAll(Musician.class).size());
-
-        Musician musician = new Musician("Keith Jarrett");
-        musician.setMusicianUrl(new URL("https://www.ecm.com/keithjarrett"));
-        musician.setBio("I am a Musician");
-        musician.setPersonalSite(new URL("https://keithjarrett.org"));
-        musician.setWikiPage(new URL("https://www.wikipedia.org/keithjarrett"));
-
-        dao.createOrUpdate(musician);
-        musician.setName("New name");
-        dao.createOrUpdate(musician);
-        assertEquals(1, dao.loadAll(Musician.class).size());
-        Musician loadedMusician = dao.load(Musician.class, musician.getId());
-
-        assertNotNull(loadedMusician.getId());
-        assertEquals(musician, loadedMusician);
-        assertEquals(musician.getName(), loadedMusician.getName());
-    }
-
-    @Test
-    public void successfulDeletionOfMusician() throws MalformedURLException {
-        assertEquals(0, dao.loadAll(Musician.class).size());
-
-        Musician musician = new Musician("Keith Jarrett");
-        musician.setMusicianUrl(new URL("https://www.ecm.com/keithjarrett"));
-        musician.setBio("I am a Musician");
-        musician.setPersonalSite(new URL("https://keithjarrett.org"));
-        musician.setWikiPage(new URL("https://www.wikipedia.org/keithjarrett"));
-
-        dao.createOrUpdate(musician);
-        assertEquals(1, dao.loadAll(Musician.class).size());
-
-        dao.delete(musician);
-        assertEquals(0, dao.loadAll(Musician.class).size());
-    }
-
-
-    @Test
-    public void successfulCreationAndLoadingOfAlbum() throws MalformedURLException {
-        assertEquals(0, dao.loadAll(Album.class).size());
-
+    public void successfulBulkUpsertOfRelatedEntitiesFromAnotherSession() {
         Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
-        album.setAlbumURL(new URL("https://www.ecm.com/keithjarrett"));
-
-        dao.createOrUpdate(album);
-        Album loadedAlbum = dao.load(Album.class, album.getId());
-
-        assertNotNull(loadedAlbum.getId());
-        assertEquals(album, loadedAlbum);
-        assertEquals(album.getAlbumURL(), loadedAlbum.getAlbumURL());
-
-        assertEquals(1, dao.loadAll(Album.class).size());
-    }
-
-    @Test
-    public void successfulUpdatingOfAlbum() throws MalformedURLException {
-        assertEquals(0, dao.loadAll(Album.class).size());
-
-        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
-        album.setAlbumURL(new URL("https://www.ecm.com/keithjarrett"));
+        album.setRatings(Sets.newHashSet(new Rating(5, "Rolling Stone Magazine")));
+        dao.createOrUpdateAll(Arrays.asList(album));
+        session.clear();
 
-        dao.createOrUpdate(album);
-        album.setAlbumName("The New Concert");
-        dao.createOrUpdate(album);
-        assertEquals(1, dao.loadAll(Album.class).size());
-        Album loadedAlbum = dao.load(Album.class, album.getId());
+        Album sameAlbum = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        Rating sameRating = new Rating(5, "Rolling Stone Magazine");
+        dao.createOrUpdateAll(Arrays.asList(sameRating, sameAlbum));
+        sameAlbum.setRatings(Sets.newHashSet(sameRating));
+        dao.createOrUpdateAll(Arrays.asList(sameAlbum));
 
-        assertNotNull(loadedAlbum.getId());
-        assertEquals(album, loadedAlbum);
-        assertEquals(album.getAlbumURL(), loadedAlbum.getAlbumURL());
+        assertEquals(1, dao.count(Album.class));
+        assertEquals(1, dao.count(Rating.class));
+        assertEquals(1, dao.load(Album.class, album.getId()).getRatings().size());
     }
 
     @Test
-    public void successfulDeletionOfAlbum() throws MalformedURLException {
-        assertEquals(0, dao.loadAll(Album.class).size());
-
+    public void ratingTotalsCountTheStoredRatingsOfAnUpsertedAlbum() {
         Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
-        album.setAlbumURL(new URL("https://www.ecm.com/keithjarrett"));
-
+        album.setRatings(Sets.newHashSet(new Rating(5, "Rolling Stone Magazine")));
         dao.createOrUpdate(album);
-        assertEquals(1, dao.loadAll(Album.class).size());
-
-        dao.delete(album);
-        assertEquals(0, dao.loadAll(Album.class).size());
-    }
-
-    @Test
-    public void successfulCreationAndLoadingOfRating()  {
-        assertEquals(0, dao.loadAll(Rating.class).size());
-
-        Rating rating = new Rating(4, "Life Magazine");
-
-        dao.createOrUpdate(rating);
-        Rating loadedRating = dao.load(Rating.class, rating.getId());
-
-        assertNotNull(loadedRating.getId());
-        assertEquals(rating, loadedRating);
-        assertEquals(rating.getSource(), loadedRating.getSource());
-
-        assertEquals(1, dao.loadAll(Rating.class).size());
-    }
-
-    @Test
-    public void successfulUpdatingOfRating() {
-        assertEquals(0, dao.loadAll(Rating.class).size());
-
-        Rating rating = new Rating(4, "Life Magazine");
-
-        dao.createOrUpdate(rating);
-        rating.setRatingScore(3);
-        dao.createOrUpdate(rating);
-        assertEquals(1, dao.loadAll(Rating.class).size());
-        Rating loadedRating = dao.load(Rating.class, rating.getId());
-
-        assertNotNull(loadedRating.getId());
-        assertEquals(rating, loadedRating);
-        assertEquals(rating.getSource(), loadedRating.getSource());
-    }
-
-    @Test
-    public void successfulDeletionOfRating() {
-        assertEquals(0, dao.loadAll(Rating.class).size());
-
-        Rating rating = new Rating(4, "Life Magazine");
-
-        dao.createOrUpdate(rating);
-        assertEquals(1, dao.loadAll(Rating.class).size());
+        session.clear();
 
+        //The store adds the ratings of the fresh album to the one it has.
+        Album sameAlbum = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        sameAlbum.setRatings(Sets.newHashSet(new Rating(2, "Life Magazine")));
+        dao.createOrUpdateAll(Collections.singletonList(sameAlbum));
+        //The saved album is given the merged ratings, the session is not cleared to see them.
+        assertEquals(2, sameAlbum.getRatings().size());
+        assertEquals(2, sameAlbum.getRatingCount());
+        assertEquals(3.5, sameAlbum.getAverageRating());
+        assertEquals(3.5, dao.load(Album.class, album.getId()).getAverageRating());
+
+        Rating rating = dao.findRatingBySource("Life Magazine");
         dao.delete(rating);
-        assertEquals(0, dao.loadAll(Rating.class).size());
+        assertEquals(1, sameAlbum.getRatingCount());
+        assertEquals(5.0, sameAlbum.getAverageRating());
+        session.clear();
+        assertEquals(1, dao.load(Album.class, album.getId()).getRatingCount());
+        assertEquals(Lists.newArrayList(album.getId()),
+                Lists.transform(dao.findHighestRatedAlbums(1), Album::getId));
     }
 
     @Test
-    public void successfulCreationAndLoadingOfTrack(){
-        assertEquals(0, dao.loadAll(Track.class).size());
-
-        Track track = new Track("Track 1","4:20","Jazz",1);
-        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
-        track.setReviews(list);
-
-        dao.createOrUpdate(track);
-        Track loadedTrack = dao.load(Track.class, track.getId());
-
-        assertNotNull(loadedTrack.getId());
-        assertEquals(track, loadedTrack);
-        assertEquals(track.getReviews(), loadedTrack.getReviews());
+    public void legacyDatesAreMigratedAndSortedWithNewOnes() {
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        Concerts tomorrow = new Concerts(new Date(now + 86_400_000L), "Concert 1");
+        Concerts nextWeek = new Concerts(new Date(now + 7 * 86_400_000L), "Concert 2");
+        dao.createOrUpdate(nextWeek);
+        //Written as it was before dates were stored as UTC instants.
+        session.query("CREATE (:Concerts {name: 'Concert 1', date: $date})",
+                Collections.singletonMap("date", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(tomorrow.getDate())));
+        session.clear();
 
-        assertEquals(1, dao.loadAll(Track.class).size());
-    }
+        DateMigration migration = new DateMigration(session);
+        assertEquals(1, migration.count());
+        assertEquals(1, migration.migrate(10));
+        assertEquals(0, migration.count());
+        assertEquals(0, migration.migrate(10));
 
-    @Test
-    public void successfulUpdatingOfTrack()
-    {
-        Track track = new Track("Track 1","4:20","Jazz",1);
-        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
-        track.setReviews(list);
-        dao.createOrUpdate(track);
-        track.setName("Track 2");
-        dao.createOrUpdate(track);
-        assertEquals(1, dao.loadAll(Track.class).size());
-
-        Track loadedTrack = dao.load(Track.class, track.getId());
-        assertNotNull(loadedTrack);
-        assertEquals(track, loadedTrack);
-        assertEquals(track.getName(), loadedTrack.getName());
+        List<Concerts> next = dao.findNextConcerts(2, new Date(now));
+        assertEquals(Lists.newArrayList("Concert 1", "Concert 2"), Lists.transform(next, Concerts::getName));
+        assertEquals(tomorrow.getDate(), next.get(0).getDate());
     }
 
     @Test
-    public void successfulDeletionOfTrack(){
-        assertEquals(0, dao.loadAll(Track.class).size());
-
-        Track track = new Track("Track 1","4:20","Jazz",1);
-        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
-        track.setReviews(list);
-
-        dao.createOrUpdate(track);
-        Track loadedTrack = dao.load(Track.class, track.getId());
-
-        assertNotNull(loadedTrack.getId());
-        assertEquals(track, loadedTrack);
-        assertEquals(track.getReviews(), loadedTrack.getReviews());
-
-        assertEquals(1, dao.loadAll(Track.class).size());
+    public void ratingTotalsAreBackfilledFromTheStoredRatings() {
+        Neo4jDAO neo4jDAO = (Neo4jDAO) dao;
+        for (int i = 1; i <= 3; i++) {
+            Album album = new Album(1975, "ECM 100" + i, "Album " + i);
+            album.setRatings(Sets.newHashSet(new Rating(i, "Life Magazine")));
+            dao.createOrUpdate(album);
+        }
+        //Albums stored before the totals were kept have none.
+        session.query("MATCH (a:Album) REMOVE a.ratingCount, a.ratingSum, a.averageRating", Collections.emptyMap());
+        session.clear();
+        assertTrue(dao.findHighestRatedAlbums(3).isEmpty());
 
-        dao.delete(track);
-        assertEquals(0, dao.loadAll(Track.class).size());
+        assertEquals(3, neo4jDAO.backfillRatingTotals(2));
+        assertEquals(Lists.newArrayList("Album 3", "Album 2", "Album 1"),
+                Lists.transform(dao.findHighestRatedAlbums(3), Album::getAlbumName));
     }
 
     @Test
-    public void successfulFindByAlbumSales()  {
-        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
-        Track track = new Track("Track 1","4:20","Jazz",1);
-        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
-        track.setReviews(list);
-        album.setTracks(Sets.newHashSet(track));
-        album.setSales(10);
-        dao.createOrUpdate(album);
-        Album foundAlbum = dao.findAlbumBySales(10);
-
-        assertEquals(album.getSales(), foundAlbum.getSales());
-    }
+    public void successfulUpsertOfAKnownMusicianWithoutLookingItUp() {
+        NaturalKeyCache keyCache = ((Neo4jDAO) dao).getKeyCache();
+        Musician musician = new Musician("Keith Jarrett");
+        dao.createOrUpdate(musician);
+        long hits = keyCache.getStats().hitCount();
 
-    @Test
-    public void FindByAlbumSalesIsNull()  {
-        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
-        Track track = new Track("Track 1","4:20","Jazz",1);
-        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
-        track.setReviews(list);
-        album.setTracks(Sets.newHashSet(track));
-        album.setSales(10);
-        dao.createOrUpdate(album);
-        Album foundAlbum = dao.findAlbumBySales(5);
+        Musician again = new Musician("Keith Jarrett");
+        again.setBio("I am a Musician");
+        dao.createOrUpdate(again);
 
-        assertEquals(null, foundAlbum);
+        assertEquals(hits + 1, keyCache.getStats().hitCount());
+        assertEquals(musician.getId(), again.getId());
+        assertEquals(1, dao.count(Musician.class));
     }
 
     @Test
-    public void successfulFindByAlbumName()  {
-        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
-        Track track = new Track("Track 1","4:20","Jazz",1);
-        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
-        track.setReviews(list);
-        album.setTracks(Sets.newHashSet(track));
-
-        dao.createOrUpdate(album);
-
-        Album foundAlbum = dao.findAlbumByName("The Köln Concert");
-
-        assertEquals(album.getAlbumName(), foundAlbum.getAlbumName());
-    }
-    @Test
-    public void FindByAlbumNameIsNull()  {
+    public void successfulBulkUpsertOfAlbumsTheCacheKnows() {
+        NaturalKeyCache keyCache = ((Neo4jDAO) dao).getKeyCache();
         Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
-        Track track = new Track("Track 1","4:20","Jazz",1);
-        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
-        track.setReviews(list);
-        album.setTracks(Sets.newHashSet(track));
-
         dao.createOrUpdate(album);
+        long hits = keyCache.getStats().hitCount();
 
-        Album foundAlbum = dao.findAlbumByName("Concert");
+        Album again = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        again.setSales(100);
+        dao.createOrUpdateAll(Collections.singletonList(again));
 
-        assertEquals(null, foundAlbum);
+        assertTrue(keyCache.getStats().hitCount() > hits);
+        assertEquals(album.getId(), again.getId());
+        assertEquals(100, dao.findAlbumByRecordNumber("ECM 1064/65").getSales());
     }
 
     @Test
-    public void successfulFindByAlbumReleaseYear()  {
-        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
-        Track track = new Track("Track 1","4:20","Jazz",1);
-        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
-        track.setReviews(list);
-        album.setTracks(Sets.newHashSet(track));
-
-        dao.createOrUpdate(album);
-
-        Album foundAlbum = dao.findAlbumByReleaseYear(1975);
-
-        assertEquals(album.getReleaseYear(), foundAlbum.getReleaseYear());
-    }
-    @Test
-    public void FindByAlbumReleaseYearIsNull()  {
-        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
-        Track track = new Track("Track 1","4:20","Jazz",1);
-        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
-        track.setReviews(list);
-        album.setTracks(Sets.newHashSet(track));
-
-        dao.createOrUpdate(album);
+    public void bulkUpsertLeavesLoadedEntitiesTrackedBySharedSession() {
+        Musician musician = new Musician("Keith Jarrett");
+        dao.createOrUpdate(musician);
+        Musician loaded = dao.load(Musician.class, musician.getId());
 
-        Album foundAlbum = dao.findAlbumByReleaseYear(1979);
+        dao.createOrUpdateAll(Collections.singletonList(new Album(1975, "ECM 1064/65", "The Köln Concert")));
 
-        assertEquals(null, foundAlbum);
+        assertSame(loaded, dao.load(Musician.class, musician.getId()));
     }
 
     @Test
-    public void successfulFindByAlbumRecordNumber()  {
-        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
-        Track track = new Track("Track 1","4:20","Jazz",1);
-        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
-        track.setReviews(list);
-        album.setTracks(Sets.newHashSet(track));
-
-        dao.createOrUpdate(album);
+    public void bulkUpsertClearsTheSessionWhenAskedTo() {
+        Neo4jDAO importing = new Neo4jDAO(session, Neo4jDAO.DEFAULT_KEY_CACHE_SIZE, true);
+        Musician musician = new Musician("Keith Jarrett");
+        importing.createOrUpdate(musician);
+        Musician loaded = importing.load(Musician.class, musician.getId());
 
-        Album foundAlbum = dao.findAlbumByRecordNumber("ECM 1064/65");
+        importing.createOrUpdateAll(Collections.singletonList(new Album(1975, "ECM 1064/65", "The Köln Concert")));
 
-        assertEquals(album.getRecordNumber(), foundAlbum.getRecordNumber());
+        assertNotSame(loaded, importing.load(Musician.class, musician.getId()));
     }
+
     @Test
-    public void FindByAlbumRecordNumberIsNull()  {
+    public void entitiesAreRehydratedAfterTheSessionIsCleared() {
+        //Once cleared, OGM builds fresh instances, which takes the entities' no-arg constructors.
         Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
-        Track track = new Track("Track 1","4:20","Jazz",1);
-        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
-        track.setReviews(list);
-        album.setTracks(Sets.newHashSet(track));
-
+        album.setRatings(Sets.newHashSet(new Rating(5, "Rolling Stone Magazine")));
+        album.setTracks(Sets.newHashSet(new Track("Part I", "26:01", "Jazz", 1)));
+        Musician musician = new Musician("Keith Jarrett");
+        musician.setAlbums(Sets.newHashSet(album));
+        Concerts concert = new Concerts(new Date(System.currentTimeMillis() / 1000 * 1000), "Concert 1");
+        concert.setFeaturedMusicians(Lists.newArrayList(musician));
         dao.createOrUpdate(album);
+        dao.createOrUpdate(musician);
+        dao.createOrUpdate(concert);
+        session.clear();
 
-        Album foundAlbum = dao.findAlbumByRecordNumber("ECM 1064/60");
-
-        assertEquals(null, foundAlbum);
-    }
-
-    @Test
-    public void successfulCreationAndLoadingOfMusicalInstrument() throws MalformedURLException {
-        assertEquals(0, dao.loadAll(MusicalInstrument.class).size());
-
-        MusicalInstrument musicalInstrument = new MusicalInstrument("Piano");
-
-        dao.createOrUpdate(musicalInstrument);
-        MusicalInstrument loadedMusicalInstrument = dao.load(MusicalInstrument.class, musicalInstrument.getId());
-
-        assertNotNull(loadedMusicalInstrument.getId());
-        assertEquals(musicalInstrument, loadedMusicalInstrument);
-        assertEquals(musicalInstrument.getName(), loadedMusicalInstrument.getName());
-
-        assertEquals(1, dao.loadAll(MusicalInstrument.class).size());
-
-    }
-
-
-
-
-    @Test
-    public void successfulUpdatingOfMusicalInstrument() {
-        assertEquals(0, dao.loadAll(MusicalInstrument.class).size());
-
-        MusicalInstrument musicalInstrument = new MusicalInstrument("Piano");
-        dao.createOrUpdate(musicalInstrument);
-        musicalInstrument.setName("Guitar");
-        dao.createOrUpdate(musicalInstrument);
-        assertEquals(1, dao.loadAll(MusicalInstrument.class).size());
-
-        MusicalInstrument loadedTrack = dao.load(MusicalInstrument.class, musicalInstrument.getId());
-        assertNotNull(loadedTrack);
-        assertEquals(musicalInstrument, loadedTrack);
-        assertEquals(musicalInstrument.getName(), loadedTrack.getName());
-    }
-
-    @Test
-    public void successfulDeletionOfMusicalInstrument() throws MalformedURLException {
-        assertEquals(0, dao.loadAll(MusicalInstrument.class).size());
-
-        MusicalInstrument musicalInstrument = new MusicalInstrument("Piano");
-
-        dao.createOrUpdate(musicalInstrument);
-        MusicalInstrument loadedMusicalInstrument = dao.load(MusicalInstrument.class, musicalInstrument.getId());
-
-        assertNotNull(loadedMusicalInstrument.getId());
-        assertEquals(musicalInstrument, loadedMusicalInstrument);
-        assertEquals(musicalInstrument.getName(), loadedMusicalInstrument.getName());
-
-        assertEquals(1, dao.loadAll(MusicalInstrument.class).size());
-
-        dao.delete(musicalInstrument);
-        assertEquals(0, dao.loadAll(MusicalInstrument.class).size());
-    }
-
-    @Test
-    public void successfulCreationAndLoadingOfMusicianInstrument() throws MalformedURLException {
-        assertEquals(0, dao.loadAll(MusicianInstrument.class).size());
-        ArrayList<MusicalInstrument> myArray = new ArrayList<MusicalInstrument>();
-        myArray.add(new MusicalInstrument("Piano"));
-        myArray.add(new MusicalInstrument("Guitar"));
-        Set<MusicalInstrument> musicalInstrumentList = new HashSet<>(myArray);
-        MusicianInstrument musicianInstrument = new MusicianInstrument(new Musician("Keith Jarrett"), musicalInstrumentList);
-
-        dao.createOrUpdate(musicianInstrument);
-        MusicianInstrument loadedMusicianInstrument = dao.load(MusicianInstrument.class, musicianInstrument.getId());
-
-        assertNotNull(loadedMusicianInstrument.getId());
-        assertEquals(musicianInstrument, loadedMusicianInstrument);
-        assertEquals(musicianInstrument.getMusician(), loadedMusicianInstrument.getMusician());
-        assertEquals(musicianInstrument.getMusicalInstruments(), loadedMusicianInstrument.getMusicalInstruments());
-
-        assertEquals(1, dao.loadAll(MusicianInstrument.class).size());
-    }
-
-
-    @Test
-    public void successfulUpdatingOfMusicianInstrument() throws MalformedURLException {
-        assertEquals(0, dao.loadAll(MusicianInstrument.class).size());
-        ArrayList<MusicalInstrument> myArray = new ArrayList<MusicalInstrument>();
-        myArray.add(new MusicalInstrument("Piano"));
-        myArray.add(new MusicalInstrument("Guitar"));
-        Set<MusicalInstrument> musicalInstrumentList = new HashSet<>(myArray);
-        MusicianInstrument musicianInstrument = new MusicianInstrument(new Musician("Keith Jarrett"), musicalInstrumentList);
-
-        dao.createOrUpdate(musicianInstrument);
-        musicianInstrument.setMusician(new Musician("Keith J"));
-        dao.createOrUpdate(musicianInstrument);
-        assertEquals(1, dao.loadAll(MusicianInstrument.class).size());
-        MusicianInstrument loadedMusicianInstrument = dao.load(MusicianInstrument.class, musicianInstrument.getId());
-
-        assertNotNull(loadedMusicianInstrument.getId());
-        assertEquals(musicianInstrument, loadedMusicianInstrument);
-        assertEquals(musicianInstrument.getMusician(), loadedMusicianInstrument.getMusician());
-        assertEquals(musicianInstrument.getMusicalInstruments(), loadedMusicianInstrument.getMusicalInstruments());
-    }
-
-    @Test
-    public void successfulDeletionOfMusicianInstrument() throws MalformedURLException {
-        assertEquals(0, dao.loadAll(MusicianInstrument.class).size());
-        ArrayList<MusicalInstrument> myArray = new ArrayList<MusicalInstrument>();
-        myArray.add(new MusicalInstrument("Piano"));
-        myArray.add(new MusicalInstrument("Guitar"));
-        Set<MusicalInstrument> musicalInstrumentList = new HashSet<>(myArray);
-        MusicianInstrument musicianInstrument = new MusicianInstrument(new Musician("Keith Jarrett"), musicalInstrumentList);
-
-        dao.createOrUpdate(musicianInstrument);
-        MusicianInstrument loadedMusicianInstrument = dao.load(MusicianInstrument.class, musicianInstrument.getId());
-
-        assertNotNull(loadedMusicianInstrument.getId());
-        assertEquals(musicianInstrument, loadedMusicianInstrument);
-        assertEquals(musicianInstrument.getMusician(), loadedMusicianInstrument.getMusician());
-        assertEquals(musicianInstrument.getMusicalInstruments(), loadedMusicianInstrument.getMusicalInstruments());
-
-        assertEquals(1, dao.loadAll(MusicianInstrument.class).size());
-
-        dao.delete(musicianInstrument);
-        assertEquals(0, dao.loadAll(MusicianInstrument.class).size());
+        Musician loadedMusician = dao.load(Musician.class, musician.getId());
+        Album loadedAlbum = dao.load(Album.class, album.getId());
+        assertNotSame(musician, loadedMusician);
+        assertEquals(musician, loadedMusician);
+        assertEquals(album, loadedAlbum);
+        assertEquals(album.getRatings(), loadedAlbum.getRatings());
+        assertEquals(album.getTracks(), loadedAlbum.getTracks());
+        assertEquals(concert, dao.load(Concerts.class, concert.getId()));
     }
 
     @Test
-    public void successfulFindMusicianByName()  throws MalformedURLException
-    {
-        assertEquals(0, dao.loadAll(Musician.class).size());
-
+    public void successfulUpsertWithoutAKeyCache() {
+        Neo4jDAO uncached = new Neo4jDAO(session, 0);
         Musician musician = new Musician("Keith Jarrett");
-        dao.createOrUpdate(musician);
-        Musician foundMusician=dao.findMusicianByName(musician.getName());
-        assertNotNull(foundMusician.getId());
-        assertEquals(musician, foundMusician);
-        assertEquals(musician.getName(), foundMusician.getName());
-    }
-    @Test
-    public void FindMusicianByNameIsNull()  throws MalformedURLException
-    {
-        assertEquals(0, dao.loadAll(Musician.class).size());
+        uncached.createOrUpdate(musician);
+        Musician again = new Musician("Keith Jarrett");
+        uncached.createOrUpdate(again);
 
-        Musician musician = new Musician("Keith Jarrett");
-        dao.createOrUpdate(musician);
-        Musician foundMusician=dao.findMusicianByName("Jarrett");
-
-        assertEquals(null, foundMusician);
+        assertEquals(0, uncached.getKeyCache().size());
+        assertEquals(musician.getId(), again.getId());
+        assertEquals(1, uncached.count(Musician.class));
     }
 
     @Test
-    public void successfulFindMusicalInstrumentByName() throws MalformedURLException {
-        assertEquals(0, dao.loadAll(MusicalInstrument.class).size());
-
-        MusicalInstrument musicalInstrument = new MusicalInstrument("Piano");
-        dao.createOrUpdate(musicalInstrument);
-        MusicalInstrument foundMusicalInstrument=dao.findMusicalInstrumentByName(musicalInstrument.getName());
-        assertNotNull(foundMusicalInstrument);
-        assertEquals(musicalInstrument, foundMusicalInstrument);
-        assertEquals(musicalInstrument.getName(), foundMusicalInstrument.getName());
-    }
-    @Test
-    public void FindMusicalInstrumentByNameIsNull() throws MalformedURLException {
-        assertEquals(0, dao.loadAll(MusicalInstrument.class).size());
-
-        MusicalInstrument musicalInstrument = new MusicalInstrument("Piano");
-        dao.createOrUpdate(musicalInstrument);
-        MusicalInstrument foundMusicalInstrument=dao.findMusicalInstrumentByName("Guitar");
+    public void schemaIndexesAreOnlineAfterStartup() {
+        SchemaReport report = new Neo4jSchema(session).awaitOnline(30);
 
-        assertEquals(null, foundMusicalInstrument);
+        assertTrue(report.isOnline(), report.toString());
+        assertEquals(SchemaReport.ONLINE, report.getStates().get("INDEX :Album(recordNumber)"));
+        assertEquals(SchemaReport.ONLINE, report.getStates().get("INDEX :Musician(name)"));
     }
 
     @Test
-    public void successfulFindTrackByName(){
-        assertEquals(0, dao.loadAll(Track.class).size());
-
-        Track track = new Track("Track 1","4:20","Jazz",1);
-        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
-        track.setReviews(list);
-        dao.createOrUpdate(track);
-        Track foundTrack = dao.findTrackByName(track.getName());
-        assertNotNull(foundTrack);
-        assertEquals(track, foundTrack);
-        assertEquals(track.getName(), foundTrack.getName());
-    }
+    public void schemaBootstrapIsIdempotent() {
+        SchemaReport report = new Neo4jSchema(session).bootstrap();
 
-    @Test
-    public void FindTrackByNameIsNull(){
-        assertEquals(0, dao.loadAll(Track.class).size());
-
-        Track track = new Track("Track 1","4:20","Jazz",1);
-        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
-        track.setReviews(list);
-        dao.createOrUpdate(track);
-        Track foundTrack = dao.findTrackByName("Song 1");
-        assertEquals(null, foundTrack);
+        assertTrue(report.getFailures().isEmpty());
+        assertEquals(new Neo4jSchema(session).verify().getStates(), report.getStates());
     }
 
     @Test
-    public void successfulFindTrackByDuration(){
-        assertEquals(0, dao.loadAll(Track.class).size());
-
-        Track track = new Track("Track 1","4:20","Jazz",1);
-        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
-        track.setReviews(list);
-        dao.createOrUpdate(track);
-        Track foundTrack = dao.findTrackByDuration(track.getDuration());
-        assertNotNull(foundTrack);
-        assertEquals(track, foundTrack);
-        assertEquals(track.getDuration(), foundTrack.getDuration());
-    }
-    @Test
-    public void findTrackByDurationIsNull(){
-        assertEquals(0, dao.loadAll(Track.class).size());
-
-        Track track = new Track("Track 1","4:20","Jazz",1);
-        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
-        track.setReviews(list);
-        dao.createOrUpdate(track);
-        Track foundTrack = dao.findTrackByDuration("3:10");
-        assertEquals(null, foundTrack);
-    }
+    public void uniqueConstraintsAreCreatedOnACleanStore() {
+        SessionFactory cleanFactory = new SessionFactory(new Configuration.Builder().build(),
+                Musician.class.getPackage().getName());
+        try {
+            Session cleanSession = cleanFactory.openSession();
+            Neo4jSchema schema = new Neo4jSchema(cleanSession, true);
+            assertTrue(schema.bootstrap().getFailures().isEmpty());
 
-    @Test
-    public void successfulFindTrackByGenre(){
-        assertEquals(0, dao.loadAll(Track.class).size());
-
-        Track track = new Track("Track 1","4:20","Jazz",1);
-        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
-        track.setReviews(list);
-        dao.createOrUpdate(track);
-        Track foundTrack = dao.findTrackByGenre(track.getGenre());
-        assertNotNull(foundTrack);
-        assertEquals(track, foundTrack);
-        assertEquals(track.getGenre(), foundTrack.getGenre());
-    }
+            SchemaReport report = schema.awaitOnline(30);
+            assertTrue(report.isOnline(), report.toString());
+            assertEquals(SchemaReport.ONLINE, report.getStates().get("UNIQUE :Musician(name)"));
+            assertEquals(SchemaReport.ONLINE, report.getStates().get("UNIQUE :MusicalInstrument(name)"));
+            assertEquals(SchemaReport.ONLINE, report.getStates().get("INDEX :Album(recordNumber)"));
 
-    @Test
-    public void FindTrackByGenreIsNull(){
-        assertEquals(0, dao.loadAll(Track.class).size());
-
-        Track track = new Track("Track 1","4:20","Jazz",1);
-        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
-        track.setReviews(list);
-        dao.createOrUpdate(track);
-        Track foundTrack = dao.findTrackByGenre("HipPop");
-        assertEquals(null, foundTrack);
-    }
-
-    @Test
-    public void successfulFindTrackByTrackNumber(){
-        assertEquals(0, dao.loadAll(Track.class).size());
-
-        Track track = new Track("Track 1","4:20","Jazz",1);
-        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
-        track.setReviews(list);
-        dao.createOrUpdate(track);
-        Track foundTrack = dao.findTrackByTrackNumber(track.getTrackNumber());
-        assertNotNull(foundTrack);
-        assertEquals(track, foundTrack);
-        assertEquals(track.getTrackNumber(), foundTrack.getTrackNumber());
-    }
-    @Test
-    public void findTrackByTrackNumberIsNull(){
-        assertEquals(0, dao.loadAll(Track.class).size());
-
-        Track track = new Track("Track 1","4:20","Jazz",1);
-        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
-        track.setReviews(list);
-        dao.createOrUpdate(track);
-        Track foundTrack = dao.findTrackByTrackNumber(2);
-        assertEquals(null, foundTrack);
+            //Upserts match the existing musician, so the constraint is never violated.
+            Neo4jDAO constrained = new Neo4jDAO(cleanSession);
+            constrained.createOrUpdate(new Musician("Keith Jarrett"));
+            constrained.createOrUpdateAll(Arrays.asList(new Musician("Keith Jarrett"), new Musician("Keith Jarrett")));
+            assertEquals(1, constrained.count(Musician.class));
+        } finally {
+            cleanFactory.close();
+        }
     }
 
     @Test
-    public void successfulFindRatingByScore() {
-        assertEquals(0, dao.loadAll(Rating.class).size());
-
-        Rating rating = new Rating(4, "Life Magazine");
-
-        dao.createOrUpdate(rating);
-        Rating loadedRating = dao.findRatingByScore(rating.getRatingScore());
-
-        assertNotNull(loadedRating);
-        assertEquals(rating, loadedRating);
-        assertEquals(rating.getRatingScore(), loadedRating.getRatingScore());
-    }
-    @Test
-    public void findRatingByScoreIsNull() {
-        assertEquals(0, dao.loadAll(Rating.class).size());
-
-        Rating rating = new Rating(4, "Life Magazine");
-
-        dao.createOrUpdate(rating);
-        Rating loadedRating = dao.findRatingByScore(3);
-        assertEquals(null, loadedRating);
+    public void uniqueConstraintReplacesTheIndexAndFallsBackOnDuplicates() {
+        try {
+            SchemaReport report = new Neo4jSchema(session, true).bootstrap();
+            assertTrue(report.getFailures().isEmpty());
+            assertEquals(SchemaReport.ONLINE, report.getStates().get("UNIQUE :Musician(name)"));
+            assertThrows(RuntimeException.class, () -> session.query(
+                    "CREATE (:Musician {name: 'Keith Jarrett'}), (:Musician {name: 'Keith Jarrett'})",
+                    Collections.emptyMap()));
+
+            session.query("DROP CONSTRAINT ON (n:Musician) ASSERT n.name IS UNIQUE", Collections.emptyMap());
+            session.query("CREATE (:Musician {name: 'Keith Jarrett'}), (:Musician {name: 'Keith Jarrett'})",
+                    Collections.emptyMap());
+            report = new Neo4jSchema(session, true).bootstrap();
+            assertTrue(report.getFailures().containsKey(":Musician(name)"));
+            assertEquals(SchemaReport.NOT_UNIQUE, report.getStates().get("UNIQUE :Musician(name)"));
+        } finally {
+            session.query("DROP CONSTRAINT ON (n:MusicalInstrument) ASSERT n.name IS UNIQUE", Collections.emptyMap());
+            new Neo4jSchema(session).bootstrap();
+        }
     }
 
     @Test
-    public void successfulFindRatingBySource() {
-        assertEquals(0, dao.loadAll(Rating.class).size());
-
-        Rating rating = new Rating(4, "Life Magazine");
+    public void busiestYearsFollowWritesAndDeletes() {
+        Neo4jDAO neo4jDAO = (Neo4jDAO) dao;
+        Album album1 = new Album(2011, "ECM 1001", "Album 1");
+        Album album2 = new Album(2009, "ECM 1002", "Album 2");
+        dao.createOrUpdate(album1);
+        assertEquals(Lists.newArrayList(2011), dao.findBusiestYears(2));
 
-        dao.createOrUpdate(rating);
-        Rating loadedRating = dao.findRatingBySource(rating.getSource());
+        dao.createOrUpdate(album2);
+        dao.createOrUpdateAll(Arrays.asList(new Album(2009, "ECM 1003", "Album 3"),
+                new Album(2009, "ECM 1002", "Album 2")));
+        assertEquals(Lists.newArrayList(2009, 2011), dao.findBusiestYears(2));
 
-        assertNotNull(loadedRating);
-        assertEquals(rating, loadedRating);
-        assertEquals(rating.getSource(), loadedRating.getSource());
-    }
-    @Test
-    public void findRatingBySourceIsNull() {
-        assertEquals(0, dao.loadAll(Rating.class).size());
-
-        Rating rating = new Rating(4, "Life Magazine");
-
-        dao.createOrUpdate(rating);
-        Rating loadedRating = dao.findRatingBySource("Bazzar Magazine");
-
-        assertEquals(null, loadedRating);
-    }
-
-    @Test
-    public void successfulCreationOfMusicianAndAlbum() throws MalformedURLException {
+        album2.setReleaseYear(2011);
+        dao.createOrUpdate(album2);
         Musician musician = new Musician("Keith Jarrett");
-        musician.setMusicianUrl(new URL("https://www.ecm.com/keithjarrett"));
-
-        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
-        musician.setAlbums(Sets.newHashSet(album));
-
+        musician.setAlbums(Sets.newHashSet(new Album(2005, "ECM 1004", "Album 4")));
         dao.createOrUpdate(musician);
+        assertEquals(Lists.newArrayList(2011, 2009, 2005), dao.findBusiestYears(3));
 
-        Collection<Musician> musicians = dao.loadAll(Musician.class);
-        assertEquals(1, musicians.size());
-        Musician loadedMusician = musicians.iterator().next();
-        assertEquals(musician, loadedMusician);
-        assertEquals(musician.getAlbums(), loadedMusician.getAlbums());
+        dao.delete(album1);
+        assertEquals(Lists.newArrayList(2011, 2009, 2005), dao.findBusiestYears(3));
+        dao.delete(album2);
+        assertEquals(Lists.newArrayList(2009, 2005), dao.findBusiestYears(3));
+        assertTrue(neo4jDAO.verifyYearHistogram().isEmpty());
     }
 
     @Test
-    public void successfulCreationOfAlbumAndMusician() throws MalformedURLException {
-        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
-        Musician musician = new Musician("Keith Jarrett");
-        musician.setMusicianUrl(new URL("https://www.ecm.com/keithjarrett"));
-        album.setFeaturedMusicians(Arrays.asList(musician));
+    public void yearHistogramDriftIsFoundAndRebuilt() {
+        Neo4jDAO neo4jDAO = (Neo4jDAO) dao;
+        dao.createOrUpdate(new Album(2011, "ECM 1001", "Album 1"));
+        assertEquals(Lists.newArrayList(2011), dao.findBusiestYears(1));
 
-        dao.createOrUpdate(album);
+        session.query("CREATE (:Album {releaseYear: 1975, recordNumber: 'ECM 1064/65', albumName: 'The Köln Concert'})",
+                Collections.emptyMap());
+        assertEquals(Collections.singletonMap(1975, -1), neo4jDAO.verifyYearHistogram());
 
-        Collection<Album> albums = dao.loadAll(Album.class);
-        assertEquals(1, albums.size());
-        Album loadedAlbum = albums.iterator().next();
-        assertEquals(album, loadedAlbum);
-        assertEquals(album.getFeaturedMusicians(), loadedAlbum.getFeaturedMusicians());
-    }
-
-    @Test
-    public void successfulCreationOfAlbumAndRating() throws MalformedURLException {
-        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
-        List<Rating> list = Arrays.asList(new Rating(2,"Rolling Stone Magazine"));
-        Set<Rating> ratingsList = new HashSet<>(list);
-        album.setRatings(ratingsList);
-
-        dao.createOrUpdate(album);
-
-        Collection<Album> albums = dao.loadAll(Album.class);
-        assertEquals(1, albums.size());
-        Album loadedAlbum = albums.iterator().next();
-        assertEquals(album, loadedAlbum);
-        assertEquals(album.getRatings(), loadedAlbum.getRatings());
-    }
-
-    @Test
-    public void successfulCreationOfAlbumAndMusicianInstrument(){
-        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
-        ArrayList<MusicalInstrument> myArray = new ArrayList<MusicalInstrument>();
-        myArray.add(new MusicalInstrument("Piano"));
-        myArray.add(new MusicalInstrument("Guitar"));
-        Set<MusicalInstrument> musicalInstrumentList = new HashSet<>(myArray);
-        MusicianInstrument musicianInstrument = new MusicianInstrument(new Musician("Keith Jarrett"), musicalInstrumentList);
-        album.setInstruments(Sets.newHashSet(musicianInstrument));
-
-        dao.createOrUpdate(album);
-
-        Collection<Album> albums = dao.loadAll(Album.class);
-        assertEquals(1, albums.size());
-        Album loadedAlbum = albums.iterator().next();
-        assertEquals(album, loadedAlbum);
-        assertEquals(album.getInstruments(), loadedAlbum.getInstruments());
-    }
-
-    @Test
-    public void successfulCreationOfAlbumAndTrack()  {
-        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
-        Track track = new Track("Track 1","4:20","Jazz",1);
-        List<String> list = Arrays.asList("Nice song" , "Brilliant track");
-        track.setReviews(list);
-        album.setTracks(Sets.newHashSet(track));
-
-        dao.createOrUpdate(album);
-
-        Collection<Album> albums = dao.loadAll(Album.class);
-        assertEquals(1, albums.size());
-        Album loadedAlbum = albums.iterator().next();
-        assertEquals(album, loadedAlbum);
-        assertEquals(album.getTracks(), loadedAlbum.getTracks());
-    }
-
-    @Test
-    public void successfulCreationOfMusicianInstrumentAndMusicalInstrumentsAndMusician() throws MalformedURLException {
-        Musician musician = new Musician("Keith Jarrett");
-        ArrayList<MusicalInstrument> myArray = new ArrayList<MusicalInstrument>();
-        MusicalInstrument musicalInstrument=new MusicalInstrument("Piano");
-        myArray.add(musicalInstrument);
-        Set<MusicalInstrument> musicalInstrumentList = new HashSet<>(myArray);
-        MusicianInstrument musicianInstrument = new MusicianInstrument(musician, musicalInstrumentList);
-
-        dao.createOrUpdate(musicianInstrument);
-
-        Collection<MusicianInstrument> musicianInstruments = dao.loadAll(MusicianInstrument.class);
-        assertEquals(1, musicianInstruments.size());
-        MusicianInstrument loadedMusicianInstrument = musicianInstruments.iterator().next();
-        assertEquals(musicianInstrument, loadedMusicianInstrument);
-        assertEquals(musicianInstrument.getMusicalInstruments(), loadedMusicianInstrument.getMusicalInstruments());
-        assertEquals(musicianInstrument.getMusician(), loadedMusicianInstrument.getMusician());
+        neo4jDAO.rebuildYearHistogram();
+        assertTrue(neo4jDAO.verifyYearHistogram().isEmpty());
+        assertEquals(Lists.newArrayList(2011, 1975), dao.findBusiestYears(2));
     }
-}
\ No newline at end of file
+}
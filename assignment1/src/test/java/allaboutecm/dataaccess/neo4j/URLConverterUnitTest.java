@@ -43,4 +43,4 @@ class URLConverterUnitTest {
     void toEntityAttributeException() {
         assertThrows(IllegalArgumentException.class, () -> uc.toEntityAttribute("asdf"));
     }
-}
\ No newline at end of file
+}
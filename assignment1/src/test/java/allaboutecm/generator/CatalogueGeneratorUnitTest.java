@@ -0,0 +1,164 @@
+package allaboutecm.generator;
+
+import allaboutecm.model.Album;
+import allaboutecm.model.Concerts;
+import allaboutecm.model.Musician;
+import allaboutecm.model.Track;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogueGeneratorUnitTest {
+
+    @Test
+    public void shouldGenerateTheRequestedCounts() {
+        Catalogue catalogue = new CatalogueGenerator(50, 100, 6, 3, 20, 1).generate();
+
+        assertEquals(50, catalogue.getMusicians().size());
+        assertEquals(100, catalogue.getAlbums().size());
+        assertEquals(50, catalogue.getMusicianInstruments().size());
+        assertEquals(20, catalogue.getConcerts().size());
+        for (Album album : catalogue.getAlbums()) {
+            assertEquals(6, album.getTracks().size());
+            assertEquals(3, album.getRatings().size());
+        }
+    }
+
+    @Test
+    public void shouldLinkAlbumsAndFeaturedMusiciansBothWays() {
+        Catalogue catalogue = new CatalogueGenerator(20, 40, 0, 0, 0, 1).generate();
+
+        for (Album album : catalogue.getAlbums()) {
+            assertFalse(album.getFeaturedMusicians().isEmpty());
+            for (Musician musician : album.getFeaturedMusicians()) {
+                assertTrue(musician.getAlbums().contains(album));
+            }
+        }
+    }
+
+    @Test
+    public void shouldRespectTheModelRules() {
+        Catalogue catalogue = new CatalogueGenerator(30, 60, 10, 2, 0, 7).generate();
+        int currentYear = Calendar.getInstance().get(Calendar.YEAR);
+
+        for (Album album : catalogue.getAlbums()) {
+            assertTrue(album.getRecordNumber().startsWith("ECM"));
+            assertTrue(album.getReleaseYear() >= 1969 && album.getReleaseYear() <= currentYear);
+            for (Track track : album.getTracks()) {
+                assertTrue(track.getTrackNumber() > 0 && track.getTrackNumber() < 500);
+            }
+        }
+        for (Musician musician : catalogue.getMusicians()) {
+            assertTrue(musician.getName().split(" ").length >= 2);
+        }
+    }
+
+    @Test
+    public void shouldBeDeterministicForTheSameSeed() {
+        Catalogue first = new CatalogueGenerator(10, 20, 2, 2, 5, 42).generate();
+        Catalogue second = new CatalogueGenerator(10, 20, 2, 2, 5, 42).generate();
+
+        assertEquals(first.getAlbums(), second.getAlbums());
+        for (int i = 0; i < first.getAlbums().size(); i++) {
+            assertEquals(first.getAlbums().get(i).getReleaseYear(), second.getAlbums().get(i).getReleaseYear());
+            assertEquals(first.getAlbums().get(i).getRatings(), second.getAlbums().get(i).getRatings());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {-1, 500})
+    public void shouldNotAcceptInvalidTracksPerAlbum(int tracksPerAlbum) {
+        assertThrows(IllegalArgumentException.class, () -> new CatalogueGenerator(1, 1, tracksPerAlbum, 0, 0, 1));
+    }
+
+    @Test
+    public void shouldNotAcceptAnEmptyCatalogue() {
+        assertThrows(IllegalArgumentException.class, () -> new CatalogueGenerator(0, 1, 0, 0, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new CatalogueGenerator(1, 0, 0, 0, 0, 1));
+    }
+
+    @Test
+    public void shouldStreamTheSameAlbumsAsGenerate() {
+        CatalogueGenerator generator = new CatalogueGenerator(10, 30, 2, 2, 0, 3);
+
+        List<Album> streamed = generator.albums().collect(Collectors.toList());
+        List<Album> generated = generator.generate().getAlbums();
+
+        assertEquals(generated, streamed);
+        for (int i = 0; i < streamed.size(); i++) {
+            assertEquals(names(generated.get(i).getFeaturedMusicians()), names(streamed.get(i).getFeaturedMusicians()));
+            assertEquals(generated.get(i).getRatings(), streamed.get(i).getRatings());
+        }
+    }
+
+    @Test
+    public void shouldGenerateTheSameEntitiesInParallel() {
+        CatalogueGenerator generator = new CatalogueGenerator(100, 500, 1, 1, 50, 11);
+        generator.setConcertBaseDate(new Date(0));
+
+        List<Album> sequential = generator.albums().collect(Collectors.toList());
+        List<Album> parallel = generator.albums().parallel().collect(Collectors.toList());
+
+        assertEquals(sequential, parallel);
+        assertEquals(generator.concerts().map(Concerts::getDate).collect(Collectors.toList()),
+                generator.concerts().parallel().map(Concerts::getDate).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void shouldStreamEveryKindOfEntity() {
+        CatalogueGenerator generator = new CatalogueGenerator(25, 10, 1, 1, 7, 5);
+
+        assertEquals(25, generator.musicians().count());
+        assertEquals(25, generator.musicianInstruments().count());
+        assertEquals(10, generator.musicalInstruments().count());
+        assertEquals(7, generator.concerts().count());
+    }
+
+    @Test
+    public void shouldSkewAlbumsPerMusicianWithAPowerLaw() {
+        CatalogueGenerator generator = new CatalogueGenerator(1000, 5000, 0, 0, 0, 13);
+        generator.setAlbumsPerMusicianExponent(1.2);
+
+        Catalogue catalogue = generator.generate();
+        List<Integer> albumCounts = catalogue.getMusicians().stream()
+                .map(m -> m.getAlbums().size()).sorted().collect(Collectors.toList());
+
+        int median = albumCounts.get(albumCounts.size() / 2);
+        int max = albumCounts.get(albumCounts.size() - 1);
+        assertTrue(max > 50 * Math.max(1, median), "max " + max + " median " + median);
+        assertEquals(max, catalogue.getMusicians().get(0).getAlbums().size());
+    }
+
+    @Test
+    public void shouldDrawRatingsPerAlbumFromAPowerLaw() {
+        CatalogueGenerator generator = new CatalogueGenerator(10, 2000, 0, 10, 0, 17);
+        generator.setRatingsPerAlbumExponent(1.5);
+
+        Map<Integer, Long> histogram = generator.albums()
+                .collect(Collectors.groupingBy(a -> a.getRatings().size(), Collectors.counting()));
+
+        assertTrue(histogram.keySet().stream().allMatch(c -> c >= 0 && c <= 10));
+        assertTrue(histogram.get(0) > histogram.get(1));
+        assertTrue(histogram.get(1) > histogram.getOrDefault(10, 0L));
+    }
+
+    @Test
+    public void shouldNotAcceptNegativeExponents() {
+        CatalogueGenerator generator = new CatalogueGenerator(1, 1, 0, 0, 0, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> generator.setAlbumsPerMusicianExponent(-1));
+        assertThrows(IllegalArgumentException.class, () -> generator.setRatingsPerAlbumExponent(-1));
+    }
+
+    private static List<String> names(List<Musician> musicians) {
+        return musicians.stream().map(Musician::getName).collect(Collectors.toList());
+    }
+}
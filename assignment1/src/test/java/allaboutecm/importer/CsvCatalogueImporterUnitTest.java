@@ -0,0 +1,187 @@
+package allaboutecm.importer;
+
+import allaboutecm.dataaccess.DAO;
+import allaboutecm.dataaccess.neo4j.Neo4jDAO;
+import allaboutecm.model.*;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CsvCatalogueImporterUnitTest {
+    private DAO dao;
+    private List<List<Object>> batches;
+
+    @BeforeEach
+    public void setUp() {
+        dao = mock(Neo4jDAO.class);
+        batches = Lists.newArrayList();
+        //The importer reuses its batch list, so the batches are copied as they are written.
+        when(dao.createOrUpdateAll(anyCollection())).thenAnswer(invocation -> {
+            Collection<?> entities = invocation.getArgument(0);
+            batches.add(Lists.newArrayList(entities));
+            return entities;
+        });
+    }
+
+    @Test
+    public void shouldImportMusiciansInBatches() throws IOException {
+        String csv = "name,musicianUrl,bio\n" +
+                "Keith Jarrett,https://www.ecm.com/keithjarrett,Pianist\n" +
+                "Jan Garbarek,,\n" +
+                "Arvo Part,,\n";
+
+        ImportReport report = new CsvCatalogueImporter(dao, 2).importMusicians(new StringReader(csv));
+
+        assertEquals(3, report.getRowsRead());
+        assertEquals(3, report.getRowsWritten());
+        assertEquals(2, batches.size());
+        Musician keith = (Musician) batches.get(0).get(0);
+        assertEquals("Keith Jarrett", keith.getName());
+        assertEquals("https://www.ecm.com/keithjarrett", keith.getMusicianUrl().toString());
+        assertEquals("Pianist", keith.getBio());
+        assertNull(((Musician) batches.get(0).get(1)).getBio());
+    }
+
+    @Test
+    public void shouldSkipRowsTheModelRejects() throws IOException {
+        String csv = "name\n" +
+                "Keith\n" +
+                "Keith Jarrett\n";
+
+        ImportReport report = new CsvCatalogueImporter(dao, 10).importMusicians(new StringReader(csv));
+
+        assertEquals(2, report.getRowsRead());
+        assertEquals(1, report.getRejected());
+        assertEquals(1, report.getRowsWritten());
+        assertTrue(report.getRejections().get(0).startsWith("row 1"));
+    }
+
+    @Test
+    public void shouldKeepTheFirstRowOfARepeatedKey() throws IOException {
+        String csv = "recordNumber,albumName,releaseYear,sales\n" +
+                "ECM 1064/65,The Köln Concert,1975,100\n" +
+                "ECM 1064/65,The Köln Concert,1975,200\n";
+
+        ImportReport report = new CsvCatalogueImporter(dao, 10).importAlbums(new StringReader(csv));
+
+        assertEquals(1, report.getDuplicates());
+        assertEquals(1, report.getRowsWritten());
+        assertEquals(100, ((Album) batches.get(0).get(0)).getSales());
+    }
+
+    @Test
+    public void shouldLinkAlbumsToTheirFeaturedMusicians() throws IOException {
+        String csv = "recordNumber,albumName,releaseYear,featuredMusicians\n" +
+                "ECM 1064/65,The Köln Concert,1975,Keith Jarrett;Jan Garbarek\n";
+
+        new CsvCatalogueImporter(dao, 10).importAlbums(new StringReader(csv));
+
+        Album album = (Album) batches.get(0).get(0);
+        assertEquals(2, album.getFeaturedMusicians().size());
+        //The second write stores the musicians' side of the relationship.
+        assertEquals(2, batches.get(1).size());
+        for (Object musician : batches.get(1)) {
+            assertEquals(Sets.newHashSet(album), ((Musician) musician).getAlbums());
+        }
+    }
+
+    @Test
+    public void shouldAddTracksToImportedAlbums() throws IOException {
+        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        album.getTracks().add(new Track("Part I", "26:15", "Jazz", 1));
+        when(dao.findAlbumByRecordNumber("ECM 1064/65")).thenReturn(album);
+        String csv = "recordNumber,name,duration,genre,trackNumber\n" +
+                "ECM 1064/65,Part I,26:15,Jazz,1\n" +
+                "ECM 1064/65,Part II,15:00,Jazz,2\n" +
+                "ECM 9999,Unknown,1:00,Jazz,1\n";
+
+        ImportReport report = new CsvCatalogueImporter(dao, 10).importTracks(new StringReader(csv));
+
+        assertEquals(2, album.getTracks().size());
+        assertEquals(1, report.getRowsWritten());
+        assertEquals(1, report.getRejected());
+        assertEquals(Lists.newArrayList(album), batches.get(0));
+    }
+
+    @Test
+    public void shouldReplaceTheRatingOfTheSameSource() throws IOException {
+        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        album.getRatings().add(new Rating(3, "Rolling Stone Magazine"));
+        when(dao.findAlbumByRecordNumber("ECM 1064/65")).thenReturn(album);
+        String csv = "recordNumber,source,score\n" +
+                "ECM 1064/65,Rolling Stone Magazine,5\n";
+
+        new CsvCatalogueImporter(dao, 10).importRatings(new StringReader(csv));
+
+        assertEquals(Sets.newHashSet(new Rating(5, "Rolling Stone Magazine")), album.getRatings());
+    }
+
+    @Test
+    public void shouldImportConcerts() throws IOException {
+        String csv = "name,date,location,country,featuredMusicians\n" +
+                "Köln Opera,1975-01-24T23:30,Cologne,Germany,Keith Jarrett\n" +
+                "Bad Date,24/01/1975,Cologne,Germany,Keith Jarrett\n";
+
+        ImportReport report = new CsvCatalogueImporter(dao, 10).importConcerts(new StringReader(csv));
+
+        assertEquals(1, report.getRejected());
+        Concerts concert = (Concerts) batches.get(0).get(0);
+        assertEquals("Cologne", concert.getLocation());
+        assertEquals("Keith Jarrett", concert.getFeaturedMusicians().get(0).getName());
+    }
+
+    @Test
+    public void shouldResumeAfterTheCheckpoint(@TempDir Path directory) throws IOException {
+        String csv = "name\n" +
+                "Keith Jarrett\n" +
+                "Jan Garbarek\n" +
+                "Arvo Part\n";
+        Path file = directory.resolve("import.checkpoint");
+        CsvCatalogueImporter importer = new CsvCatalogueImporter(dao, 2);
+        importer.setCheckpoint(new ImportCheckpoint(file));
+        doAnswer(invocation -> invocation.getArgument(0))
+                .doThrow(new IllegalStateException("store went away"))
+                .when(dao).createOrUpdateAll(anyCollection());
+
+        assertThrows(IllegalStateException.class, () -> importer.importMusicians(new StringReader(csv)));
+        assertEquals(2, new ImportCheckpoint(file).position(CsvCatalogueImporter.MUSICIANS));
+
+        setUp();
+        CsvCatalogueImporter resumed = new CsvCatalogueImporter(dao, 2);
+        resumed.setCheckpoint(new ImportCheckpoint(file));
+        ImportReport report = resumed.importMusicians(new StringReader(csv));
+
+        assertEquals(2, report.getResumedFrom());
+        assertEquals(1, report.getRowsRead());
+        assertEquals(Collections.singletonList(Arrays.asList(new Musician("Arvo Part"))), batches);
+        assertEquals(3, new ImportCheckpoint(file).position(CsvCatalogueImporter.MUSICIANS));
+    }
+
+    @Test
+    public void shouldReportProgressAfterEveryBatch() throws IOException {
+        String csv = "name\nKeith Jarrett\nJan Garbarek\nArvo Part\n";
+        List<Long> progress = Lists.newArrayList();
+        CsvCatalogueImporter importer = new CsvCatalogueImporter(dao, 2);
+        importer.setProgressListener(report -> progress.add(report.getRowsWritten()));
+
+        ImportReport report = importer.importMusicians(new StringReader(csv));
+
+        assertEquals(Arrays.asList(2L, 3L), progress);
+        assertTrue(report.getRowsPerSecond() > 0);
+    }
+
+    @Test
+    public void shouldNotAcceptANonPositiveBatchSize() {
+        assertThrows(IllegalArgumentException.class, () -> new CsvCatalogueImporter(dao, 0));
+    }
+}
@@ -0,0 +1,101 @@
+package allaboutecm.mining;
+
+import com.google.common.collect.Sets;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitmapUnitTest {
+
+    @Test
+    public void shouldSortAndDropRepeats() {
+        Bitmap bitmap = Bitmap.of(5, 1, 5, 3);
+
+        assertEquals(3, bitmap.cardinality());
+        assertArrayEquals(new int[]{1, 3, 5}, bitmap.toArray());
+        assertTrue(bitmap.contains(3));
+        assertFalse(bitmap.contains(2));
+        assertFalse(bitmap.contains(-1));
+    }
+
+    @Test
+    public void shouldNotChangeTheGivenInts() {
+        int[] values = {3, 1, 2};
+
+        Bitmap.of(values);
+
+        assertArrayEquals(new int[]{3, 1, 2}, values);
+    }
+
+    @Test
+    public void shouldNotAcceptNegativeInts() {
+        assertThrows(IllegalArgumentException.class, () -> Bitmap.of(1, -2));
+    }
+
+    @Test
+    public void shouldKeepTheEmptySet() {
+        Bitmap empty = Bitmap.of();
+
+        assertEquals(0, empty.cardinality());
+        assertEquals(0, empty.andCardinality(Bitmap.of(1, 2)));
+        assertEquals(0, new Bitmap.Union(1).cardinality(empty, new Bitmap[0]));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 1000, 5000, 60_000})
+    public void shouldAgreeWithAHashSet(int size) {
+        //Half of the ints crowd into the first chunk, so the larger sets have dense chunks.
+        Random random = new Random(size);
+        Set<Integer> expected = new TreeSet<>();
+        Set<Integer> other = new TreeSet<>();
+        for (int i = 0; i < size; i++) {
+            expected.add(random.nextBoolean() ? random.nextInt(65536) : random.nextInt(1 << 20));
+            other.add(random.nextBoolean() ? random.nextInt(65536) : random.nextInt(1 << 20));
+        }
+
+        Bitmap bitmap = Bitmap.of(expected.stream().mapToInt(Integer::intValue).toArray());
+        Bitmap otherBitmap = Bitmap.of(other.stream().mapToInt(Integer::intValue).toArray());
+
+        assertEquals(expected.size(), bitmap.cardinality());
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), bitmap.toArray());
+        for (int i = 0; i < 2000; i++) {
+            int value = random.nextInt(1 << 20);
+            assertEquals(expected.contains(value), bitmap.contains(value));
+        }
+        assertEquals(Sets.intersection(expected, other).size(), bitmap.andCardinality(otherBitmap));
+        assertEquals(Sets.intersection(expected, other).size(), otherBitmap.andCardinality(bitmap));
+        assertEquals(Sets.union(expected, other).size(),
+                new Bitmap.Union(1 << 20).cardinality(Bitmap.of(0, 1), new Bitmap[]{bitmap, otherBitmap}));
+    }
+
+    @Test
+    public void shouldCountEachIntOnceAcrossAUnion() {
+        Bitmap[] sets = {Bitmap.of(0, 1), Bitmap.of(1, 2), Bitmap.of(5)};
+        Bitmap.Union union = new Bitmap.Union(6);
+
+        assertEquals(3, union.cardinality(Bitmap.of(0, 1), sets));
+        //A union starts afresh, without the ints of the one before.
+        assertEquals(3, union.cardinality(Bitmap.of(0, 2), sets));
+        assertEquals(0, union.cardinality(Bitmap.of(), sets));
+    }
+
+    @Test
+    public void shouldCountIntsOfDenseAndSparseSetsOnce() {
+        IntList all = new IntList();
+        for (int i = 0; i < 70_000; i++) {
+            all.add(i);
+        }
+        Bitmap[] sets = {Bitmap.of(all), Bitmap.of(3, 68_000, 69_999, 70_001), Bitmap.of(70_001, 70_002)};
+        Bitmap.Union union = new Bitmap.Union(70_003);
+
+        assertEquals(70_001, union.cardinality(Bitmap.of(0, 1), sets));
+        assertEquals(70_002, union.cardinality(Bitmap.of(0, 1, 2), sets));
+        assertEquals(5, union.cardinality(Bitmap.of(1, 2), sets));
+    }
+}
@@ -0,0 +1,246 @@
+package allaboutecm.mining;
+
+import allaboutecm.dataaccess.DAO;
+import allaboutecm.dataaccess.ObservableDAO;
+import allaboutecm.model.Album;
+import allaboutecm.model.Concerts;
+import allaboutecm.model.Rating;
+import com.google.common.base.Ticker;
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingECMMinerUnitTest {
+    private ObservableDAO dao;
+    private ECMMiner miner;
+    private FakeTicker ticker;
+    private CachingECMMiner cachingMiner;
+
+    @BeforeEach
+    public void setUp() {
+        dao = new ObservableDAO(mock(DAO.class));
+        miner = mock(ECMMiner.class);
+        ticker = new FakeTicker();
+        cachingMiner = new CachingECMMiner(dao, miner, 100, 10, TimeUnit.MINUTES, ticker);
+    }
+
+    @Test
+    public void shouldAnswerARepeatedQueryFromTheCache() {
+        when(miner.busiestYears(5)).thenReturn(Lists.newArrayList(2011, 2009));
+
+        assertEquals(Lists.newArrayList(2011, 2009), cachingMiner.busiestYears(5));
+        cachingMiner.busiestYears(5).clear();
+        assertEquals(Lists.newArrayList(2011, 2009), cachingMiner.busiestYears(5));
+
+        verify(miner, times(1)).busiestYears(5);
+        assertEquals(2, cachingMiner.getStats("busiestYears").hitCount());
+        assertEquals(1, cachingMiner.getStats("busiestYears").missCount());
+        assertEquals(2 / 3.0, cachingMiner.getStats().hitRate());
+    }
+
+    @Test
+    public void shouldKeyResultsByArguments() {
+        when(miner.busiestYears(1)).thenReturn(Lists.newArrayList(2011));
+        when(miner.busiestYears(2)).thenReturn(Lists.newArrayList(2011, 2009));
+
+        assertEquals(Lists.newArrayList(2011), cachingMiner.busiestYears(1));
+        assertEquals(Lists.newArrayList(2011, 2009), cachingMiner.busiestYears(2));
+        assertEquals(2, cachingMiner.size());
+    }
+
+    @Test
+    public void shouldRecomputeAfterTheTimeToLive() {
+        when(miner.mostSellingAlbums(10)).thenReturn(Lists.newArrayList());
+
+        cachingMiner.mostSellingAlbums(10);
+        ticker.advance(11, TimeUnit.MINUTES);
+        cachingMiner.mostSellingAlbums(10);
+
+        verify(miner, times(2)).mostSellingAlbums(10);
+    }
+
+    @Test
+    public void writesShouldOnlyDropTheQueriesOfTheirClasses() {
+        when(miner.highestRatedAlbums(3)).thenReturn(Lists.newArrayList());
+        when(miner.findNextConcerts(20)).thenReturn(Lists.newArrayList());
+
+        cachingMiner.highestRatedAlbums(3);
+        cachingMiner.findNextConcerts(20);
+        dao.createOrUpdate(new Rating(4, "Life Magazine"));
+        cachingMiner.highestRatedAlbums(3);
+        cachingMiner.findNextConcerts(20);
+
+        verify(miner, times(2)).highestRatedAlbums(3);
+        verify(miner, times(1)).findNextConcerts(20);
+    }
+
+    @Test
+    public void nextConcertsShouldBeRecomputedOnceTheFirstHasStarted() {
+        Concerts started = new Concerts(new Date(System.currentTimeMillis() - 1000), "Concert 1");
+        when(miner.findNextConcerts(1)).thenReturn(Lists.newArrayList(started));
+
+        cachingMiner.findNextConcerts(1);
+        cachingMiner.findNextConcerts(1);
+
+        verify(miner, times(2)).findNextConcerts(1);
+    }
+
+    @Test
+    public void impossibleArgumentsShouldFailEveryTime() {
+        when(miner.mostSellingAlbums(0)).thenThrow(IllegalArgumentException.class);
+
+        assertThrows(IllegalArgumentException.class, () -> cachingMiner.mostSellingAlbums(0));
+        assertThrows(IllegalArgumentException.class, () -> cachingMiner.mostSellingAlbums(0));
+        verify(miner, times(2)).mostSellingAlbums(0);
+        assertEquals(0, cachingMiner.size());
+    }
+
+    @Test
+    public void aResultComputedDuringAWriteShouldNotBeKept() {
+        when(miner.mostSellingAlbums(1)).thenAnswer(invocation -> {
+            cachingMiner.invalidate(Album.class);
+            return Lists.newArrayList();
+        });
+
+        cachingMiner.mostSellingAlbums(1);
+        cachingMiner.mostSellingAlbums(1);
+
+        verify(miner, times(2)).mostSellingAlbums(1);
+    }
+
+    @Test
+    public void concurrentReadersShouldShareOneComputation() throws Exception {
+        CountDownLatch computing = new CountDownLatch(1);
+        AtomicInteger computations = new AtomicInteger();
+        when(miner.busiestYears(5)).thenAnswer(invocation -> {
+            computations.incrementAndGet();
+            computing.await(1, TimeUnit.SECONDS);
+            return Lists.newArrayList(2011);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Integer>>> readers = Lists.newArrayList();
+            for (int i = 0; i < 4; i++) {
+                readers.add(executor.submit(() -> cachingMiner.busiestYears(5)));
+            }
+            computing.countDown();
+            for (Future<List<Integer>> reader : readers) {
+                assertEquals(Lists.newArrayList(2011), reader.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, computations.get());
+    }
+
+    @Test
+    public void readersOfDifferentResultsShouldComputeOneAtATime() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+        when(miner.busiestYears(anyInt())).thenAnswer(invocation -> {
+            mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            return Lists.newArrayList(2011);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Integer>>> readers = Lists.newArrayList();
+            for (int i = 1; i <= 4; i++) {
+                int k = i;
+                readers.add(executor.submit(() -> cachingMiner.busiestYears(k)));
+            }
+            for (Future<List<Integer>> reader : readers) {
+                assertEquals(Lists.newArrayList(2011), reader.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(miner, times(4)).busiestYears(anyInt());
+        assertEquals(1, mostRunning.get());
+    }
+
+    @Test
+    public void uncachedQueriesAndOtherCachesOfTheDAOShouldComputeOneAtATime() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+        Answer<List<?>> slowQuery = invocation -> {
+            mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            return Lists.newArrayList();
+        };
+        when(miner.busiestYears(anyInt())).thenAnswer(slowQuery);
+        when(miner.mostSimilarAlbums(anyInt(), any())).thenAnswer(slowQuery);
+        CachingECMMiner otherCachingMiner = new CachingECMMiner(dao, miner, 100, 10, TimeUnit.MINUTES, ticker);
+        Album album = new Album(1975, "ECM 1064/65", "The Köln Concert");
+
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<?>> readers = Lists.newArrayList();
+            for (int i = 1; i <= 2; i++) {
+                int k = i;
+                readers.add(executor.submit(() -> cachingMiner.busiestYears(k)));
+                readers.add(executor.submit(() -> otherCachingMiner.busiestYears(k + 2)));
+                readers.add(executor.submit(() -> cachingMiner.mostSimilarAlbums(k, album)));
+            }
+            for (Future<?> reader : readers) {
+                reader.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(miner, times(4)).busiestYears(anyInt());
+        verify(miner, times(2)).mostSimilarAlbums(anyInt(), any());
+        assertEquals(1, mostRunning.get());
+    }
+
+    @Test
+    public void aCallerHoldingTheDAOShouldNotBlockQueries() throws Exception {
+        when(miner.busiestYears(5)).thenReturn(Lists.newArrayList(2011));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            synchronized (dao) {
+                assertEquals(Lists.newArrayList(2011),
+                        executor.submit(() -> cachingMiner.busiestYears(5)).get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldNotAcceptAnUnknownQuery() {
+        assertThrows(IllegalArgumentException.class, () -> cachingMiner.getStats("mostSimilarAlbums"));
+    }
+
+    private static class FakeTicker extends Ticker {
+        private final AtomicLong nanos = new AtomicLong();
+
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+
+        void advance(long time, TimeUnit unit) {
+            nanos.addAndGet(unit.toNanos(time));
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package allaboutecm.mining;
+
+import allaboutecm.model.Album;
+import allaboutecm.model.Musician;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CollaborationGraphUnitTest {
+
+    @Test
+    public void shouldCountTheMusicianThemselfOnASoloAlbum() {
+        Musician musician = new Musician("Keith Jarrett");
+        musician.setAlbums(Sets.newHashSet(new Album(1975, "ECM 1064/65", "The Köln Concert")));
+
+        CollaborationGraph graph = CollaborationGraph.build(Sets.newHashSet(musician));
+
+        assertEquals(1, graph.collaboratorCount(musician));
+        assertEquals(1, graph.albumCount());
+    }
+
+    @Test
+    public void shouldCountDistinctCollaboratorsAcrossSharedAlbums() {
+        Album album1 = new Album(1994, "ECM 1001", "Album1");
+        Album album2 = new Album(1995, "ECM 1002", "Album2");
+        Musician musician1 = new Musician("Musician One");
+        Musician musician2 = new Musician("Musician Two");
+        Musician musician3 = new Musician("Musician Three");
+        musician1.setAlbums(Sets.newHashSet(album1, album2));
+        musician2.setAlbums(Sets.newHashSet(album1, album2));
+        musician3.setAlbums(Sets.newHashSet(album2));
+
+        Map<Musician, Integer> counts = CollaborationGraph.build(Lists.newArrayList(musician1, musician2, musician3)).collaboratorCounts();
+
+        //Musician two appears on both albums with musician one but is only counted once.
+        assertEquals(3, counts.get(musician1));
+        assertEquals(3, counts.get(musician2));
+        assertEquals(3, counts.get(musician3));
+    }
+
+    @Test
+    public void shouldTreatEqualAlbumsAsTheSameAlbum() {
+        Musician musician1 = new Musician("Musician One");
+        Musician musician2 = new Musician("Musician Two");
+        musician1.setAlbums(Sets.newHashSet(new Album(1994, "ECM 1001", "Album1")));
+        musician2.setAlbums(Sets.newHashSet(new Album(1994, "ECM 1001", "Album1")));
+
+        CollaborationGraph graph = CollaborationGraph.build(Lists.newArrayList(musician1, musician2));
+
+        assertEquals(1, graph.albumCount());
+        assertEquals(2, graph.collaboratorCount(musician1));
+    }
+
+    @Test
+    public void shouldUseFeaturedMusiciansOfKnownAlbums() {
+        Album album = new Album(1994, "ECM 1001", "Album1");
+        Musician musician1 = new Musician("Musician One");
+        Musician musician2 = new Musician("Musician Two");
+        musician1.setAlbums(Sets.newHashSet(album));
+        album.setFeaturedMusicians(Lists.newArrayList(musician1, musician2));
+
+        CollaborationGraph graph = CollaborationGraph.build(Lists.newArrayList(musician1, musician2));
+
+        assertEquals(2, graph.collaboratorCount(musician1));
+        assertEquals(2, graph.collaboratorCount(musician2));
+    }
+
+    @Test
+    public void shouldIgnoreFeaturedMusiciansThatWereNotLoaded() {
+        Album album = new Album(1994, "ECM 1001", "Album1");
+        Musician musician1 = new Musician("Musician One");
+        Musician outsider = new Musician("Musician Outsider");
+        musician1.setAlbums(Sets.newHashSet(album));
+        album.setFeaturedMusicians(Lists.newArrayList(musician1, outsider));
+
+        CollaborationGraph graph = CollaborationGraph.build(Lists.newArrayList(musician1));
+
+        assertEquals(1, graph.collaboratorCount(musician1));
+        assertEquals(-1, graph.collaboratorCount(outsider));
+    }
+
+    @Test
+    public void shouldGiveZeroToMusiciansWithoutAlbums() {
+        Musician musician = new Musician("Musician One");
+
+        CollaborationGraph graph = CollaborationGraph.build(Lists.newArrayList(musician));
+
+        assertEquals(0, graph.collaboratorCount(musician));
+    }
+
+    @Test
+    public void shouldNotAcceptNullMusicians() {
+        assertThrows(NullPointerException.class, () -> CollaborationGraph.build(null));
+    }
+
+    @Test
+    public void shouldListCollaboratorsInBuildOrderWithoutTheMusician() {
+        Album album1 = new Album(1994, "ECM 1001", "Album1");
+        Album album2 = new Album(1995, "ECM 1002", "Album2");
+        Musician musician1 = new Musician("Musician One");
+        Musician musician2 = new Musician("Musician Two");
+        Musician musician3 = new Musician("Musician Three");
+        Musician musician4 = new Musician("Musician Four");
+        musician1.setAlbums(Sets.newHashSet(album1, album2));
+        musician2.setAlbums(Sets.newHashSet(album2));
+        musician3.setAlbums(Sets.newHashSet(album1, album2));
+        musician4.setAlbums(Sets.newHashSet(new Album(1996, "ECM 1003", "Album3")));
+
+        CollaborationGraph graph = CollaborationGraph.build(Lists.newArrayList(musician3, musician4, musician2, musician1));
+
+        assertEquals(Lists.newArrayList(musician3, musician2), graph.collaborators(musician1));
+        assertEquals(Lists.newArrayList(), graph.collaborators(musician4));
+    }
+
+    @Test
+    public void shouldCountSharedAlbums() {
+        Album album1 = new Album(1994, "ECM 1001", "Album1");
+        Album album2 = new Album(1995, "ECM 1002", "Album2");
+        Musician musician1 = new Musician("Musician One");
+        Musician musician2 = new Musician("Musician Two");
+        Musician musician3 = new Musician("Musician Three");
+        musician1.setAlbums(Sets.newHashSet(album1, album2));
+        musician2.setAlbums(Sets.newHashSet(album1, album2));
+        musician3.setAlbums(Sets.newHashSet(album2));
+
+        CollaborationGraph graph = CollaborationGraph.build(Lists.newArrayList(musician1, musician2, musician3));
+
+        assertEquals(2, graph.sharedAlbumCount(musician1, musician2));
+        assertEquals(1, graph.sharedAlbumCount(musician3, musician1));
+        assertEquals(2, graph.sharedAlbumCount(musician1, musician1));
+    }
+
+    @Test
+    public void shouldCountCollaboratorsOfAnAlbumWithThousandsOfMembers() {
+        Album big = new Album(1994, "ECM 1001", "Big Band");
+        Album small = new Album(1995, "ECM 1002", "Trio");
+        List<Musician> musicians = Lists.newArrayList();
+        for (int i = 0; i < 70_000; i++) {
+            Musician musician = new Musician("Musician " + i);
+            musician.setAlbums(i < 5000 ? Sets.newHashSet(big) : Sets.newHashSet(small));
+            musicians.add(musician);
+        }
+        musicians.get(0).setAlbums(Sets.newHashSet(big, small));
+
+        CollaborationGraph graph = CollaborationGraph.build(musicians);
+
+        assertEquals(70_000, graph.collaboratorCount(musicians.get(0)));
+        assertEquals(5000, graph.collaboratorCounts().get(musicians.get(1)));
+        assertEquals(65_001, graph.collaboratorCountsByOrdinal(null)[69_999]);
+        assertEquals(69_999, graph.collaborators(musicians.get(0)).size());
+        assertEquals(1, graph.sharedAlbumCount(musicians.get(0), musicians.get(69_999)));
+    }
+
+    @Test
+    public void shouldNotAnswerForMusiciansOutsideTheGraph() {
+        Musician musician = new Musician("Musician One");
+        Musician outsider = new Musician("Musician Outsider");
+
+        CollaborationGraph graph = CollaborationGraph.build(Lists.newArrayList(musician));
+
+        assertThrows(IllegalArgumentException.class, () -> graph.collaborators(outsider));
+        assertThrows(IllegalArgumentException.class, () -> graph.sharedAlbumCount(musician, outsider));
+        assertThrows(NullPointerException.class, () -> graph.collaborators(null));
+    }
+}
@@ -0,0 +1,74 @@
+package allaboutecm.mining;
+
+import allaboutecm.model.Concerts;
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcertIndexUnitTest {
+    private static final long NOW = 1_600_000_000_000L;
+
+    @Test
+    public void shouldOrderConcertsMonthsAndYearsApart() {
+        //More than 24 days apart, the difference of two of these dates does not fit in an int.
+        Concerts inTenYears = concert(TimeUnit.DAYS.toMillis(3650), "Concert 1");
+        Concerts inAMonth = concert(TimeUnit.DAYS.toMillis(30), "Concert 2");
+        Concerts tomorrow = concert(TimeUnit.DAYS.toMillis(1), "Concert 3");
+        Concerts inAYear = concert(TimeUnit.DAYS.toMillis(365), "Concert 4");
+
+        ConcertIndex index = ConcertIndex.build(Lists.newArrayList(inTenYears, inAMonth, tomorrow, inAYear));
+
+        assertEquals(Lists.newArrayList(tomorrow, inAMonth, inAYear, inTenYears), index.next(10, new Date(NOW)));
+        assertEquals(Lists.newArrayList(tomorrow, inAMonth), index.next(2, new Date(NOW)));
+    }
+
+    @Test
+    public void shouldOnlyReturnConcertsAfterTheGivenTime() {
+        Concerts yesterday = concert(-TimeUnit.DAYS.toMillis(1), "Concert 1");
+        Concerts now = concert(0, "Concert 2");
+        Concerts later = concert(1, "Concert 3");
+
+        ConcertIndex index = ConcertIndex.build(Lists.newArrayList(yesterday, now, later));
+
+        assertEquals(Lists.newArrayList(later), index.next(5, new Date(NOW)));
+        assertEquals(3, index.concertCount());
+    }
+
+    @Test
+    public void concertsOnTheDateOfTheLastShouldAllBeReturned() {
+        Concerts first = concert(1000, "Concert 1");
+        Concerts second = concert(2000, "Concert 2");
+        Concerts sameTime = concert(2000, "Concert 3");
+        Concerts third = concert(3000, "Concert 4");
+
+        ConcertIndex index = ConcertIndex.build(Lists.newArrayList(third, sameTime, second, first));
+
+        assertEquals(Lists.newArrayList(first, sameTime, second), index.next(2, new Date(NOW)));
+        assertTrue(index.next(0, new Date(NOW)).isEmpty());
+    }
+
+    @Test
+    public void shouldLeaveOutAConcertEqualToOneReturned() {
+        Concerts concert = concert(1000, "Concert 1");
+        Concerts sameConcert = concert(1000, "Concert 1");
+        Concerts other = concert(2000, "Concert 2");
+
+        List<Concerts> next = ConcertIndex.build(Lists.newArrayList(concert, sameConcert, other)).next(2, new Date(NOW));
+
+        assertEquals(2, next.size());
+        assertSame(concert, next.get(0));
+        assertSame(other, next.get(1));
+    }
+
+    private static Concerts concert(long fromNow, String name) {
+        Concerts concert = new Concerts(new Date(NOW + fromNow), name);
+        concert.setLocation("Oslo");
+        concert.setCountry("Norway");
+        return concert;
+    }
+}
@@ -1,6 +1,7 @@
 package allaboutecm.mining;
 
 import allaboutecm.dataaccess.DAO;
+import allaboutecm.dataaccess.columnar.ColumnarDAO;
 import allaboutecm.dataaccess.neo4j.Neo4jDAO;
 import allaboutecm.model.*;
 import com.google.common.collect.Lists;
@@ -53,6 +54,8 @@ class ECMMinerIntegrationTest {
     @AfterEach
     public void tearDownEach() {
         session.purgeDatabase();
+        //The purge bypasses the DAO, so what it has derived from the store is dropped too.
+        ((Neo4jDAO) dao).clearCaches();
     }
 
     @AfterAll
@@ -1057,7 +1060,7 @@ class ECMMinerIntegrationTest {
     }
     @Test
     public void shouldReturnTheClosestConcertWhenThereIsOnlyOne() throws ParseException {
-        Concerts concert = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2020-10-20 09:19:29"),"test concert");
+        Concerts concert = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2090-10-20 09:19:29"),"test concert");
         dao.createOrUpdate(concert);
 
         List<Concerts> concerts = ecmMiner.findNextConcerts(5);
@@ -1085,8 +1088,8 @@ class ECMMinerIntegrationTest {
 
     @Test
     public void shouldReturnEveryConcertWhenThereAreTwoAndRequiredFive() throws ParseException {
-        Concerts concert1 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2020-10-20 09:19:29"),"test concert");
-        Concerts concert2 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2030-10-20 09:19:29"),"test concert No.2");
+        Concerts concert1 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2090-10-20 09:19:29"),"test concert");
+        Concerts concert2 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2100-10-20 09:19:29"),"test concert No.2");
         dao.createOrUpdate(concert1);
         dao.createOrUpdate(concert2);
 
@@ -1099,8 +1102,8 @@ class ECMMinerIntegrationTest {
 
     @Test
     public void shouldReturnTwoConcertsWhenThereAreTwoWithTheSameTime() throws ParseException {
-        Concerts concert1 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2020-10-20 09:19:29"),"test concert");
-        Concerts concert2 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2020-10-20 09:19:29"),"test concert No.2");
+        Concerts concert1 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2090-10-20 09:19:29"),"test concert");
+        Concerts concert2 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2090-10-20 09:19:29"),"test concert No.2");
         dao.createOrUpdate(concert1);
         dao.createOrUpdate(concert2);
 
@@ -1114,8 +1117,8 @@ class ECMMinerIntegrationTest {
 
     @Test
     public void shouldReturnTheClosestConcertWhenRequireOne() throws ParseException {
-        Concerts concert1 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2020-10-20 09:19:29"),"test concert");
-        Concerts concert2 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2023-10-20 09:19:29"),"test concert No.2");
+        Concerts concert1 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2090-10-20 09:19:29"),"test concert");
+        Concerts concert2 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2093-10-20 09:19:29"),"test concert No.2");
         dao.createOrUpdate(concert1);
         dao.createOrUpdate(concert2);
 
@@ -1124,4 +1127,155 @@ class ECMMinerIntegrationTest {
         assertEquals(1, concerts.size());
         assertTrue(concerts.contains(concert1));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void pushDownShouldMatchInMemoryMostSellingAndHighestRated() {
+        Album album1 = new Album(1998, "ECM-1000", "Album 1");
+        Album album2 = new Album(1998, "ECM-2000", "Album 2");
+        Album album3 = new Album(1991, "ECM-3000", "Album 3");
+        album1.setSales(10);
+        album2.setSales(20);
+        album3.setSales(15);
+        album1.setRatings(Sets.newHashSet(new Rating(2, "Rolling Stone Magazine")));
+        album2.setRatings(Sets.newHashSet(new Rating(5, "Rolling Stone Magazine"), new Rating(1, "New Stone Magazine")));
+        album3.setRatings(Sets.newHashSet(new Rating(1, "Life Magazine")));
+        dao.createOrUpdate(album1);
+        dao.createOrUpdate(album2);
+        dao.createOrUpdate(album3);
+        ECMMiner pushDownMiner = new ECMMiner(dao, true);
+
+        assertEquals(ecmMiner.mostSellingAlbums(2), pushDownMiner.mostSellingAlbums(2));
+        assertEquals(ecmMiner.highestRatedAlbums(2), pushDownMiner.highestRatedAlbums(2));
+        assertEquals(ecmMiner.busiestYears(2), pushDownMiner.busiestYears(2));
+    }
+
+    @Test
+    public void pushDownShouldMatchInMemoryOnTiedSalesAndRatings() {
+        DAO columnarDAO = new ColumnarDAO();
+        for (DAO target : Arrays.asList(dao, columnarDAO)) {
+            for (int i = 0; i < 4; i++) {
+                Album album = new Album(1998, "ECM-" + i, "Album " + i);
+                //Albums 0 and 1, and albums 2 and 3, have the same sales and the same average rating.
+                album.setSales(i / 2 * 10);
+                album.setRatings(Sets.newHashSet(new Rating(i / 2 + 1, "Magazine " + i)));
+                target.createOrUpdate(album);
+            }
+        }
+
+        for (DAO target : Arrays.asList(dao, columnarDAO)) {
+            ECMMiner inMemoryMiner = new ECMMiner(target);
+            ECMMiner pushDownMiner = new ECMMiner(target, true);
+            for (int k = 1; k <= 4; k++) {
+                assertEquals(inMemoryMiner.mostSellingAlbums(k), pushDownMiner.mostSellingAlbums(k));
+                assertEquals(inMemoryMiner.highestRatedAlbums(k), pushDownMiner.highestRatedAlbums(k));
+            }
+        }
+    }
+
+    @Test
+    public void highestRatedAlbumsShouldRankRecountedRatingsOnTheSameSession() {
+        Album album1 = new Album(1998, "ECM-1000", "Album 1");
+        Album album2 = new Album(1998, "ECM-2000", "Album 2");
+        album1.setRatings(Sets.newHashSet(new Rating(2, "Rolling Stone Magazine"), new Rating(5, "New Magazine")));
+        album2.setRatings(Sets.newHashSet(new Rating(3, "Life Magazine")));
+        dao.createOrUpdate(album1);
+        dao.createOrUpdate(album2);
+        ECMMiner pushDownMiner = new ECMMiner(dao, true);
+
+        List<Album> highestRated = ecmMiner.highestRatedAlbums(2);
+        assertEquals(Lists.newArrayList("Album 1", "Album 2"), Lists.transform(highestRated, Album::getAlbumName));
+        assertEquals(pushDownMiner.highestRatedAlbums(2), highestRated);
+
+        //The session still holds album 1, it is brought to the recounted ratings without clearing the session.
+        dao.delete(dao.findRatingBySource("New Magazine"));
+        assertEquals(2.0, album1.getAverageRating());
+        highestRated = ecmMiner.highestRatedAlbums(2);
+        assertEquals(Lists.newArrayList("Album 2", "Album 1"), Lists.transform(highestRated, Album::getAlbumName));
+        assertEquals(2.0, highestRated.get(1).getAverageRating());
+        assertEquals(pushDownMiner.highestRatedAlbums(2), highestRated);
+    }
+
+    @Test
+    public void pushDownShouldMatchInMemoryNextConcertsWithEqualConcerts() {
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        DAO columnarDAO = new ColumnarDAO();
+        for (DAO target : Arrays.asList(dao, columnarDAO)) {
+            target.createOrUpdateAll(Lists.newArrayList(
+                    new Concerts(new Date(now + 86_400_000L), "Concert 1"),
+                    new Concerts(new Date(now + 86_400_000L), "Concert 1"),
+                    new Concerts(new Date(now + 2 * 86_400_000L), "Concert 2"),
+                    new Concerts(new Date(now + 2 * 86_400_000L), "Concert 3"),
+                    new Concerts(new Date(now + 3 * 86_400_000L), "Concert 4")));
+        }
+
+        for (DAO target : Arrays.asList(dao, columnarDAO)) {
+            ECMMiner inMemoryMiner = new ECMMiner(target);
+            ECMMiner pushDownMiner = new ECMMiner(target, true);
+            for (int k = 1; k <= 5; k++) {
+                assertEquals(inMemoryMiner.findNextConcerts(k), pushDownMiner.findNextConcerts(k));
+            }
+        }
+    }
+
+    @Test
+    public void pushDownShouldMatchInMemoryMostProlificMusicians() {
+        Album album1 = new Album(1975, "ECM 1064/65", "The Köln Concert");
+        Album album2 = new Album(1976, "ECM 1065/66", "another album");
+        Album album3 = new Album(1977, "ECM 1066/67", "another album No.2");
+        Musician musician1 = new Musician("Keith Jarrett");
+        Musician musician2 = new Musician("another musician");
+        musician1.setAlbums(Sets.newHashSet(album1));
+        musician2.setAlbums(Sets.newHashSet(album2, album3));
+        dao.createOrUpdate(musician1);
+        dao.createOrUpdate(musician2);
+        ECMMiner pushDownMiner = new ECMMiner(dao, true);
+
+        assertEquals(ecmMiner.mostProlificMusicians(1, -1, -1), pushDownMiner.mostProlificMusicians(1, -1, -1));
+        assertEquals(ecmMiner.mostProlificMusicians(1, 1974, 1976), pushDownMiner.mostProlificMusicians(1, 1974, 1976));
+    }
+
+    @Test
+    public void pagedMinerShouldMatchInMemoryRankings() {
+        for (int i = 0; i < 7; i++) {
+            Album album = new Album(1990 + i % 3, "ECM-" + i, "Album " + i);
+            album.setSales(i * 10);
+            album.setRatings(Sets.newHashSet(new Rating(i % 5 + 1, "Rolling Stone Magazine")));
+            album.setFeaturedMusicians(Lists.newArrayList(new Musician("Keith Jarrett" + i % 2)));
+            dao.createOrUpdate(album);
+        }
+        Album album = dao.findAlbumByRecordNumber("ECM-0");
+        List<Integer> busiestYears = ecmMiner.busiestYears(2);
+        List<Album> mostSelling = ecmMiner.mostSellingAlbums(3);
+        List<Album> highestRated = ecmMiner.highestRatedAlbums(3);
+        List<Album> mostSimilar = ecmMiner.mostSimilarAlbums(3, album);
+        ECMMiner pagedMiner = new ECMMiner(dao, false, 2);
+
+        assertEquals(busiestYears, pagedMiner.busiestYears(2));
+        assertEquals(mostSelling, pagedMiner.mostSellingAlbums(3));
+        assertEquals(highestRated, pagedMiner.highestRatedAlbums(3));
+        assertEquals(mostSimilar, pagedMiner.mostSimilarAlbums(3, album));
+    }
+
+    @Test
+    public void columnarMinerShouldMatchNeo4jRankings() {
+        DAO columnarDAO = new ColumnarDAO();
+        for (DAO target : Arrays.asList(dao, columnarDAO)) {
+            for (int i = 0; i < 9; i++) {
+                Album album = new Album(1990 + i % 4, "ECM-" + i, "Album " + i);
+                album.setSales(i % 4 * 10);
+                album.setRatings(Sets.newHashSet(new Rating(i % 5 + 1, "Rolling Stone Magazine")));
+                album.setFeaturedMusicians(Lists.newArrayList(new Musician("Keith Jarrett" + i % 3)));
+                Musician musician = new Musician("Jan Garbarek" + i % 2);
+                musician.setAlbums(Sets.newHashSet(album));
+                target.createOrUpdateAll(Arrays.asList(album, musician));
+            }
+        }
+        ECMMiner columnarMiner = new ECMMiner(columnarDAO, true);
+        ECMMiner pushDownMiner = new ECMMiner(dao, true);
+
+        assertEquals(pushDownMiner.busiestYears(3), columnarMiner.busiestYears(3));
+        assertEquals(pushDownMiner.mostSellingAlbums(4), columnarMiner.mostSellingAlbums(4));
+        assertEquals(pushDownMiner.highestRatedAlbums(4), columnarMiner.highestRatedAlbums(4));
+        assertEquals(pushDownMiner.mostProlificMusicians(1, 1990, 1992), columnarMiner.mostProlificMusicians(1, 1990, 1992));
+    }
+}
@@ -1,7 +1,10 @@
 package allaboutecm.mining;
 
 import allaboutecm.dataaccess.DAO;
+import allaboutecm.dataaccess.ObservableDAO;
 import allaboutecm.dataaccess.neo4j.Neo4jDAO;
+import allaboutecm.generator.Catalogue;
+import allaboutecm.generator.CatalogueGenerator;
 import allaboutecm.model.*;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
@@ -14,6 +17,8 @@ import java.lang.reflect.Array;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 import static org.mockito.Mockito.*;
 
@@ -320,6 +325,17 @@ class ECMMinerUnitTest {
             assertEquals(2011, years.get(0));
         }
 
+    @Test
+    public void busiestYearsShouldPutTheLaterYearFirstOnEqualCounts() {
+        when(dao.loadAll(Album.class)).thenReturn(Lists.newArrayList(
+                new Album(1984, "ECM 1001", "Album 1"),
+                new Album(2011, "ECM 1002", "Album 2"),
+                new Album(1970, "ECM 1003", "Album 3"),
+                new Album(1984, "ECM 1004", "Album 4")));
+
+        assertEquals(Lists.newArrayList(1984, 2011, 1970), ecmMiner.busiestYears(5));
+    }
+
     @ParameterizedTest
     @ValueSource(ints = {-1,0})
     public void impossibleKValueBusiestYear(int number){
@@ -504,6 +520,20 @@ class ECMMinerUnitTest {
     }
 
 
+    @Test
+    public void socialMusiciansRejectsKAboveDistinctMusiciansWhenLoadedTwice(){
+        Album album = new Album(1994, "ECM-1090", "Album1");
+        Musician musician1 = new Musician("Musician 1");
+        Musician musician2 = new Musician("Musician 2");
+        musician1.setAlbums(Sets.newHashSet(album));
+        musician2.setAlbums(Sets.newHashSet(album));
+        //The same two musicians, each loaded twice.
+        when(dao.loadAll(Musician.class)).thenReturn(Lists.newArrayList(musician1, musician2, musician1, musician2));
+
+        assertEquals(2, ecmMiner.mostSocialMusicians(2).size());
+        assertThrows(IllegalArgumentException.class, () -> ecmMiner.mostSocialMusicians(3));
+    }
+
     @ParameterizedTest
     @ValueSource(ints = {-1,0})
     public void impossibleKValueSocial(int number){
@@ -1021,7 +1051,7 @@ class ECMMinerUnitTest {
 
     @Test
     public void shouldReturnTheClosestConcertWhenThereIsOnlyOne() throws ParseException {
-        Concerts concert = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2020-10-20 09:19:29"),"test concert");
+        Concerts concert = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2090-10-20 09:19:29"),"test concert");
         when(dao.loadAll(Concerts.class)).thenReturn(Sets.newHashSet(concert));
 
         List<Concerts> concerts = ecmMiner.findNextConcerts(5);
@@ -1048,8 +1078,8 @@ class ECMMinerUnitTest {
 
     @Test
     public void shouldReturnEveryConcertWhenThereAreTwoAndRequiredFive() throws ParseException {
-        Concerts concert1 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2020-10-20 09:19:29"),"test concert");
-        Concerts concert2 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2030-10-20 09:19:29"),"test concert No.2");
+        Concerts concert1 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2090-10-20 09:19:29"),"test concert");
+        Concerts concert2 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2100-10-20 09:19:29"),"test concert No.2");
         when(dao.loadAll(Concerts.class)).thenReturn(Sets.newHashSet(concert1,concert2));
         List<Concerts> concerts = ecmMiner.findNextConcerts(5);
 
@@ -1060,8 +1090,8 @@ class ECMMinerUnitTest {
 
     @Test
     public void shouldReturnTwoConcertsWhenThereAreTwoWithTheSameTime() throws ParseException {
-        Concerts concert1 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2020-10-20 09:19:29"),"test concert");
-        Concerts concert2 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2020-10-20 09:19:29"),"test concert No.2");
+        Concerts concert1 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2090-10-20 09:19:29"),"test concert");
+        Concerts concert2 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2090-10-20 09:19:29"),"test concert No.2");
         when(dao.loadAll(Concerts.class)).thenReturn(Sets.newHashSet(concert1,concert2));
         List<Concerts> concerts = ecmMiner.findNextConcerts(1);
 
@@ -1073,8 +1103,8 @@ class ECMMinerUnitTest {
 
     @Test
     public void shouldReturnTheClosestConcertWhenRequireOne() throws ParseException {
-        Concerts concert1 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2020-10-20 09:19:29"),"test concert");
-        Concerts concert2 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2023-10-20 09:19:29"),"test concert No.2");
+        Concerts concert1 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2090-10-20 09:19:29"),"test concert");
+        Concerts concert2 = new Concerts(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2093-10-20 09:19:29"),"test concert No.2");
         when(dao.loadAll(Concerts.class)).thenReturn(Sets.newHashSet(concert1,concert2));
         List<Concerts> concerts = ecmMiner.findNextConcerts(1);
 
@@ -1082,4 +1112,166 @@ class ECMMinerUnitTest {
         assertTrue(concerts.contains(concert1));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldOrderConcertsMoreThanAMonthApart() {
+        long now = System.currentTimeMillis();
+        Concerts inAYear = new Concerts(new Date(now + 365 * 86_400_000L), "test concert");
+        Concerts inTwoMonths = new Concerts(new Date(now + 60 * 86_400_000L), "test concert No.2");
+        Concerts tomorrow = new Concerts(new Date(now + 86_400_000L), "test concert No.3");
+        when(dao.loadAll(Concerts.class)).thenReturn(Lists.newArrayList(inAYear, inTwoMonths, tomorrow));
+
+        assertEquals(Lists.newArrayList(tomorrow, inTwoMonths, inAYear), ecmMiner.findNextConcerts(3));
+    }
+
+    @Test
+    public void nextConcertsShouldBeSortedAgainOnlyAfterAConcertIsWritten() {
+        ObservableDAO observableDAO = new ObservableDAO(dao);
+        ecmMiner = new ECMMiner(observableDAO);
+        long now = System.currentTimeMillis();
+        Concerts tomorrow = new Concerts(new Date(now + 86_400_000L), "test concert");
+        Concerts nextWeek = new Concerts(new Date(now + 7 * 86_400_000L), "test concert No.2");
+        when(dao.loadAll(Concerts.class)).thenReturn(Lists.newArrayList(nextWeek));
+
+        assertEquals(Lists.newArrayList(nextWeek), ecmMiner.findNextConcerts(1));
+        observableDAO.createOrUpdate(new Album(1975, "ECM 1064/65", "The Köln Concert"));
+        assertEquals(Lists.newArrayList(nextWeek), ecmMiner.findNextConcerts(1));
+        verify(dao, times(1)).loadAll(Concerts.class);
+
+        when(dao.loadAll(Concerts.class)).thenReturn(Lists.newArrayList(nextWeek, tomorrow));
+        observableDAO.createOrUpdate(tomorrow);
+        assertEquals(Lists.newArrayList(tomorrow), ecmMiner.findNextConcerts(1));
+        assertEquals(Lists.newArrayList(tomorrow, nextWeek), ecmMiner.findNextConcerts(2));
+        verify(dao, times(2)).loadAll(Concerts.class);
+    }
+
+    @Test
+    public void equalConcertsShouldBeLeftOutWithoutCountingTowardsK() {
+        long now = System.currentTimeMillis();
+        Concerts tomorrow = new Concerts(new Date(now + 86_400_000L), "test concert");
+        Concerts sameTomorrow = new Concerts(new Date(now + 86_400_000L), "test concert");
+        Concerts nextWeek = new Concerts(new Date(now + 7 * 86_400_000L), "test concert No.2");
+        when(dao.loadAll(Concerts.class)).thenReturn(Lists.newArrayList(tomorrow, sameTomorrow, nextWeek));
+
+        assertEquals(Lists.newArrayList(tomorrow, nextWeek), ecmMiner.findNextConcerts(2));
+    }
+
+    @Test
+    public void pushDownShouldAskTheDaoForNextConcerts() {
+        ecmMiner = new ECMMiner(dao, true);
+        Concerts concert = new Concerts(new Date(System.currentTimeMillis() + 86_400_000L), "test concert");
+        when(dao.findNextConcerts(eq(20), any(Date.class))).thenReturn(Lists.newArrayList(concert));
+
+        assertEquals(Lists.newArrayList(concert), ecmMiner.findNextConcerts(20));
+        verify(dao, never()).loadAll(Concerts.class);
+    }
+
+    @Test
+    public void pushDownShouldAskTheDaoForBusiestYears() {
+        ecmMiner = new ECMMiner(dao, true);
+        when(dao.findBusiestYears(2)).thenReturn(Lists.newArrayList(2011, 2009));
+
+        List<Integer> years = ecmMiner.busiestYears(2);
+
+        assertEquals(Lists.newArrayList(2011, 2009), years);
+        verify(dao, never()).loadAll(Album.class);
+    }
+
+    @Test
+    public void pushDownShouldAskTheDaoForMostProlificMusicians() {
+        ecmMiner = new ECMMiner(dao, true);
+        Musician musician = new Musician("Keith Jarrett");
+        when(dao.findMostProlificMusicians(1, 1970, 1980)).thenReturn(Lists.newArrayList(musician));
+
+        List<Musician> musicians = ecmMiner.mostProlificMusicians(1, 1970, 1980);
+
+        assertEquals(1, musicians.size());
+        assertTrue(musicians.contains(musician));
+        verify(dao, never()).loadAll(Musician.class);
+    }
+
+    @Test
+    public void pushDownShouldCheckKAgainstTheAlbumCount() {
+        ecmMiner = new ECMMiner(dao, true);
+        when(dao.count(Album.class)).thenReturn(1L);
+
+        assertThrows(IllegalArgumentException.class, () -> ecmMiner.mostSellingAlbums(2));
+        assertThrows(IllegalArgumentException.class, () -> ecmMiner.highestRatedAlbums(2));
+    }
+
+    @Test
+    public void pagedMinerShouldStreamTheAlbumsItRanks() {
+        ecmMiner = new ECMMiner(dao, false, 2);
+        Album album1 = new Album(2011, "ECM 1001", "Album 1");
+        Album album2 = new Album(2011, "ECM 1002", "Album 2");
+        Album album3 = new Album(2009, "ECM 1003", "Album 3");
+        album1.setSales(10);
+        album2.setSales(30);
+        album3.setSales(20);
+        when(dao.streamAll(Album.class, 2)).thenAnswer(invocation -> Stream.of(album1, album2, album3));
+
+        assertEquals(Lists.newArrayList(2011, 2009), ecmMiner.busiestYears(2));
+        assertEquals(Lists.newArrayList(album2, album3), ecmMiner.mostSellingAlbums(2));
+        assertThrows(IllegalArgumentException.class, () -> ecmMiner.mostSellingAlbums(4));
+        verify(dao, never()).loadAll(Album.class);
+    }
+
+    @Test
+    public void pagedMinerShouldStillNeedTheGivenAlbumAmongTheSimilarOnes() {
+        ecmMiner = new ECMMiner(dao, false, 2);
+        Album album = new Album(2011, "ECM 1001", "Album 1");
+        when(dao.streamAll(Album.class, 2)).thenAnswer(invocation -> Stream.of(new Album(2011, "ECM 1002", "Album 2")));
+
+        assertThrows(IllegalArgumentException.class, () -> ecmMiner.mostSimilarAlbums(1, album));
+    }
+
+    @Test
+    public void minerShouldNotAcceptANegativePageSize() {
+        assertThrows(IllegalArgumentException.class, () -> new ECMMiner(dao, false, -1));
+    }
+
+    @Test
+    public void similarAlbumsForAllShouldMatchTheScanOfEachAlbum() {
+        Catalogue catalogue = new CatalogueGenerator(200, 500, 0, 0, 0, 7).generate();
+        when(dao.loadAll(Album.class)).thenReturn(catalogue.getAlbums());
+
+        Map<Album, List<Album>> similar = ecmMiner.mostSimilarAlbumsForAll(10);
+
+        assertEquals(500, similar.size());
+        for (Album album : catalogue.getAlbums()) {
+            assertEquals(ecmMiner.mostSimilarAlbums(10, album), similar.get(album));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {-1, 1})
+    public void similarAlbumsForAllShouldNotAcceptImpossibleK(int k) {
+        when(dao.loadAll(Album.class)).thenReturn(Lists.newArrayList(new Album(1975, "ECM 1064/65", "The Köln Concert")));
+
+        assertThrows(IllegalArgumentException.class, () -> ecmMiner.mostSimilarAlbumsForAll(k));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 200})
+    public void parallelMinerShouldRankLikeTheSequentialOne(int pageSize) {
+        //Few distinct ratings and sizes, so most rankings are decided by how ties are broken.
+        Catalogue catalogue = new CatalogueGenerator(300, 600, 2, 2, 0, 42).generate();
+        when(dao.loadAll(Album.class)).thenReturn(catalogue.getAlbums());
+        when(dao.loadAll(Musician.class)).thenReturn(catalogue.getMusicians());
+        when(dao.streamAll(Album.class, pageSize)).thenAnswer(invocation -> catalogue.getAlbums().stream());
+        when(dao.streamAll(Musician.class, pageSize)).thenAnswer(invocation -> catalogue.getMusicians().stream());
+        ECMMiner sequential = new ECMMiner(dao, false, pageSize);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ECMMiner parallel = new ECMMiner(dao, false, pageSize, pool);
+            Album album = catalogue.getAlbums().iterator().next();
+
+            assertEquals(sequential.mostSimilarAlbums(20, album), parallel.mostSimilarAlbums(20, album));
+            assertEquals(sequential.highestRatedAlbums(20), parallel.highestRatedAlbums(20));
+            assertEquals(sequential.mostProlificMusicians(5, -1, -1), parallel.mostProlificMusicians(5, -1, -1));
+            assertEquals(sequential.mostProlificMusicians(5, 1980, 1995), parallel.mostProlificMusicians(5, 1980, 1995));
+            assertEquals(sequential.mostSocialMusicians(20), parallel.mostSocialMusicians(20));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
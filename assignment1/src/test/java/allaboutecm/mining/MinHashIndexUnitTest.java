@@ -0,0 +1,122 @@
+package allaboutecm.mining;
+
+import allaboutecm.generator.Catalogue;
+import allaboutecm.generator.CatalogueGenerator;
+import allaboutecm.model.Album;
+import allaboutecm.model.Musician;
+import allaboutecm.model.Track;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinHashIndexUnitTest {
+
+    @Test
+    public void shouldFindTheAlbumSharingMostFeatures() {
+        Musician musician1 = new Musician("Keith Jarrett");
+        Musician musician2 = new Musician("Jan Garbarek");
+        Album query = new Album(1975, "ECM 1001", "Belonging");
+        Album live = new Album(1979, "ECM 1002", "Belonging Live");
+        Album other = new Album(1980, "ECM 1003", "Dis");
+        query.setFeaturedMusicians(Lists.newArrayList(musician1, musician2));
+        live.setFeaturedMusicians(Lists.newArrayList(musician2, musician1));
+        other.setFeaturedMusicians(Lists.newArrayList(new Musician("Ralph Towner")));
+        query.setTracks(Sets.newHashSet(new Track("Spiral Dance", "4:08", "Jazz", 1)));
+        live.setTracks(Sets.newHashSet(new Track("Spiral Dance", "5:12", "Jazz", 1)));
+        other.setTracks(Sets.newHashSet(new Track("Vandrer", "6:40", "Folk", 1)));
+
+        MinHashIndex index = MinHashIndex.build(Lists.newArrayList(query, live, other));
+
+        assertEquals(Lists.newArrayList(live), index.mostSimilar(2, query));
+        assertEquals(Lists.newArrayList(live), index.mostSimilarExact(2, query));
+    }
+
+    @Test
+    public void jaccardShouldCompareSortedFeatureSets() {
+        assertEquals(0.5, MinHashIndex.jaccard(new long[]{1, 2, 3}, new long[]{2, 3, 4}));
+        assertEquals(1.0, MinHashIndex.jaccard(new long[]{-5, 7}, new long[]{-5, 7}));
+        assertEquals(0.0, MinHashIndex.jaccard(new long[]{1}, new long[]{2}));
+        assertEquals(0.0, MinHashIndex.jaccard(new long[0], new long[0]));
+    }
+
+    @Test
+    public void featuresShouldNotDependOnTrackOrderOrNameSpacing() {
+        Album album1 = new Album(1975, "ECM 1001", "The  Köln Concert");
+        Album album2 = new Album(1975, "ECM 1002", "the Köln concert");
+        Track track1 = new Track("Part I", "26:01", "Jazz", 1);
+        Track track2 = new Track("Part II", "34:40", "Jazz", 2);
+        album1.setTracks(Sets.newLinkedHashSet(Lists.newArrayList(track1, track2)));
+        album2.setTracks(Sets.newLinkedHashSet(Lists.newArrayList(track2, track1)));
+
+        assertArrayEquals(MinHashIndex.features(album1), MinHashIndex.features(album2));
+    }
+
+    @Test
+    public void approximateResultsShouldBeRankedLikeTheExactOnes() {
+        Catalogue catalogue = new CatalogueGenerator(300, 1000, 4, 0, 0, 3).generate();
+        MinHashIndex index = MinHashIndex.build(catalogue.getAlbums(), 64, 2);
+
+        int found = 0;
+        int expected = 0;
+        for (Album album : catalogue.getAlbums().subList(0, 100)) {
+            List<Album> exact = index.mostSimilarExact(5, album);
+            List<Album> approximate = index.mostSimilar(5, album);
+            //Every approximate result is a true candidate, so the exact search ranks the same albums at least as high.
+            List<Album> exactOfCandidates = Lists.newArrayList(exact);
+            exactOfCandidates.retainAll(approximate);
+            assertEquals(exactOfCandidates, approximate.subList(0, exactOfCandidates.size()));
+            found += exactOfCandidates.size();
+            expected += exact.size();
+        }
+        assertTrue(found >= 0.8 * expected, "recall was " + found / (double) expected);
+    }
+
+    @Test
+    public void featuresOfMostAlbumsShouldNotMakeThemSimilar() {
+        Musician sessionPlayer = new Musician("Manfred Eicher");
+        List<Album> albums = Lists.newArrayList();
+        for (int i = 0; i < 150; i++) {
+            Album album = new Album(1975, "ECM " + (1000 + i), "Q" + i);
+            album.setFeaturedMusicians(Lists.newArrayList(sessionPlayer));
+            albums.add(album);
+        }
+
+        MinHashIndex index = MinHashIndex.build(albums);
+
+        assertTrue(index.mostSimilar(5, albums.get(0)).isEmpty());
+        assertTrue(index.mostSimilarExact(5, albums.get(0)).isEmpty());
+    }
+
+    @Test
+    public void shouldNotAcceptAnAlbumOutsideTheIndex() {
+        MinHashIndex index = MinHashIndex.build(Lists.newArrayList(new Album(1975, "ECM 1001", "Album 1")));
+
+        assertThrows(IllegalArgumentException.class, () -> index.mostSimilar(0, new Album(1975, "ECM 1002", "Album 2")));
+        assertThrows(NullPointerException.class, () -> index.mostSimilarExact(0, null));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {-1, 2})
+    public void shouldNotAcceptImpossibleK(int k) {
+        Album album = new Album(1975, "ECM 1001", "Album 1");
+        MinHashIndex index = MinHashIndex.build(Lists.newArrayList(album, new Album(1976, "ECM 1002", "Album 2")));
+
+        assertThrows(IllegalArgumentException.class, () -> index.mostSimilar(k, album));
+        assertThrows(IllegalArgumentException.class, () -> index.mostSimilarExact(k, album));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, -1})
+    public void shouldNeedBandsAndRows(int size) {
+        List<Album> albums = Lists.newArrayList(new Album(1975, "ECM 1001", "Album 1"));
+
+        assertThrows(IllegalArgumentException.class, () -> MinHashIndex.build(albums, size, 4));
+        assertThrows(IllegalArgumentException.class, () -> MinHashIndex.build(albums, 32, size));
+    }
+}
@@ -0,0 +1,45 @@
+package allaboutecm.mining;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelScanUnitTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, ParallelScan.MIN_RANGE, 1000})
+    public void forEachShouldVisitEveryIndexOnce(int size) {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            AtomicIntegerArray visits = new AtomicIntegerArray(size);
+            ParallelScan.forEach(pool, size, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    visits.incrementAndGet(i);
+                }
+            });
+
+            for (int i = 0; i < size; i++) {
+                assertEquals(1, visits.get(i));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1000})
+    public void forEachShouldVisitTheWholeRangeWithoutAPool(int size) {
+        int[] ranges = new int[3];
+        ParallelScan.forEach(null, size, (from, to) -> {
+            ranges[0]++;
+            ranges[1] = from;
+            ranges[2] = to;
+        });
+
+        assertArrayEquals(new int[]{1, 0, size}, ranges);
+    }
+}
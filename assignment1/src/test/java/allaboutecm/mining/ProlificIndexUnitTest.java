@@ -0,0 +1,79 @@
+package allaboutecm.mining;
+
+import allaboutecm.dataaccess.DAO;
+import allaboutecm.dataaccess.neo4j.Neo4jDAO;
+import allaboutecm.generator.Catalogue;
+import allaboutecm.generator.CatalogueGenerator;
+import allaboutecm.model.Album;
+import allaboutecm.model.Musician;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProlificIndexUnitTest {
+
+    @Test
+    public void shouldCountTheAlbumsInsideTheWindowOnly() {
+        Musician musician = new Musician("Keith Jarrett");
+        musician.setAlbums(Sets.newHashSet(new Album(1975, "ECM 1001", "Album 1"),
+                new Album(1977, "ECM 1002", "Album 2"), new Album(1977, "ECM 1003", "Album 3"),
+                new Album(1990, "ECM 1004", "Album 4")));
+
+        ProlificIndex index = ProlificIndex.build(Lists.newArrayList(musician));
+
+        assertEquals(4, index.albumCount("Keith Jarrett", -1, -1));
+        assertEquals(3, index.albumCount("Keith Jarrett", 1975, 1977));
+        assertEquals(2, index.albumCount("Keith Jarrett", 1976, 1989));
+        assertEquals(3, index.albumCount("Keith Jarrett", 1977, -1));
+        assertEquals(1, index.albumCount("Keith Jarrett", -1, 1976));
+        assertEquals(0, index.albumCount("Keith Jarrett", 1980, 1970));
+        assertEquals(0, index.albumCount("Jan Garbarek", -1, -1));
+    }
+
+    @Test
+    public void musiciansWithTheKthCountShouldAllBeReturnedInNameOrder() {
+        Musician musician1 = new Musician("Keith Jarrett");
+        Musician musician2 = new Musician("Jan Garbarek");
+        Musician musician3 = new Musician("Arild Andersen");
+        Album album1 = new Album(1975, "ECM 1001", "Album 1");
+        Album album2 = new Album(1976, "ECM 1002", "Album 2");
+        musician1.setAlbums(Sets.newHashSet(album1, album2));
+        musician2.setAlbums(Sets.newHashSet(album1));
+        musician3.setAlbums(Sets.newHashSet(album2));
+
+        ProlificIndex index = ProlificIndex.build(Lists.newArrayList(musician1, musician2, musician3));
+
+        assertEquals(Lists.newArrayList(musician1), index.mostProlific(1, -1, -1));
+        assertEquals(Lists.newArrayList(musician1, musician3, musician2), index.mostProlific(2, -1, -1));
+        assertEquals(Lists.newArrayList(musician3, musician1), index.mostProlific(1, 1976, -1));
+        assertTrue(index.mostProlific(0, -1, -1).isEmpty());
+        assertTrue(index.mostProlific(3, 2000, 2010).isEmpty());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 5, 40})
+    public void shouldRankLikeTheMinerForEveryWindow(int k) {
+        Catalogue catalogue = new CatalogueGenerator(200, 800, 0, 0, 0, 13).generate();
+        DAO dao = mock(Neo4jDAO.class);
+        when(dao.loadAll(Musician.class)).thenReturn(catalogue.getMusicians());
+        ECMMiner ecmMiner = new ECMMiner(dao);
+
+        ProlificIndex index = ProlificIndex.build(catalogue.getMusicians());
+
+        assertTrue(index.mostProlific(k, -1, -1).size() >= k);
+        assertEquals(ecmMiner.mostProlificMusicians(k, -1, -1), index.mostProlific(k, -1, -1));
+        for (int start = 1969; start <= 2020; start += 7) {
+            for (int end = start; end <= 2020; end += 5) {
+                assertEquals(ecmMiner.mostProlificMusicians(k, start, end), index.mostProlific(k, start, end));
+            }
+            assertEquals(ecmMiner.mostProlificMusicians(k, start, -1), index.mostProlific(k, start, -1));
+            assertEquals(ecmMiner.mostProlificMusicians(k, -1, start), index.mostProlific(k, -1, start));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package allaboutecm.mining;
+
+import allaboutecm.generator.Catalogue;
+import allaboutecm.generator.CatalogueGenerator;
+import allaboutecm.model.Album;
+import allaboutecm.model.Musician;
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimilarityIndexUnitTest {
+
+    @Test
+    public void shouldRankSharedMusiciansAboveTheSameYear() {
+        Musician musician1 = new Musician("Keith Jarrett");
+        Musician musician2 = new Musician("Jan Garbarek");
+        Album query = new Album(1975, "ECM 1001", "Album 1");
+        Album sameYear = new Album(1975, "ECM 1002", "Album 2");
+        Album oneShared = new Album(1980, "ECM 1003", "Album 3");
+        Album bothShared = new Album(1990, "ECM 1004", "Album 4");
+        query.setFeaturedMusicians(Lists.newArrayList(musician1, musician2));
+        oneShared.setFeaturedMusicians(Lists.newArrayList(musician2));
+        bothShared.setFeaturedMusicians(Lists.newArrayList(musician2, musician1));
+
+        SimilarityIndex index = SimilarityIndex.build(Lists.newArrayList(query, sameYear, oneShared, bothShared));
+
+        assertEquals(Lists.newArrayList(bothShared, oneShared, sameYear), index.mostSimilar(3, query));
+        assertEquals(Lists.newArrayList(bothShared), index.mostSimilar(1, query));
+    }
+
+    @Test
+    public void albumsSharingNothingShouldFillTheRankingLatestFirst() {
+        Album query = new Album(1975, "ECM 1001", "Album 1");
+        Album album2 = new Album(1980, "ECM 1002", "Album 2");
+        Album album3 = new Album(1975, "ECM 1003", "Album 3");
+        Album album4 = new Album(1990, "ECM 1004", "Album 4");
+
+        SimilarityIndex index = SimilarityIndex.build(Lists.newArrayList(album2, query, album3, album4));
+
+        assertEquals(Lists.newArrayList(album3, album4, album2), index.mostSimilar(3, query));
+    }
+
+    @Test
+    public void shouldNotAcceptAnAlbumOutsideTheIndex() {
+        SimilarityIndex index = SimilarityIndex.build(Lists.newArrayList(new Album(1975, "ECM 1001", "Album 1")));
+
+        assertThrows(IllegalArgumentException.class, () -> index.mostSimilar(0, new Album(1975, "ECM 1002", "Album 2")));
+        assertThrows(NullPointerException.class, () -> index.mostSimilar(0, null));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {-1, 2})
+    public void shouldNotAcceptImpossibleK(int k) {
+        Album album = new Album(1975, "ECM 1001", "Album 1");
+        SimilarityIndex index = SimilarityIndex.build(Lists.newArrayList(album, new Album(1976, "ECM 1002", "Album 2")));
+
+        assertThrows(IllegalArgumentException.class, () -> index.mostSimilar(k, album));
+        assertThrows(IllegalArgumentException.class, () -> index.mostSimilarForAll(k, null));
+    }
+
+    @Test
+    public void batchShouldMatchSingleQueriesOnAndOffThePool() {
+        Catalogue catalogue = new CatalogueGenerator(100, 400, 0, 0, 0, 9).generate();
+        SimilarityIndex index = SimilarityIndex.build(catalogue.getAlbums());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Map<Album, List<Album>> sequential = index.mostSimilarForAll(5, null);
+
+            assertEquals(catalogue.getAlbums(), Lists.newArrayList(sequential.keySet()));
+            for (Album album : catalogue.getAlbums()) {
+                assertEquals(index.mostSimilar(5, album), sequential.get(album));
+            }
+            assertEquals(sequential, index.mostSimilarForAll(5, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package allaboutecm.mining;
+
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKUnitTest {
+
+    @Test
+    public void shouldReturnHighestScoresFirst() {
+        TopK<String> topK = new TopK<>(2);
+        topK.offer("low", 1);
+        topK.offer("high", 10);
+        topK.offer("middle", 5);
+
+        assertEquals(Lists.newArrayList("high", "middle"), topK.toList());
+    }
+
+    @Test
+    public void shouldPreferTheItemOfferedLaterOnTies() {
+        TopK<String> topK = new TopK<>(2);
+        topK.offer("first", 3);
+        topK.offer("second", 3);
+        topK.offer("third", 3);
+
+        assertEquals(Lists.newArrayList("third", "second"), topK.toList());
+    }
+
+    @Test
+    public void shouldReturnEverythingWhenKIsLargerThanTheInput() {
+        TopK<String> topK = new TopK<>(5);
+        topK.offer("a", 1.5f);
+        topK.offer("b", 2.5f);
+
+        assertEquals(2, topK.size());
+        assertEquals(Lists.newArrayList("b", "a"), topK.toList());
+    }
+
+    @Test
+    public void shouldKeepNothingWhenKIsZero() {
+        TopK<String> topK = new TopK<>(0);
+        topK.offer("a", 1);
+
+        assertTrue(topK.toList().isEmpty());
+    }
+
+    @Test
+    public void shouldNotAcceptNegativeK() {
+        assertThrows(IllegalArgumentException.class, () -> new TopK<String>(-1));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 7, 100})
+    public void shouldMatchAFullStableSortWalkedBackwards(int k) {
+        Random random = new Random(k);
+        List<int[]> entries = Lists.newArrayList();
+        TopK<Integer> topK = new TopK<>(k);
+        for (int i = 0; i < 1000; i++) {
+            int score = random.nextInt(50);
+            entries.add(new int[]{i, score});
+            topK.offer(i, score);
+        }
+
+        //The ranking ECMMiner used before: stable ascending sort, then take k entries from the end.
+        entries.sort((a, b) -> Integer.compare(a[1], b[1]));
+        List<Integer> expected = Lists.newArrayList();
+        for (int i = entries.size() - 1; i >= entries.size() - k; i--) {
+            expected.add(entries.get(i)[0]);
+        }
+
+        assertEquals(expected, topK.toList());
+    }
+
+    @Test
+    public void mergedPartialsShouldMatchASingleScan() {
+        Random random = new Random(5);
+        TopK<Integer> whole = new TopK<>(10);
+        TopK<Integer> left = new TopK<>(10);
+        TopK<Integer> right = new TopK<>(10);
+        for (int i = 0; i < 500; i++) {
+            int score = random.nextInt(20);
+            whole.offer(i, score);
+            (i < 250 ? left : right).offer(i, score, i);
+        }
+
+        //Merging in either order gives the same ranking, since ties are broken by position, not by merge order.
+        assertEquals(whole.toList(), new TopK<Integer>(10).merge(right).merge(left).toList());
+        assertEquals(whole.toList(), left.merge(right).toList());
+    }
+}
@@ -326,6 +326,31 @@ class AlbumUnitTest {
         assertEquals(album.getRatings(), ratingsList);
     }
 
+    @Test
+    @DisplayName("Rating totals follow the ratings")
+    public void ratingTotalsFollowTheRatings() {
+        assertEquals(0, album.getRatingCount());
+        assertEquals(0.0, album.getAverageRating());
+
+        album.setRatings(Sets.newHashSet(new Rating(2, "Rolling Stone Magazine"), new Rating(3, "Life Magazine")));
+        assertTrue(album.addRating(new Rating(5, "New Magazine")));
+        assertFalse(album.addRating(new Rating(5, "New Magazine")));
+        assertEquals(3, album.getRatingCount());
+        assertEquals(10, album.getRatingSum());
+        assertEquals(10 / 3.0, album.getAverageRating());
+
+        album.getRatings().removeIf(rating -> rating.getRatingScore() < 5);
+        album.recountRatings();
+        assertEquals(1, album.getRatingCount());
+        assertEquals(5.0, album.getAverageRating());
+    }
+
+    @Test
+    @DisplayName("Rating totals cannot count a null rating")
+    public void ratingTotalsCannotCountNull() {
+        assertThrows(NullPointerException.class, () -> album.addRating(null));
+    }
+
     @Test
     @DisplayName("None of the MusicianInstruments can be null")
     //No element of what is passed to setInstruments may be null.
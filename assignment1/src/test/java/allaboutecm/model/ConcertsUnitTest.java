@@ -37,17 +37,26 @@ class ConcertsUnitTest {
 
     @Test
     public void hashCodeTest() {
+        Concerts same = new Concerts(new Date(date.getTime()), name);
         concert.setCountry(country);
         concert.setLocation(location);
         concert.setFeaturedMusicians(featuredMusicians);
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + ((country == null) ? 0 : country.hashCode());
-        result = prime * result + ((date == null) ? 0 : date.hashCode());
-        result = prime * result + ((featuredMusicians == null) ? 0 : featuredMusicians.hashCode());
-        result = prime * result + ((location == null) ? 0 : location.hashCode());
-        result = prime * result + ((name == null) ? 0 : name.hashCode());
-        assertEquals(result, concert.hashCode());
+        same.setCountry(country);
+        same.setLocation(location);
+        //The musicians playing are not part of what makes the concert, only name, date and place are.
+        assertEquals(same, concert);
+        assertEquals(same.hashCode(), concert.hashCode());
+    }
+
+    @Test
+    void equalsComparesNameDateAndPlace() {
+        assertEquals(new Concerts(new Date(date.getTime()), name), concert);
+        assertNotEquals(new Concerts(new Date(date.getTime() + 1), name), concert);
+        assertNotEquals(new Concerts(date, "Other Name"), concert);
+        Concerts elsewhere = new Concerts(date, name);
+        elsewhere.setLocation(location);
+        assertNotEquals(elsewhere, concert);
+        assertNotEquals(concert, elsewhere);
     }
 
     @Test
@@ -13,6 +13,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 
@@ -149,16 +150,41 @@ public class MusicianUnitTest {
     }
 
     @Test
-    @DisplayName("Musician equals reports a false true when Album Sets do not match")
-    //Equals must be false when albums do not match
-    public void equalsMusicianExactlyMatchAlbum() {
+    @DisplayName("Musician equals does not depend on the Album Sets")
+    //A musician stays the same one while recording more albums, equals and hashCode do not look at them
+    public void equalsMusicianIgnoresAlbums() {
 
         Musician musician5 = new Musician("anything name");
         Album album1 = new Album(1975, "ECM 1064/65", "The Köln Concert");
         Album albs[] = {album1};
         Set<Album> albumSet = new HashSet<>(Arrays.asList(albs));
         musician5.setAlbums(albumSet);
-        assertEquals(musician.equals(musician5), false);
+        assertEquals(musician.equals(musician5), true);
+        assertEquals(musician.hashCode(), musician5.hashCode());
+    }
+
+    @Test
+    @DisplayName("Musician equals compares URLs by their text")
+    //Equal URLs made separately match without looking up their host
+    public void equalsMusicianComparesURLText() throws MalformedURLException {
+        Musician musician6 = new Musician("anything name");
+        musician.setMusicianUrl(new URL("https://www.ecm.com/no-such-host-lookup"));
+        musician6.setMusicianUrl(new URL("https://www.ecm.com/no-such-host-lookup"));
+        assertEquals(musician.equals(musician6), true);
+        musician6.setMusicianUrl(new URL("https://www.ecm.com/other"));
+        assertEquals(musician.equals(musician6), false);
+    }
+
+    @Test
+    @DisplayName("Musician URLs of the same text are one URL")
+    //Reading a URL again, or the same URL of another musician, does not make a new one
+    public void musicianURLsOfTheSameTextAreShared() throws MalformedURLException {
+        Musician musician6 = new Musician("another name");
+        musician.setWikiPage(new URL("https://en.wikipedia.org/wiki/ECM_Records"));
+        musician6.setWikiPage(new URL("https://en.wikipedia.org/wiki/ECM_Records"));
+        assertSame(musician.getWikiPage(), musician.getWikiPage());
+        assertSame(musician.getWikiPage(), musician6.getWikiPage());
+        assertEquals(new URL("https://en.wikipedia.org/wiki/ECM_Records").toString(), musician6.getWikiPage().toString());
     }
 
     @Test
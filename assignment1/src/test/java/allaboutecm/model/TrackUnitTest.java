@@ -187,6 +187,13 @@ public class TrackUnitTest {
         assertEquals(track.equals(track1), false);
     }
 
+    @Test
+    @DisplayName("Equals should compare durations by value")
+    public void trackEqualsComparesDurationValues(){
+        Track track1 = new Track("Track 1", new String("4:11"), "Jazz",1);
+        assertEquals(track.equals(track1), true);
+    }
+
     @Test
     @DisplayName("track hashcodes cannot be different")
     public void trackHashcodesEqualOrNot() {